@@ -0,0 +1,133 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.bench;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import graph.Graph;
+import graph.metrics.InstrumentedGraph;
+
+/**
+ * Throughput of each Graph operation on ConcreteEdgesGraph and
+ * ConcreteVerticesGraph, for graphs of 10 to 10^6 edges with sparse, dense
+ * and power-law degree distributions, called directly or through an
+ * InstrumentedGraph.
+ * 
+ * <p>Comparing instrumented=true with instrumented=false gives the cost of the
+ * metrics. InstrumentedGraph passes each call to OperationMetrics in a
+ * capturing lambda; its gc.alloc.rate.norm should equal that of the bare
+ * graph, showing that escape analysis removed the lambda.
+ * 
+ * <p>Every benchmark leaves the graph as it found it, so a trial can reuse one
+ * graph: mutating benchmarks undo their change in the same invocation, and
+ * their names say so. Forks run without -ea, so checkRep assertions do not
+ * distort the numbers. Run through {@link BenchmarkRunner} to get the gc
+ * profiler's allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GraphBenchmark {
+    
+    @Param({"EDGES", "VERTICES"})
+    public GraphWorkload.Implementation implementation;
+    
+    @Param({"SPARSE", "DENSE", "POWER_LAW"})
+    public GraphWorkload.Shape shape;
+    
+    @Param({"10", "1000", "100000", "1000000"})
+    public int edges;
+    
+    @Param({"false", "true"})
+    public boolean instrumented;
+    
+    private GraphWorkload workload;
+    private Graph<String> graph;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        workload = new GraphWorkload(shape, edges);
+        graph = workload.build(implementation);
+        if (instrumented) {
+            graph = new InstrumentedGraph<>(graph);
+        }
+    }
+    
+    /** @return index of the next workload edge, cycling through all of them */
+    private int nextEdge() {
+        int i = next;
+        next = i + 1 == workload.sources.length ? 0 : i + 1;
+        return i;
+    }
+    
+    private String nextVertex() {
+        return workload.labels[workload.sources[nextEdge()]];
+    }
+    
+    @Benchmark
+    public boolean addExisting() {
+        return graph.add(nextVertex());
+    }
+    
+    @Benchmark
+    public boolean addNewAndRemove() {
+        graph.add("new");
+        return graph.remove("new");
+    }
+    
+    @Benchmark
+    public int setUpdate() {
+        int i = nextEdge();
+        return graph.set(workload.labels[workload.sources[i]], workload.labels[workload.targets[i]],
+                workload.weights[i]);
+    }
+    
+    @Benchmark
+    public int setInsertAndDelete() {
+        int i = nextEdge();
+        String source = workload.labels[workload.sources[i]];
+        graph.set(source, "new", 1);
+        return graph.set(source, "new", 0);
+    }
+    
+    @Benchmark
+    public int removeAndRestore() {
+        String vertex = nextVertex();
+        Map<String, Integer> targets = graph.targets(vertex);
+        Map<String, Integer> sources = graph.sources(vertex);
+        graph.remove(vertex);
+        for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+            graph.set(vertex, edge.getKey(), edge.getValue());
+        }
+        for (Map.Entry<String, Integer> edge : sources.entrySet()) {
+            graph.set(edge.getKey(), vertex, edge.getValue());
+        }
+        graph.add(vertex);
+        return targets.size() + sources.size();
+    }
+    
+    @Benchmark
+    public Set<String> vertices() {
+        return graph.vertices();
+    }
+    
+    @Benchmark
+    public Map<String, Integer> sources() {
+        return graph.sources(workload.labels[workload.targets[nextEdge()]]);
+    }
+    
+    @Benchmark
+    public Map<String, Integer> targets() {
+        return graph.targets(nextVertex());
+    }
+    
+}
@@ -0,0 +1,130 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.bench;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import graph.ConcreteEdgesGraph;
+import graph.ConcreteVerticesGraph;
+import graph.Graph;
+
+/**
+ * Reproducible random graphs for the benchmarks.
+ * 
+ * <p>A workload is a fixed list of distinct edges over vertices "v0".."v(n-1)",
+ * drawn from a seeded Random with one of three degree distributions:
+ * <ul><li> sparse: about 2 edges per vertex, endpoints uniform
+ *     <li> dense: about sqrt(edges) vertices, so the graph is nearly complete
+ *     <li> power-law: about 4 edges per vertex, endpoints skewed towards low
+ *          vertex numbers so a few hubs have most of the edges </ul>
+ */
+public final class GraphWorkload {
+    
+    /** Degree distribution of a workload. */
+    public enum Shape { SPARSE, DENSE, POWER_LAW }
+    
+    /** Graph implementation under test. */
+    public enum Implementation {
+        EDGES(ConcreteEdgesGraph::new),
+        VERTICES(ConcreteVerticesGraph::new);
+        
+        private final Supplier<Graph<String>> factory;
+        
+        Implementation(Supplier<Graph<String>> factory) {
+            this.factory = factory;
+        }
+        
+        Graph<String> empty() {
+            return factory.get();
+        }
+    }
+    
+    private static final long SEED = 6005L;
+    
+    final String[] labels;
+    final int[] sources;
+    final int[] targets;
+    final int[] weights;
+    
+    // Abstraction function:
+    //   Represents the edges labels[sources[i]] -> labels[targets[i]] with weight weights[i]
+    // Representation invariant:
+    //   sources, targets and weights have the same length; (source, target) pairs are distinct
+    //   weights are positive
+    // Safety from rep exposure:
+    //   arrays are package-private and read by the benchmarks only; the class and its enums
+    //   are public because the code JMH generates for @Param fields lives in another package
+    
+    /**
+     * Generate a workload.
+     * @param shape degree distribution
+     * @param edges number of distinct edges, at least 1
+     * @throws IllegalArgumentException if the shape has too few vertices for edges distinct edges
+     */
+    GraphWorkload(Shape shape, int edges) {
+        int vertices;
+        switch (shape) {
+        case DENSE:
+            vertices = (int) Math.ceil(Math.sqrt(edges)) + 1;
+            break;
+        case POWER_LAW:
+            vertices = Math.max((int) Math.ceil(Math.sqrt(edges)) + 1, edges / 4);
+            break;
+        default:
+            vertices = Math.max(2, edges / 2);
+        }
+        if (edges > (long) vertices * vertices) {
+            throw new IllegalArgumentException(
+                    "Cannot draw " + edges + " distinct edges on " + vertices + " vertices");
+        }
+        labels = new String[vertices];
+        for (int v = 0; v < vertices; v++) {
+            labels[v] = "v" + v;
+        }
+        sources = new int[edges];
+        targets = new int[edges];
+        weights = new int[edges];
+        Random random = new Random(SEED);
+        Set<Long> seen = new HashSet<>(edges * 2);
+        int count = 0;
+        while (count < edges) {
+            int source = pick(shape, random, vertices);
+            int target = pick(shape, random, vertices);
+            if (seen.add(((long) source << 32) | target)) {
+                sources[count] = source;
+                targets[count] = target;
+                weights[count] = 1 + random.nextInt(100);
+                count++;
+            }
+        }
+    }
+    
+    private static int pick(Shape shape, Random random, int vertices) {
+        if (shape == Shape.POWER_LAW) {
+            double u = random.nextDouble();
+            return (int) (vertices * u * u * u);
+        }
+        return random.nextInt(vertices);
+    }
+    
+    /**
+     * Build a graph containing every edge of this workload.
+     * @param implementation graph implementation to fill
+     * @return a new graph
+     */
+    Graph<String> build(Implementation implementation) {
+        Graph<String> graph = implementation.empty();
+        for (String label : labels) {
+            graph.add(label);
+        }
+        for (int i = 0; i < sources.length; i++) {
+            graph.set(labels[sources[i]], labels[targets[i]], weights[i]);
+        }
+        return graph;
+    }
+    
+}
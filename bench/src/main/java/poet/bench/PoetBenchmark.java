@@ -0,0 +1,195 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import poet.GraphPoet;
+
+/**
+ * End-to-end GraphPoet benchmark on synthetic Zipf-distributed corpora.
+ * 
+ * <p>For each corpus size it generates (or reuses) a reproducible corpus,
+ * then records the time to construct the GraphPoet, the peak heap used while
+ * doing so, and the latency percentiles of poem() for short and long inputs.
+ * With {@code --parallelism N} for N > 0, the GraphPoet is built in parallel on
+ * a pool of N workers; by default it is built sequentially.
+ * The results are written as JSON. A size that fails (for example with
+ * OutOfMemoryError) is reported with its error instead of aborting the run.
+ * 
+ * <pre>
+ *   java -Xmx8g -cp bench/target/benchmarks.jar poet.bench.PoetBenchmark \
+ *        [--sizes 1M,16M,256M,2G] [--dir corpora] [--report poet-report.json] [--samples 2000] \
+ *        [--parallelism 0]
+ * </pre>
+ */
+public class PoetBenchmark {
+    
+    private static final int VOCABULARY = 50_000;
+    private static final double EXPONENT = 1.0;
+    private static final long SEED = 6005L;
+    private static final int SHORT_WORDS = 4;
+    private static final int LONG_WORDS = 200;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 100};
+    
+    /**
+     * Run the benchmark.
+     * 
+     * @param args options as described above
+     * @throws IOException if a corpus or the report cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        options.put("--sizes", "1M,16M,256M");
+        options.put("--dir", "corpora");
+        options.put("--report", "poet-report.json");
+        options.put("--samples", "2000");
+        options.put("--parallelism", "0");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        File dir = new File(options.get("--dir"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create " + dir);
+        }
+        int samples = Integer.parseInt(options.get("--samples"));
+        int parallelism = Integer.parseInt(options.get("--parallelism"));
+        ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+        ZipfCorpus generator = new ZipfCorpus(VOCABULARY, EXPONENT, SEED);
+        
+        List<String> results = new ArrayList<>();
+        for (String size : options.get("--sizes").split(",")) {
+            long bytes = parseSize(size.trim());
+            File corpus = new File(dir, "zipf-" + size.trim() + ".txt");
+            generator.write(corpus, bytes);
+            results.add(run(generator, corpus, bytes, samples, pool));
+            System.out.println(results.get(results.size() - 1));
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        
+        try (PrintWriter report = new PrintWriter(options.get("--report"), StandardCharsets.UTF_8.name())) {
+            report.println("{");
+            report.println("  \"vocabulary\": " + VOCABULARY + ",");
+            report.println("  \"exponent\": " + EXPONENT + ",");
+            report.println("  \"seed\": " + SEED + ",");
+            report.println("  \"maxHeapBytes\": " + Runtime.getRuntime().maxMemory() + ",");
+            report.println("  \"parallelism\": " + parallelism + ",");
+            report.println("  \"results\": [");
+            report.println(String.join(",\n", results));
+            report.println("  ]");
+            report.println("}");
+        }
+    }
+    
+    /**
+     * Benchmark one corpus.
+     * @param pool pool to build the GraphPoet on, or null to build it sequentially
+     * @return JSON object describing the result
+     */
+    private static String run(ZipfCorpus generator, File corpus, long bytes, int samples, ForkJoinPool pool) {
+        StringBuilder json = new StringBuilder();
+        json.append("    {\"corpus\": \"").append(corpus.getName()).append("\", \"bytes\": ")
+            .append(corpus.length());
+        GraphPoet poet;
+        System.gc();
+        resetPeakHeap();
+        long start = System.nanoTime();
+        try {
+            poet = pool == null ? new GraphPoet(corpus) : new GraphPoet(corpus, pool);
+        } catch (IOException | OutOfMemoryError e) {
+            return json.append(", \"error\": \"").append(e.toString().replace('"', '\''))
+                    .append("\"}").toString();
+        }
+        long buildNanos = System.nanoTime() - start;
+        json.append(", \"buildMillis\": ").append(buildNanos / 1_000_000)
+            .append(", \"buildMBPerSecond\": ")
+            .append(String.format(Locale.ROOT, "%.1f", bytes / 1e6 / (buildNanos / 1e9)))
+            .append(", \"peakHeapBytes\": ").append(peakHeap());
+        
+        Random random = new Random(SEED);
+        json.append(", \"poemShort\": ").append(latencies(poet, generator, random, SHORT_WORDS, samples));
+        json.append(", \"poemLong\": ").append(latencies(poet, generator, random, LONG_WORDS, samples / 10 + 1));
+        return json.append("}").toString();
+    }
+    
+    /**
+     * Measure poem() latency.
+     * @return JSON object with the input length, sample count and latency percentiles in microseconds
+     */
+    private static String latencies(GraphPoet poet, ZipfCorpus generator, Random random, int words, int samples) {
+        String[] inputs = new String[samples];
+        for (int i = 0; i < samples; i++) {
+            inputs[i] = generator.line(random, words);
+        }
+        // warm up on the same distribution before timing
+        int sink = 0;
+        for (int i = 0; i < Math.min(samples, 200); i++) {
+            sink += poet.poem(inputs[i]).length();
+        }
+        long[] nanos = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            sink += poet.poem(inputs[i]).length();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        StringBuilder json = new StringBuilder("{\"words\": " + words + ", \"samples\": " + samples);
+        for (double percentile : PERCENTILES) {
+            int index = (int) Math.min(samples - 1, Math.ceil(percentile / 100 * samples) - 1);
+            json.append(", \"").append(percentile == 100 ? "max" : "p" + formatPercentile(percentile))
+                .append("Micros\": ")
+                .append(String.format(Locale.ROOT, "%.1f", nanos[Math.max(0, index)] / 1e3));
+        }
+        json.append(", \"outputChars\": ").append(sink);
+        return json.append("}").toString();
+    }
+    
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile)
+                ? String.valueOf((int) percentile)
+                : String.valueOf(percentile).replace(".", "");
+    }
+    
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+    
+    /** @return sum of the peak usage of all heap pools since the last reset */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+    
+    /**
+     * Parse a size such as 512K, 16M or 2G.
+     * @param size decimal number with an optional K, M or G suffix (powers of 1024)
+     * @return size in bytes
+     */
+    static long parseSize(String size) {
+        char unit = Character.toUpperCase(size.charAt(size.length() - 1));
+        long scale = unit == 'K' ? 1L << 10 : unit == 'M' ? 1L << 20 : unit == 'G' ? 1L << 30 : 1;
+        String digits = scale == 1 ? size : size.substring(0, size.length() - 1);
+        return Long.parseLong(digits) * scale;
+    }
+    
+}
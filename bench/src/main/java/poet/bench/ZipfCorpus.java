@@ -0,0 +1,150 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Reproducible synthetic corpora whose word frequencies follow Zipf's law.
+ * 
+ * <p>The word of rank r (1-based) is drawn with probability proportional to
+ * 1 / r^exponent. Words are short pseudo-words spelled from the rank, some
+ * capitalized or followed by punctuation, written as lines of about a dozen
+ * words. The same seed, vocabulary, exponent and size always produce the same
+ * file byte for byte.
+ */
+final class ZipfCorpus {
+    
+    private final String[] vocabulary;
+    private final double[] cumulative;
+    private final double exponent;
+    private final long seed;
+    
+    // Abstraction function:
+    //   Represents the Zipf distribution over vocabulary where word i has
+    //   probability cumulative[i] - cumulative[i-1]
+    // Representation invariant:
+    //   vocabulary and cumulative have the same positive length
+    //   cumulative is increasing and ends at 1
+    // Safety from rep exposure:
+    //   Fields are private final and never returned
+    
+    /**
+     * Make a corpus generator.
+     * @param vocabularySize number of distinct words, at least 1
+     * @param exponent Zipf exponent, usually close to 1
+     * @param seed seed of the random word sequence
+     */
+    ZipfCorpus(int vocabularySize, double exponent, long seed) {
+        this.vocabulary = new String[vocabularySize];
+        this.cumulative = new double[vocabularySize];
+        this.exponent = exponent;
+        this.seed = seed;
+        double total = 0;
+        for (int rank = 1; rank <= vocabularySize; rank++) {
+            vocabulary[rank - 1] = spell(rank);
+            total += 1.0 / Math.pow(rank, exponent);
+            cumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < vocabularySize; i++) {
+            cumulative[i] /= total;
+        }
+        cumulative[vocabularySize - 1] = 1.0;
+    }
+    
+    /** @return a pronounceable pseudo-word unique to rank */
+    private static String spell(int rank) {
+        final String consonants = "bcdfghjklmnprstvwz";
+        final String vowels = "aeiou";
+        StringBuilder word = new StringBuilder();
+        int n = rank;
+        do {
+            word.append(consonants.charAt(n % consonants.length()));
+            n /= consonants.length();
+            word.append(vowels.charAt(n % vowels.length()));
+            n /= vowels.length();
+        } while (n > 0);
+        return word.toString();
+    }
+    
+    /**
+     * Draw one word.
+     * @param random source of randomness
+     * @return a vocabulary word
+     */
+    String next(Random random) {
+        int i = Arrays.binarySearch(cumulative, random.nextDouble());
+        return vocabulary[i >= 0 ? i : Math.min(-i - 1, vocabulary.length - 1)];
+    }
+    
+    /**
+     * Draw an input line for GraphPoet.poem().
+     * @param random source of randomness
+     * @param words number of words
+     * @return the words separated by single spaces
+     */
+    String line(Random random, int words) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                line.append(' ');
+            }
+            line.append(next(random));
+        }
+        return line.toString();
+    }
+    
+    /**
+     * Write a corpus file of about the requested size, unless an identical one
+     * is already there. A corpus counts as identical if the sidecar file
+     * next to it, named file + ".params" and written only once the corpus is
+     * complete, records the same vocabulary size, exponent, seed and size.
+     * @param file file to write
+     * @param bytes target size; the file ends at the first line break after it
+     * @throws IOException if the file cannot be written
+     */
+    void write(File file, long bytes) throws IOException {
+        Path params = new File(file.getPath() + ".params").toPath();
+        String description = "vocabulary=" + vocabulary.length + " exponent=" + exponent
+                + " seed=" + seed + " bytes=" + bytes;
+        if (file.isFile() && Files.isRegularFile(params)
+                && new String(Files.readAllBytes(params), StandardCharsets.UTF_8).equals(description)) {
+            return;
+        }
+        Files.deleteIfExists(params);
+        Random random = new Random(seed);
+        long written = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            while (written < bytes) {
+                int words = 8 + random.nextInt(9);
+                for (int i = 0; i < words; i++) {
+                    String word = next(random);
+                    int decoration = random.nextInt(20);
+                    if (decoration == 0) {
+                        word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                    } else if (decoration == 1) {
+                        word = word + ",";
+                    }
+                    if (i > 0) {
+                        out.write(' ');
+                        written++;
+                    }
+                    out.write(word);
+                    written += word.length();
+                }
+                out.write('\n');
+                written++;
+            }
+        }
+        Files.write(params, description.getBytes(StandardCharsets.UTF_8));
+    }
+    
+}
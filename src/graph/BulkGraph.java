@@ -0,0 +1,50 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A Graph that can apply many updates in one call.
+ * The result of a bulk operation is the same as making the individual calls
+ * in order, but an implementation does its bookkeeping and its rep invariant
+ * check once per call instead of once per update.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public interface BulkGraph<L> extends Graph<L> {
+    
+    /**
+     * Apply edge updates in order, as if by calling
+     * {@link Graph#set(Object, Object, int) set(source, target, weight)} for each.
+     * 
+     * @param updates edge updates to apply
+     * @return array whose i-th element is the previous weight of the edge of the
+     *         i-th update (as returned by set), in iteration order of updates
+     */
+    public int[] setAll(Collection<? extends EdgeUpdate<L>> updates);
+    
+    /**
+     * Apply a stream of edge updates in encounter order, as if by calling
+     * {@link Graph#set(Object, Object, int) set(source, target, weight)} for each.
+     * 
+     * @param updates edge updates to apply, must be finite
+     * @return array whose i-th element is the previous weight of the edge of the
+     *         i-th update (as returned by set)
+     */
+    public default int[] setAll(Stream<? extends EdgeUpdate<L>> updates) {
+        return setAll(updates.collect(Collectors.toList()));
+    }
+    
+    /**
+     * Remove vertices, as if by calling {@link Graph#remove(Object) remove} for each.
+     * 
+     * @param vertices labels of the vertices to remove
+     * @return number of vertices that were in this graph and have been removed
+     */
+    public int removeAll(Collection<? extends L> vertices);
+    
+}
@@ -7,217 +7,825 @@
 package graph;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 
 /**
  * An implementation of Graph.
  * 
- * <p>PS2 instructions: you MUST use the provided rep.
+ * <p>Edges are indexed by source and by target, so looking up one edge is
+ * O(1) and sources() and targets() are O(degree) instead of a scan of every edge.
+ * Vertices are identified internally by their id in a {@link LabelDictionary},
+ * which may be shared with other graphs or with the client; labels are only
+ * looked up or materialized at the Graph interface.
+ * 
+ * <p>This replaces the rep provided with PS2, a set of vertices and a list of
+ * edges, which made every edge lookup a scan of the list; Edge is still the
+ * provided immutable edge type.
  */
-public class ConcreteEdgesGraph implements Graph<String> {
+public class ConcreteEdgesGraph implements BulkGraph<String>, CountingGraph<String> {
     
-    private final Set<String> vertices = new HashSet<>();
-    private final List<Edge> edges = new ArrayList<>();
+    private final LabelDictionary<String> labels;
+    private final Verification verification;
+    private final ViewMode views;
+    private final BitSet vertices = new BitSet();
+    private final List<Map<Integer, Edge>> outgoing = new ArrayList<>();
+    private final List<Map<Integer, Edge>> incoming = new ArrayList<>();
+    private int vertexCount = 0;
+    private int edgeCount = 0;
+    private long modCount = 0;
+    private final Set<String> liveVertices;
+    private final SnapshotCache<String> snapshots = new SnapshotCache<>();
+    private final GraphStatistics<String> statistics;
     
     // Abstraction function:
-    //   Represents a mutable weighted directed graph with labeled vertices
+    //   Represents a mutable weighted directed graph whose vertices are the
+    //   labels of the ids set in vertices, and where every edge appears once in
+    //   outgoing.get(source id).get(target id) and once in
+    //   incoming.get(target id).get(source id)
     // Representation invariant:
-    //   Edges are not duplicate
+    //   Edges are not duplicate: each (source, target) key maps to one Edge
+    //   outgoing and incoming index exactly the same edges, and every Edge uses labels
+    //   Every source and target of an edge is set in vertices
+    //   vertexCount is the cardinality of vertices, edgeCount the number of edges in outgoing
+    //   statistics has recorded exactly the vertices in vertices and the edges in outgoing
+    //   How much of this is checked after each operation is set by verification
+    //   modCount changes whenever the graph does; snapshots only holds results for the current modCount
     // Safety from rep exposure:
-    //   Fields are declared private final and observers return copies of the mutable Graph
+    //   Fields are declared private final and, depending on views, observers return copies of the mutable
+    //   Graph, unmodifiable views (liveVertices, LabelMapView) or cached unmodifiable copies.
+    //   statistics is returned, but only its package-private methods, called by this class, mutate it.
+    //   The label dictionary may be shared, but it only ever grows and ids never change.
     
-    // Check rep invariant
+    /**
+     * Create an empty graph with its own label dictionary.
+     */
+    public ConcreteEdgesGraph() {
+        this(new LabelDictionary<>());
+    }
+    
+    /**
+     * Create an empty graph that numbers its vertices with a shared dictionary.
+     * 
+     * @param labels dictionary used to assign ids to the vertex labels of this graph
+     */
+    public ConcreteEdgesGraph(LabelDictionary<String> labels) {
+        this(labels, Verification.defaultLevel());
+    }
+    
+    /**
+     * Create an empty graph that numbers its vertices with a shared dictionary.
+     * 
+     * @param labels dictionary used to assign ids to the vertex labels of this graph
+     * @param verification how much of the rep invariant to check after each operation
+     */
+    public ConcreteEdgesGraph(LabelDictionary<String> labels, Verification verification) {
+        this(labels, verification, ViewMode.COPY);
+    }
+    
+    /**
+     * Create an empty graph that numbers its vertices with a shared dictionary.
+     * 
+     * @param labels dictionary used to assign ids to the vertex labels of this graph
+     * @param verification how much of the rep invariant to check after each operation
+     * @param views what vertices(), sources() and targets() return
+     */
+    public ConcreteEdgesGraph(LabelDictionary<String> labels, Verification verification, ViewMode views) {
+        this.labels = labels;
+        this.verification = verification;
+        this.views = views;
+        this.liveVertices = new LabelSetView(labels, vertices::get, () -> vertexCount, vertices::nextSetBit);
+        this.statistics = new GraphStatistics<>(labels, this::forEachEdge);
+        checkRep();
+    }
+    
+    // Check rep invariant after an observer, or a mutation that touched no vertex
     private void checkRep() {
-        assert(this.isEdgeNotDuplicate()) : "Edges are duplicate";
-        assert(this.isVerticesNotNull()) : "Some vertex is null";
+        checkRep(-1, -1);
+    }
+    
+    // Check rep invariant after a mutation that touched the given vertices (-1 for none)
+    private void checkRep(int first, int second) {
+        assert(this.isRepOk(first, second)) : "Edge indexes are inconsistent";
     }
 
     /**
-     * Check that edges are not duplicate
-     * Using nested loops - O(n^2).
-     * @return true if edges are not duplicate
-     */
-    private boolean isEdgeNotDuplicate() {
-        if (edges.size() > 1) {
-            for (int i=0; i<edges.size(); i++) {
-                for (int j=0; j<edges.size(); j++) {
-                    Edge temp1 = edges.get(0);
-                    Edge temp2 = edges.get(1);
-                    if (i != j && edges.get(i).getSource() == edges.get(j).getSource() &&
-                            edges.get(i).getTarget() == edges.get(j).getTarget()) {
-                        return false;
-                    }
-                }
+     * Check as much of the rep invariant as the verification level asks for
+     * @param first id of a vertex touched by the last operation, or -1
+     * @param second id of another vertex touched by the last operation, or -1
+     * @return true if no violation was found
+     */
+    private boolean isRepOk(int first, int second) {
+        switch (verification) {
+        case OFF:
+            return true;
+        case FULL:
+            return isIndexConsistent() && vertices.cardinality() == vertexCount
+                    && statistics.vertexCount() == vertexCount && statistics.edgeCount() == edgeCount;
+        case SAMPLED:
+            return isSampleConsistent() && areTouchedConsistent(first, second);
+        default:
+            return areTouchedConsistent(first, second);
+        }
+    }
+    
+    /**
+     * Check the part of the rep invariant about the vertices touched by the last operation
+     * @param first id of a vertex, or -1
+     * @param second id of another vertex, or -1
+     * @return true if no violation was found
+     */
+    private boolean areTouchedConsistent(int first, int second) {
+        return (first < 0 || isVertexConsistent(first)) && (second < 0 || isVertexConsistent(second));
+    }
+    
+    // Check rep invariant after a bulk mutation that touched the given vertices
+    private void checkRep(BitSet touched) {
+        assert(this.isRepOk(touched)) : "Edge indexes are inconsistent";
+    }
+
+    /**
+     * Check as much of the rep invariant as the verification level asks for
+     * @param touched ids of the vertices touched by the last operation
+     * @return true if no violation was found
+     */
+    private boolean isRepOk(BitSet touched) {
+        switch (verification) {
+        case OFF:
+            return true;
+        case FULL:
+            return isRepOk(-1, -1);
+        case SAMPLED:
+            return isSampleConsistent() && areTouchedConsistent(touched);
+        default:
+            return areTouchedConsistent(touched);
+        }
+    }
+    
+    /**
+     * Check the part of the rep invariant about the vertices touched by the last operation
+     * @param touched ids of the vertices
+     * @return true if no violation was found
+     */
+    private boolean areTouchedConsistent(BitSet touched) {
+        for (int id = touched.nextSetBit(0); id >= 0; id = touched.nextSetBit(id + 1)) {
+            if (!isVertexConsistent(id)) {
+                return false;
             }
         }
         return true;
     }
 
     /**
-     * Check that vertices are not null
-     * @return true if all vertices are not null
+     * Check the part of the rep invariant about a few random vertices
+     * @return true if no violation was found
      */
-    private boolean isVerticesNotNull() {
-        for (String vertex : vertices) {
-            if (vertex == null) { return false;}
+    private boolean isSampleConsistent() {
+        for (int i = 0; i < Verification.SAMPLE_SIZE && labels.size() > 0; i++) {
+            if (!isVertexConsistent(ThreadLocalRandom.current().nextInt(labels.size()))) {
+                return false;
+            }
         }
         return true;
     }
+
+    /**
+     * Check the part of the rep invariant about the edges of one vertex
+     * Using the hash indexes - O(degree).
+     * @param vertex id of a vertex
+     * @return true if every edge from or to vertex is in both indexes under its own
+     *         source and target, vertex has no edges if it is not in the graph, and
+     *         statistics has its degrees
+     */
+    private boolean isVertexConsistent(int vertex) {
+        for (Map.Entry<Integer, Edge> byTarget : edgesOrEmptyMap(outgoing, vertex).entrySet()) {
+            Edge edge = byTarget.getValue();
+            if (edge.getSourceId() != vertex || edge.getTargetId() != byTarget.getKey()
+                    || !hasVertex(vertex) || !hasVertex(edge.getTargetId())
+                    || edgesOrEmptyMap(incoming, edge.getTargetId()).get(vertex) != edge) {
+                return false;
+            }
+        }
+        for (Map.Entry<Integer, Edge> bySource : edgesOrEmptyMap(incoming, vertex).entrySet()) {
+            Edge edge = bySource.getValue();
+            if (edge.getTargetId() != vertex || edge.getSourceId() != bySource.getKey()
+                    || !hasVertex(vertex) || !hasVertex(edge.getSourceId())
+                    || edgesOrEmptyMap(outgoing, edge.getSourceId()).get(vertex) != edge) {
+                return false;
+            }
+        }
+        return statistics.outDegree(vertex) == edgesOrEmptyMap(outgoing, vertex).size()
+                && statistics.inDegree(vertex) == edgesOrEmptyMap(incoming, vertex).size();
+    }
+
+    /**
+     * Check that the outgoing and incoming indexes hold the same edges, keyed
+     * by their own source and target.
+     * Using the hash indexes - O(n).
+     * @return true if the indexes agree with each other and with vertices
+     */
+    private boolean isIndexConsistent() {
+        int count = 0;
+        for (int source = 0; source < outgoing.size(); source++) {
+            Map<Integer, Edge> targetsOfSource = outgoing.get(source);
+            if (targetsOfSource == null) {
+                continue;
+            }
+            for (Map.Entry<Integer, Edge> byTarget : targetsOfSource.entrySet()) {
+                Edge edge = byTarget.getValue();
+                if (edge.getSourceId() != source || edge.getTargetId() != byTarget.getKey()) {
+                    return false;
+                }
+                if (!vertices.get(edge.getSourceId()) || !vertices.get(edge.getTargetId())) {
+                    return false;
+                }
+                Map<Integer, Edge> sourcesOfTarget = edgesOf(incoming, edge.getTargetId());
+                if (sourcesOfTarget == null || sourcesOfTarget.get(source) != edge) {
+                    return false;
+                }
+                count++;
+            }
+        }
+        int incomingCount = 0;
+        for (Map<Integer, Edge> bySource : incoming) {
+            incomingCount += bySource == null ? 0 : bySource.size();
+        }
+        return count == edgeCount && incomingCount == edgeCount;
+    }
+    
+    /**
+     * Get the edges of a vertex from one of the indexes
+     * @param index outgoing or incoming
+     * @param vertex id of a vertex, or -1
+     * @return map from the id at the other end to the edge, or null if there are no such edges
+     */
+    private static Map<Integer, Edge> edgesOf(List<Map<Integer, Edge>> index, int vertex) {
+        return vertex >= 0 && vertex < index.size() ? index.get(vertex) : null;
+    }
+    
+    /**
+     * Get the edges of a vertex from one of the indexes, creating the map if needed
+     * @param index outgoing or incoming
+     * @param vertex id of a vertex
+     * @return modifiable map from the id at the other end to the edge
+     */
+    private static Map<Integer, Edge> edgesFor(List<Map<Integer, Edge>> index, int vertex) {
+        while (index.size() <= vertex) {
+            index.add(null);
+        }
+        Map<Integer, Edge> edges = index.get(vertex);
+        if (edges == null) {
+            edges = new HashMap<>();
+            index.set(vertex, edges);
+        }
+        return edges;
+    }
+    
+    /**
+     * Mark a vertex as present
+     * @param vertex id of the vertex
+     * @return true if it was not present before
+     */
+    private boolean addVertex(int vertex) {
+        if (vertices.get(vertex)) {
+            return false;
+        }
+        vertices.set(vertex);
+        vertexCount++;
+        modCount++;
+        statistics.vertexAdded(vertex);
+        return true;
+    }
+    
+    /**
+     * Check whether a vertex is in the graph
+     * @param vertex id of a vertex, or -1
+     * @return true if the vertex is in the graph
+     */
+    private boolean hasVertex(int vertex) {
+        return vertex >= 0 && vertices.get(vertex);
+    }
     
     @Override
     public boolean add(String vertex) {
-        boolean result = false;
-        if (!vertices.contains(vertex)) {
-            vertices.add(vertex);
-            result = true;
-        }
-        checkRep();
+        int id = labels.intern(vertex);
+        boolean result = addVertex(id);
+        checkRep(id, -1);
         return result;
     }
     
     @Override
     public int set(String source, String target, int weight) {
+        int sourceId = weight == 0 ? labels.idOf(source) : labels.intern(source);
+        int targetId = weight == 0 ? labels.idOf(target) : labels.intern(target);
+        int result = setEdge(sourceId, targetId, weight);
+        checkRep(sourceId, targetId);
+        return result;
+    }
+    
+    @Override
+    public int increment(String source, String target, int delta) {
+        // labels are only interned once the edge is known to get a positive weight
+        int sourceId = labels.idOf(source);
+        int targetId = labels.idOf(target);
+        Edge edgeToSet = findEdge(sourceId, targetId);
+        int result = edgeToSet == null ? 0 : edgeToSet.getWeight();
+        int weight = incremented(result, delta);
+        if (weight != result && weight != 0 && edgeToSet == null) {
+            sourceId = labels.intern(source);
+            targetId = labels.intern(target);
+        }
+        incrementEdge(sourceId, targetId, edgeToSet, weight);
+        checkRep(sourceId, targetId);
+        return result;
+    }
+    
+    /**
+     * Add delta to the weight of a directed edge given by the ids of its
+     * vertices in this graph's label dictionary, as increment() does, without
+     * looking up any label. For callers that intern the labels themselves,
+     * such as a corpus counted with word ids.
+     * 
+     * @param sourceId id of the source vertex, already in the label dictionary
+     * @param targetId id of the target vertex, already in the label dictionary
+     * @param delta amount to add to the weight, may be negative
+     * @return the previous weight of the edge, or zero if there was no such edge
+     * @throws IllegalArgumentException if an id is not in the label dictionary,
+     *         or the new weight would be negative or overflow an int; the
+     *         graph is then not modified
+     */
+    public int increment(int sourceId, int targetId, int delta) {
+        int size = labels.size();
+        if (sourceId < 0 || sourceId >= size || targetId < 0 || targetId >= size) {
+            throw new IllegalArgumentException("id not in dictionary: " + sourceId + " -> " + targetId);
+        }
+        Edge edgeToSet = findEdge(sourceId, targetId);
+        int result = edgeToSet == null ? 0 : edgeToSet.getWeight();
+        incrementEdge(sourceId, targetId, edgeToSet, incremented(result, delta));
+        checkRep(sourceId, targetId);
+        return result;
+    }
+    
+    /**
+     * Give an edge its incremented weight
+     * @param sourceId id of the source vertex; in the label dictionary unless
+     *                 the edge does not exist and weight is zero
+     * @param targetId id of the target vertex, likewise
+     * @param edgeToSet the edge from sourceId to targetId, or null if there is none
+     * @param weight new weight of the edge, nonnegative
+     */
+    private void incrementEdge(int sourceId, int targetId, Edge edgeToSet, int weight) {
+        int result = edgeToSet == null ? 0 : edgeToSet.getWeight();
         if (weight == 0) {
-            if (isEdgeInGraph(source, target)) {
-                Edge edgeToSet = findEdge(source, target);
-                int result = edgeToSet.getWeight();
-                edges.remove(edgeToSet);
-                checkRep();
-                return result;
+            if (edgeToSet != null) {
+                removeEdge(edgeToSet);
             }
-            else {
-                checkRep();
-                return 0;
+        }
+        else if (weight != result) {
+            if (edgeToSet == null) {
+                addVertex(sourceId);
+                addVertex(targetId);
             }
+            putEdge(new Edge(labels, sourceId, targetId, weight));
         }
-        else {
-            if (isEdgeInGraph(source, target)) {
-                Edge edgeToSet = findEdge(source, target);
-                int result = edgeToSet.getWeight();
-                edges.remove(edgeToSet);
-                edges.add(new Edge(source, target, weight));
-                checkRep();
-                return result;
+    }
+    
+    /**
+     * Add to a weight, checking the result
+     * @param weight current weight, nonnegative
+     * @param delta amount to add
+     * @return weight + delta
+     * @throws IllegalArgumentException if the result is negative or overflows
+     */
+    static int incremented(int weight, int delta) {
+        long result = (long) weight + delta;
+        if (result < 0 || result > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("weight " + weight + " cannot change by " + delta);
+        }
+        return (int) result;
+    }
+    
+    @Override
+    public int[] setAll(Collection<? extends EdgeUpdate<String>> updates) {
+        int[] result = new int[updates.size()];
+        BitSet touched = new BitSet();
+        int i = 0;
+        for (EdgeUpdate<String> update : updates) {
+            int weight = update.getWeight();
+            int sourceId = weight == 0 ? labels.idOf(update.getSource()) : labels.intern(update.getSource());
+            int targetId = weight == 0 ? labels.idOf(update.getTarget()) : labels.intern(update.getTarget());
+            result[i++] = setEdge(sourceId, targetId, weight);
+            if (sourceId >= 0 && targetId >= 0) {
+                touched.set(sourceId);
+                touched.set(targetId);
+            }
+        }
+        checkRep(touched);
+        return result;
+    }
+    
+    /**
+     * Add, change, or remove many edges given by the ids of their vertices in
+     * this graph's label dictionary, in order, without looking up any label.
+     * For callers that intern the labels themselves, such as a corpus counted
+     * with word ids.
+     * 
+     * @param sources ids of the source vertices, each already in the label dictionary
+     * @param targets ids of the target vertices, each already in the label dictionary;
+     *                same length as sources
+     * @param weights weight of each edge, nonnegative; same length as sources
+     * @return array with the previous weight of each edge, or zero if it did
+     *         not exist, as set() would return it at its turn in the batch
+     * @throws IllegalArgumentException if the arrays differ in length, an id is
+     *         not in the label dictionary, or a weight is negative; the graph
+     *         is then unchanged
+     */
+    public int[] setAll(int[] sources, int[] targets, int[] weights) {
+        if (sources.length != targets.length || sources.length != weights.length) {
+            throw new IllegalArgumentException("arrays differ in length: " + sources.length + ", "
+                    + targets.length + ", " + weights.length);
+        }
+        int size = labels.size();
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] < 0 || sources[i] >= size || targets[i] < 0 || targets[i] >= size) {
+                throw new IllegalArgumentException("id not in dictionary: " + sources[i] + " -> " + targets[i]);
             }
-            else {
-                add(source);
-                add(target);
-                edges.add(new Edge(source, target, weight));
-                checkRep();
-                return 0;
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("weight must be nonnegative: " + weights[i]);
             }
         }
+        presize(outgoing, sources, weights, size);
+        presize(incoming, targets, weights, size);
+        int[] result = new int[sources.length];
+        BitSet touched = new BitSet(size);
+        for (int i = 0; i < sources.length; i++) {
+            result[i] = setEdge(sources[i], targets[i], weights[i]);
+            touched.set(sources[i]);
+            touched.set(targets[i]);
+        }
+        checkRep(touched);
+        return result;
     }
-
+    
     /**
-     * Check if edge is in list of edges
-     * @param source source vertex
-     * @param target target vertex
-     * @return true if edge is in list of edges, false otherwise
+     * Make room in one of the indexes for a batch of edges, so that loading
+     * many edges into a vertex does not rehash its map over and over
+     * @param index outgoing or incoming
+     * @param ids id of the vertex each edge of the batch is indexed under in index
+     * @param weights weight of each edge of the batch
+     * @param size number of labels in the dictionary; every id is less
      */
-    private boolean isEdgeInGraph(String source, String target) {
-        for (Edge edge : edges) {
-            if (edge.getSource().equals(source) && edge.getTarget().equals(target)){
-                return true;
+    private static void presize(List<Map<Integer, Edge>> index, int[] ids, int[] weights, int size) {
+        int[] counts = new int[size];
+        for (int i = 0; i < ids.length; i++) {
+            if (weights[i] > 0) {
+                counts[ids[i]]++;
+            }
+        }
+        for (int vertex = 0; vertex < size; vertex++) {
+            if (counts[vertex] > 1 && edgesOf(index, vertex) == null) {
+                while (index.size() <= vertex) {
+                    index.add(null);
+                }
+                index.set(vertex, new HashMap<>(counts[vertex] * 4 / 3 + 1));
             }
         }
-        return false;
     }
-
+    
     /**
-     * Find an edge in list of edges given source and target vertices
-     * @param source source of edge
-     * @param target target of edge
-     * @return edge if it's in list of edges, empty edge if it isn't
+     * Add, change, or remove an edge without checking the rep invariant
+     * @param source id of the source vertex, may be -1 only if weight is zero
+     * @param target id of the target vertex, may be -1 only if weight is zero
+     * @param weight nonnegative weight of the edge
+     * @return the previous weight of the edge, or zero if there was no such edge
      */
-    private Edge findEdge(String source, String target) {
-        for (Edge edge : edges) {
-            if (edge.getSource().equals(source) && edge.getTarget().equals(target)) {
-                return edge;
+    private int setEdge(int source, int target, int weight) {
+        Edge edgeToSet = findEdge(source, target);
+        int result = edgeToSet == null ? 0 : edgeToSet.getWeight();
+        if (weight == 0) {
+            if (edgeToSet != null) {
+                removeEdge(edgeToSet);
+            }
+        }
+        else {
+            if (edgeToSet == null) {
+                addVertex(source);
+                addVertex(target);
             }
+            putEdge(new Edge(labels, source, target, weight));
         }
-        return new Edge("", "", 0);
+        return result;
     }
 
-    @Override
-    public boolean remove(String vertex) {
-        boolean result = false;
-        if (vertices.contains(vertex)) {
-            vertices.remove(vertex);
-            List<Edge> edgesForRemove = findEdgesBySource(vertex);
-            edgesForRemove.addAll(findEdgesByTarget(vertex));
-            edges.removeAll(edgesForRemove);
-            result = true;
+    /**
+     * Find an edge in the outgoing index given source and target vertices
+     * @param source id of source of edge, or -1
+     * @param target id of target of edge, or -1
+     * @return edge if it's in the graph, null if it isn't
+     */
+    private Edge findEdge(int source, int target) {
+        Map<Integer, Edge> targetsOfSource = edgesOf(outgoing, source);
+        if (targetsOfSource == null || target < 0) {
+            return null;
         }
-        checkRep();
-        return result;
+        return targetsOfSource.get(target);
     }
 
+    /**
+     * Add an edge to both indexes, replacing any edge with the same source and target
+     * @param edge edge to put in the graph
+     */
+    private void putEdge(Edge edge) {
+        Edge previous = edgesFor(outgoing, edge.getSourceId()).put(edge.getTargetId(), edge);
+        edgesFor(incoming, edge.getTargetId()).put(edge.getSourceId(), edge);
+        if (previous == null) {
+            edgeCount++;
+            statistics.edgeAdded(edge.getSourceId(), edge.getTargetId(), edge.getWeight());
+        }
+        else {
+            statistics.edgeReweighted(edge.getSourceId(), edge.getTargetId(), previous.getWeight(), edge.getWeight());
+        }
+        modCount++;
+    }
 
     /**
-     * Search edges with given source in list of edges
-     * @param source source of edges
-     * @return list of found edges
+     * Remove an edge from both indexes, dropping per-vertex maps that become empty
+     * @param edge edge in the graph
      */
-    private List<Edge> findEdgesBySource(String source) {
-        List<Edge> result = new ArrayList<>();
-        for (Edge edge : edges) {
-            if (edge.getSource().equals(source)) {
-                result.add(edge);
+    private void removeEdge(Edge edge) {
+        Map<Integer, Edge> targetsOfSource = outgoing.get(edge.getSourceId());
+        targetsOfSource.remove(edge.getTargetId());
+        if (targetsOfSource.isEmpty()) {
+            outgoing.set(edge.getSourceId(), null);
+        }
+        Map<Integer, Edge> sourcesOfTarget = incoming.get(edge.getTargetId());
+        sourcesOfTarget.remove(edge.getSourceId());
+        if (sourcesOfTarget.isEmpty()) {
+            incoming.set(edge.getTargetId(), null);
+        }
+        edgeCount--;
+        modCount++;
+        statistics.edgeRemoved(edge.getSourceId(), edge.getTargetId(), edge.getWeight());
+    }
+
+    @Override
+    public boolean remove(String vertex) {
+        int id = labels.idOf(vertex);
+        boolean result = removeVertex(id);
+        checkRep(id, -1);
+        return result;
+    }
+    
+    @Override
+    public int removeAll(Collection<? extends String> vertices) {
+        int result = 0;
+        BitSet touched = new BitSet();
+        for (String vertex : vertices) {
+            int id = labels.idOf(vertex);
+            if (removeVertex(id)) {
+                touched.set(id);
+                result++;
             }
         }
+        checkRep(touched);
         return result;
     }
-
+    
     /**
-     * Search edges with give target in list of edges
-     * @param target target of edges
-     * @return list of found edges
+     * Remove a vertex and its edges without checking the rep invariant
+     * @param id id of a vertex, or -1
+     * @return true if the vertex was in the graph
      */
-    private List<Edge> findEdgesByTarget(String target) {
-        List<Edge> result = new ArrayList<>();
-        for (Edge edge : edges) {
-            if (edge.getTarget().equals(target)) {
-                result.add(edge);
+    private boolean removeVertex(int id) {
+        if (!hasVertex(id)) {
+            return false;
+        }
+        vertices.clear(id);
+        vertexCount--;
+        modCount++;
+        List<Edge> edgesForRemove = new ArrayList<>();
+        edgesForRemove.addAll(edgesOrEmpty(outgoing, id));
+        edgesForRemove.addAll(edgesOrEmpty(incoming, id));
+        for (Edge edge : edgesForRemove) {
+            // a self loop is listed in both directions but removed only once
+            if (findEdge(edge.getSourceId(), edge.getTargetId()) == edge) {
+                removeEdge(edge);
             }
         }
-        return result;
+        statistics.vertexRemoved(id);
+        return true;
+    }
+    
+    /**
+     * Get the edges of a vertex from one of the indexes
+     * @param index outgoing or incoming
+     * @param vertex id of a vertex, or -1
+     * @return the edges, possibly none
+     */
+    private static Collection<Edge> edgesOrEmpty(List<Map<Integer, Edge>> index, int vertex) {
+        return edgesOrEmptyMap(index, vertex).values();
+    }
+    
+    /**
+     * Get the edges of a vertex from one of the indexes
+     * @param index outgoing or incoming
+     * @param vertex id of a vertex, or -1
+     * @return map from the id at the other end to the edge, possibly empty
+     */
+    private static Map<Integer, Edge> edgesOrEmptyMap(List<Map<Integer, Edge>> index, int vertex) {
+        Map<Integer, Edge> edges = edgesOf(index, vertex);
+        return edges == null ? Collections.emptyMap() : edges;
     }
     
     @Override
     public Set<String> vertices() {
         checkRep();
-        return new HashSet<>(vertices);
+        switch (views) {
+        case LIVE:
+            return liveVertices;
+        case SNAPSHOT:
+            return snapshots.vertices(modCount, this::copyVertices);
+        default:
+            return copyVertices();
+        }
+    }
+    
+    /**
+     * Copy the vertices
+     * @return new set of the labels of all vertices
+     */
+    private Set<String> copyVertices() {
+        Set<String> result = new HashSet<>();
+        for (int id = vertices.nextSetBit(0); id >= 0; id = vertices.nextSetBit(id + 1)) {
+            result.add(labels.labelOf(id));
+        }
+        return result;
     }
     
     @Override
     public Map<String, Integer> sources(String target) {
+        checkRep();
+        switch (views) {
+        case LIVE:
+            return new LabelMapView<>(labels, () -> edgesOrEmptyMap(incoming, labels.idOf(target)),
+                    Edge::getWeight);
+        case SNAPSHOT:
+            int id = labels.idOf(target);
+            return id < 0 ? Collections.emptyMap() : snapshots.sources(modCount, id, () -> copySources(id));
+        default:
+            return copySources(labels.idOf(target));
+        }
+    }
+    
+    /**
+     * Copy the edges into a vertex
+     * @param target id of the target vertex, or -1
+     * @return new map from source label to weight
+     */
+    private Map<String, Integer> copySources(int target) {
         Map<String, Integer> result = new HashMap<>();
-        for (Edge edge : edges) {
-            if (edge.getTarget().equals(target)) {
-                result.put(edge.getSource(), edge.getWeight());
-            }
+        for (Edge edge : edgesOrEmpty(incoming, target)) {
+            result.put(edge.getSource(), edge.getWeight());
         }
-        checkRep();
         return result;
     }
     
     @Override
     public Map<String, Integer> targets(String source) {
+        checkRep();
+        switch (views) {
+        case LIVE:
+            return new LabelMapView<>(labels, () -> edgesOrEmptyMap(outgoing, labels.idOf(source)),
+                    Edge::getWeight);
+        case SNAPSHOT:
+            int id = labels.idOf(source);
+            return id < 0 ? Collections.emptyMap() : snapshots.targets(modCount, id, () -> copyTargets(id));
+        default:
+            return copyTargets(labels.idOf(source));
+        }
+    }
+    
+    /**
+     * Copy the edges out of a vertex
+     * @param source id of the source vertex, or -1
+     * @return new map from target label to weight
+     */
+    private Map<String, Integer> copyTargets(int source) {
         Map<String, Integer> result = new HashMap<>();
-        for (Edge edge : edges) {
-            if (edge.getSource().equals(source)) {
-                result.put(edge.getTarget(), edge.getWeight());
-            }
+        for (Edge edge : edgesOrEmpty(outgoing, source)) {
+            result.put(edge.getTarget(), edge.getWeight());
         }
-        checkRep();
         return result;
     }
     
+    /**
+     * @return number of labels in this graph's label dictionary; the id of
+     *         every vertex of this graph is less, though some smaller ids may
+     *         belong to labels that are not vertices of this graph
+     */
+    public int idBound() {
+        return labels.size();
+    }
+    
+    /**
+     * @param vertex label of a vertex
+     * @return id of that label in this graph's label dictionary, or -1 if it
+     *         is not a vertex of this graph
+     */
+    public int idOf(String vertex) {
+        int id = labels.idOf(vertex);
+        return hasVertex(id) ? id : -1;
+    }
+    
+    /**
+     * @param id id of a label in this graph's label dictionary, 0 <= id < idBound()
+     * @return that label
+     */
+    public String labelOf(int id) {
+        return labels.labelOf(id);
+    }
+    
+    /**
+     * @param id id of a label in this graph's label dictionary
+     * @return number of edges out of that vertex, zero if it is not in the graph
+     */
+    public int outDegree(int id) {
+        return edgesOrEmptyMap(outgoing, id).size();
+    }
+    
+    /**
+     * @param id id of a label in this graph's label dictionary
+     * @return number of edges into that vertex, zero if it is not in the graph
+     */
+    public int inDegree(int id) {
+        return edgesOrEmptyMap(incoming, id).size();
+    }
+    
+    /**
+     * Visit the edges out of a vertex by id, in no particular order, without
+     * copying them or looking up any label. The graph must not be modified
+     * by the visitor.
+     * 
+     * @param id id of a label in this graph's label dictionary
+     * @param visitor called with the target id and weight of each edge
+     */
+    public void forEachTarget(int id, EdgeVisitor visitor) {
+        for (Edge edge : edgesOrEmpty(outgoing, id)) {
+            visitor.visit(edge.getTargetId(), edge.getWeight());
+        }
+    }
+    
+    /**
+     * Visit the edges into a vertex by id, in no particular order, without
+     * copying them or looking up any label. The graph must not be modified
+     * by the visitor.
+     * 
+     * @param id id of a label in this graph's label dictionary
+     * @param visitor called with the source id and weight of each edge
+     */
+    public void forEachSource(int id, EdgeVisitor visitor) {
+        for (Edge edge : edgesOrEmpty(incoming, id)) {
+            visitor.visit(edge.getSourceId(), edge.getWeight());
+        }
+    }
+    
+    /**
+     * @param source id of a label in this graph's label dictionary
+     * @param target id of a label in this graph's label dictionary
+     * @return weight of the edge from source to target, or zero if there is none
+     */
+    public int weight(int source, int target) {
+        Edge edge = findEdge(source, target);
+        return edge == null ? 0 : edge.getWeight();
+    }
+    
+    /**
+     * Get the statistics of this graph, which are kept up to date as it changes.
+     * 
+     * @return statistics of this graph, the same object on every call
+     */
+    public GraphStatistics<String> statistics() {
+        return statistics;
+    }
+    
+    /**
+     * Visit every edge, in no particular order
+     * @param visitor called with the source id, target id and weight of each edge
+     */
+    private void forEachEdge(GraphStatistics.WeightedEdgeVisitor visitor) {
+        for (Map<Integer, Edge> targetsOfSource : outgoing) {
+            if (targetsOfSource != null) {
+                for (Edge edge : targetsOfSource.values()) {
+                    visitor.visit(edge.getSourceId(), edge.getTargetId(), edge.getWeight());
+                }
+            }
+        }
+    }
+    
     @Override
     public String toString() {
-        return "Graph contains " + vertices.size() + " vertices and " + edges.size() + " edges";
+        return statistics.toString();
     }
     
 }
@@ -225,7 +833,8 @@ public class ConcreteEdgesGraph implements Graph<String> {
 /**
  * Immutable.
  * This class is internal to the rep of ConcreteEdgesGraph.
- * Each edge has a source vertex and a target vertex.
+ * Each edge has a source vertex and a target vertex, stored as ids in a
+ * label dictionary.
  * Both vertices must have the same immutable type.
  * Edges are directed, they point from source to target.
  * Each edge has a positive weight of type int.
@@ -233,26 +842,52 @@ public class ConcreteEdgesGraph implements Graph<String> {
  */
 class Edge {
     
-    private String source;
-    private String target;
-    private int weight;
+    private final LabelDictionary<String> labels;
+    private final int source;
+    private final int target;
+    private final int weight;
     
     // Abstraction function:
-    //   Represents the weighted directed edge from source to target
+    //   Represents the weighted directed edge from labels.labelOf(source) to labels.labelOf(target)
     // Representation invariant:
     //   Weight is positive
+    //   source and target are ids in labels
     // Safety from rep exposure:
-    //   All fields are private and all types in the rep are immutable
+    //   All fields are private and all types in the rep are immutable, except
+    //   labels, which only ever grows and is never returned
 
 
 
     /**
-     * Create a new edge object
+     * Create a new edge object with its own label dictionary
      * @param source vertex
      * @param target vertex
      * @param weight
      */
     public Edge(String source, String target, int weight) {
+        this(new LabelDictionary<>(), source, target, weight);
+    }
+
+    /**
+     * Create a new edge object between labels of a dictionary
+     * @param labels dictionary in which source and target are interned
+     * @param source vertex
+     * @param target vertex
+     * @param weight
+     */
+    private Edge(LabelDictionary<String> labels, String source, String target, int weight) {
+        this(labels, labels.intern(source), labels.intern(target), weight);
+    }
+
+    /**
+     * Create a new edge object between vertex ids
+     * @param labels dictionary that assigned the ids
+     * @param source id of source vertex
+     * @param target id of target vertex
+     * @param weight
+     */
+    public Edge(LabelDictionary<String> labels, int source, int target, int weight) {
+        this.labels = labels;
         this.source = source;
         this.target = target;
         this.weight = weight;
@@ -262,8 +897,8 @@ class Edge {
     // Check rep invariant
     private void checkRep() {
         assert (weight > 0) : "Invalid value of weight";
-        assert (source != null) : "sourse not exists";
-        assert (target != null) : "target not exists";
+        assert (source >= 0 && source < labels.size()) : "sourse not exists";
+        assert (target >= 0 && target < labels.size()) : "target not exists";
     }
 
 
@@ -272,8 +907,7 @@ class Edge {
      * @return source vertex of edge
      */
     public String getSource() {
-        checkRep();
-        return source;
+        return labels.labelOf(source);
     }
 
     /**
@@ -281,7 +915,22 @@ class Edge {
      * @return target vertex of edge
      */
     public String getTarget() {
-        checkRep();
+        return labels.labelOf(target);
+    }
+
+    /**
+     * Get id of the source of the edge
+     * @return id of source vertex of edge
+     */
+    public int getSourceId() {
+        return source;
+    }
+
+    /**
+     * Get id of the target of the edge
+     * @return id of target vertex of edge
+     */
+    public int getTargetId() {
         return target;
     }
 
@@ -290,7 +939,6 @@ class Edge {
      * @return weight of edge
      */
     public int getWeight() {
-        checkRep();
         return weight;
     }
 
@@ -300,17 +948,15 @@ class Edge {
      * @return true if edges are equal
      */
     public boolean isSame(Edge other) {
-        boolean result = false;
-        if (source.equals(other.source) && target.equals(other.target)) {
-            result = true;
+        if (labels == other.labels) {
+            return source == other.source && target == other.target;
         }
-        checkRep();
-        return result;
+        return getSource().equals(other.getSource()) && getTarget().equals(other.getTarget());
     }
 
     @Override
     public String toString() {
-        return "Source = " + source + " Target = " + target + " Weight = " + weight;
+        return "Source = " + getSource() + " Target = " + getTarget() + " Weight = " + weight;
     }
     
 }
@@ -0,0 +1,211 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * An implementation of IntGraph.
+ * 
+ * <p>Each vertex occupies a slot; the edges out of and into the vertex in a
+ * slot are kept in two IntIntMaps from neighbour label to weight, so neither
+ * labels nor weights are ever boxed. Slots of removed vertices are reused.
+ */
+class ConcreteIntGraph implements IntGraph {
+    
+    private static final int INITIAL_SLOTS = 8;
+    
+    private final IntIntMap slots = new IntIntMap();
+    private IntIntMap[] targets = new IntIntMap[INITIAL_SLOTS];
+    private IntIntMap[] sources = new IntIntMap[INITIAL_SLOTS];
+    private int[] free = new int[INITIAL_SLOTS];
+    private int freeCount = 0;
+    private int slotCount = 0;
+    private int edgeCount = 0;
+    
+    // Abstraction function:
+    //   Represents the graph whose vertices are the keys of slots, where the
+    //   vertex v in slot s = slots.get(v) - 1 has an edge v -> t with weight w
+    //   for every entry t -> w of targets[s]
+    // Representation invariant:
+    //   slots 0..slotCount-1 are either used by exactly one key of slots or in
+    //     free[0..freeCount-1], and slotCount == slots.size() + freeCount
+    //   targets[s] and sources[s] are null for free slots and slots >= slotCount
+    //   for the slot s of v, every entry t -> w of targets[s] has t a key of slots
+    //     and matches an entry v -> w of sources[slots.get(t) - 1], and
+    //     vice versa
+    //   edgeCount is the total size of targets[s] over all slots s
+    // Safety from rep exposure:
+    //   All fields are private and never returned; observers return new arrays
+    //   or pass primitives to a visitor.
+    
+    /**
+     * Make an empty graph.
+     */
+    ConcreteIntGraph() {
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert slotCount == slots.size() + freeCount : "Slots lost";
+        assert edgeCount >= 0 : "Negative edge count";
+    }
+    
+    /**
+     * @return slot of vertex, adding vertex to this graph if it is not in it
+     */
+    private int slotOf(int vertex) {
+        int slot = slots.get(vertex) - 1;
+        if (slot >= 0) {
+            return slot;
+        }
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (slotCount == targets.length) {
+                int capacity = targets.length * 2;
+                targets = Arrays.copyOf(targets, capacity);
+                sources = Arrays.copyOf(sources, capacity);
+                free = Arrays.copyOf(free, capacity);
+            }
+            slot = slotCount++;
+        }
+        slots.put(vertex, slot + 1);
+        targets[slot] = new IntIntMap();
+        sources[slot] = new IntIntMap();
+        return slot;
+    }
+    
+    @Override
+    public boolean add(int vertex) {
+        if (slots.get(vertex) > 0) {
+            return false;
+        }
+        slotOf(vertex);
+        checkRep();
+        return true;
+    }
+    
+    @Override
+    public int set(int source, int target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be nonnegative: " + weight);
+        }
+        int previous;
+        if (weight == 0) {
+            int sourceSlot = slots.get(source) - 1;
+            int targetSlot = slots.get(target) - 1;
+            if (sourceSlot < 0 || targetSlot < 0) {
+                return 0;
+            }
+            previous = targets[sourceSlot].remove(target);
+            if (previous > 0) {
+                sources[targetSlot].remove(source);
+                edgeCount--;
+            }
+        } else {
+            int sourceSlot = slotOf(source);
+            int targetSlot = slotOf(target);
+            previous = targets[sourceSlot].put(target, weight);
+            sources[targetSlot].put(source, weight);
+            if (previous == 0) {
+                edgeCount++;
+            }
+        }
+        checkRep();
+        return previous;
+    }
+    
+    @Override
+    public boolean remove(int vertex) {
+        int slot = slots.remove(vertex) - 1;
+        if (slot < 0) {
+            return false;
+        }
+        // a self loop is in both maps of slot but only counted once, in targets
+        IntIntMap out = targets[slot];
+        out.forEach((target, weight) -> {
+            if (target != vertex) {
+                sources[slots.get(target) - 1].remove(vertex);
+            }
+        });
+        IntIntMap in = sources[slot];
+        in.forEach((source, weight) -> {
+            if (source != vertex) {
+                targets[slots.get(source) - 1].remove(vertex);
+            }
+        });
+        edgeCount -= out.size() + in.size() - (out.get(vertex) > 0 ? 1 : 0);
+        targets[slot] = null;
+        sources[slot] = null;
+        free[freeCount++] = slot;
+        checkRep();
+        return true;
+    }
+    
+    @Override
+    public boolean contains(int vertex) {
+        return slots.get(vertex) > 0;
+    }
+    
+    @Override
+    public int vertexCount() {
+        return slots.size();
+    }
+    
+    @Override
+    public int edgeCount() {
+        return edgeCount;
+    }
+    
+    @Override
+    public int[] vertices() {
+        int[] result = new int[slots.size()];
+        int[] count = { 0 };
+        slots.forEach((vertex, slot) -> result[count[0]++] = vertex);
+        Arrays.sort(result);
+        return result;
+    }
+    
+    @Override
+    public int weight(int source, int target) {
+        int slot = slots.get(source) - 1;
+        return slot < 0 ? 0 : targets[slot].get(target);
+    }
+    
+    @Override
+    public int outDegree(int vertex) {
+        int slot = slots.get(vertex) - 1;
+        return slot < 0 ? 0 : targets[slot].size();
+    }
+    
+    @Override
+    public int inDegree(int vertex) {
+        int slot = slots.get(vertex) - 1;
+        return slot < 0 ? 0 : sources[slot].size();
+    }
+    
+    @Override
+    public void forEachTarget(int source, EdgeVisitor visitor) {
+        int slot = slots.get(source) - 1;
+        if (slot >= 0) {
+            targets[slot].forEach(visitor);
+        }
+    }
+    
+    @Override
+    public void forEachSource(int target, EdgeVisitor visitor) {
+        int slot = slots.get(target) - 1;
+        if (slot >= 0) {
+            sources[slot].forEach(visitor);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "Graph contains " + slots.size() + " vertices and " + edgeCount + " edges";
+    }
+    
+}
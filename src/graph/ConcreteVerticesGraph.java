@@ -4,163 +4,605 @@
 package graph;
 
 import java.util.*;
-import java.util.zip.CheckedInputStream;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * An implementation of Graph.
  * 
- * <p>PS2 instructions: you MUST use the provided rep.
+ * <p>Vertices are indexed by id and each Vertex keeps both its outgoing and
+ * incoming edges, so sources() costs O(in-degree) and targets() O(out-degree).
+ * Vertices are identified internally by their id in a {@link LabelDictionary},
+ * which may be shared with other graphs or with the client; labels are only
+ * looked up or materialized at the Graph interface.
+ * 
+ * <p>The list of Vertex objects is the rep provided with PS2, but it is now
+ * indexed by id rather than searched by label, and each Vertex keeps its
+ * edges by id in primitive maps instead of by label.
  */
-public class ConcreteVerticesGraph implements Graph<String> {
+public class ConcreteVerticesGraph implements BulkGraph<String>, CountingGraph<String> {
     
+    private final LabelDictionary<String> labels;
+    private final Verification verification;
+    private final ViewMode views;
     private final List<Vertex> vertices = new ArrayList<>();
+    private int vertexCount = 0;
+    private long modCount = 0;
+    private final Set<String> liveVertices;
+    private final SnapshotCache<String> snapshots = new SnapshotCache<>();
+    private final GraphStatistics<String> statistics;
     
     // Abstraction function:
-    //   Represents a mutable weighted directed graph with labeled vertices
+    //   Represents a mutable weighted directed graph whose vertices are the
+    //   non-null entries of vertices, where vertices.get(id) holds the edges
+    //   from and to labels.labelOf(id)
     // Representation invariant:
-    //   Vertices are not duplicate
+    //   Vertices are not duplicate: each Vertex is stored at its own id
+    //   Every edge source -> target with weight w is a target of source with weight w
+    //   and a source of target with weight w, and both vertices are in the graph
+    //   vertexCount is the number of non-null entries of vertices
+    //   statistics has recorded exactly the vertices in vertices and their edges
+    //   How much of this is checked after each operation is set by verification
+    //   modCount changes whenever the graph does; snapshots only holds results for the current modCount
     // Safety from rep exposure:
-    //   Fields are private final and observers return either immutable types or copies of mutable types.
+    //   Fields are private final and, depending on views, observers return copies of mutable types,
+    //   unmodifiable views (liveVertices, LabelMapView) or cached unmodifiable copies.
+    //   statistics is returned, but only its package-private methods, called by this class, mutate it.
+    //   The label dictionary may be shared, but it only ever grows and ids never change.
+    
+    /**
+     * Create an empty graph with its own label dictionary.
+     */
+    public ConcreteVerticesGraph() {
+        this(new LabelDictionary<>());
+    }
+    
+    /**
+     * Create an empty graph that numbers its vertices with a shared dictionary.
+     * 
+     * @param labels dictionary used to assign ids to the vertex labels of this graph
+     */
+    public ConcreteVerticesGraph(LabelDictionary<String> labels) {
+        this(labels, Verification.defaultLevel());
+    }
+    
+    /**
+     * Create an empty graph that numbers its vertices with a shared dictionary.
+     * 
+     * @param labels dictionary used to assign ids to the vertex labels of this graph
+     * @param verification how much of the rep invariant to check after each operation
+     */
+    public ConcreteVerticesGraph(LabelDictionary<String> labels, Verification verification) {
+        this(labels, verification, ViewMode.COPY);
+    }
+    
+    /**
+     * Create an empty graph that numbers its vertices with a shared dictionary.
+     * 
+     * @param labels dictionary used to assign ids to the vertex labels of this graph
+     * @param verification how much of the rep invariant to check after each operation
+     * @param views what vertices(), sources() and targets() return
+     */
+    public ConcreteVerticesGraph(LabelDictionary<String> labels, Verification verification, ViewMode views) {
+        this.labels = labels;
+        this.verification = verification;
+        this.views = views;
+        this.liveVertices = new LabelSetView(labels, id -> vertexOf(id) != null, () -> vertexCount,
+                this::nextVertex);
+        this.statistics = new GraphStatistics<>(labels, this::forEachEdge);
+        checkRep();
+    }
 
-    // Check rep invariant
+    // Check rep invariant after an observer, or a mutation that touched no vertex
     private void checkRep() {
-        assert(this.isVerticesNotDuplicate()) : "Vertices are duplicate";
+        checkRep(-1, -1);
+    }
+
+    // Check rep invariant after a mutation that touched the given vertices (-1 for none)
+    private void checkRep(int first, int second) {
+        assert(this.isRepOk(first, second)) : "Vertices are duplicate or incoming and outgoing edges disagree";
+    }
+
+    /**
+     * Check as much of the rep invariant as the verification level asks for
+     * @param first id of a vertex touched by the last operation, or -1
+     * @param second id of another vertex touched by the last operation, or -1
+     * @return true if no violation was found
+     */
+    private boolean isRepOk(int first, int second) {
+        switch (verification) {
+        case OFF:
+            return true;
+        case FULL:
+            return isVerticesNotDuplicate() && isAdjacencySymmetric() && areWeightsPositive()
+                    && isStatisticsConsistent();
+        case SAMPLED:
+            return isSampleConsistent() && areTouchedConsistent(first, second);
+        default:
+            return areTouchedConsistent(first, second);
+        }
+    }
+    
+    /**
+     * Check the part of the rep invariant about the vertices touched by the last operation
+     * @param first id of a vertex, or -1
+     * @param second id of another vertex, or -1
+     * @return true if no violation was found
+     */
+    private boolean areTouchedConsistent(int first, int second) {
+        return (first < 0 || isVertexConsistent(first)) && (second < 0 || isVertexConsistent(second));
+    }
+    
+    /**
+     * Verify that statistics agrees with the vertices and their edges - O(n).
+     * @return true if statistics has the vertex and edge counts and every degree
+     */
+    private boolean isStatisticsConsistent() {
+        int edgeCount = 0;
+        for (Vertex vertex : vertices) {
+            if (vertex != null) {
+                if (statistics.outDegree(vertex.getId()) != vertex.targetCount()
+                        || statistics.inDegree(vertex.getId()) != vertex.sourceCount()) {
+                    return false;
+                }
+                edgeCount += vertex.targetCount();
+            }
+        }
+        return statistics.vertexCount() == vertexCount && statistics.edgeCount() == edgeCount;
+    }
+    
+    // Check rep invariant after a bulk mutation that touched the given vertices
+    private void checkRep(BitSet touched) {
+        assert(this.isRepOk(touched)) : "Vertices are duplicate or incoming and outgoing edges disagree";
+    }
+
+    /**
+     * Check as much of the rep invariant as the verification level asks for
+     * @param touched ids of the vertices touched by the last operation
+     * @return true if no violation was found
+     */
+    private boolean isRepOk(BitSet touched) {
+        switch (verification) {
+        case OFF:
+            return true;
+        case FULL:
+            return isRepOk(-1, -1);
+        case SAMPLED:
+            return isSampleConsistent() && areTouchedConsistent(touched);
+        default:
+            return areTouchedConsistent(touched);
+        }
+    }
+    
+    /**
+     * Check the part of the rep invariant about the vertices touched by the last operation
+     * @param touched ids of the vertices
+     * @return true if no violation was found
+     */
+    private boolean areTouchedConsistent(BitSet touched) {
+        for (int id = touched.nextSetBit(0); id >= 0; id = touched.nextSetBit(id + 1)) {
+            if (!isVertexConsistent(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verify the part of the rep invariant about a few random vertices.
+     * @return true if no violation was found
+     */
+    private boolean isSampleConsistent() {
+        for (int i = 0; i < Verification.SAMPLE_SIZE && !vertices.isEmpty(); i++) {
+            if (!isVertexConsistent(ThreadLocalRandom.current().nextInt(vertices.size()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verify the part of the rep invariant about one vertex - O(degree).
+     * @param id id of a vertex, possibly not in the graph
+     * @return true if the vertex is stored at its own id, its weights are positive, statistics has
+     *         its degrees, and each of its edges is recorded with the same weight at the other end
+     */
+    private boolean isVertexConsistent(int id) {
+        Vertex vertex = vertexOf(id);
+        if (vertex == null) {
+            return true;
+        }
+        if (vertex.getId() != id || !vertex.areWeightsPositive()
+                || statistics.outDegree(id) != vertex.targetCount() || statistics.inDegree(id) != vertex.sourceCount()) {
+            return false;
+        }
+        boolean[] consistent = { true };
+        vertex.forEachTarget((target, weight) -> {
+            Vertex targetVertex = vertexOf(target);
+            if (targetVertex == null || targetVertex.getSourceWeight(id) != weight) {
+                consistent[0] = false;
+            }
+        });
+        vertex.forEachSource((source, weight) -> {
+            Vertex sourceVertex = vertexOf(source);
+            if (sourceVertex == null || sourceVertex.getWeight(id) != weight) {
+                consistent[0] = false;
+            }
+        });
+        return consistent[0];
     }
 
     /**
-     * Verify that there are no duplicated vertices in this list.
+     * Verify that every Vertex is stored at its own id.
       * @return true if there are no duplicates, false otherwise.
      */
     private boolean isVerticesNotDuplicate() {
-        if (vertices.size() > 1) {
-            for (int i = 0; i < vertices.size(); i++) {
-                for (int j=0; j < vertices.size(); j++) {
-                    if (i != j && vertices.get(i).getName() == vertices.get(j).getName()) {
-                        return false;
-                    }
+        int count = 0;
+        for (int id = 0; id < vertices.size(); id++) {
+            Vertex vertex = vertices.get(id);
+            if (vertex != null) {
+                if (vertex.getId() != id) {
+                    return false;
                 }
+                count++;
+            }
+        }
+        return count == vertexCount;
+    }
+
+    /**
+     * Verify that the weights of every vertex are positive.
+     * @return true if all weights are positive, false otherwise.
+     */
+    private boolean areWeightsPositive() {
+        for (Vertex vertex : vertices) {
+            if (vertex != null && !vertex.areWeightsPositive()) {
+                return false;
             }
         }
         return true;
     }
+
+    /**
+     * Verify that every outgoing edge is recorded as an incoming edge of its target.
+     * @return true if incoming and outgoing edges agree, false otherwise.
+     */
+    private boolean isAdjacencySymmetric() {
+        int outgoingEdges = 0;
+        int incomingEdges = 0;
+        boolean[] symmetric = { true };
+        for (Vertex vertex : vertices) {
+            if (vertex == null) {
+                continue;
+            }
+            vertex.forEachTarget((target, weight) -> {
+                Vertex targetVertex = vertexOf(target);
+                if (targetVertex == null || targetVertex.getSourceWeight(vertex.getId()) != weight) {
+                    symmetric[0] = false;
+                }
+            });
+            outgoingEdges += vertex.targetCount();
+            incomingEdges += vertex.sourceCount();
+        }
+        return symmetric[0] && outgoingEdges == incomingEdges;
+    }
+    
+    /**
+     * Get the Vertex with a given id
+     * @param id id of a vertex, or -1
+     * @return the Vertex if it is in the graph, null otherwise
+     */
+    private Vertex vertexOf(int id) {
+        return id >= 0 && id < vertices.size() ? vertices.get(id) : null;
+    }
+    
+    /**
+     * Get the Vertex with a given id, adding it to the graph if needed
+     * @param id id of a vertex in labels
+     * @return the Vertex with that id
+     */
+    private Vertex vertexFor(int id) {
+        while (vertices.size() <= id) {
+            vertices.add(null);
+        }
+        Vertex vertex = vertices.get(id);
+        if (vertex == null) {
+            vertex = new Vertex(labels, id);
+            vertices.set(id, vertex);
+            vertexCount++;
+            modCount++;
+            statistics.vertexAdded(id);
+        }
+        return vertex;
+    }
+    
+    /**
+     * Find the next vertex in id order
+     * @param from smallest id to consider
+     * @return smallest id >= from of a vertex in the graph, or -1 if there is none
+     */
+    private int nextVertex(int from) {
+        for (int id = from; id < vertices.size(); id++) {
+            if (vertices.get(id) != null) {
+                return id;
+            }
+        }
+        return -1;
+    }
     
     @Override
     public boolean add(String vertex) {
-        boolean result = false;
-        if (!hasVertex(vertex)) {
-            vertices.add(new Vertex(vertex));
-            result = true;
-        }
-        checkRep();
+        int id = labels.intern(vertex);
+        boolean result = vertexOf(id) == null;
+        vertexFor(id);
+        checkRep(id, -1);
         return result;
     }
     
     @Override
     public int set(String source, String target, int weight) {
+        int sourceId = weight == 0 ? labels.idOf(source) : labels.intern(source);
+        int targetId = weight == 0 ? labels.idOf(target) : labels.intern(target);
+        int result = setEdge(sourceId, targetId, weight);
+        checkRep(sourceId, targetId);
+        return result;
+    }
+    
+    @Override
+    public int increment(String source, String target, int delta) {
+        // labels are only interned once the edge is known to get a positive weight
+        int sourceId = labels.idOf(source);
+        int targetId = labels.idOf(target);
+        Vertex sourceVertex = vertexOf(sourceId);
+        int result = sourceVertex == null || targetId < 0 ? 0 : sourceVertex.getWeight(targetId);
+        int weight = ConcreteEdgesGraph.incremented(result, delta);
+        if (weight != result) {
+            if (result == 0) {
+                sourceId = labels.intern(source);
+                targetId = labels.intern(target);
+            }
+            if (sourceVertex == null) {
+                sourceVertex = vertexFor(sourceId);
+            }
+            Vertex targetVertex = weight == 0 ? vertexOf(targetId) : vertexFor(targetId);
+            sourceVertex.setTarget(targetId, weight);
+            targetVertex.setSource(sourceId, weight);
+            modCount++;
+            if (result == 0) {
+                statistics.edgeAdded(sourceId, targetId, weight);
+            } else if (weight == 0) {
+                statistics.edgeRemoved(sourceId, targetId, result);
+            } else {
+                statistics.edgeReweighted(sourceId, targetId, result, weight);
+            }
+        }
+        checkRep(sourceId, targetId);
+        return result;
+    }
+    
+    @Override
+    public int[] setAll(Collection<? extends EdgeUpdate<String>> updates) {
+        int[] result = new int[updates.size()];
+        BitSet touched = new BitSet();
+        int i = 0;
+        for (EdgeUpdate<String> update : updates) {
+            int weight = update.getWeight();
+            int sourceId = weight == 0 ? labels.idOf(update.getSource()) : labels.intern(update.getSource());
+            int targetId = weight == 0 ? labels.idOf(update.getTarget()) : labels.intern(update.getTarget());
+            result[i++] = setEdge(sourceId, targetId, weight);
+            if (sourceId >= 0 && targetId >= 0) {
+                touched.set(sourceId);
+                touched.set(targetId);
+            }
+        }
+        checkRep(touched);
+        return result;
+    }
+    
+    /**
+     * Add, change, or remove an edge without checking the rep invariant
+     * @param source id of the source vertex, may be -1 only if weight is zero
+     * @param target id of the target vertex, may be -1 only if weight is zero
+     * @param weight nonnegative weight of the edge
+     * @return the previous weight of the edge, or zero if there was no such edge
+     */
+    private int setEdge(int source, int target, int weight) {
         int result = 0;
         if (weight > 0) {
-            if (!hasVertex(source)) vertices.add(new Vertex(source));
-            if (!hasVertex(target)) vertices.add(new Vertex(target));
-            for (Vertex testVertex : vertices) {
-                if (testVertex.getName() == source) {
-                    if (testVertex.isVertexInTargets(target)) {
-                        result = testVertex.getWeight(target);
-                    }
-                    testVertex.setTarget(target, weight);
-                    checkRep();
-                    return result;
-                }
+            Vertex sourceVertex = vertexFor(source);
+            Vertex targetVertex = vertexFor(target);
+            result = sourceVertex.getWeight(target);
+            sourceVertex.setTarget(target, weight);
+            targetVertex.setSource(source, weight);
+            modCount++;
+            if (result == 0) {
+                statistics.edgeAdded(source, target, weight);
+            } else {
+                statistics.edgeReweighted(source, target, result, weight);
             }
         } else if (weight == 0) {
-            if(hasVertex(source)) {
-                for (Vertex testVertex : vertices) {
-                    if (testVertex.getName() == source && testVertex.getTargets().contains(target)) {
-                        result = testVertex.getWeight(target);
-                        testVertex.setTarget(target, weight);
-                        checkRep();
-                        return result;
-                    }
+            Vertex sourceVertex = vertexOf(source);
+            if (sourceVertex != null && target >= 0) {
+                result = sourceVertex.getWeight(target);
+                if (result != 0) {
+                    sourceVertex.setTarget(target, 0);
+                    vertexOf(target).setSource(source, 0);
+                    modCount++;
+                    statistics.edgeRemoved(source, target, result);
                 }
             }
         }
-        return 0;
+        return result;
     }
     
     @Override
     public boolean remove(String vertex) {
-        boolean result = false;
-        int remIndex = 0;
-        if (hasVertex(vertex)) {
-            for (Vertex testVertex : vertices) {
-                if (testVertex.getName() == vertex) {
-                    remIndex = vertices.indexOf(testVertex);
-                }
-                if (testVertex.getTargets().contains(vertex)) {
-                    testVertex.setTarget(vertex, 0);
-                }
+        Vertex removed = removeVertex(labels.idOf(vertex));
+        assert(removed == null || verification == Verification.OFF || this.isDetached(removed))
+                : "Removed vertex still has edges";
+        checkRep();
+        return removed != null;
+    }
+    
+    @Override
+    public int removeAll(Collection<? extends String> vertices) {
+        List<Vertex> removed = new ArrayList<>();
+        for (String vertex : vertices) {
+            Vertex removedVertex = removeVertex(labels.idOf(vertex));
+            if (removedVertex != null) {
+                removed.add(removedVertex);
             }
-            vertices.remove(remIndex);
-            result = true;
         }
+        assert(verification == Verification.OFF || removed.stream().allMatch(this::isDetached))
+                : "Removed vertex still has edges";
         checkRep();
-        return result;
+        return removed.size();
+    }
+    
+    /**
+     * Remove a vertex and its edges without checking the rep invariant
+     * @param id id of a vertex, or -1
+     * @return the removed Vertex, or null if it was not in the graph
+     */
+    private Vertex removeVertex(int id) {
+        Vertex removed = vertexOf(id);
+        if (removed == null) {
+            return null;
+        }
+        vertices.set(id, null);
+        vertexCount--;
+        modCount++;
+        removed.forEachTarget((target, weight) -> {
+            Vertex targetVertex = vertexOf(target);
+            if (targetVertex != null) {
+                targetVertex.setSource(id, 0);
+            }
+            statistics.edgeRemoved(id, target, weight);
+        });
+        removed.forEachSource((source, weight) -> {
+            Vertex sourceVertex = vertexOf(source);
+            if (sourceVertex != null) {
+                sourceVertex.setTarget(id, 0);
+            }
+            // a self loop was already removed as a target
+            if (source != id) {
+                statistics.edgeRemoved(source, id, weight);
+            }
+        });
+        statistics.vertexRemoved(id);
+        return removed;
+    }
+
+    /**
+     * Verify that no vertex in the graph still has an edge to or from a removed vertex - O(degree).
+     * @param removed a vertex no longer in the graph
+     * @return true if none of its former neighbours refers to it
+     */
+    private boolean isDetached(Vertex removed) {
+        boolean[] detached = { true };
+        removed.forEachTarget((target, weight) -> {
+            Vertex targetVertex = vertexOf(target);
+            if (targetVertex != null && targetVertex.getSourceWeight(removed.getId()) > 0) {
+                detached[0] = false;
+            }
+        });
+        removed.forEachSource((source, weight) -> {
+            Vertex sourceVertex = vertexOf(source);
+            if (sourceVertex != null && sourceVertex.getWeight(removed.getId()) > 0) {
+                detached[0] = false;
+            }
+        });
+        return detached[0];
     }
     
     @Override
     public Set<String> vertices() {
+        checkRep();
+        switch (views) {
+        case LIVE:
+            return liveVertices;
+        case SNAPSHOT:
+            return snapshots.vertices(modCount, this::copyVertices);
+        default:
+            return copyVertices();
+        }
+    }
+    
+    /**
+     * Copy the vertices
+     * @return new set of the labels of all vertices
+     */
+    private Set<String> copyVertices() {
         Set<String> graphVertices = new HashSet<>();
-        for (Vertex testVertex : vertices) {
-            graphVertices.add(testVertex.getName());
+        for (Vertex vertex : vertices) {
+            if (vertex != null) {
+                graphVertices.add(vertex.getName());
+            }
         }
-        checkRep();
         return graphVertices;
     }
     
     @Override
     public Map<String, Integer> sources(String target) {
-        Map<String, Integer> result = new HashMap<>();
-        for (Vertex testVertex : vertices) {
-            if (testVertex.getTargets().contains(target)) {
-                result.put(testVertex.getName(), testVertex.getWeight(target));
-            }
-        }
         checkRep();
-        return result;
+        switch (views) {
+        case LIVE:
+            return new LabelMapView<>(labels, () -> {
+                Vertex vertex = vertexOf(labels.idOf(target));
+                return vertex == null ? Collections.<Integer, Integer>emptyMap() : vertex.sourcesView();
+            }, Integer::intValue);
+        case SNAPSHOT:
+            Vertex vertex = vertexOf(labels.idOf(target));
+            return vertex == null ? Collections.emptyMap()
+                    : snapshots.sources(modCount, vertex.getId(), vertex::getSourcesMap);
+        default:
+            Vertex copied = vertexOf(labels.idOf(target));
+            return copied == null ? new HashMap<>() : copied.getSourcesMap();
+        }
     }
     
     @Override
     public Map<String, Integer> targets(String source) {
-        Map<String, Integer> result = new HashMap<>();
-        for (Vertex vertex : vertices) {
-            if (vertex.getName() == source) {
-                result = vertex.getTargetsMap();
-            }
-        }
         checkRep();
-        return result;
+        switch (views) {
+        case LIVE:
+            return new LabelMapView<>(labels, () -> {
+                Vertex vertex = vertexOf(labels.idOf(source));
+                return vertex == null ? Collections.<Integer, Integer>emptyMap() : vertex.targetsView();
+            }, Integer::intValue);
+        case SNAPSHOT:
+            Vertex vertex = vertexOf(labels.idOf(source));
+            return vertex == null ? Collections.emptyMap()
+                    : snapshots.targets(modCount, vertex.getId(), vertex::getTargetsMap);
+        default:
+            Vertex copied = vertexOf(labels.idOf(source));
+            return copied == null ? new HashMap<>() : copied.getTargetsMap();
+        }
     }
-
+    
     /**
-     * Helper function to verify if vertices has a given vertex in its list
-     * @param vertex a label
-     * @return true if this lists contains a vertex with the given label name, false otherwise.
+     * Get the statistics of this graph, which are kept up to date as it changes.
+     * 
+     * @return statistics of this graph, the same object on every call
      */
-    private boolean hasVertex(String vertex) {
-        for (Vertex testVertex : vertices) {
-            if (testVertex.getName() == vertex) {
-                return true;
+    public GraphStatistics<String> statistics() {
+        return statistics;
+    }
+    
+    /**
+     * Visit every edge, in no particular order
+     * @param visitor called with the source id, target id and weight of each edge
+     */
+    private void forEachEdge(GraphStatistics.WeightedEdgeVisitor visitor) {
+        for (Vertex vertex : vertices) {
+            if (vertex != null) {
+                vertex.forEachTarget((target, weight) -> visitor.visit(vertex.getId(), target, weight));
             }
         }
-        return false;
     }
-
+    
     @Override
     public String toString() {
-        int numEdges = 0;
-        for (Vertex vertex : vertices) {
-            numEdges += vertex.getTargets().size();
-        }
-        return "Graph contains " + vertices.size() + " vertices and " + numEdges + " edges";
+        return statistics.toString();
     }
     
 }
@@ -168,48 +610,76 @@ public class ConcreteVerticesGraph implements Graph<String> {
 /**
  * Mutable.
  * This class is internal to the rep of ConcreteVerticesGraph.
- * Each Vertex is an object in the adjacency list representation of graph. The Vertex has a name and a map of targeted
- * vertices as keys and the weight of each outgoing edge as values.
- * Targets are not duplicate by default. Keys in map form a set.
+ * Each Vertex is an object in the adjacency list representation of graph. The Vertex has a name, a map of targeted
+ * vertices as keys and the weight of each outgoing edge as values, and a map of source vertices as keys and the
+ * weight of each incoming edge as values. The name and the keys of both maps are ids in a label dictionary.
+ * Targets and sources are not duplicate by default. Keys in map form a set.
  */
 class Vertex {
     
-    private String nodeName;
-    private Map<String, Integer> targets;
+    private final LabelDictionary<String> labels;
+    private final int id;
+    private final IntIntMap targets;
+    private final IntIntMap sources;
+    private final Map<Integer, Integer> targetsView;
+    private final Map<Integer, Integer> sourcesView;
     
     // Abstraction function:
-    //   Represents a vertex in the adjacency list of Graph with its outgoing edges and their respective weights.
+    //   Represents the vertex labels.labelOf(id) in the adjacency list of Graph with its outgoing and incoming
+    //   edges and their respective weights.
     // Representation invariant:
-    //   Targets are not duplicate by default and weights are positive.
+    //   Targets and sources are not duplicate by default and weights are positive.
+    //   id and all keys are ids in labels.
+    //   targets and sources are open-addressing maps from id to weight, so an edge costs two ints per
+    //   slot instead of a HashMap entry and a boxed Integer.
     // Safety from rep exposure:
-    //   Fields are private and observers return copies of the mutable fields
+    //   Fields are private and public observers return copies of the mutable fields. The package-private views
+    //   are unmodifiable and only read by ConcreteVerticesGraph. labels only ever grows and is never returned.
 
 
     /**
-     * Create a new Vertex object with given name and initializes Vertex targets map.
+     * Create a new Vertex object with given name and its own label dictionary.
      * @param nodeName label for new Vertex
      */
     public Vertex(String nodeName) {
-        this.nodeName = nodeName;
-        this.targets = new HashMap<>();
+        this(new LabelDictionary<>(), nodeName);
     }
 
-    // Check rep invariant
-    private void checkRep() {
-        assert (this.areWeightsPositive()) : "Invalid weight found";
+    /**
+     * Create a new Vertex object with given name in a label dictionary.
+     * @param labels dictionary in which to intern the names of this vertex and its neighbours
+     * @param nodeName label for new Vertex
+     */
+    private Vertex(LabelDictionary<String> labels, String nodeName) {
+        this(labels, labels.intern(nodeName));
+    }
+
+    /**
+     * Create a new Vertex object with given id and initializes Vertex targets and sources maps.
+     * @param labels dictionary that assigned id
+     * @param id id of the label for new Vertex
+     */
+    public Vertex(LabelDictionary<String> labels, int id) {
+        this.labels = labels;
+        this.id = id;
+        this.targets = new IntIntMap();
+        this.sources = new IntIntMap();
+        this.targetsView = targets.asMap();
+        this.sourcesView = sources.asMap();
+    }
+
+    // Check the rep invariant for the one weight changed by a mutator; the graph checks all
+    // weights with areWeightsPositive() when it runs a full verification
+    private void checkRep(int weight) {
+        assert (weight >= 0) : "Invalid weight found";
     }
 
     /**
      * Verify that all weights are positive
      * @return true if all weights are positive, false otherwise.
      */
-    private boolean areWeightsPositive() {
-        for (String testString : targets.keySet()) {
-            if (targets.get(testString) < 0) {
-                return false;
-            }
-        }
-        return true;
+    boolean areWeightsPositive() {
+        return targets.areValuesPositive() && sources.areValuesPositive();
     }
 
     /**
@@ -218,25 +688,62 @@ class Vertex {
      * @param weight weight of edge from Vertex to target
      */
     public void setTarget(String target, int weight) {
-        if (isVertexInTargets(target)) {
-            if (weight == 0) {
-                this.targets.remove(target);
-                checkRep();
-            }
-            else {
-                this.targets.replace(target, weight);
-                checkRep();
+        if (weight == 0) {
+            int targetId = labels.idOf(target);
+            if (targetId >= 0) {
+                setTarget(targetId, weight);
             }
         }
         else {
-            if (weight == 0) {
-                return;
-            }
-            else {
-                this.targets.put(target, weight);
-                checkRep();
+            setTarget(labels.intern(target), weight);
+        }
+    }
+
+    /**
+     * If weight is positive adds or changes the edge from Vertex to target. Otherwise, it deletes the target.
+     * @param target target id.
+     * @param weight weight of edge from Vertex to target
+     */
+    public void setTarget(int target, int weight) {
+        if (weight == 0) {
+            this.targets.remove(target);
+        }
+        else {
+            this.targets.put(target, weight);
+        }
+        checkRep(weight);
+    }
+
+    /**
+     * If weight is positive adds or changes the edge from source to Vertex. Otherwise, it deletes the source.
+     * @param source source name.
+     * @param weight weight of edge from source to Vertex
+     */
+    public void setSource(String source, int weight) {
+        if (weight == 0) {
+            int sourceId = labels.idOf(source);
+            if (sourceId >= 0) {
+                setSource(sourceId, weight);
             }
         }
+        else {
+            setSource(labels.intern(source), weight);
+        }
+    }
+
+    /**
+     * If weight is positive adds or changes the edge from source to Vertex. Otherwise, it deletes the source.
+     * @param source source id.
+     * @param weight weight of edge from source to Vertex
+     */
+    public void setSource(int source, int weight) {
+        if (weight == 0) {
+            this.sources.remove(source);
+        }
+        else {
+            this.sources.put(source, weight);
+        }
+        checkRep(weight);
     }
 
     /**
@@ -244,7 +751,15 @@ class Vertex {
      * @return label of Vertex
      */
     public String getName() {
-        return this.nodeName;
+        return labels.labelOf(id);
+    }
+
+    /**
+     * Get id of Vertex
+     * @return id of the label of Vertex
+     */
+    public int getId() {
+        return id;
     }
 
     /**
@@ -252,7 +767,9 @@ class Vertex {
      * @return the set of targets out from Vertex.
      */
     public Set<String> getTargets() {
-        return new HashSet<>(this.targets.keySet());
+        Set<String> result = new HashSet<>();
+        targets.forEach((target, weight) -> result.add(labels.labelOf(target)));
+        return result;
     }
 
     /**
@@ -261,7 +778,82 @@ class Vertex {
      * is the (nonzero) weight of each edge from Vertex to targets.
      */
     public Map<String, Integer> getTargetsMap() {
-        return new HashMap<>(targets);
+        return toLabelMap(targets);
+    }
+
+    /**
+     * Get all source vertices with an edge to Vertex and the weight of each edge.
+     * @return a map where the keys are the set of labels of vertices targeting Vertex and the value for each key
+     * is the (nonzero) weight of each edge from that source to Vertex.
+     */
+    public Map<String, Integer> getSourcesMap() {
+        return toLabelMap(sources);
+    }
+
+    /**
+     * Copy an id-keyed map of weights into a label-keyed one.
+     * @param weights map from vertex id to edge weight
+     * @return new map from vertex label to edge weight
+     */
+    private Map<String, Integer> toLabelMap(IntIntMap weights) {
+        Map<String, Integer> result = new HashMap<>();
+        weights.forEach((vertex, weight) -> result.put(labels.labelOf(vertex), weight));
+        return result;
+    }
+
+    /**
+     * Unmodifiable view of the outgoing edges, for reading without a copy.
+     * @return live read-only map from target id to edge weight.
+     */
+    Map<Integer, Integer> targetsView() {
+        return targetsView;
+    }
+
+    /**
+     * Unmodifiable view of the incoming edges, for reading without a copy.
+     * @return live read-only map from source id to edge weight.
+     */
+    Map<Integer, Integer> sourcesView() {
+        return sourcesView;
+    }
+
+    /**
+     * Visit the outgoing edges without boxing.
+     * @param visitor called with the id of each target and the weight of the edge to it
+     */
+    void forEachTarget(EdgeVisitor visitor) {
+        targets.forEach(visitor);
+    }
+
+    /**
+     * Visit the incoming edges without boxing.
+     * @param visitor called with the id of each source and the weight of the edge from it
+     */
+    void forEachSource(EdgeVisitor visitor) {
+        sources.forEach(visitor);
+    }
+
+    /**
+     * @return number of outgoing edges
+     */
+    int targetCount() {
+        return targets.size();
+    }
+
+    /**
+     * @return number of incoming edges
+     */
+    int sourceCount() {
+        return sources.size();
+    }
+
+    /**
+     * Get the weight of the edge from source to Vertex.
+     * @param source id of a label, or -1
+     * @return the weight of the edge from source to Vertex, or zero if there is none.
+     */
+    int getSourceWeight(int source) {
+        return sources.get(source);
     }
 
     /**
@@ -270,6 +862,15 @@ class Vertex {
      * @return the weight of the edge from Vertex to target.
      */
     public int getWeight(String target) {
+        return getWeight(labels.idOf(target));
+    }
+
+    /**
+     * Get the weight of the edge from Vertex to target.
+     * @param target id of a label, or -1
+     * @return the weight of the edge from Vertex to target, or zero if there is none.
+     */
+    public int getWeight(int target) {
         return this.targets.get(target);
     }
 
@@ -279,18 +880,13 @@ class Vertex {
      * @return true if target is in the set of Vertex targets. False otherwise.
      */
     public boolean isVertexInTargets(String target) {
-        if (this.targets.keySet().contains(target)){
-            return true;
-        }
-        else {
-            return false;
-        }
-
+        int id = labels.idOf(target);
+        return id >= 0 && this.targets.get(id) > 0;
     }
 
     @Override
     public String toString() {
-        return "Vertex = " + this.nodeName + " has " + this.targets.size() + " targets";
+        return "Vertex = " + getName() + " has " + this.targets.size() + " targets";
     }
 
 }
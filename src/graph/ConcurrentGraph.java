@@ -0,0 +1,236 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe implementation of Graph.
+ * 
+ * <p>Adjacency is kept in concurrent hash maps, in both directions. Mutators
+ * lock the stripes of the vertices they touch: set() and increment() lock the
+ * stripes of their source and target, add() and remove() the stripe of their vertex. Because
+ * every change to an edge holds the locks of both of its endpoints, set()
+ * reads and replaces the previous weight atomically, and while remove() holds
+ * the lock of its vertex no edge to or from it can be added, so its cascading
+ * edge deletion cannot leave a dangling edge. Mutators on unrelated vertices
+ * run in parallel.
+ * 
+ * <p>Observers never lock. They return copies that are weakly consistent:
+ * each reflects every operation that finished before the call began, and may
+ * or may not reflect operations running at the same time.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public class ConcurrentGraph<L> implements CountingGraph<L> {
+    
+    private static final int DEFAULT_CONCURRENCY = 16;
+    
+    private final ConcurrentHashMap<L, ConcurrentHashMap<L, Integer>> outgoing = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<L, ConcurrentHashMap<L, Integer>> incoming = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+    
+    // Abstraction function:
+    //   Represents the weighted directed graph whose vertices are the keys of
+    //   outgoing and which has an edge s -> t with weight w iff
+    //   outgoing.get(s).get(t) == w
+    // Representation invariant (whenever no mutator is running):
+    //   outgoing and incoming have the same key set
+    //   outgoing.get(s).get(t) == incoming.get(t).get(s) for every edge, weights are positive
+    //   stripes.length is a power of two
+    // Safety from rep exposure:
+    //   Fields are private final and observers return copies.
+    // Thread safety argument:
+    //   The adjacency maps are ConcurrentHashMaps, so single reads and writes are atomic and safe.
+    //   Every change to the edge s -> t happens while holding stripeOf(s) and stripeOf(t), and every
+    //   change to the entries of vertex v happens while holding stripeOf(v), so compound updates on
+    //   one edge or vertex are atomic with respect to each other. Stripes are always acquired in
+    //   increasing index order, so mutators cannot deadlock.
+    
+    /**
+     * Create an empty graph sized for 16 concurrent writers.
+     */
+    public ConcurrentGraph() {
+        this(DEFAULT_CONCURRENCY);
+    }
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @param concurrency expected number of threads mutating the graph at once;
+     *        the number of lock stripes is the next power of two at least four times this
+     * @throws IllegalArgumentException if concurrency is not positive
+     */
+    public ConcurrentGraph(int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive: " + concurrency);
+        }
+        int count = Integer.highestOneBit(Math.max(1, Math.min(concurrency, 1 << 16) * 4 - 1)) << 1;
+        this.stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert Integer.bitCount(stripes.length) == 1 : "Stripe count is not a power of two";
+    }
+    
+    // Check the rep invariant for one edge; caller holds the stripes of source and target
+    private void checkRep(L source, L target) {
+        assert Objects.equals(weightOf(outgoing, source, target), weightOf(incoming, target, source))
+                : "Incoming and outgoing edges disagree";
+    }
+    
+    private static <L> Integer weightOf(Map<L, ConcurrentHashMap<L, Integer>> index, L vertex, L other) {
+        Map<L, Integer> edges = index.get(vertex);
+        return edges == null ? null : edges.get(other);
+    }
+    
+    /**
+     * @param vertex a label
+     * @return index of the lock stripe guarding vertex
+     */
+    private int stripeOf(L vertex) {
+        int hash = vertex.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+    
+    /**
+     * Add a vertex to both indexes if it is missing; caller holds its stripe.
+     * @param vertex a label
+     * @return true if the vertex was added
+     */
+    private boolean addLocked(L vertex) {
+        if (outgoing.containsKey(vertex)) {
+            return false;
+        }
+        incoming.putIfAbsent(vertex, new ConcurrentHashMap<>());
+        outgoing.putIfAbsent(vertex, new ConcurrentHashMap<>());
+        return true;
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        ReentrantLock lock = stripes[stripeOf(vertex)];
+        lock.lock();
+        try {
+            return addLocked(vertex);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be nonnegative: " + weight);
+        }
+        return update(source, target, weight, false);
+    }
+    
+    @Override
+    public int increment(L source, L target, int delta) {
+        return update(source, target, delta, true);
+    }
+    
+    /**
+     * Set or increment the weight of an edge while holding the stripes of both endpoints.
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param value new weight, or amount to add to the weight
+     * @param relative true if value is an amount to add
+     * @return the previous weight of the edge, or zero if there was no such edge
+     * @throws IllegalArgumentException if an incremented weight would be negative or overflow
+     */
+    private int update(L source, L target, int value, boolean relative) {
+        int first = stripeOf(source);
+        int second = stripeOf(target);
+        ReentrantLock low = stripes[Math.min(first, second)];
+        ReentrantLock high = stripes[Math.max(first, second)];
+        low.lock();
+        high.lock();
+        try {
+            Integer previous = weightOf(outgoing, source, target);
+            int result = previous == null ? 0 : previous;
+            int weight = relative ? ConcreteEdgesGraph.incremented(result, value) : value;
+            if (weight == 0) {
+                if (previous != null) {
+                    outgoing.get(source).remove(target);
+                    incoming.get(target).remove(source);
+                }
+            } else {
+                addLocked(source);
+                addLocked(target);
+                outgoing.get(source).put(target, weight);
+                incoming.get(target).put(source, weight);
+            }
+            checkRep(source, target);
+            return result;
+        } finally {
+            high.unlock();
+            low.unlock();
+        }
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        ReentrantLock lock = stripes[stripeOf(vertex)];
+        lock.lock();
+        try {
+            Map<L, Integer> targets = outgoing.remove(vertex);
+            if (targets == null) {
+                return false;
+            }
+            Map<L, Integer> sources = incoming.remove(vertex);
+            // no edge to or from vertex can change while we hold its stripe
+            for (L target : targets.keySet()) {
+                Map<L, Integer> sourcesOfTarget = incoming.get(target);
+                if (sourcesOfTarget != null) {
+                    sourcesOfTarget.remove(vertex);
+                }
+            }
+            for (L source : sources.keySet()) {
+                Map<L, Integer> targetsOfSource = outgoing.get(source);
+                if (targetsOfSource != null) {
+                    targetsOfSource.remove(vertex);
+                }
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        return new HashSet<>(outgoing.keySet());
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = incoming.get(target);
+        return sources == null ? new HashMap<>() : new HashMap<>(sources);
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = outgoing.get(source);
+        return targets == null ? new HashMap<>() : new HashMap<>(targets);
+    }
+    
+    @Override
+    public String toString() {
+        long edges = 0;
+        for (Map<L, Integer> targets : outgoing.values()) {
+            edges += targets.size();
+        }
+        return "Graph contains " + outgoing.size() + " vertices and " + edges + " edges";
+    }
+    
+}
@@ -0,0 +1,33 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * A Graph whose edge weights can be adjusted in place, for example to count
+ * how many times one vertex follows another.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public interface CountingGraph<L> extends Graph<L> {
+    
+    /**
+     * Add delta to the weight of a directed edge, in one lookup of the edge.
+     * If the edge does not exist its weight is taken to be zero. If the new
+     * weight is positive the edge is added or updated, and vertices with the
+     * given labels are added to the graph if they do not already exist; if
+     * the new weight is zero the edge is removed if it exists (the graph is
+     * not otherwise modified).
+     * Implementations that are safe for concurrent use perform the whole
+     * operation atomically.
+     * 
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param delta amount to add to the weight, may be negative
+     * @return the previous weight of the edge, or zero if there was no such edge
+     * @throws IllegalArgumentException if the new weight would be negative or
+     *         overflow an int; the graph is then not modified
+     */
+    public int increment(L source, L target, int delta);
+    
+}
@@ -0,0 +1,85 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Objects;
+
+/**
+ * Immutable.
+ * One edge update for {@link BulkGraph#setAll}: the arguments of a call to
+ * {@link Graph#set(Object, Object, int) set(source, target, weight)}.
+ * 
+ * @param <L> type of vertex labels, must be immutable
+ */
+public final class EdgeUpdate<L> {
+    
+    private final L source;
+    private final L target;
+    private final int weight;
+    
+    // Abstraction function:
+    //   Represents the call set(source, target, weight)
+    // Representation invariant:
+    //   source and target are not null, weight is nonnegative
+    // Safety from rep exposure:
+    //   All fields are private final and of immutable types
+    
+    /**
+     * Create an edge update.
+     * 
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight nonnegative weight of the edge; zero removes it
+     * @throws IllegalArgumentException if weight is negative
+     */
+    public EdgeUpdate(L source, L target, int weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be nonnegative: " + weight);
+        }
+        this.source = Objects.requireNonNull(source, "source");
+        this.target = Objects.requireNonNull(target, "target");
+        this.weight = weight;
+    }
+    
+    /**
+     * @return label of the source vertex
+     */
+    public L getSource() {
+        return source;
+    }
+    
+    /**
+     * @return label of the target vertex
+     */
+    public L getTarget() {
+        return target;
+    }
+    
+    /**
+     * @return new weight of the edge, zero to remove it
+     */
+    public int getWeight() {
+        return weight;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof EdgeUpdate)) {
+            return false;
+        }
+        EdgeUpdate<?> that = (EdgeUpdate<?>) other;
+        return source.equals(that.source) && target.equals(that.target) && weight == that.weight;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, target, weight);
+    }
+    
+    @Override
+    public String toString() {
+        return "Source = " + source + " Target = " + target + " Weight = " + weight;
+    }
+    
+}
@@ -0,0 +1,22 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * Callback for iterating over the edges of one vertex without boxing.
+ * Vertices are identified by the dense int ids of the graph being visited, or
+ * by their labels when visiting an IntGraph.
+ */
+@FunctionalInterface
+public interface EdgeVisitor {
+    
+    /**
+     * Visit one edge.
+     * 
+     * @param vertex id of the vertex at the other end of the edge
+     * @param weight positive weight of the edge
+     */
+    public void visit(int vertex, int weight);
+    
+}
@@ -0,0 +1,293 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of a Graph in compressed sparse row form.
+ * 
+ * <p>Vertices are numbered with dense int ids 0..vertexCount()-1. The edges
+ * out of vertex v are stored in outTargets and outWeights between
+ * outOffsets[v] and outOffsets[v+1], sorted by target id; the edges into v are
+ * stored the same way in the in* arrays. Read methods of Graph are supported,
+ * mutators throw UnsupportedOperationException.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class FrozenGraph<L> implements IndexedGraph<L> {
+    
+    private final Object[] labels;
+    private final Map<L, Integer> ids;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+    
+    // Abstraction function:
+    //   Represents the weighted directed graph with vertices labels[0..n-1]
+    //   and an edge labels[v] -> labels[outTargets[i]] with weight outWeights[i]
+    //   for every outOffsets[v] <= i < outOffsets[v+1]
+    // Representation invariant:
+    //   ids.get(labels[v]) == v for every v, and ids has n entries
+    //   outOffsets and inOffsets have n+1 nondecreasing entries from 0 to the edge count
+    //   targets of each row are sorted, distinct and in 0..n-1; weights are positive
+    //   the in* arrays hold exactly the transpose of the out* arrays
+    // Safety from rep exposure:
+    //   All fields are private final, arrays are never returned, and observers
+    //   return either unmodifiable views or new collections.
+    
+    private FrozenGraph(Object[] labels, Map<L, Integer> ids,
+            int[] outOffsets, int[] outTargets, int[] outWeights,
+            int[] inOffsets, int[] inSources, int[] inWeights) {
+        this.labels = labels;
+        this.ids = ids;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.inWeights = inWeights;
+        checkRep();
+    }
+    
+    /**
+     * Take an immutable snapshot of a graph.
+     * Calls graph.targets() once per vertex; later changes to graph are not
+     * reflected in the snapshot.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph graph to copy
+     * @return a frozen graph with the same vertices and edges as graph
+     */
+    public static <L> FrozenGraph<L> freeze(Graph<L> graph) {
+        if (graph instanceof FrozenGraph) {
+            return (FrozenGraph<L>) graph;
+        }
+        Object[] labels = graph.vertices().toArray();
+        int n = labels.length;
+        Map<L, Integer> ids = new HashMap<>(n * 2);
+        for (int v = 0; v < n; v++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[v];
+            ids.put(label, v);
+        }
+        
+        int[] outOffsets = new int[n + 1];
+        int[] outTargets = new int[16];
+        int[] outWeights = new int[16];
+        int edges = 0;
+        for (int v = 0; v < n; v++) {
+            @SuppressWarnings("unchecked")
+            L label = (L) labels[v];
+            Map<L, Integer> targets = graph.targets(label);
+            if (edges + targets.size() > outTargets.length) {
+                int capacity = Math.max(outTargets.length * 2, edges + targets.size());
+                outTargets = Arrays.copyOf(outTargets, capacity);
+                outWeights = Arrays.copyOf(outWeights, capacity);
+            }
+            long[] row = new long[targets.size()];
+            int i = 0;
+            for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+                row[i++] = ((long) ids.get(edge.getKey()) << 32) | (edge.getValue() & 0xFFFFFFFFL);
+            }
+            Arrays.sort(row);
+            for (long packed : row) {
+                outTargets[edges] = (int) (packed >>> 32);
+                outWeights[edges] = (int) packed;
+                edges++;
+            }
+            outOffsets[v + 1] = edges;
+        }
+        outTargets = Arrays.copyOf(outTargets, edges);
+        outWeights = Arrays.copyOf(outWeights, edges);
+        
+        // transpose by counting sort on target id; rows come out sorted by source
+        int[] inOffsets = new int[n + 1];
+        for (int i = 0; i < edges; i++) {
+            inOffsets[outTargets[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] next = Arrays.copyOf(inOffsets, n);
+        int[] inSources = new int[edges];
+        int[] inWeights = new int[edges];
+        for (int v = 0; v < n; v++) {
+            for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                int slot = next[outTargets[i]]++;
+                inSources[slot] = v;
+                inWeights[slot] = outWeights[i];
+            }
+        }
+        return new FrozenGraph<>(labels, ids, outOffsets, outTargets, outWeights,
+                inOffsets, inSources, inWeights);
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert ids.size() == labels.length : "Labels are duplicate";
+        assert outOffsets.length == labels.length + 1 && inOffsets.length == labels.length + 1
+                : "Offsets do not match vertices";
+        assert outOffsets[labels.length] == outTargets.length && inOffsets[labels.length] == inSources.length
+                && outTargets.length == inSources.length : "Offsets do not match edges";
+    }
+    
+    /**
+     * @return number of vertices in this graph
+     */
+    public int vertexCount() {
+        return labels.length;
+    }
+    
+    /**
+     * @return number of edges in this graph
+     */
+    public int edgeCount() {
+        return outTargets.length;
+    }
+    
+    /**
+     * Get the id of a vertex.
+     * 
+     * @param label a label
+     * @return id of the vertex with that label, or -1 if there is none
+     */
+    public int idOf(L label) {
+        Integer id = ids.get(label);
+        return id == null ? -1 : id;
+    }
+    
+    /**
+     * Get the label of a vertex.
+     * 
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return label of that vertex
+     */
+    @SuppressWarnings("unchecked")
+    public L labelOf(int id) {
+        return (L) labels[id];
+    }
+    
+    /**
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return number of edges out of that vertex
+     */
+    public int outDegree(int id) {
+        return outOffsets[id + 1] - outOffsets[id];
+    }
+    
+    /**
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return number of edges into that vertex
+     */
+    public int inDegree(int id) {
+        return inOffsets[id + 1] - inOffsets[id];
+    }
+    
+    /**
+     * Visit the edges out of a vertex in increasing order of target id.
+     * 
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @param visitor called with the target id and weight of each edge
+     */
+    public void forEachTarget(int id, EdgeVisitor visitor) {
+        for (int i = outOffsets[id]; i < outOffsets[id + 1]; i++) {
+            visitor.visit(outTargets[i], outWeights[i]);
+        }
+    }
+    
+    /**
+     * Visit the edges into a vertex in increasing order of source id.
+     * 
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @param visitor called with the source id and weight of each edge
+     */
+    public void forEachSource(int id, EdgeVisitor visitor) {
+        for (int i = inOffsets[id]; i < inOffsets[id + 1]; i++) {
+            visitor.visit(inSources[i], inWeights[i]);
+        }
+    }
+    
+    /**
+     * Get the weight of an edge, by binary search in the source's row.
+     * 
+     * @param source source vertex id, 0 <= source < vertexCount()
+     * @param target target vertex id, 0 <= target < vertexCount()
+     * @return weight of the edge from source to target, or zero if there is none
+     */
+    public int weight(int source, int target) {
+        int i = Arrays.binarySearch(outTargets, outOffsets[source], outOffsets[source + 1], target);
+        return i < 0 ? 0 : outWeights[i];
+    }
+    
+    /**
+     * Unsupported, a frozen graph cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean add(L vertex) {
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+    
+    /**
+     * Unsupported, a frozen graph cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+    
+    /**
+     * Unsupported, a frozen graph cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("frozen graph cannot be modified");
+    }
+    
+    /**
+     * Get all the vertices in this graph.
+     * 
+     * @return an unmodifiable set of labels of vertices in this graph
+     */
+    @Override
+    public Set<L> vertices() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> result = new HashMap<>();
+        int id = idOf(target);
+        if (id >= 0) {
+            for (int i = inOffsets[id]; i < inOffsets[id + 1]; i++) {
+                result.put(labelOf(inSources[i]), inWeights[i]);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> result = new HashMap<>();
+        int id = idOf(source);
+        if (id >= 0) {
+            for (int i = outOffsets[id]; i < outOffsets[id + 1]; i++) {
+                result.put(labelOf(outTargets[i]), outWeights[i]);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public String toString() {
+        return "Graph contains " + labels.length + " vertices and " + outTargets.length + " edges";
+    }
+    
+}
@@ -0,0 +1,332 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Summary statistics of a graph, kept up to date as the graph changes: vertex
+ * and edge counts, the distributions of in- and out-degrees, and the heaviest
+ * edges.
+ * 
+ * <p>The graph reports each vertex and edge it adds or removes, which costs
+ * O(1). Counts and degree frequencies are then answered in O(1) without
+ * scanning the graph, and a whole degree distribution in O(maximum degree).
+ * 
+ * <p>The heaviest edges need every edge kept in weight order, which costs
+ * memory per edge, so that index is only built the first time it is asked
+ * for, with one scan of the graph; after that each change to an edge updates
+ * it in O(log E) and heaviestEdges(k) takes O(k log E).
+ * 
+ * <p>Like the graph it describes, a GraphStatistics is not safe for concurrent
+ * use, and its observers return copies.
+ * 
+ * @param <L> type of vertex labels in the graph, must be immutable
+ */
+public final class GraphStatistics<L> {
+    
+    /**
+     * Called with each edge of a graph, by the ids of its vertices.
+     */
+    @FunctionalInterface
+    interface WeightedEdgeVisitor {
+        
+        /**
+         * @param source id of the source vertex
+         * @param target id of the target vertex
+         * @param weight positive weight of the edge
+         */
+        void visit(int source, int target, int weight);
+        
+    }
+    
+    private final LabelDictionary<L> labels;
+    private final Consumer<WeightedEdgeVisitor> edges;
+    private int vertexCount = 0;
+    private int edgeCount = 0;
+    private int[] outDegrees = new int[16];
+    private int[] inDegrees = new int[16];
+    private int[] outFrequencies = new int[16];
+    private int[] inFrequencies = new int[16];
+    private int maxOutDegree = 0;
+    private int maxInDegree = 0;
+    private TreeMap<Integer, TreeSet<Long>> byWeight = null;
+    
+    // Abstraction function:
+    //   Represents the statistics of a graph with vertexCount vertices and edgeCount edges,
+    //   where the vertex with id i has out-degree outDegrees[i] and in-degree inDegrees[i],
+    //   outFrequencies[d] vertices have out-degree d, inFrequencies[d] have in-degree d,
+    //   and, once built, byWeight maps each edge weight w to the keys
+    //   (source << 32 | target) of the edges with weight w
+    // Representation invariant:
+    //   vertexCount and edgeCount are nonnegative
+    //   the entries of outFrequencies and inFrequencies are nonnegative and each sums to vertexCount
+    //   maxOutDegree is the largest d with outFrequencies[d] > 0, or 0 if there is none, and
+    //   maxInDegree likewise for inFrequencies
+    //   if byWeight is not null, its keys are positive, its sets nonempty and disjoint,
+    //   and their sizes sum to edgeCount
+    // Safety from rep exposure:
+    //   All fields are private, arrays are copied before they are returned, and
+    //   heaviestEdges() returns a new list of immutable EdgeUpdates.
+    //   The label dictionary may be shared, but it only ever grows and ids never change.
+    
+    /**
+     * Create statistics for an empty graph.
+     * 
+     * @param labels dictionary that numbers the vertices of the graph
+     * @param edges calls its argument with every edge of the graph; used once,
+     *              to build the heavy-edge index the first time it is needed
+     */
+    GraphStatistics(LabelDictionary<L> labels, Consumer<WeightedEdgeVisitor> edges) {
+        this.labels = labels;
+        this.edges = edges;
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert vertexCount >= 0 && edgeCount >= 0 : "counts must be nonnegative";
+        assert maxOutDegree < outFrequencies.length && (maxOutDegree == 0 || outFrequencies[maxOutDegree] > 0)
+                : "maxOutDegree must be a degree of some vertex";
+        assert maxInDegree < inFrequencies.length && (maxInDegree == 0 || inFrequencies[maxInDegree] > 0)
+                : "maxInDegree must be a degree of some vertex";
+    }
+    
+    /**
+     * Record a vertex added to the graph, with no edges.
+     * 
+     * @param id id of the vertex, not already in the graph
+     */
+    void vertexAdded(int id) {
+        if (id >= outDegrees.length) {
+            int length = Math.max(outDegrees.length * 2, id + 1);
+            outDegrees = Arrays.copyOf(outDegrees, length);
+            inDegrees = Arrays.copyOf(inDegrees, length);
+        }
+        vertexCount++;
+        outFrequencies[0]++;
+        inFrequencies[0]++;
+        checkRep();
+    }
+    
+    /**
+     * Record a vertex removed from the graph, after all its edges have been.
+     * 
+     * @param id id of a vertex in the graph, with no edges
+     */
+    void vertexRemoved(int id) {
+        assert outDegrees[id] == 0 && inDegrees[id] == 0 : "vertex still has edges: " + id;
+        vertexCount--;
+        outFrequencies[0]--;
+        inFrequencies[0]--;
+        checkRep();
+    }
+    
+    /**
+     * Record an edge added to the graph.
+     * 
+     * @param source id of the source vertex, in the graph
+     * @param target id of the target vertex, in the graph
+     * @param weight positive weight of the edge
+     */
+    void edgeAdded(int source, int target, int weight) {
+        edgeCount++;
+        outFrequencies = moved(outFrequencies, outDegrees[source], 1);
+        maxOutDegree = Math.max(maxOutDegree, ++outDegrees[source]);
+        inFrequencies = moved(inFrequencies, inDegrees[target], 1);
+        maxInDegree = Math.max(maxInDegree, ++inDegrees[target]);
+        if (byWeight != null) {
+            index(source, target, weight);
+        }
+        checkRep();
+    }
+    
+    /**
+     * Record an edge removed from the graph.
+     * 
+     * @param source id of the source vertex
+     * @param target id of the target vertex
+     * @param weight weight the edge had
+     */
+    void edgeRemoved(int source, int target, int weight) {
+        edgeCount--;
+        int outDegree = outDegrees[source]--;
+        moved(outFrequencies, outDegree, -1);
+        // the vertex now has degree one less, so the maximum drops by at most one
+        if (outDegree == maxOutDegree && outFrequencies[outDegree] == 0) {
+            maxOutDegree--;
+        }
+        int inDegree = inDegrees[target]--;
+        moved(inFrequencies, inDegree, -1);
+        if (inDegree == maxInDegree && inFrequencies[inDegree] == 0) {
+            maxInDegree--;
+        }
+        if (byWeight != null) {
+            unindex(source, target, weight);
+        }
+        checkRep();
+    }
+    
+    /**
+     * Record a change to the weight of an edge that stays in the graph.
+     * 
+     * @param source id of the source vertex
+     * @param target id of the target vertex
+     * @param previous positive weight the edge had
+     * @param weight positive weight the edge has now
+     */
+    void edgeReweighted(int source, int target, int previous, int weight) {
+        if (byWeight != null && previous != weight) {
+            unindex(source, target, previous);
+            index(source, target, weight);
+        }
+    }
+    
+    /**
+     * Move one vertex in a degree distribution from degree to degree + step.
+     * 
+     * @param frequencies number of vertices with each degree
+     * @param degree current degree of the vertex
+     * @param step 1 or -1
+     * @return frequencies, or a longer copy if it had no room for the new degree
+     */
+    private static int[] moved(int[] frequencies, int degree, int step) {
+        int[] result = degree + step < frequencies.length ? frequencies
+                : Arrays.copyOf(frequencies, frequencies.length * 2);
+        result[degree]--;
+        result[degree + step]++;
+        return result;
+    }
+    
+    private void index(int source, int target, int weight) {
+        byWeight.computeIfAbsent(weight, w -> new TreeSet<>()).add(key(source, target));
+    }
+    
+    private void unindex(int source, int target, int weight) {
+        TreeSet<Long> keys = byWeight.get(weight);
+        keys.remove(key(source, target));
+        if (keys.isEmpty()) {
+            byWeight.remove(weight);
+        }
+    }
+    
+    private static long key(int source, int target) {
+        return (long) source << 32 | target;
+    }
+    
+    /**
+     * @return number of vertices in the graph
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+    
+    /**
+     * @return number of edges in the graph
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+    
+    /**
+     * @return largest number of edges out of any vertex, or 0 if the graph is empty
+     */
+    public int maxOutDegree() {
+        return maxOutDegree;
+    }
+    
+    /**
+     * @return largest number of edges into any vertex, or 0 if the graph is empty
+     */
+    public int maxInDegree() {
+        return maxInDegree;
+    }
+    
+    /**
+     * @param degree a number of edges
+     * @return number of vertices with exactly that many edges out of them
+     */
+    public int verticesWithOutDegree(int degree) {
+        return degree >= 0 && degree < outFrequencies.length ? outFrequencies[degree] : 0;
+    }
+    
+    /**
+     * @param degree a number of edges
+     * @return number of vertices with exactly that many edges into them
+     */
+    public int verticesWithInDegree(int degree) {
+        return degree >= 0 && degree < inFrequencies.length ? inFrequencies[degree] : 0;
+    }
+    
+    /**
+     * @return new array of length maxOutDegree() + 1 whose entry d is the
+     *         number of vertices with out-degree d
+     */
+    public int[] outDegreeDistribution() {
+        return Arrays.copyOf(outFrequencies, maxOutDegree + 1);
+    }
+    
+    /**
+     * @return new array of length maxInDegree() + 1 whose entry d is the
+     *         number of vertices with in-degree d
+     */
+    public int[] inDegreeDistribution() {
+        return Arrays.copyOf(inFrequencies, maxInDegree + 1);
+    }
+    
+    /**
+     * Find the heaviest edges. The first call scans the graph once to build
+     * the index of edges by weight.
+     * 
+     * @param k maximum number of edges to return, nonnegative
+     * @return new list of the min(k, edgeCount()) edges with the largest
+     *         weights, heaviest first; edges of equal weight are ordered by
+     *         the ids of their source and then target vertices
+     * @throws IllegalArgumentException if k is negative
+     */
+    public List<EdgeUpdate<L>> heaviestEdges(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be nonnegative: " + k);
+        }
+        if (byWeight == null) {
+            byWeight = new TreeMap<>();
+            edges.accept(this::index);
+        }
+        List<EdgeUpdate<L>> result = new ArrayList<>(Math.min(k, edgeCount));
+        for (Map.Entry<Integer, TreeSet<Long>> entry : byWeight.descendingMap().entrySet()) {
+            for (long key : entry.getValue()) {
+                if (result.size() == k) {
+                    return result;
+                }
+                L source = labels.labelOf((int) (key >>> 32));
+                L target = labels.labelOf((int) key);
+                result.add(new EdgeUpdate<>(source, target, entry.getKey()));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * @param id id of a vertex
+     * @return number of edges recorded out of that vertex, 0 if it was never added
+     */
+    int outDegree(int id) {
+        return id < outDegrees.length ? outDegrees[id] : 0;
+    }
+    
+    /**
+     * @param id id of a vertex
+     * @return number of edges recorded into that vertex, 0 if it was never added
+     */
+    int inDegree(int id) {
+        return id < inDegrees.length ? inDegrees[id] : 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "Graph contains " + vertexCount + " vertices and " + edgeCount + " edges";
+    }
+    
+}
@@ -0,0 +1,90 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * A Graph whose vertices are numbered with dense int ids 0..vertexCount()-1
+ * and whose edges can be read by id without copying, for algorithms that
+ * would otherwise call targets() and copy a map at every step.
+ * 
+ * <p>Ids are fixed for the lifetime of the graph, so implementations are
+ * immutable: FrozenGraph and MappedGraph.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public interface IndexedGraph<L> extends Graph<L> {
+    
+    /**
+     * Get an indexed graph with the same vertices and edges as a graph.
+     * 
+     * @param <L> type of vertex labels in the graph, must be immutable
+     * @param graph a graph
+     * @return graph itself if it is an IndexedGraph, otherwise a frozen
+     *         snapshot of it taken with {@link FrozenGraph#freeze(Graph)}
+     */
+    public static <L> IndexedGraph<L> of(Graph<L> graph) {
+        if (graph instanceof IndexedGraph) {
+            return (IndexedGraph<L>) graph;
+        }
+        return FrozenGraph.freeze(graph);
+    }
+    
+    /**
+     * @return number of vertices in this graph
+     */
+    public int vertexCount();
+    
+    /**
+     * @return number of edges in this graph
+     */
+    public int edgeCount();
+    
+    /**
+     * @param label a label
+     * @return id of the vertex with that label, or -1 if there is none
+     */
+    public int idOf(L label);
+    
+    /**
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return label of that vertex
+     */
+    public L labelOf(int id);
+    
+    /**
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return number of edges out of that vertex
+     */
+    public int outDegree(int id);
+    
+    /**
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return number of edges into that vertex
+     */
+    public int inDegree(int id);
+    
+    /**
+     * Visit the edges out of a vertex in increasing order of target id.
+     * 
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @param visitor called with the target id and weight of each edge
+     */
+    public void forEachTarget(int id, EdgeVisitor visitor);
+    
+    /**
+     * Visit the edges into a vertex in increasing order of source id.
+     * 
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @param visitor called with the source id and weight of each edge
+     */
+    public void forEachSource(int id, EdgeVisitor visitor);
+    
+    /**
+     * @param source source vertex id, 0 <= source < vertexCount()
+     * @param target target vertex id, 0 <= target < vertexCount()
+     * @return weight of the edge from source to target, or zero if there is none
+     */
+    public int weight(int source, int target);
+    
+}
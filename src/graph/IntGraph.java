@@ -0,0 +1,159 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Map;
+
+/**
+ * A mutable weighted directed graph whose vertex labels are ints.
+ * Edges are directed and have a positive weight of type {@code int}.
+ * 
+ * <p>The same abstract type as {@code Graph<Integer>}, but specialized to
+ * primitives: labels and weights are passed as ints, neighbours are visited
+ * with an {@link EdgeVisitor} instead of being returned in a map, and
+ * implementations store adjacency without boxes. asGraph() and copyOf()
+ * convert to and from {@code Graph<Integer>} for code written against Graph.
+ */
+public interface IntGraph {
+    
+    /**
+     * Create an empty graph.
+     * 
+     * @return a new empty weighted directed graph
+     */
+    public static IntGraph empty() {
+        return new ConcreteIntGraph();
+    }
+    
+    /**
+     * Create a graph with the same vertices and edges as a graph with Integer
+     * labels. Later changes to either graph are not reflected in the other.
+     * 
+     * @param graph graph to copy, without a null label
+     * @return a new graph with the vertices and edges of graph
+     * @throws NullPointerException if graph has a vertex labeled null
+     */
+    public static IntGraph copyOf(Graph<Integer> graph) {
+        IntGraph copy = empty();
+        for (int vertex : graph.vertices()) {
+            copy.add(vertex);
+            for (Map.Entry<Integer, Integer> edge : graph.targets(vertex).entrySet()) {
+                copy.set(vertex, edge.getKey(), edge.getValue());
+            }
+        }
+        return copy;
+    }
+    
+    /**
+     * Add a vertex to this graph.
+     * 
+     * @param vertex label for the new vertex
+     * @return true if this graph did not already include a vertex with the
+     *         given label; otherwise false (and this graph is not modified)
+     */
+    public boolean add(int vertex);
+    
+    /**
+     * Add, change, or remove a weighted directed edge in this graph.
+     * If weight is nonzero, add an edge or update the weight of that edge;
+     * vertices with the given labels are added to the graph if they do not
+     * already exist.
+     * If weight is zero, remove the edge if it exists (the graph is not
+     * otherwise modified).
+     * 
+     * @param source label of the source vertex
+     * @param target label of the target vertex
+     * @param weight nonnegative weight of the edge
+     * @return the previous weight of the edge, or zero if there was no such
+     *         edge
+     * @throws IllegalArgumentException if weight is negative
+     */
+    public int set(int source, int target, int weight);
+    
+    /**
+     * Remove a vertex from this graph; any edges to or from the vertex are
+     * also removed.
+     * 
+     * @param vertex label of the vertex to remove
+     * @return true if this graph included a vertex with the given label;
+     *         otherwise false (and this graph is not modified)
+     */
+    public boolean remove(int vertex);
+    
+    /**
+     * @param vertex a label
+     * @return true iff this graph includes a vertex with the given label
+     */
+    public boolean contains(int vertex);
+    
+    /**
+     * @return number of vertices in this graph
+     */
+    public int vertexCount();
+    
+    /**
+     * @return number of edges in this graph
+     */
+    public int edgeCount();
+    
+    /**
+     * Get all the vertices in this graph.
+     * 
+     * @return a new array of the labels of vertices in this graph, in
+     *         ascending order
+     */
+    public int[] vertices();
+    
+    /**
+     * @param source a label
+     * @param target a label
+     * @return weight of the edge from source to target, or zero if there is
+     *         no such edge
+     */
+    public int weight(int source, int target);
+    
+    /**
+     * @param vertex a label
+     * @return number of edges from vertex, or zero if it is not in this graph
+     */
+    public int outDegree(int vertex);
+    
+    /**
+     * @param vertex a label
+     * @return number of edges to vertex, or zero if it is not in this graph
+     */
+    public int inDegree(int vertex);
+    
+    /**
+     * Visit the edges from a source vertex, in no particular order.
+     * This graph must not be modified by the visitor.
+     * 
+     * @param source a label; if it is not in this graph, nothing is visited
+     * @param visitor called with the label of each target and the weight of
+     *                the edge to it
+     */
+    public void forEachTarget(int source, EdgeVisitor visitor);
+    
+    /**
+     * Visit the edges to a target vertex, in no particular order.
+     * This graph must not be modified by the visitor.
+     * 
+     * @param target a label; if it is not in this graph, nothing is visited
+     * @param visitor called with the label of each source and the weight of
+     *                the edge from it
+     */
+    public void forEachSource(int target, EdgeVisitor visitor);
+    
+    /**
+     * View this graph as a Graph with Integer labels. The view is live: its
+     * mutators change this graph, and changes to this graph are visible through
+     * it. The sets and maps it returns are new copies.
+     * 
+     * @return a Graph backed by this graph
+     */
+    public default Graph<Integer> asGraph() {
+        return new IntGraphView(this);
+    }
+    
+}
@@ -0,0 +1,78 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+
+/**
+ * A Graph with Integer labels backed by an IntGraph, returned by
+ * {@link IntGraph#asGraph()}. Labels and weights are boxed only at this
+ * interface.
+ */
+final class IntGraphView implements Graph<Integer> {
+    
+    private final IntGraph graph;
+    
+    // Abstraction function:
+    //   Represents the same graph as graph, with each label boxed
+    // Representation invariant:
+    //   true
+    // Safety from rep exposure:
+    //   graph is private final and never returned; observers return new
+    //   collections. Sharing graph with the client is the point of the view.
+    
+    /**
+     * Make a view of a graph.
+     * 
+     * @param graph graph to view
+     */
+    IntGraphView(IntGraph graph) {
+        this.graph = graph;
+    }
+    
+    @Override
+    public boolean add(Integer vertex) {
+        return graph.add(vertex);
+    }
+    
+    @Override
+    public int set(Integer source, Integer target, int weight) {
+        return graph.set(source, target, weight);
+    }
+    
+    @Override
+    public boolean remove(Integer vertex) {
+        return graph.remove(vertex);
+    }
+    
+    @Override
+    public Set<Integer> vertices() {
+        int[] vertices = graph.vertices();
+        Set<Integer> result = new HashSet<>(vertices.length * 4 / 3 + 1);
+        for (int vertex : vertices) {
+            result.add(vertex);
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<Integer, Integer> sources(Integer target) {
+        Map<Integer, Integer> result = new HashMap<>();
+        graph.forEachSource(target, result::put);
+        return result;
+    }
+    
+    @Override
+    public Map<Integer, Integer> targets(Integer source) {
+        Map<Integer, Integer> result = new HashMap<>();
+        graph.forEachTarget(source, result::put);
+        return result;
+    }
+    
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
+    
+}
@@ -0,0 +1,273 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+
+/**
+ * A mutable map from int keys to positive int values, stored in two parallel
+ * arrays with open addressing and linear probing, so it holds no entry objects
+ * and no boxes. A value of zero stands for an absent key, which matches how
+ * graphs treat an edge of weight zero.
+ * 
+ * <p>Not safe for concurrent use.
+ */
+final class IntIntMap {
+    
+    private static final int MIN_CAPACITY = 4;
+    
+    private int[] keys;
+    private int[] values;
+    private int size;
+    
+    // Abstraction function:
+    //   Represents the map with an entry keys[i] -> values[i] for every slot i
+    //   where values[i] != 0
+    // Representation invariant:
+    //   keys.length == values.length is a power of two >= MIN_CAPACITY
+    //   size is the number of slots with values[i] != 0, size <= keys.length * 3/4
+    //   values are nonnegative; keys of occupied slots are distinct
+    //   every occupied slot is reachable by probing from the home slot of its key
+    //     without crossing an empty slot
+    // Safety from rep exposure:
+    //   Fields are private and never returned; forEach() passes primitive copies,
+    //   and asMap() returns an unmodifiable view.
+    
+    /**
+     * Make an empty map.
+     */
+    IntIntMap() {
+        this(MIN_CAPACITY);
+    }
+    
+    /**
+     * Make an empty map with room for some entries before it grows.
+     * 
+     * @param expected number of entries expected, nonnegative
+     */
+    IntIntMap(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expected) {
+            capacity *= 2;
+        }
+        keys = new int[capacity];
+        values = new int[capacity];
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert keys.length == values.length && Integer.bitCount(keys.length) == 1 : "Bad capacity";
+        assert size >= 0 && size <= keys.length * 3 / 4 : "Bad size";
+    }
+    
+    /**
+     * @return home slot of key: a well-mixed hash of key, masked to the capacity
+     */
+    private int home(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+    
+    /**
+     * @return slot holding key, or the empty slot where it would be inserted
+     */
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = home(key);
+        while (values[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    /**
+     * @return number of entries
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * @param key a key
+     * @return value of key, or 0 if key is absent
+     */
+    int get(int key) {
+        return values[slotOf(key)];
+    }
+    
+    /**
+     * Set the value of a key.
+     * 
+     * @param key a key
+     * @param value new value of key, positive
+     * @return previous value of key, or 0 if key was absent
+     */
+    int put(int key, int value) {
+        assert value > 0 : "Value not positive";
+        int slot = slotOf(key);
+        int previous = values[slot];
+        if (previous == 0) {
+            if (size + 1 > keys.length * 3 / 4) {
+                resize(keys.length * 2);
+                slot = slotOf(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+        checkRep();
+        return previous;
+    }
+    
+    /**
+     * Remove a key.
+     * 
+     * @param key a key
+     * @return previous value of key, or 0 if key was absent
+     */
+    int remove(int key) {
+        int mask = keys.length - 1;
+        int slot = slotOf(key);
+        int previous = values[slot];
+        if (previous == 0) {
+            return 0;
+        }
+        // backward shift deletion: move later entries of the probe run into the gap
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != 0; next = (next + 1) & mask) {
+            int home = home(keys[next]);
+            // entry at next may fill the gap iff its home is not cyclically in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = 0;
+        size--;
+        checkRep();
+        return previous;
+    }
+    
+    /**
+     * Visit every entry, in no particular order. The map must not be modified
+     * by the visitor.
+     * 
+     * @param visitor called with the key and value of each entry
+     */
+    void forEach(EdgeVisitor visitor) {
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != 0) {
+                visitor.visit(keys[slot], values[slot]);
+            }
+        }
+    }
+    
+    /**
+     * View this map as a Map, for code that reads adjacency through the Map
+     * interface. The view is live and unmodifiable; it boxes keys and values on
+     * each access, and its iterators must not be used across changes to this map.
+     * 
+     * @return unmodifiable live view of this map
+     */
+    Map<Integer, Integer> asMap() {
+        return new AbstractMap<Integer, Integer>() {
+            @Override
+            public int size() {
+                return size;
+            }
+            
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+            
+            @Override
+            public Integer get(Object key) {
+                int value = key instanceof Integer ? IntIntMap.this.get((Integer) key) : 0;
+                return value == 0 ? null : value;
+            }
+            
+            @Override
+            public Set<Map.Entry<Integer, Integer>> entrySet() {
+                return new AbstractSet<Map.Entry<Integer, Integer>>() {
+                    @Override
+                    public int size() {
+                        return size;
+                    }
+                    
+                    @Override
+                    public Iterator<Map.Entry<Integer, Integer>> iterator() {
+                        return new Iterator<Map.Entry<Integer, Integer>>() {
+                            private int slot = advance(0);
+                            
+                            private int advance(int from) {
+                                while (from < values.length && values[from] == 0) {
+                                    from++;
+                                }
+                                return from;
+                            }
+                            
+                            @Override
+                            public boolean hasNext() {
+                                return slot < values.length;
+                            }
+                            
+                            @Override
+                            public Map.Entry<Integer, Integer> next() {
+                                if (!hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                Map.Entry<Integer, Integer> entry =
+                                        new AbstractMap.SimpleImmutableEntry<>(keys[slot], values[slot]);
+                                slot = advance(slot + 1);
+                                return entry;
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+    
+    /**
+     * @return true iff every value is positive; always true unless the rep is broken
+     */
+    boolean areValuesPositive() {
+        int count = 0;
+        for (int value : values) {
+            if (value < 0) {
+                return false;
+            }
+            if (value > 0) {
+                count++;
+            }
+        }
+        return count == size;
+    }
+    
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        for (int slot = 0; slot < oldValues.length; slot++) {
+            if (oldValues[slot] != 0) {
+                int target = slotOf(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        forEach((key, value) -> result.append(result.length() > 1 ? ", " : "")
+                .append(key).append('=').append(value));
+        return result.append('}').toString();
+    }
+    
+}
@@ -0,0 +1,87 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+
+/**
+ * A mutable dictionary that assigns each distinct label a dense int id.
+ * Ids are assigned 0, 1, 2, ... in order of first interning and never change
+ * or get reused, so a dictionary can be shared by several graphs (and by
+ * their clients) that want to compare vertices as ints instead of labels.
+ * 
+ * <p>Not safe for concurrent use.
+ * 
+ * @param <L> type of labels, must be immutable
+ */
+public final class LabelDictionary<L> {
+    
+    private final Map<L, Integer> ids = new HashMap<>();
+    private final List<L> labels = new ArrayList<>();
+    
+    // Abstraction function:
+    //   Represents the bijection label <-> id where labels.get(id) is the label of id
+    // Representation invariant:
+    //   ids.get(labels.get(i)) == i for every 0 <= i < labels.size()
+    //   ids.size() == labels.size(); labels contains no null and no duplicates
+    // Safety from rep exposure:
+    //   Fields are private final and never returned; labels are immutable.
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert ids.size() == labels.size() : "Labels and ids disagree";
+    }
+    
+    /**
+     * Get the id of a label, assigning the next free id if it has none yet.
+     * 
+     * @param label a label, not null
+     * @return the id of label
+     */
+    public int intern(L label) {
+        Integer id = ids.get(label);
+        if (id == null) {
+            Objects.requireNonNull(label, "label");
+            id = labels.size();
+            ids.put(label, id);
+            labels.add(label);
+            checkRep();
+        }
+        return id;
+    }
+    
+    /**
+     * Get the id of a label without assigning one.
+     * 
+     * @param label a label
+     * @return the id of label, or -1 if label has never been interned
+     */
+    public int idOf(L label) {
+        Integer id = ids.get(label);
+        return id == null ? -1 : id;
+    }
+    
+    /**
+     * Get the label of an id.
+     * 
+     * @param id an id, 0 <= id < size()
+     * @return the label with that id
+     */
+    public L labelOf(int id) {
+        return labels.get(id);
+    }
+    
+    /**
+     * @return number of labels interned so far; ids are 0..size()-1
+     */
+    public int size() {
+        return labels.size();
+    }
+    
+    @Override
+    public String toString() {
+        return "Dictionary contains " + labels.size() + " labels";
+    }
+    
+}
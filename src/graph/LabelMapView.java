@@ -0,0 +1,90 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Unmodifiable live view of an id-keyed adjacency map as a map from label to weight.
+ * This class is internal to the rep of the graphs that return it from sources() and targets().
+ * 
+ * @param <V> type of the values of the adjacency map
+ */
+class LabelMapView<V> extends AbstractMap<String, Integer> {
+    
+    private final LabelDictionary<String> labels;
+    private final Supplier<Map<Integer, V>> adjacency;
+    private final ToIntFunction<V> weight;
+    
+    // Abstraction function:
+    //   Represents the map from labels.labelOf(id) to weight(value) for every
+    //   entry (id, value) of the map currently returned by adjacency
+    // Representation invariant:
+    //   adjacency never returns null, and weight returns a positive int
+    // Safety from rep exposure:
+    //   Fields are private final; the view, its entry set and its entries have no mutators
+    
+    /**
+     * Create a view.
+     * @param labels dictionary of the ids
+     * @param adjacency looks up the current adjacency map, possibly empty, on each call
+     * @param weight weight of the edge stored as a value of the adjacency map
+     */
+    LabelMapView(LabelDictionary<String> labels, Supplier<Map<Integer, V>> adjacency, ToIntFunction<V> weight) {
+        this.labels = labels;
+        this.adjacency = adjacency;
+        this.weight = weight;
+    }
+    
+    @Override
+    public int size() {
+        return adjacency.get().size();
+    }
+    
+    @Override
+    public boolean containsKey(Object label) {
+        return get(label) != null;
+    }
+    
+    @Override
+    public Integer get(Object label) {
+        if (!(label instanceof String)) {
+            return null;
+        }
+        int id = labels.idOf((String) label);
+        V value = id < 0 ? null : adjacency.get().get(id);
+        return value == null ? null : weight.applyAsInt(value);
+    }
+    
+    @Override
+    public Set<Map.Entry<String, Integer>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Integer>>() {
+            @Override
+            public int size() {
+                return LabelMapView.this.size();
+            }
+            
+            @Override
+            public Iterator<Map.Entry<String, Integer>> iterator() {
+                Iterator<Map.Entry<Integer, V>> entries = adjacency.get().entrySet().iterator();
+                return new Iterator<Map.Entry<String, Integer>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+                    
+                    @Override
+                    public Map.Entry<String, Integer> next() {
+                        Map.Entry<Integer, V> entry = entries.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(
+                                labels.labelOf(entry.getKey()), weight.applyAsInt(entry.getValue()));
+                    }
+                };
+            }
+        };
+    }
+    
+}
@@ -0,0 +1,80 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Unmodifiable live view of a set of vertex ids as a set of labels.
+ * This class is internal to the rep of the graphs that return it from vertices().
+ */
+class LabelSetView extends AbstractSet<String> {
+    
+    private final LabelDictionary<String> labels;
+    private final IntPredicate contains;
+    private final IntSupplier size;
+    private final IntUnaryOperator next;
+    
+    // Abstraction function:
+    //   Represents the set of labels.labelOf(id) for every id where contains.test(id)
+    // Representation invariant:
+    //   next.applyAsInt(i) is the smallest id >= i in the set, or -1
+    //   size.getAsInt() is the number of ids in the set
+    // Safety from rep exposure:
+    //   Fields are private final; the view has no mutators and its iterator does not support remove
+    
+    /**
+     * Create a view.
+     * @param labels dictionary of the ids
+     * @param contains tests whether an id is in the set
+     * @param size current number of ids in the set
+     * @param next maps i to the smallest id >= i in the set, or -1 if there is none
+     */
+    LabelSetView(LabelDictionary<String> labels, IntPredicate contains, IntSupplier size, IntUnaryOperator next) {
+        this.labels = labels;
+        this.contains = contains;
+        this.size = size;
+        this.next = next;
+    }
+    
+    @Override
+    public int size() {
+        return size.getAsInt();
+    }
+    
+    @Override
+    public boolean contains(Object label) {
+        if (!(label instanceof String)) {
+            return false;
+        }
+        int id = labels.idOf((String) label);
+        return id >= 0 && contains.test(id);
+    }
+    
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int id = next.applyAsInt(0);
+            
+            @Override
+            public boolean hasNext() {
+                return id >= 0;
+            }
+            
+            @Override
+            public String next() {
+                if (id < 0) {
+                    throw new NoSuchElementException();
+                }
+                String label = labels.labelOf(id);
+                id = next.applyAsInt(id + 1);
+                return label;
+            }
+        };
+    }
+    
+}
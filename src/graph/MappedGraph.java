@@ -0,0 +1,633 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * An immutable graph with String labels served from a memory-mapped file in a
+ * compact binary format, so that loading it takes time independent of its
+ * size: vertices and edges are only read when they are asked for.
+ * 
+ * <p>Vertices are numbered with dense int ids 0..vertexCount()-1 in order of
+ * the UTF-8 bytes of their labels, which lets idOf() binary search the label
+ * table. Each vertex also has an ordinal, its position in the order chosen by
+ * the writer (for example, the order in which the vertices were first seen).
+ * Read methods of Graph are supported, mutators throw
+ * UnsupportedOperationException.
+ * 
+ * <p>The file is a sequence of big-endian ints, where n is the number of
+ * vertices, m the number of edges and b the number of bytes of labels:
+ * <pre>
+ *   magic "GRAF", format version, checksum, n, m, b
+ *   labelOffsets[n+1]     label v is bytes labelOffsets[v]..labelOffsets[v+1] of labelBytes
+ *   labelBytes[b]         UTF-8, padded with zero bytes to a multiple of 4
+ *   ordinals[n]           a permutation of 0..n-1
+ *   outOffsets[n+1]       edges out of v are pairs outOffsets[v]..outOffsets[v+1] of outEdges
+ *   outEdges[2m]          (target, weight) pairs, sorted by target in each row
+ *   inOffsets[n+1]        edges into v are pairs inOffsets[v]..inOffsets[v+1] of inEdges
+ *   inEdges[2m]           (source, weight) pairs, sorted by source in each row
+ * </pre>
+ * The checksum is the CRC-32 of the whole file with the checksum read as
+ * zero. load() does not read it, so that loading stays independent of the
+ * size of the file; verify() checks it.
+ * A file is mapped with a single buffer, so it must be smaller than 2 GiB.
+ * 
+ * <p>Safe for concurrent use.
+ */
+public final class MappedGraph implements IndexedGraph<String> {
+    
+    private static final int MAGIC = 0x47524146; // "GRAF"
+    private static final int VERSION = 2;
+    private static final int CHECKSUM_POSITION = 2 * Integer.BYTES;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+    
+    private final int vertexCount;
+    private final int edgeCount;
+    private final IntBuffer labelOffsets;
+    private final ByteBuffer labelBytes;
+    private final IntBuffer ordinals;
+    private final IntBuffer outOffsets;
+    private final IntBuffer outEdges;
+    private final IntBuffer inOffsets;
+    private final IntBuffer inEdges;
+    private final String[] decoded;
+    
+    // Abstraction function:
+    //   Represents the weighted directed graph with vertices label(0..vertexCount-1),
+    //   where label(v) is the UTF-8 decoding of its bytes in labelBytes, and an edge
+    //   label(v) -> label(outEdges[2i]) with weight outEdges[2i+1] for every
+    //   outOffsets[v] <= i < outOffsets[v+1]; vertex v has ordinal ordinals[v]
+    // Representation invariant:
+    //   the buffers are the sections of a file in the format above
+    //   labels are distinct and in increasing order of their UTF-8 bytes
+    //   the in* buffers hold exactly the transpose of the out* buffers
+    //   decoded[v] is null or label(v)
+    // Safety from rep exposure:
+    //   All fields are private final, buffers are never returned, and observers
+    //   return either unmodifiable views or new collections.
+    // Thread safety argument:
+    //   The buffers are only read with absolute gets, which do not change their state.
+    //   decoded is a cache of immutable Strings: racing threads may decode the same
+    //   label twice, but every value they can read is either null or label(v).
+    
+    private MappedGraph(ByteBuffer file, int vertexCount, int edgeCount, int labelByteCount) {
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        int position = HEADER_BYTES;
+        this.labelOffsets = ints(file, position, vertexCount + 1);
+        position += (vertexCount + 1) * Integer.BYTES;
+        this.labelBytes = bytes(file, position, labelByteCount);
+        position += padded(labelByteCount);
+        this.ordinals = ints(file, position, vertexCount);
+        position += vertexCount * Integer.BYTES;
+        this.outOffsets = ints(file, position, vertexCount + 1);
+        position += (vertexCount + 1) * Integer.BYTES;
+        this.outEdges = ints(file, position, 2 * edgeCount);
+        position += 2 * edgeCount * Integer.BYTES;
+        this.inOffsets = ints(file, position, vertexCount + 1);
+        position += (vertexCount + 1) * Integer.BYTES;
+        this.inEdges = ints(file, position, 2 * edgeCount);
+        this.decoded = new String[vertexCount];
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert labelOffsets.get(vertexCount) == labelBytes.limit() : "Label offsets do not match labels";
+        assert outOffsets.get(vertexCount) == edgeCount && inOffsets.get(vertexCount) == edgeCount
+                : "Offsets do not match edges";
+    }
+    
+    private static IntBuffer ints(ByteBuffer file, int position, int count) {
+        ByteBuffer section = file.duplicate();
+        section.position(position).limit(position + count * Integer.BYTES);
+        return section.slice().asIntBuffer();
+    }
+    
+    private static ByteBuffer bytes(ByteBuffer file, int position, int count) {
+        ByteBuffer section = file.duplicate();
+        section.position(position).limit(position + count);
+        return section.slice();
+    }
+    
+    private static int padded(int bytes) {
+        return (bytes + Integer.BYTES - 1) & -Integer.BYTES;
+    }
+    
+    /**
+     * @return size in bytes of a file holding the given number of vertices,
+     *         edges and label bytes
+     */
+    private static long fileSize(int vertexCount, int edgeCount, int labelByteCount) {
+        return HEADER_BYTES + padded(labelByteCount)
+                + Integer.BYTES * (4L * vertexCount + 3 + 4L * edgeCount);
+    }
+    
+    /**
+     * Write a graph to a file in the format above, with ordinals in order of
+     * label.
+     * 
+     * @param graph graph to write; its labels must be valid UTF-16
+     * @param file file to write, replaced if it exists
+     * @throws IOException if the file cannot be written, or the graph is too
+     *         large for the format
+     * @throws IllegalArgumentException if a label is not valid UTF-16
+     */
+    public static void write(Graph<String> graph, Path file) throws IOException {
+        write(graph, null, file);
+    }
+    
+    /**
+     * Write a graph to a file in the format above.
+     * 
+     * @param graph graph to write; its labels must be valid UTF-16
+     * @param order every vertex of graph exactly once, in the order that
+     *              defines their ordinals; or null to order them by label
+     * @param file file to write, replaced if it exists
+     * @throws IOException if the file cannot be written, or the graph is too
+     *         large for the format
+     * @throws IllegalArgumentException if a label is not valid UTF-16, or order
+     *         does not list the vertices of graph exactly once
+     */
+    public static void write(Graph<String> graph, List<String> order, Path file) throws IOException {
+        String[] labels = graph.vertices().toArray(new String[0]);
+        int n = labels.length;
+        byte[][] encoded = new byte[n][];
+        for (int v = 0; v < n; v++) {
+            encoded[v] = encode(labels[v]);
+            if (encoded[v] == null) {
+                throw new IllegalArgumentException("label is not valid UTF-16: " + labels[v]);
+            }
+        }
+        Integer[] sorted = new Integer[n];
+        for (int v = 0; v < n; v++) {
+            sorted[v] = v;
+        }
+        Arrays.sort(sorted, (a, b) -> compare(encoded[a], encoded[b]));
+        Map<String, Integer> ids = new HashMap<>(n * 2);
+        for (int id = 0; id < n; id++) {
+            ids.put(labels[sorted[id]], id);
+        }
+        
+        int[] ordinals = new int[n];
+        if (order == null) {
+            for (int id = 0; id < n; id++) {
+                ordinals[id] = id;
+            }
+        } else {
+            if (order.size() != n) {
+                throw new IllegalArgumentException("order has " + order.size() + " vertices, graph has " + n);
+            }
+            Arrays.fill(ordinals, -1);
+            for (int ordinal = 0; ordinal < n; ordinal++) {
+                Integer id = ids.get(order.get(ordinal));
+                if (id == null || ordinals[id] >= 0) {
+                    throw new IllegalArgumentException("order does not list every vertex once: " + order.get(ordinal));
+                }
+                ordinals[id] = ordinal;
+            }
+        }
+        
+        int[] labelOffsets = new int[n + 1];
+        long labelByteCount = 0;
+        for (int id = 0; id < n; id++) {
+            labelByteCount += encoded[sorted[id]].length;
+            if (labelByteCount > Integer.MAX_VALUE) {
+                throw new IOException("labels too large for the graph format");
+            }
+            labelOffsets[id + 1] = (int) labelByteCount;
+        }
+        
+        int[] outOffsets = new int[n + 1];
+        long[] rows = new long[16];
+        int edges = 0;
+        for (int id = 0; id < n; id++) {
+            Map<String, Integer> targets = graph.targets(labels[sorted[id]]);
+            if (edges + targets.size() > rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(rows.length * 2, edges + targets.size()));
+            }
+            int start = edges;
+            for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+                rows[edges++] = ((long) ids.get(edge.getKey()) << 32) | (edge.getValue() & 0xFFFFFFFFL);
+            }
+            Arrays.sort(rows, start, edges);
+            outOffsets[id + 1] = edges;
+        }
+        if (fileSize(n, edges, (int) labelByteCount) > Integer.MAX_VALUE) {
+            throw new IOException("graph too large for the graph format");
+        }
+        
+        // transpose by counting sort on target id; rows come out sorted by source
+        int[] inOffsets = new int[n + 1];
+        for (int i = 0; i < edges; i++) {
+            inOffsets[(int) (rows[i] >>> 32) + 1]++;
+        }
+        for (int id = 0; id < n; id++) {
+            inOffsets[id + 1] += inOffsets[id];
+        }
+        int[] next = Arrays.copyOf(inOffsets, n);
+        int[] inEdges = new int[2 * edges];
+        for (int id = 0; id < n; id++) {
+            for (int i = outOffsets[id]; i < outOffsets[id + 1]; i++) {
+                int slot = next[(int) (rows[i] >>> 32)]++;
+                inEdges[2 * slot] = id;
+                inEdges[2 * slot + 1] = (int) rows[i];
+            }
+        }
+        
+        CRC32 checksum = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Files.newOutputStream(file), checksum)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(0); // checksum, filled in once the rest is written
+            out.writeInt(n);
+            out.writeInt(edges);
+            out.writeInt((int) labelByteCount);
+            writeInts(out, labelOffsets, labelOffsets.length);
+            for (int id = 0; id < n; id++) {
+                out.write(encoded[sorted[id]]);
+            }
+            out.write(new byte[padded((int) labelByteCount) - (int) labelByteCount]);
+            writeInts(out, ordinals, n);
+            writeInts(out, outOffsets, outOffsets.length);
+            for (int i = 0; i < edges; i++) {
+                out.writeInt((int) (rows[i] >>> 32));
+                out.writeInt((int) rows[i]);
+            }
+            writeInts(out, inOffsets, inOffsets.length);
+            writeInts(out, inEdges, inEdges.length);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) checksum.getValue());
+            while (value.hasRemaining()) {
+                channel.write(value, CHECKSUM_POSITION + value.position());
+            }
+        }
+    }
+    
+    private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeInt(values[i]);
+        }
+    }
+    
+    /**
+     * @param label a label
+     * @return UTF-8 bytes of label, or null if label is not valid UTF-16
+     */
+    private static byte[] encode(String label) {
+        for (int i = 0; i < label.length(); i++) {
+            char c = label.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < label.length()
+                    && Character.isLowSurrogate(label.charAt(i + 1))) {
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                return null;
+            }
+        }
+        return label.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Compare byte strings as unsigned bytes, lexicographically.
+     */
+    private static int compare(byte[] a, byte[] b) {
+        int common = Math.min(a.length, b.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return a.length - b.length;
+    }
+    
+    /**
+     * Map a graph file written by write().
+     * Takes time independent of the size of the graph, so only the header is
+     * checked; see verify(). Later changes to the file are not allowed.
+     * 
+     * @param file file in the format above
+     * @return the graph stored in file
+     * @throws IOException if the file cannot be read, or is not a graph file
+     *         of a supported version
+     */
+    public static MappedGraph load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = map(channel, file);
+            return new MappedGraph(buffer, buffer.getInt(12), buffer.getInt(16), buffer.getInt(20));
+        }
+    }
+    
+    /**
+     * Check that a file is a graph file written by write() and not changed
+     * since, by its checksum. Takes time proportional to the size of the file.
+     * 
+     * @param file a file
+     * @throws IOException if the file cannot be read, is not a graph file of
+     *         a supported version, or does not match its checksum
+     */
+    public static void verify(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = map(channel, file);
+            CRC32 checksum = new CRC32();
+            ByteBuffer section = buffer.duplicate();
+            section.limit(CHECKSUM_POSITION);
+            checksum.update(section);
+            checksum.update(new byte[Integer.BYTES]);
+            section.limit(buffer.limit()).position(CHECKSUM_POSITION + Integer.BYTES);
+            checksum.update(section);
+            if ((int) checksum.getValue() != buffer.getInt(CHECKSUM_POSITION)) {
+                throw new IOException("corrupt graph file: " + file);
+            }
+        }
+    }
+    
+    /**
+     * Map a graph file, checking its header.
+     * @param channel channel open for reading file
+     * @param file the file, for error messages
+     * @return the whole file, whose header matches its size
+     * @throws IOException if the file cannot be read, or is not a graph file
+     *         of a supported version
+     */
+    private static ByteBuffer map(FileChannel channel, Path file) throws IOException {
+        long size = channel.size();
+        if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+            throw new IOException("not a graph file: " + file);
+        }
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("not a graph file: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported graph file version " + buffer.getInt(4) + ": " + file);
+        }
+        int vertexCount = buffer.getInt(12);
+        int edgeCount = buffer.getInt(16);
+        int labelByteCount = buffer.getInt(20);
+        if (vertexCount < 0 || edgeCount < 0 || labelByteCount < 0
+                || fileSize(vertexCount, edgeCount, labelByteCount) != size) {
+            throw new IOException("truncated or corrupt graph file: " + file);
+        }
+        return buffer;
+    }
+    
+    /**
+     * @return number of vertices in this graph
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+    
+    /**
+     * @return number of edges in this graph
+     */
+    public int edgeCount() {
+        return edgeCount;
+    }
+    
+    /**
+     * Get the id of a vertex, by binary search in the label table.
+     * 
+     * @param label a label
+     * @return id of the vertex with that label, or -1 if there is none
+     */
+    public int idOf(String label) {
+        byte[] key = encode(label);
+        if (key == null) {
+            return -1;
+        }
+        int low = 0;
+        int high = vertexCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareLabel(middle, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Compare the bytes of a label with key, as unsigned bytes, lexicographically.
+     */
+    private int compareLabel(int id, byte[] key) {
+        int start = labelOffsets.get(id);
+        int length = labelOffsets.get(id + 1) - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = (labelBytes.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+    
+    /**
+     * Get the label of a vertex.
+     * 
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return label of that vertex
+     */
+    public String labelOf(int id) {
+        String label = decoded[id];
+        if (label == null) {
+            int start = labelOffsets.get(id);
+            byte[] bytes = new byte[labelOffsets.get(id + 1) - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = labelBytes.get(start + i);
+            }
+            label = new String(bytes, StandardCharsets.UTF_8);
+            decoded[id] = label;
+        }
+        return label;
+    }
+    
+    /**
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return ordinal of that vertex, its position in the order given to write()
+     */
+    public int ordinalOf(int id) {
+        return ordinals.get(id);
+    }
+    
+    /**
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return number of edges out of that vertex
+     */
+    public int outDegree(int id) {
+        return outOffsets.get(id + 1) - outOffsets.get(id);
+    }
+    
+    /**
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @return number of edges into that vertex
+     */
+    public int inDegree(int id) {
+        return inOffsets.get(id + 1) - inOffsets.get(id);
+    }
+    
+    /**
+     * Visit the edges out of a vertex in increasing order of target id.
+     * 
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @param visitor called with the target id and weight of each edge
+     */
+    public void forEachTarget(int id, EdgeVisitor visitor) {
+        for (int i = outOffsets.get(id); i < outOffsets.get(id + 1); i++) {
+            visitor.visit(outEdges.get(2 * i), outEdges.get(2 * i + 1));
+        }
+    }
+    
+    /**
+     * Visit the edges into a vertex in increasing order of source id.
+     * 
+     * @param id vertex id, 0 <= id < vertexCount()
+     * @param visitor called with the source id and weight of each edge
+     */
+    public void forEachSource(int id, EdgeVisitor visitor) {
+        for (int i = inOffsets.get(id); i < inOffsets.get(id + 1); i++) {
+            visitor.visit(inEdges.get(2 * i), inEdges.get(2 * i + 1));
+        }
+    }
+    
+    /**
+     * Get the weight of an edge, by binary search in the source's row.
+     * 
+     * @param source source vertex id, 0 <= source < vertexCount()
+     * @param target target vertex id, 0 <= target < vertexCount()
+     * @return weight of the edge from source to target, or zero if there is none
+     */
+    public int weight(int source, int target) {
+        int low = outOffsets.get(source);
+        int high = outOffsets.get(source + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = outEdges.get(2 * middle);
+            if (id < target) {
+                low = middle + 1;
+            } else if (id > target) {
+                high = middle - 1;
+            } else {
+                return outEdges.get(2 * middle + 1);
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Unsupported, a mapped graph cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean add(String vertex) {
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+    
+    /**
+     * Unsupported, a mapped graph cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+    
+    /**
+     * Unsupported, a mapped graph cannot be modified.
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("mapped graph cannot be modified");
+    }
+    
+    /**
+     * Get all the vertices in this graph.
+     * 
+     * @return an unmodifiable set of labels of vertices in this graph,
+     *         iterated in order of id
+     */
+    @Override
+    public Set<String> vertices() {
+        return new AbstractSet<String>() {
+            @Override
+            public int size() {
+                return vertexCount;
+            }
+            
+            @Override
+            public boolean contains(Object label) {
+                return label instanceof String && idOf((String) label) >= 0;
+            }
+            
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int id = 0;
+                    
+                    @Override
+                    public boolean hasNext() {
+                        return id < vertexCount;
+                    }
+                    
+                    @Override
+                    public String next() {
+                        if (id >= vertexCount) {
+                            throw new NoSuchElementException();
+                        }
+                        return labelOf(id++);
+                    }
+                };
+            }
+        };
+    }
+    
+    @Override
+    public Map<String, Integer> sources(String target) {
+        Map<String, Integer> result = new HashMap<>();
+        int id = idOf(target);
+        if (id >= 0) {
+            forEachSource(id, (source, weight) -> result.put(labelOf(source), weight));
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<String, Integer> targets(String source) {
+        Map<String, Integer> result = new HashMap<>();
+        int id = idOf(source);
+        if (id >= 0) {
+            forEachTarget(id, (target, weight) -> result.put(labelOf(target), weight));
+        }
+        return result;
+    }
+    
+    @Override
+    public String toString() {
+        return "Graph contains " + vertexCount + " vertices and " + edgeCount + " edges";
+    }
+    
+}
@@ -0,0 +1,545 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * An implementation of Graph that keeps its vertices and edges outside the
+ * Java heap, in direct ByteBuffers, so that a graph with hundreds of millions
+ * of edges adds nothing for the garbage collector to trace. Only the label
+ * dictionary is on the heap.
+ * 
+ * <p>Each vertex has a fixed-size record in a vertex table, indexed by its id
+ * in the dictionary. The record points to two blocks in an edge arena: an
+ * open-addressing hash table from target id to weight for the outgoing edges,
+ * and one from source id to weight for the incoming edges. A block of
+ * 2<sup>k</sup> slots is replaced by one twice its size when it is three
+ * quarters full, and freed blocks are reused for later blocks of the same size.
+ * 
+ * <p>The memory is held until close() is called, which releases it at once
+ * where the platform allows and otherwise leaves it to be reclaimed with the
+ * buffers. After close(), every operation except close() and toString()
+ * throws IllegalStateException. Observers return new collections, so nothing
+ * returned by the graph refers to its memory.
+ * 
+ * <p>Not safe for concurrent use; in particular close() must not race with
+ * any other call.
+ */
+public class OffHeapGraph implements Graph<String>, AutoCloseable {
+    
+    /** Bytes of a vertex record: out block, in block, out count, in count, out capacity, in capacity, present. */
+    private static final int RECORD_BYTES = 36;
+    private static final int OUT = 0;
+    private static final int IN = 1;
+    private static final int BLOCK = 0;
+    private static final int COUNT = 16;
+    private static final int CAPACITY = 24;
+    private static final int PRESENT = 32;
+    
+    /** Bytes of an edge slot: neighbour id and weight; weight 0 marks an empty slot. */
+    private static final int SLOT_BYTES = 8;
+    private static final int MIN_BLOCK_SLOTS = 4;
+    private static final int MIN_CHUNK_BYTES = 1 << 16;
+    private static final int MAX_CHUNK_BYTES = 1 << 30;
+    private static final int INITIAL_VERTICES = 64;
+    private static final long NONE = -1L;
+    
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = type.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException unavailable) {
+            // fall back to letting the garbage collector release the buffers
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+    
+    private final LabelDictionary<String> labels;
+    private ByteBuffer table;
+    private ByteBuffer[] chunks = new ByteBuffer[4];
+    private int chunkCount = 0;
+    private int top = 0;
+    private final long[] freeBlocks = new long[Integer.SIZE];
+    private int vertexCount = 0;
+    private long edgeCount = 0;
+    private boolean closed = false;
+    
+    // Abstraction function:
+    //   Represents the graph whose vertices are labels.labelOf(id) for every id
+    //   whose record in table is present, with an edge labelOf(id) -> labelOf(t)
+    //   of weight w for every slot (t, w) with w != 0 of the out block of id;
+    //   once closed, represents no graph
+    // Representation invariant:
+    //   record id starts at id * RECORD_BYTES of table; for each direction its
+    //     block is NONE iff its capacity is 0, else a reference to
+    //     capacity * SLOT_BYTES bytes of chunks[ref >>> 32] at offset (int) ref
+    //   capacity is 0 or a power of two >= MIN_BLOCK_SLOTS, and count <= capacity * 3/4
+    //     is the number of nonzero slots of the block, which form a linear probing
+    //     hash table keyed by neighbour id with no empty slot inside a probe run
+    //   every slot (t, w) of the out block of s matches a slot (s, w) of the in
+    //     block of t, and vice versa, and both s and t are present
+    //   blocks do not overlap; freeBlocks[k] heads a list, linked through the
+    //     first long of each block, of free blocks of 2^k bytes
+    //   vertexCount is the number of present records; edgeCount is the sum of
+    //     the out counts
+    //   closed iff table == null and chunks == null
+    // Safety from rep exposure:
+    //   Buffers are private and never returned; observers return new collections
+    //   of labels and boxed weights copied out of the buffers. The dictionary may
+    //   be shared, but it only ever grows and ids never change.
+    
+    /**
+     * Create an empty graph with its own label dictionary.
+     */
+    public OffHeapGraph() {
+        this(new LabelDictionary<>());
+    }
+    
+    /**
+     * Create an empty graph that numbers its vertices with a shared dictionary.
+     * 
+     * @param labels dictionary used to assign ids to the vertex labels of this graph
+     */
+    public OffHeapGraph(LabelDictionary<String> labels) {
+        this.labels = labels;
+        this.table = ByteBuffer.allocateDirect(INITIAL_VERTICES * RECORD_BYTES).order(ByteOrder.nativeOrder());
+        Arrays.fill(freeBlocks, NONE);
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert closed == (table == null) && closed == (chunks == null) : "Half closed";
+        assert vertexCount >= 0 && edgeCount >= 0 : "Negative count";
+        assert closed || top <= (chunkCount == 0 ? 0 : chunks[chunkCount - 1].capacity()) : "Arena overrun";
+    }
+    
+    /**
+     * @throws IllegalStateException if this graph is closed
+     */
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("graph is closed");
+        }
+    }
+    
+    private boolean isPresent(int id) {
+        return id >= 0 && (long) id * RECORD_BYTES < table.capacity() && table.getInt(id * RECORD_BYTES + PRESENT) != 0;
+    }
+    
+    /**
+     * @return offset in table of a field of a record
+     */
+    private static int field(int id, int direction, int field) {
+        return id * RECORD_BYTES + field + (field == PRESENT ? 0 : direction * (field == BLOCK ? 8 : 4));
+    }
+    
+    /**
+     * Add a vertex if it is not present.
+     * @param label label of the vertex
+     * @return id of the vertex
+     */
+    private int addVertex(String label) {
+        int id = labels.intern(label);
+        if ((long) (id + 1) * RECORD_BYTES > table.capacity()) {
+            long limit = Integer.MAX_VALUE / RECORD_BYTES * RECORD_BYTES;
+            if ((long) (id + 1) * RECORD_BYTES > limit) {
+                throw new IllegalStateException("too many vertices for one OffHeapGraph: " + (id + 1));
+            }
+            long needed = Math.min(limit, Math.max((long) table.capacity() * 2, (long) (id + 1) * RECORD_BYTES));
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) needed).order(ByteOrder.nativeOrder());
+            grown.put(table.duplicate().clear());
+            release(table);
+            table = grown;
+        }
+        if (table.getInt(id * RECORD_BYTES + PRESENT) == 0) {
+            for (int direction = OUT; direction <= IN; direction++) {
+                table.putLong(field(id, direction, BLOCK), NONE);
+                table.putInt(field(id, direction, COUNT), 0);
+                table.putInt(field(id, direction, CAPACITY), 0);
+            }
+            table.putInt(id * RECORD_BYTES + PRESENT, 1);
+            vertexCount++;
+        }
+        return id;
+    }
+    
+    private static int home(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+    
+    private ByteBuffer chunkOf(long block) {
+        return chunks[(int) (block >>> 32)];
+    }
+    
+    /**
+     * @return slot of key in a block, or the empty slot where it would be inserted
+     */
+    private static int probe(ByteBuffer chunk, int base, int capacity, int key) {
+        int mask = capacity - 1;
+        int slot = home(key) & mask;
+        while (chunk.getInt(base + slot * SLOT_BYTES + 4) != 0 && chunk.getInt(base + slot * SLOT_BYTES) != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    /**
+     * Allocate a zeroed block.
+     * @param capacity number of slots, a power of two >= MIN_BLOCK_SLOTS
+     * @return reference to the block
+     */
+    private long allocate(int capacity) {
+        int bytes = capacity * SLOT_BYTES;
+        if (bytes <= 0 || bytes > MAX_CHUNK_BYTES) {
+            throw new IllegalStateException("vertex degree too large for OffHeapGraph: " + capacity * 3L / 4);
+        }
+        int sizeClass = Integer.numberOfTrailingZeros(bytes);
+        long block = freeBlocks[sizeClass];
+        if (block != NONE) {
+            ByteBuffer chunk = chunkOf(block);
+            int base = (int) block;
+            freeBlocks[sizeClass] = chunk.getLong(base);
+            for (int i = 0; i < bytes; i += Long.BYTES) {
+                chunk.putLong(base + i, 0);
+            }
+            return block;
+        }
+        if (chunkCount == 0 || top + bytes > chunks[chunkCount - 1].capacity()) {
+            newChunk(bytes);
+        }
+        block = ((long) (chunkCount - 1) << 32) | top;
+        top += bytes;
+        return block;
+    }
+    
+    /**
+     * Start a new chunk of the arena, putting the unused tail of the current
+     * chunk on the free lists.
+     * @param bytes size of the block that did not fit
+     */
+    private void newChunk(int bytes) {
+        if (chunkCount > 0) {
+            int end = chunks[chunkCount - 1].capacity();
+            while (end - top >= MIN_BLOCK_SLOTS * SLOT_BYTES) {
+                int size = Integer.highestOneBit(end - top);
+                free(((long) (chunkCount - 1) << 32) | top, size);
+                top += size;
+            }
+        }
+        int size = (int) Math.max(bytes, Math.min(MAX_CHUNK_BYTES, (long) MIN_CHUNK_BYTES << Math.min(chunkCount, 14)));
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+        }
+        chunks[chunkCount++] = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        top = 0;
+    }
+    
+    /**
+     * Return a block to its free list.
+     * @param block reference to a block
+     * @param bytes size of the block, a power of two
+     */
+    private void free(long block, int bytes) {
+        int sizeClass = Integer.numberOfTrailingZeros(bytes);
+        chunkOf(block).putLong((int) block, freeBlocks[sizeClass]);
+        freeBlocks[sizeClass] = block;
+    }
+    
+    private int weight(int id, int direction, int neighbour) {
+        int capacity = table.getInt(field(id, direction, CAPACITY));
+        if (capacity == 0) {
+            return 0;
+        }
+        long block = table.getLong(field(id, direction, BLOCK));
+        ByteBuffer chunk = chunkOf(block);
+        int base = (int) block;
+        return chunk.getInt(base + probe(chunk, base, capacity, neighbour) * SLOT_BYTES + 4);
+    }
+    
+    private int put(int id, int direction, int neighbour, int weight) {
+        int capacity = table.getInt(field(id, direction, CAPACITY));
+        int count = table.getInt(field(id, direction, COUNT));
+        if (capacity == 0 || (count + 1 > capacity * 3 / 4 && weight(id, direction, neighbour) == 0)) {
+            capacity = capacity == 0 ? MIN_BLOCK_SLOTS : capacity * 2;
+            rehash(id, direction, capacity);
+        }
+        long block = table.getLong(field(id, direction, BLOCK));
+        ByteBuffer chunk = chunkOf(block);
+        int base = (int) block;
+        int at = base + probe(chunk, base, capacity, neighbour) * SLOT_BYTES;
+        int previous = chunk.getInt(at + 4);
+        chunk.putInt(at, neighbour);
+        chunk.putInt(at + 4, weight);
+        if (previous == 0) {
+            table.putInt(field(id, direction, COUNT), count + 1);
+        }
+        return previous;
+    }
+    
+    /**
+     * Move the adjacency of a vertex in one direction to a new block.
+     */
+    private void rehash(int id, int direction, int capacity) {
+        long block = allocate(capacity);
+        ByteBuffer chunk = chunkOf(block);
+        int base = (int) block;
+        int oldCapacity = table.getInt(field(id, direction, CAPACITY));
+        if (oldCapacity > 0) {
+            long oldBlock = table.getLong(field(id, direction, BLOCK));
+            ByteBuffer oldChunk = chunkOf(oldBlock);
+            int oldBase = (int) oldBlock;
+            for (int slot = 0; slot < oldCapacity; slot++) {
+                int weight = oldChunk.getInt(oldBase + slot * SLOT_BYTES + 4);
+                if (weight != 0) {
+                    int neighbour = oldChunk.getInt(oldBase + slot * SLOT_BYTES);
+                    int at = base + probe(chunk, base, capacity, neighbour) * SLOT_BYTES;
+                    chunk.putInt(at, neighbour);
+                    chunk.putInt(at + 4, weight);
+                }
+            }
+            free(oldBlock, oldCapacity * SLOT_BYTES);
+        }
+        table.putLong(field(id, direction, BLOCK), block);
+        table.putInt(field(id, direction, CAPACITY), capacity);
+    }
+    
+    private int remove(int id, int direction, int neighbour) {
+        int capacity = table.getInt(field(id, direction, CAPACITY));
+        if (capacity == 0) {
+            return 0;
+        }
+        long block = table.getLong(field(id, direction, BLOCK));
+        ByteBuffer chunk = chunkOf(block);
+        int base = (int) block;
+        int mask = capacity - 1;
+        int gap = probe(chunk, base, capacity, neighbour);
+        int previous = chunk.getInt(base + gap * SLOT_BYTES + 4);
+        if (previous == 0) {
+            return 0;
+        }
+        // backward shift deletion, as in IntIntMap
+        for (int next = (gap + 1) & mask; chunk.getInt(base + next * SLOT_BYTES + 4) != 0; next = (next + 1) & mask) {
+            int key = chunk.getInt(base + next * SLOT_BYTES);
+            if (((next - home(key)) & mask) >= ((next - gap) & mask)) {
+                chunk.putLong(base + gap * SLOT_BYTES, chunk.getLong(base + next * SLOT_BYTES));
+                gap = next;
+            }
+        }
+        chunk.putLong(base + gap * SLOT_BYTES, 0);
+        table.putInt(field(id, direction, COUNT), table.getInt(field(id, direction, COUNT)) - 1);
+        return previous;
+    }
+    
+    private void forEach(int id, int direction, EdgeVisitor visitor) {
+        int capacity = table.getInt(field(id, direction, CAPACITY));
+        if (capacity == 0) {
+            return;
+        }
+        long block = table.getLong(field(id, direction, BLOCK));
+        ByteBuffer chunk = chunkOf(block);
+        int base = (int) block;
+        for (int slot = 0; slot < capacity; slot++) {
+            int weight = chunk.getInt(base + slot * SLOT_BYTES + 4);
+            if (weight != 0) {
+                visitor.visit(chunk.getInt(base + slot * SLOT_BYTES), weight);
+            }
+        }
+    }
+    
+    @Override
+    public boolean add(String vertex) {
+        ensureOpen();
+        if (isPresent(labels.idOf(vertex))) {
+            return false;
+        }
+        addVertex(vertex);
+        checkRep();
+        return true;
+    }
+    
+    @Override
+    public int set(String source, String target, int weight) {
+        ensureOpen();
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be nonnegative: " + weight);
+        }
+        int previous;
+        if (weight == 0) {
+            int sourceId = labels.idOf(source);
+            int targetId = labels.idOf(target);
+            if (!isPresent(sourceId) || !isPresent(targetId)) {
+                return 0;
+            }
+            previous = remove(sourceId, OUT, targetId);
+            if (previous != 0) {
+                remove(targetId, IN, sourceId);
+                edgeCount--;
+            }
+        } else {
+            int sourceId = addVertex(source);
+            int targetId = addVertex(target);
+            previous = put(sourceId, OUT, targetId, weight);
+            put(targetId, IN, sourceId, weight);
+            if (previous == 0) {
+                edgeCount++;
+            }
+        }
+        checkRep();
+        return previous;
+    }
+    
+    @Override
+    public boolean remove(String vertex) {
+        ensureOpen();
+        int id = labels.idOf(vertex);
+        if (!isPresent(id)) {
+            return false;
+        }
+        forEach(id, OUT, (target, weight) -> {
+            if (target != id) {
+                remove(target, IN, id);
+            }
+            edgeCount--;
+        });
+        forEach(id, IN, (source, weight) -> {
+            if (source != id) {
+                remove(source, OUT, id);
+                edgeCount--;
+            }
+        });
+        for (int direction = OUT; direction <= IN; direction++) {
+            int capacity = table.getInt(field(id, direction, CAPACITY));
+            if (capacity > 0) {
+                free(table.getLong(field(id, direction, BLOCK)), capacity * SLOT_BYTES);
+            }
+        }
+        table.putInt(id * RECORD_BYTES + PRESENT, 0);
+        vertexCount--;
+        checkRep();
+        return true;
+    }
+    
+    @Override
+    public Set<String> vertices() {
+        ensureOpen();
+        Set<String> result = new HashSet<>();
+        int end = Math.min(labels.size(), table.capacity() / RECORD_BYTES);
+        for (int id = 0; id < end; id++) {
+            if (isPresent(id)) {
+                result.add(labels.labelOf(id));
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<String, Integer> sources(String target) {
+        return neighbours(target, IN);
+    }
+    
+    @Override
+    public Map<String, Integer> targets(String source) {
+        return neighbours(source, OUT);
+    }
+    
+    private Map<String, Integer> neighbours(String vertex, int direction) {
+        ensureOpen();
+        Map<String, Integer> result = new HashMap<>();
+        int id = labels.idOf(vertex);
+        if (isPresent(id)) {
+            forEach(id, direction, (neighbour, weight) -> result.put(labels.labelOf(neighbour), weight));
+        }
+        return result;
+    }
+    
+    /**
+     * @return number of vertices in this graph
+     * @throws IllegalStateException if this graph is closed
+     */
+    public int vertexCount() {
+        ensureOpen();
+        return vertexCount;
+    }
+    
+    /**
+     * @return number of edges in this graph
+     * @throws IllegalStateException if this graph is closed
+     */
+    public long edgeCount() {
+        ensureOpen();
+        return edgeCount;
+    }
+    
+    /**
+     * @return number of bytes of memory outside the heap held by this graph,
+     *         or 0 once it is closed
+     */
+    public long offHeapBytes() {
+        if (closed) {
+            return 0;
+        }
+        long bytes = table.capacity();
+        for (int i = 0; i < chunkCount; i++) {
+            bytes += chunks[i].capacity();
+        }
+        return bytes;
+    }
+    
+    /**
+     * Release the memory of this graph. Later calls have no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        release(table);
+        for (int i = 0; i < chunkCount; i++) {
+            release(chunks[i]);
+        }
+        table = null;
+        chunks = null;
+        chunkCount = 0;
+        checkRep();
+    }
+    
+    @Override
+    public String toString() {
+        return closed ? "Closed graph" : "Graph contains " + vertexCount + " vertices and " + edgeCount + " edges";
+    }
+    
+    /**
+     * Free the memory of a direct buffer now if the platform allows it; the
+     * buffer must not be used afterwards.
+     */
+    private static void release(ByteBuffer buffer) {
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // the buffer is still freed when it is collected
+            }
+        }
+    }
+    
+}
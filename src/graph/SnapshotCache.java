@@ -0,0 +1,81 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Version-stamped cache of the unmodifiable results of a graph's observers.
+ * This class is internal to the rep of graphs in ViewMode.SNAPSHOT: each
+ * lookup passes the graph's modification count, and every cached result is
+ * dropped as soon as that count differs from the one it was built for.
+ * 
+ * @param <L> type of vertex labels
+ */
+class SnapshotCache<L> {
+    
+    private long version = -1;
+    private Set<L> vertices = null;
+    private final Map<Integer, Map<L, Integer>> sources = new HashMap<>();
+    private final Map<Integer, Map<L, Integer>> targets = new HashMap<>();
+    
+    // Abstraction function:
+    //   Represents the results of vertices(), sources(id) and targets(id) of
+    //   the graph as it was when its modification count was version; a null
+    //   or missing entry has not been computed for that version
+    // Representation invariant:
+    //   every cached set and map is unmodifiable
+    // Safety from rep exposure:
+    //   cached results are unmodifiable, so handing them out is safe
+    
+    /**
+     * Drop every cached result if the graph has changed.
+     * @param modCount current modification count of the graph
+     */
+    private void sync(long modCount) {
+        if (modCount != version) {
+            version = modCount;
+            vertices = null;
+            sources.clear();
+            targets.clear();
+        }
+    }
+    
+    /**
+     * @param modCount current modification count of the graph
+     * @param build computes a fresh result
+     * @return unmodifiable result of vertices() for this version
+     */
+    Set<L> vertices(long modCount, Supplier<Set<L>> build) {
+        sync(modCount);
+        if (vertices == null) {
+            vertices = Collections.unmodifiableSet(build.get());
+        }
+        return vertices;
+    }
+    
+    /**
+     * @param modCount current modification count of the graph
+     * @param id id of the target vertex
+     * @param build computes a fresh result
+     * @return unmodifiable result of sources() for this version
+     */
+    Map<L, Integer> sources(long modCount, int id, Supplier<Map<L, Integer>> build) {
+        sync(modCount);
+        return sources.computeIfAbsent(id, key -> Collections.unmodifiableMap(build.get()));
+    }
+    
+    /**
+     * @param modCount current modification count of the graph
+     * @param id id of the source vertex
+     * @param build computes a fresh result
+     * @return unmodifiable result of targets() for this version
+     */
+    Map<L, Integer> targets(long modCount, int id, Supplier<Map<L, Integer>> build) {
+        sync(modCount);
+        return targets.computeIfAbsent(id, key -> Collections.unmodifiableMap(build.get()));
+    }
+    
+}
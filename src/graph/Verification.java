@@ -0,0 +1,52 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import java.util.Locale;
+
+/**
+ * How much of its rep invariant a graph checks after each operation.
+ * Checks are assertions, so every level except OFF only costs time when the
+ * VM runs with assertions enabled (-ea).
+ */
+public enum Verification {
+    
+    /** Never check the rep invariant. */
+    OFF,
+    
+    /**
+     * After a mutation, check only the part of the invariant around the
+     * vertices it touched, in O(degree); observers check nothing.
+     */
+    INCREMENTAL,
+    
+    /**
+     * Like INCREMENTAL, plus a few randomly chosen vertices on every
+     * operation, so corruption elsewhere is eventually caught.
+     */
+    SAMPLED,
+    
+    /** Check the whole rep invariant after every operation, in O(V + E). */
+    FULL;
+    
+    /** Name of the system property that sets the default level. */
+    public static final String PROPERTY = "graph.verification";
+    
+    /** Number of extra vertices checked per operation by SAMPLED. */
+    static final int SAMPLE_SIZE = 4;
+    
+    /**
+     * Get the level used by graphs constructed without an explicit one: the
+     * value of the system property graph.verification (case-insensitive), or
+     * INCREMENTAL if it is not set.
+     * 
+     * @return the default verification level
+     * @throws IllegalArgumentException if the property names no level
+     */
+    public static Verification defaultLevel() {
+        String level = System.getProperty(PROPERTY);
+        return level == null ? INCREMENTAL : valueOf(level.trim().toUpperCase(Locale.ROOT));
+    }
+    
+}
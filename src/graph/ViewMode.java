@@ -0,0 +1,32 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+/**
+ * What the observers vertices(), sources() and targets() of a graph return.
+ */
+public enum ViewMode {
+    
+    /**
+     * A new mutable copy on every call; the caller owns it and it never
+     * changes with the graph.
+     */
+    COPY,
+    
+    /**
+     * An unmodifiable view backed by the graph, without copying. The view
+     * reflects later changes to the graph; iterating it while the graph is
+     * modified has undefined results.
+     */
+    LIVE,
+    
+    /**
+     * An unmodifiable copy that is cached and returned again by later calls
+     * until the graph is next modified, so repeated reads of an unchanged graph
+     * do not allocate. Observers are then not safe to call from several threads
+     * at once, because they update the cache.
+     */
+    SNAPSHOT
+    
+}
@@ -0,0 +1,135 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import graph.ConcreteEdgesGraph;
+import graph.EdgeVisitor;
+import graph.Graph;
+import graph.IndexedGraph;
+
+/**
+ * The edges out of the vertices of a graph, read by int vertex id in place.
+ * Ids are less than idBound(), but need not all belong to vertices: a
+ * ConcreteEdgesGraph is read by the ids of its label dictionary, which may
+ * be shared with other graphs.
+ * 
+ * @param <L> type of vertex labels in the graph
+ */
+interface Adjacency<L> {
+    
+    /**
+     * Read the edges of a graph in place where it exposes them by id, and
+     * otherwise from {@link IndexedGraph#of(Graph)}.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph
+     * @return the edges of graph
+     */
+    @SuppressWarnings("unchecked")
+    public static <L> Adjacency<L> of(Graph<L> graph) {
+        if (graph instanceof ConcreteEdgesGraph) {
+            return (Adjacency<L>) of((ConcreteEdgesGraph) graph);
+        }
+        return of(IndexedGraph.of(graph));
+    }
+    
+    /**
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph
+     * @return the edges of graph, by the ids of graph
+     */
+    public static <L> Adjacency<L> of(IndexedGraph<L> graph) {
+        return new Adjacency<L>() {
+            @Override
+            public int idBound() {
+                return graph.vertexCount();
+            }
+            
+            @Override
+            public int edgeCount() {
+                return graph.edgeCount();
+            }
+            
+            @Override
+            public int idOf(L label) {
+                return graph.idOf(label);
+            }
+            
+            @Override
+            public L labelOf(int id) {
+                return graph.labelOf(id);
+            }
+            
+            @Override
+            public void forEachTarget(int id, EdgeVisitor visitor) {
+                graph.forEachTarget(id, visitor);
+            }
+        };
+    }
+    
+    /**
+     * @param graph a graph
+     * @return the edges of graph, by the ids of its label dictionary
+     */
+    public static Adjacency<String> of(ConcreteEdgesGraph graph) {
+        return new Adjacency<String>() {
+            @Override
+            public int idBound() {
+                return graph.idBound();
+            }
+            
+            @Override
+            public int edgeCount() {
+                return graph.statistics().edgeCount();
+            }
+            
+            @Override
+            public int idOf(String label) {
+                return graph.idOf(label);
+            }
+            
+            @Override
+            public String labelOf(int id) {
+                return graph.labelOf(id);
+            }
+            
+            @Override
+            public void forEachTarget(int id, EdgeVisitor visitor) {
+                graph.forEachTarget(id, visitor);
+            }
+        };
+    }
+    
+    /**
+     * @return a bound on the vertex ids; arrays indexed by id have this length
+     */
+    public int idBound();
+    
+    /**
+     * @return number of edges in the graph
+     */
+    public int edgeCount();
+    
+    /**
+     * @param label a label
+     * @return id of the vertex with that label, or -1 if there is none
+     */
+    public int idOf(L label);
+    
+    /**
+     * @param id id of a vertex
+     * @return label of that vertex
+     */
+    public L labelOf(int id);
+    
+    /**
+     * Visit the edges out of a vertex; in increasing order of target id if
+     * the graph is an IndexedGraph, otherwise in no particular order.
+     * 
+     * @param id id of a vertex, 0 <= id < idBound()
+     * @param visitor called with the target id and weight of each edge
+     */
+    public void forEachTarget(int id, EdgeVisitor visitor);
+    
+}
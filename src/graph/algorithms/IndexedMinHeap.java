@@ -0,0 +1,149 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of the ints 0..capacity-1, each with a long key, that
+ * can lower the key of an element already in the heap. Stored in three int
+ * and long arrays, so neither elements nor keys are boxed.
+ */
+final class IndexedMinHeap {
+    
+    private final int[] heap;
+    private final int[] position;
+    private final long[] keys;
+    private int size = 0;
+    
+    // Abstraction function:
+    //   Represents the set {heap[0..size-1]} where element e has key keys[e]
+    // Representation invariant:
+    //   position[heap[i]] == i for 0 <= i < size, and position[e] == -1 for
+    //     every other e
+    //   keys[heap[(i-1)/2]] <= keys[heap[i]] for 0 < i < size
+    // Safety from rep exposure:
+    //   Arrays are private final and never returned.
+    
+    /**
+     * Make an empty heap.
+     * 
+     * @param capacity elements allowed are 0..capacity-1
+     */
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(position, -1);
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert size >= 0 && size <= heap.length : "Bad size";
+        assert size == 0 || position[heap[0]] == 0 : "Bad root position";
+    }
+    
+    /**
+     * @return true iff the heap has no elements
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * @param element an element, 0 <= element < capacity
+     * @return true iff element is in the heap
+     */
+    boolean contains(int element) {
+        return position[element] >= 0;
+    }
+    
+    /**
+     * Add an element, or lower its key if it is already in the heap with a
+     * larger key.
+     * 
+     * @param element an element, 0 <= element < capacity
+     * @param key key of element
+     * @return true iff the heap changed
+     */
+    boolean offer(int element, long key) {
+        int at = position[element];
+        if (at < 0) {
+            at = size++;
+            heap[at] = element;
+            position[element] = at;
+        } else if (keys[element] <= key) {
+            return false;
+        }
+        keys[element] = key;
+        siftUp(at);
+        checkRep();
+        return true;
+    }
+    
+    /**
+     * @param element an element in the heap, or the element last returned by poll()
+     * @return key of element
+     */
+    long keyOf(int element) {
+        return keys[element];
+    }
+    
+    /**
+     * Remove an element with the smallest key.
+     * 
+     * @return the element removed; the heap must not be empty
+     */
+    int poll() {
+        int top = heap[0];
+        position[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        checkRep();
+        return top;
+    }
+    
+    private void siftUp(int at) {
+        int element = heap[at];
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            if (keys[heap[parent]] <= keys[element]) {
+                break;
+            }
+            move(heap[parent], at);
+            at = parent;
+        }
+        move(element, at);
+    }
+    
+    private void siftDown(int at) {
+        int element = heap[at];
+        while (true) {
+            int child = 2 * at + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (keys[element] <= keys[heap[child]]) {
+                break;
+            }
+            move(heap[child], at);
+            at = child;
+        }
+        move(element, at);
+    }
+    
+    private void move(int element, int at) {
+        heap[at] = element;
+        position[element] = at;
+    }
+    
+}
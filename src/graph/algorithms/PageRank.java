@@ -0,0 +1,186 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import graph.IndexedGraph;
+
+/**
+ * Weighted PageRank, computed in parallel by power iteration.
+ * 
+ * <p>A random surfer at vertex u follows the edge u -> v with probability
+ * proportional to its weight, and with probability 1 - damping, or always if u
+ * has no outgoing edges, jumps to a vertex chosen uniformly at random. The rank
+ * of a vertex is the long-run fraction of time the surfer spends there; ranks
+ * sum to 1.
+ * 
+ * <p>Each iteration pulls rank along the incoming edges of every vertex, so
+ * the vertices can be split into ranges computed by different workers of a
+ * ForkJoinPool without any shared writes. Iteration stops when the ranks change
+ * by less than a tolerance, summed over all vertices, or after an iteration cap.
+ */
+public final class PageRank {
+    
+    /** Probability of following an edge rather than jumping. */
+    public static final double DEFAULT_DAMPING = 0.85;
+    
+    /** Total change in rank below which iteration stops. */
+    public static final double DEFAULT_TOLERANCE = 1e-9;
+    
+    /** Number of iterations after which iteration stops regardless. */
+    public static final int DEFAULT_MAX_ITERATIONS = 100;
+    
+    /** Fewest vertices a worker is given, so that small ranges are not split further. */
+    private static final int MIN_RANGE = 1024;
+    
+    private PageRank() {
+        throw new AssertionError("not instantiable");
+    }
+    
+    /**
+     * Rank the vertices of a graph with the default damping, tolerance and
+     * iteration cap.
+     * 
+     * @param graph a graph
+     * @param pool pool to run on
+     * @return array indexed by vertex id of the rank of that vertex
+     */
+    public static double[] rank(IndexedGraph<?> graph, ForkJoinPool pool) {
+        return rank(graph, pool, DEFAULT_DAMPING, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+    }
+    
+    /**
+     * Rank the vertices of a graph.
+     * 
+     * @param graph a graph
+     * @param pool pool to run on
+     * @param damping probability of following an edge rather than jumping, 0 <= damping <= 1
+     * @param tolerance stop once the sum over all vertices of the change in
+     *                  rank in one iteration is below tolerance, nonnegative
+     * @param maxIterations stop after this many iterations, nonnegative
+     * @return array indexed by vertex id of the rank of that vertex; ranks are
+     *         nonnegative and sum to 1, or the array is empty if graph is empty
+     * @throws IllegalArgumentException if damping, tolerance or maxIterations
+     *         is out of range
+     */
+    public static double[] rank(IndexedGraph<?> graph, ForkJoinPool pool,
+            double damping, double tolerance, int maxIterations) {
+        if (!(damping >= 0 && damping <= 1)) {
+            throw new IllegalArgumentException("damping must be in [0, 1]: " + damping);
+        }
+        if (!(tolerance >= 0)) {
+            throw new IllegalArgumentException("tolerance must be nonnegative: " + tolerance);
+        }
+        if (maxIterations < 0) {
+            throw new IllegalArgumentException("iterations must be nonnegative: " + maxIterations);
+        }
+        int n = graph.vertexCount();
+        if (n == 0) {
+            return new double[0];
+        }
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        double[] share = new double[n];
+        long[] outWeight = new long[n];
+        Arrays.fill(rank, 1.0 / n);
+        int minRange = Math.max(MIN_RANGE, n / (8 * pool.getParallelism()) + 1);
+        pool.invoke(new RangeTask(0, n, minRange, (start, end) -> {
+            long[] sum = { 0 };
+            for (int u = start; u < end; u++) {
+                sum[0] = 0;
+                graph.forEachTarget(u, (target, weight) -> sum[0] += weight);
+                outWeight[u] = sum[0];
+            }
+            return 0;
+        }));
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double[] current = rank;
+            // share[u] is the rank u passes per unit of edge weight; dangling vertices pass theirs to all
+            double dangling = pool.invoke(new RangeTask(0, n, minRange, (start, end) -> {
+                double danglingRank = 0;
+                for (int u = start; u < end; u++) {
+                    if (outWeight[u] == 0) {
+                        share[u] = 0;
+                        danglingRank += current[u];
+                    } else {
+                        share[u] = current[u] / outWeight[u];
+                    }
+                }
+                return danglingRank;
+            }));
+            double jump = ((1 - damping) + damping * dangling) / n;
+            double[] updated = next;
+            double change = pool.invoke(new RangeTask(0, n, minRange, (start, end) -> {
+                double[] pulled = { 0 };
+                double sum = 0;
+                for (int v = start; v < end; v++) {
+                    pulled[0] = 0;
+                    graph.forEachSource(v, (source, weight) -> pulled[0] += share[source] * weight);
+                    updated[v] = jump + damping * pulled[0];
+                    sum += Math.abs(updated[v] - current[v]);
+                }
+                return sum;
+            }));
+            next = rank;
+            rank = updated;
+            if (change < tolerance) {
+                break;
+            }
+        }
+        return rank;
+    }
+    
+    /**
+     * Computation over a range of vertex ids that returns a sum.
+     */
+    @FunctionalInterface
+    private interface RangeBody {
+        
+        /**
+         * @param start first id of the range
+         * @param end id after the last one of the range
+         * @return the part of the sum for ids start..end-1
+         */
+        double apply(int start, int end);
+        
+    }
+    
+    /**
+     * Applies a RangeBody to a range of ids, split in halves down to a minimum
+     * size and run in parallel, and sums the results.
+     */
+    private static final class RangeTask extends RecursiveTask<Double> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final int start;
+        private final int end;
+        private final int minRange;
+        private final transient RangeBody body;
+        
+        RangeTask(int start, int end, int minRange, RangeBody body) {
+            this.start = start;
+            this.end = end;
+            this.minRange = minRange;
+            this.body = body;
+        }
+        
+        @Override
+        protected Double compute() {
+            if (end - start <= minRange) {
+                return body.apply(start, end);
+            }
+            int middle = (start + end) >>> 1;
+            RangeTask left = new RangeTask(start, middle, minRange, body);
+            left.fork();
+            double right = new RangeTask(middle, end, minRange, body).compute();
+            return left.join() + right;
+        }
+        
+    }
+    
+}
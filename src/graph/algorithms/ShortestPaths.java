@@ -0,0 +1,124 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.*;
+
+import graph.Graph;
+import graph.IndexedGraph;
+
+/**
+ * Single-source shortest paths by Dijkstra's algorithm, where the length of a
+ * path is the sum of the weights of its edges. Weights are positive, so
+ * Dijkstra's algorithm applies; lengths are longs, so they cannot overflow.
+ * 
+ * <p>The primitive version works on the ids of an IndexedGraph with an
+ * IndexedMinHeap and a settled BitSet. The versions on Graph labels run it
+ * in place on an IndexedGraph or, by the ids of its label dictionary, on a
+ * ConcreteEdgesGraph; any other graph is copied once with
+ * {@link IndexedGraph#of(Graph)}.
+ */
+public final class ShortestPaths {
+    
+    private ShortestPaths() {
+        throw new AssertionError("not instantiable");
+    }
+    
+    /**
+     * Find the length of a shortest path from a source vertex to every vertex.
+     * 
+     * @param graph a graph
+     * @param source id of the source vertex, 0 <= source < graph.vertexCount()
+     * @param previous if not null, an array of length graph.vertexCount() that
+     *                 receives, for each vertex reached other than source, the
+     *                 id of the vertex before it on a shortest path, and -1
+     *                 for source and the vertices not reached
+     * @return array indexed by vertex id of the length of a shortest path from
+     *         source to that vertex, 0 for source, or -1 if there is no path
+     */
+    public static long[] distances(IndexedGraph<?> graph, int source, int[] previous) {
+        return distances(Adjacency.of(graph), source, previous);
+    }
+    
+    private static long[] distances(Adjacency<?> graph, int source, int[] previous) {
+        int n = graph.idBound();
+        long[] distances = new long[n];
+        Arrays.fill(distances, -1);
+        if (previous != null) {
+            Arrays.fill(previous, -1);
+        }
+        BitSet settled = new BitSet(n);
+        IndexedMinHeap frontier = new IndexedMinHeap(n);
+        frontier.offer(source, 0);
+        while (!frontier.isEmpty()) {
+            int vertex = frontier.poll();
+            long distance = frontier.keyOf(vertex);
+            settled.set(vertex);
+            distances[vertex] = distance;
+            graph.forEachTarget(vertex, (target, weight) -> {
+                if (!settled.get(target) && frontier.offer(target, distance + weight) && previous != null) {
+                    previous[target] = vertex;
+                }
+            });
+        }
+        return distances;
+    }
+    
+    /**
+     * Find the length of a shortest path from a source vertex to every vertex
+     * reachable from it.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph
+     * @param source label of the source vertex
+     * @return map from the label of each vertex reachable from source to the
+     *         length of a shortest path to it; source maps to 0; empty if
+     *         source is not in graph
+     */
+    public static <L> Map<L, Long> distances(Graph<L> graph, L source) {
+        Adjacency<L> adjacency = Adjacency.of(graph);
+        int id = adjacency.idOf(source);
+        Map<L, Long> result = new HashMap<>();
+        if (id >= 0) {
+            long[] distances = distances(adjacency, id, null);
+            for (int vertex = 0; vertex < distances.length; vertex++) {
+                if (distances[vertex] >= 0) {
+                    result.put(adjacency.labelOf(vertex), distances[vertex]);
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Find a shortest path between two vertices.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph
+     * @param source label of the first vertex of the path
+     * @param target label of the last vertex of the path
+     * @return labels of the vertices of a shortest path from source to target,
+     *         source first and target last, just source if they are equal; or
+     *         an empty list if either is not in graph or there is no such path
+     */
+    public static <L> List<L> path(Graph<L> graph, L source, L target) {
+        Adjacency<L> adjacency = Adjacency.of(graph);
+        int sourceId = adjacency.idOf(source);
+        int targetId = adjacency.idOf(target);
+        List<L> path = new ArrayList<>();
+        if (sourceId < 0 || targetId < 0) {
+            return path;
+        }
+        int[] previous = new int[adjacency.idBound()];
+        if (distances(adjacency, sourceId, previous)[targetId] < 0) {
+            return path;
+        }
+        for (int vertex = targetId; vertex >= 0; vertex = previous[vertex]) {
+            path.add(adjacency.labelOf(vertex));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+    
+}
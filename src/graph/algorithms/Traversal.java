@@ -0,0 +1,314 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import graph.Graph;
+import graph.IndexedGraph;
+
+/**
+ * Breadth-first and depth-first traversal and k-hop neighborhoods, following
+ * edges from source to target.
+ * 
+ * <p>The primitive versions work on the ids of an IndexedGraph and allocate
+ * only a visited BitSet and int arrays of size vertexCount(). The versions on
+ * Graph labels read the edges of an IndexedGraph, or of a ConcreteEdgesGraph
+ * by the ids of its label dictionary, in place; any other graph is copied
+ * once with {@link IndexedGraph#of(Graph)}. No map is copied per step.
+ * 
+ * <p>hops() can also run level-synchronously on a ForkJoinPool: the vertices of
+ * each level are split among workers, which claim unvisited targets with an
+ * atomic compare-and-set and collect them into the next level.
+ */
+public final class Traversal {
+    
+    private Traversal() {
+        throw new AssertionError("not instantiable");
+    }
+    
+    /**
+     * Visit the vertices reachable from a start vertex in breadth-first order.
+     * Targets of a vertex are visited in increasing order of id.
+     * 
+     * @param graph a graph
+     * @param start id of the start vertex, 0 <= start < graph.vertexCount()
+     * @return ids of the vertices reachable from start, start first, in the
+     *         order visited
+     */
+    public static int[] breadthFirst(IndexedGraph<?> graph, int start) {
+        return breadthFirst(Adjacency.of(graph), start);
+    }
+    
+    private static int[] breadthFirst(Adjacency<?> graph, int start) {
+        int[] queue = new int[graph.idBound()];
+        int end = search(graph, start, Integer.MAX_VALUE, queue, null);
+        return Arrays.copyOf(queue, end);
+    }
+    
+    /**
+     * Find the number of hops to each vertex within some hops of a start vertex.
+     * 
+     * @param graph a graph
+     * @param start id of the start vertex, 0 <= start < graph.vertexCount()
+     * @param maxHops maximum number of edges to follow, nonnegative
+     * @return array indexed by vertex id of the fewest edges on a path from
+     *         start to that vertex, or -1 if there is no such path with at
+     *         most maxHops edges
+     * @throws IllegalArgumentException if maxHops is negative
+     */
+    public static int[] hops(IndexedGraph<?> graph, int start, int maxHops) {
+        if (maxHops < 0) {
+            throw new IllegalArgumentException("hops must be nonnegative: " + maxHops);
+        }
+        return hops(Adjacency.of(graph), start, maxHops);
+    }
+    
+    private static int[] hops(Adjacency<?> graph, int start, int maxHops) {
+        int[] hops = new int[graph.idBound()];
+        Arrays.fill(hops, -1);
+        search(graph, start, maxHops, new int[graph.idBound()], hops);
+        return hops;
+    }
+    
+    /**
+     * Find the number of hops to each vertex within some hops of a start
+     * vertex, searching each level in parallel.
+     * 
+     * @param graph a graph
+     * @param start id of the start vertex, 0 <= start < graph.vertexCount()
+     * @param maxHops maximum number of edges to follow, nonnegative
+     * @param pool pool to run on
+     * @return array indexed by vertex id of the fewest edges on a path from
+     *         start to that vertex, or -1 if there is no such path with at
+     *         most maxHops edges; the same as hops(graph, start, maxHops)
+     * @throws IllegalArgumentException if maxHops is negative
+     */
+    public static int[] hops(IndexedGraph<?> graph, int start, int maxHops, ForkJoinPool pool) {
+        if (maxHops < 0) {
+            throw new IllegalArgumentException("hops must be nonnegative: " + maxHops);
+        }
+        AtomicIntegerArray hops = new AtomicIntegerArray(graph.vertexCount());
+        for (int vertex = 0; vertex < graph.vertexCount(); vertex++) {
+            hops.set(vertex, -1);
+        }
+        hops.set(start, 0);
+        int[] frontier = { start };
+        for (int level = 1; level <= maxHops && frontier.length > 0; level++) {
+            frontier = pool.invoke(new LevelTask(graph, frontier, 0, frontier.length, hops, level));
+        }
+        int[] result = new int[graph.vertexCount()];
+        for (int vertex = 0; vertex < result.length; vertex++) {
+            result[vertex] = hops.get(vertex);
+        }
+        return result;
+    }
+    
+    /**
+     * Expands part of one level of a parallel breadth-first search: claims the
+     * unvisited targets of frontier[from..to-1] for the next level and returns
+     * them.
+     */
+    private static final class LevelTask extends RecursiveTask<int[]> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        /** Fewest frontier vertices a worker is given. */
+        private static final int MIN_VERTICES = 256;
+        
+        private final transient IndexedGraph<?> graph;
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+        private final AtomicIntegerArray hops;
+        private final int level;
+        
+        LevelTask(IndexedGraph<?> graph, int[] frontier, int from, int to, AtomicIntegerArray hops, int level) {
+            this.graph = graph;
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.hops = hops;
+            this.level = level;
+        }
+        
+        @Override
+        protected int[] compute() {
+            if (to - from <= MIN_VERTICES) {
+                int[][] claimed = { new int[16] };
+                int[] count = { 0 };
+                for (int i = from; i < to; i++) {
+                    graph.forEachTarget(frontier[i], (target, weight) -> {
+                        if (hops.get(target) < 0 && hops.compareAndSet(target, -1, level)) {
+                            if (count[0] == claimed[0].length) {
+                                claimed[0] = Arrays.copyOf(claimed[0], count[0] * 2);
+                            }
+                            claimed[0][count[0]++] = target;
+                        }
+                    });
+                }
+                return Arrays.copyOf(claimed[0], count[0]);
+            }
+            int middle = (from + to) >>> 1;
+            LevelTask right = new LevelTask(graph, frontier, middle, to, hops, level);
+            right.fork();
+            int[] left = new LevelTask(graph, frontier, from, middle, hops, level).compute();
+            int[] rightClaimed = right.join();
+            int[] both = Arrays.copyOf(left, left.length + rightClaimed.length);
+            System.arraycopy(rightClaimed, 0, both, left.length, rightClaimed.length);
+            return both;
+        }
+    }
+    
+    /**
+     * Breadth-first search, level by level.
+     * 
+     * @param queue receives the ids visited, in order; length idBound()
+     * @param hops if not null, receives the level of each id visited
+     * @return number of ids visited
+     */
+    private static int search(Adjacency<?> graph, int start, int maxHops, int[] queue, int[] hops) {
+        BitSet visited = new BitSet(graph.idBound());
+        int[] end = { 0 };
+        queue[end[0]++] = start;
+        visited.set(start);
+        int head = 0;
+        for (int level = 0; head < end[0]; level++) {
+            int levelEnd = end[0];
+            if (hops != null) {
+                for (int i = head; i < levelEnd; i++) {
+                    hops[queue[i]] = level;
+                }
+            }
+            if (level == maxHops) {
+                break;
+            }
+            for (; head < levelEnd; head++) {
+                graph.forEachTarget(queue[head], (target, weight) -> {
+                    if (!visited.get(target)) {
+                        visited.set(target);
+                        queue[end[0]++] = target;
+                    }
+                });
+            }
+        }
+        return end[0];
+    }
+    
+    /**
+     * Visit the vertices reachable from a start vertex in depth-first
+     * preorder. Targets of a vertex are visited in increasing order of id.
+     * 
+     * @param graph a graph
+     * @param start id of the start vertex, 0 <= start < graph.vertexCount()
+     * @return ids of the vertices reachable from start, start first, in the
+     *         order first visited
+     */
+    public static int[] depthFirst(IndexedGraph<?> graph, int start) {
+        return depthFirst(Adjacency.of(graph), start);
+    }
+    
+    private static int[] depthFirst(Adjacency<?> graph, int start) {
+        BitSet visited = new BitSet(graph.idBound());
+        int[] order = new int[graph.idBound()];
+        int visitedCount = 0;
+        // each vertex is pushed at most once per incoming edge, plus start
+        int[] stack = new int[graph.edgeCount() + 1];
+        int[] top = { 0 };
+        stack[top[0]++] = start;
+        while (top[0] > 0) {
+            int vertex = stack[--top[0]];
+            if (visited.get(vertex)) {
+                continue;
+            }
+            visited.set(vertex);
+            order[visitedCount++] = vertex;
+            // push in increasing order, then reverse so the smallest id is popped first
+            int first = top[0];
+            graph.forEachTarget(vertex, (target, weight) -> {
+                if (!visited.get(target)) {
+                    stack[top[0]++] = target;
+                }
+            });
+            for (int i = first, j = top[0] - 1; i < j; i++, j--) {
+                int swap = stack[i];
+                stack[i] = stack[j];
+                stack[j] = swap;
+            }
+        }
+        return Arrays.copyOf(order, visitedCount);
+    }
+    
+    /**
+     * Visit the vertices reachable from a start vertex in breadth-first order.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph
+     * @param start label of the start vertex
+     * @return labels of the vertices reachable from start, start first, in
+     *         the order visited; empty if start is not in graph
+     */
+    public static <L> List<L> breadthFirst(Graph<L> graph, L start) {
+        Adjacency<L> adjacency = Adjacency.of(graph);
+        int id = adjacency.idOf(start);
+        return id < 0 ? new ArrayList<>() : labels(adjacency, breadthFirst(adjacency, id));
+    }
+    
+    /**
+     * Visit the vertices reachable from a start vertex in depth-first preorder.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph
+     * @param start label of the start vertex
+     * @return labels of the vertices reachable from start, start first, in
+     *         the order first visited; empty if start is not in graph
+     */
+    public static <L> List<L> depthFirst(Graph<L> graph, L start) {
+        Adjacency<L> adjacency = Adjacency.of(graph);
+        int id = adjacency.idOf(start);
+        return id < 0 ? new ArrayList<>() : labels(adjacency, depthFirst(adjacency, id));
+    }
+    
+    /**
+     * Find the vertices within some hops of a start vertex.
+     * 
+     * @param <L> type of vertex labels in the graph
+     * @param graph a graph
+     * @param start label of the start vertex
+     * @param maxHops maximum number of edges to follow, nonnegative
+     * @return map from the label of each vertex reachable from start by a path
+     *         of at most maxHops edges to the fewest edges on such a path;
+     *         start maps to 0; empty if start is not in graph
+     * @throws IllegalArgumentException if maxHops is negative
+     */
+    public static <L> Map<L, Integer> neighborhood(Graph<L> graph, L start, int maxHops) {
+        if (maxHops < 0) {
+            throw new IllegalArgumentException("hops must be nonnegative: " + maxHops);
+        }
+        Adjacency<L> adjacency = Adjacency.of(graph);
+        int id = adjacency.idOf(start);
+        Map<L, Integer> result = new HashMap<>();
+        if (id >= 0) {
+            int[] hops = hops(adjacency, id, maxHops);
+            for (int vertex = 0; vertex < hops.length; vertex++) {
+                if (hops[vertex] >= 0) {
+                    result.put(adjacency.labelOf(vertex), hops[vertex]);
+                }
+            }
+        }
+        return result;
+    }
+    
+    private static <L> List<L> labels(Adjacency<L> graph, int[] ids) {
+        List<L> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(graph.labelOf(id));
+        }
+        return result;
+    }
+    
+}
@@ -0,0 +1,164 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.metrics;
+
+import java.util.Map;
+import java.util.Set;
+
+import graph.Graph;
+
+/**
+ * A Graph that passes every operation to another graph and records, for each
+ * kind of operation, the metrics kept by OperationMetrics: calls, errors,
+ * latency histogram, result sizes and allocation.
+ * 
+ * <p>The result size of vertices(), sources() and targets() is the size of the
+ * returned collection; of add() and remove(), 1 if the graph changed and 0
+ * otherwise; of set(), 1 if the edge existed before and 0 otherwise.
+ * 
+ * <p>Each call is recorded with OperationMetrics.start() and finish(), so
+ * the metrics add a few clock reads and counter increments to it but no
+ * allocation; GraphBenchmark with instrumented=true measures the cost. The
+ * metrics are safe for concurrent use, so an InstrumentedGraph is as safe for
+ * concurrent use as the graph it wraps. Its metrics can be exposed over JMX with
+ * {@code metrics().register(server, "InstrumentedGraph", name)}.
+ * 
+ * @param <L> type of vertex labels in this graph, must be immutable
+ */
+public final class InstrumentedGraph<L> implements Graph<L> {
+    
+    private final Graph<L> graph;
+    private final OperationMetrics add = new OperationMetrics("add");
+    private final OperationMetrics set = new OperationMetrics("set");
+    private final OperationMetrics remove = new OperationMetrics("remove");
+    private final OperationMetrics vertices = new OperationMetrics("vertices");
+    private final OperationMetrics sources = new OperationMetrics("sources");
+    private final OperationMetrics targets = new OperationMetrics("targets");
+    private final MetricsGroup metrics = new MetricsGroup(add, set, remove, vertices, sources, targets);
+    
+    // Abstraction function:
+    //   Represents the graph graph, whose operations through this object have
+    //   been recorded in the metrics of the same name
+    // Representation invariant:
+    //   graph is not null
+    //   metrics holds exactly the six OperationMetrics fields
+    // Safety from rep exposure:
+    //   graph is private and never returned; observers return what graph returns.
+    //   metrics is returned, but its contents only record calls and can be reset.
+    
+    /**
+     * Wrap a graph.
+     * 
+     * @param graph graph to pass operations to; changes made to it directly
+     *              are seen through this graph but not recorded
+     */
+    public InstrumentedGraph(Graph<L> graph) {
+        this.graph = graph;
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert graph != null : "No graph to wrap";
+        assert metrics.operations().size() == 6 : "Operations missing from metrics";
+    }
+    
+    /**
+     * @return metrics of the operations of this graph, named add, set, remove,
+     *         vertices, sources and targets
+     */
+    public MetricsGroup metrics() {
+        return metrics;
+    }
+    
+    @Override
+    public boolean add(L vertex) {
+        long started = add.start();
+        boolean added;
+        try {
+            added = graph.add(vertex);
+        } catch (RuntimeException | Error e) {
+            add.failed(started);
+            throw e;
+        }
+        add.finish(started, added ? 1 : 0);
+        return added;
+    }
+    
+    @Override
+    public int set(L source, L target, int weight) {
+        long started = set.start();
+        int previous;
+        try {
+            previous = graph.set(source, target, weight);
+        } catch (RuntimeException | Error e) {
+            set.failed(started);
+            throw e;
+        }
+        set.finish(started, previous > 0 ? 1 : 0);
+        return previous;
+    }
+    
+    @Override
+    public boolean remove(L vertex) {
+        long started = remove.start();
+        boolean removed;
+        try {
+            removed = graph.remove(vertex);
+        } catch (RuntimeException | Error e) {
+            remove.failed(started);
+            throw e;
+        }
+        remove.finish(started, removed ? 1 : 0);
+        return removed;
+    }
+    
+    @Override
+    public Set<L> vertices() {
+        long started = vertices.start();
+        Set<L> result;
+        try {
+            result = graph.vertices();
+        } catch (RuntimeException | Error e) {
+            vertices.failed(started);
+            throw e;
+        }
+        vertices.finish(started, result.size());
+        return result;
+    }
+    
+    @Override
+    public Map<L, Integer> sources(L target) {
+        long started = sources.start();
+        Map<L, Integer> result;
+        try {
+            result = graph.sources(target);
+        } catch (RuntimeException | Error e) {
+            sources.failed(started);
+            throw e;
+        }
+        sources.finish(started, result.size());
+        return result;
+    }
+    
+    @Override
+    public Map<L, Integer> targets(L source) {
+        long started = targets.start();
+        Map<L, Integer> result;
+        try {
+            result = graph.targets(source);
+        } catch (RuntimeException | Error e) {
+            targets.failed(started);
+            throw e;
+        }
+        targets.finish(started, result.size());
+        return result;
+    }
+    
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
+    
+}
@@ -0,0 +1,149 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of durations in nanoseconds with a fixed relative precision, in
+ * the style of HdrHistogram: each power of two is split into SUB_BUCKETS
+ * equal buckets, so a recorded value is known to within 1/SUB_BUCKETS of
+ * itself, from 1 ns up to Long.MAX_VALUE, in 960 counters.
+ * 
+ * <p>record() takes O(1) and never allocates or locks, so it is cheap enough to
+ * leave on in production; percentiles take O(number of buckets).
+ * 
+ * <p>Safe for concurrent use. Observers read the counters one at a time, so
+ * while values are being recorded they see some of them and not others, but
+ * each observer result describes some set of recorded values.
+ */
+public final class LatencyHistogram {
+    
+    /** Number of buckets each power of two is split into. */
+    public static final int SUB_BUCKETS = 16;
+    
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+    
+    // Abstraction function:
+    //   Represents the multiset of recorded durations in which counts[i] values
+    //   lie between lowestOf(i) and highestOf(i), the largest of them being max
+    // Representation invariant:
+    //   every count is nonnegative
+    //   max is 0 if no value was recorded, else lies in the highest nonempty bucket
+    // Safety from rep exposure:
+    //   Fields are private and never returned.
+    // Thread safety argument:
+    //   counts and max are atomic and every update is a single atomic
+    //   operation, so concurrent records are never lost.
+    
+    /**
+     * Record a duration.
+     * 
+     * @param nanos duration in nanoseconds; negative durations, which a
+     *              clock adjustment can produce, are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        long largest = max.get();
+        while (value > largest && !max.compareAndSet(largest, value)) {
+            largest = max.get();
+        }
+    }
+    
+    /**
+     * @param value nonnegative value
+     * @return index of the bucket that holds value
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+    
+    /**
+     * @param index index of a bucket, 0 <= index < 960
+     * @return largest value the bucket holds
+     */
+    static long highestOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+        return lowest + ((1L << shift) - 1);
+    }
+    
+    /**
+     * @return number of values recorded
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+    
+    /**
+     * @return largest value recorded, or 0 if none was
+     */
+    public long max() {
+        return max.get();
+    }
+    
+    /**
+     * Find a percentile of the recorded values.
+     * 
+     * @param percentile percentage of values, 0 <= percentile <= 100
+     * @return the smallest bucket bound that at least percentile percent of the
+     *         recorded values are at most, capped at max(); within
+     *         1/SUB_BUCKETS of the true percentile; 0 if no value was recorded
+     * @throws IllegalArgumentException if percentile is out of range
+     */
+    public long valueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+        }
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestOf(i), max());
+            }
+        }
+        return 0;
+    }
+    
+    /**
+     * Forget all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+    
+    @Override
+    public String toString() {
+        return "p50=" + valueAtPercentile(50) + "ns p99=" + valueAtPercentile(99) + "ns max=" + max() + "ns";
+    }
+    
+}
@@ -0,0 +1,149 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.metrics;
+
+import java.util.*;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The metrics of the operations of one instrumented object, which can be
+ * registered together as MXBeans with an MBeanServer, one per operation, named
+ * graph.metrics:type=TYPE,name=NAME,operation=OPERATION.
+ * 
+ * <p>Safe for concurrent use.
+ */
+public final class MetricsGroup {
+    
+    /** JMX domain of the MXBeans of all groups. */
+    public static final String DOMAIN = "graph.metrics";
+    
+    private final Map<String, OperationMetrics> operations = new LinkedHashMap<>();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private MBeanServer server = null;
+    
+    // Abstraction function:
+    //   Represents the metrics operations.get(op) of each operation op, in
+    //   order, registered with server under the names in registered, or not
+    //   registered if server is null
+    // Representation invariant:
+    //   each key of operations is the name of its value's operation
+    //   registered is empty if server is null
+    // Safety from rep exposure:
+    //   Fields are private; operations() returns an unmodifiable view of a map
+    //   that never changes after construction, and OperationMetrics are meant
+    //   to be shared.
+    // Thread safety argument:
+    //   operations is not modified after construction; server and registered
+    //   are only accessed in synchronized methods.
+    
+    /**
+     * Make a group of metrics.
+     * 
+     * @param operations metrics of each operation, with distinct operation names
+     * @throws IllegalArgumentException if two operations have the same name
+     */
+    public MetricsGroup(OperationMetrics... operations) {
+        for (OperationMetrics metrics : operations) {
+            if (this.operations.put(metrics.getOperation(), metrics) != null) {
+                throw new IllegalArgumentException("duplicate operation: " + metrics.getOperation());
+            }
+        }
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        for (Map.Entry<String, OperationMetrics> entry : operations.entrySet()) {
+            assert entry.getKey().equals(entry.getValue().getOperation()) : "Operation filed under another name";
+        }
+    }
+    
+    /**
+     * @return unmodifiable map from operation name to its metrics, in the
+     *         order given to the constructor
+     */
+    public Map<String, OperationMetrics> operations() {
+        return Collections.unmodifiableMap(operations);
+    }
+    
+    /**
+     * @param operation name of an operation
+     * @return its metrics, or null if this group has no such operation
+     */
+    public OperationMetrics get(String operation) {
+        return operations.get(operation);
+    }
+    
+    /**
+     * Forget everything recorded for every operation.
+     */
+    public void reset() {
+        for (OperationMetrics metrics : operations.values()) {
+            metrics.reset();
+        }
+    }
+    
+    /**
+     * Register an MXBean for each operation, first unregistering the group if
+     * it is registered already.
+     * 
+     * @param server server to register with, for example
+     *               ManagementFactory.getPlatformMBeanServer()
+     * @param type kind of object instrumented, used as the type key of the names
+     * @param name name of the object instrumented, used as the name key of the names
+     * @throws JMException if an MXBean cannot be registered, for example
+     *         because another group already uses the same type and name; the
+     *         group is then not registered
+     */
+    public synchronized void register(MBeanServer server, String type, String name) throws JMException {
+        unregister();
+        this.server = server;
+        try {
+            for (OperationMetrics metrics : operations.values()) {
+                ObjectName objectName = new ObjectName(DOMAIN + ":type=" + ObjectName.quote(type)
+                        + ",name=" + ObjectName.quote(name) + ",operation=" + ObjectName.quote(metrics.getOperation()));
+                server.registerMBean(metrics, objectName);
+                registered.add(objectName);
+            }
+        } catch (JMException e) {
+            unregister();
+            throw e;
+        }
+    }
+    
+    /**
+     * Unregister the MXBeans of this group, if it is registered.
+     */
+    public synchronized void unregister() {
+        for (ObjectName objectName : registered) {
+            try {
+                server.unregisterMBean(objectName);
+            } catch (JMException e) {
+                // already unregistered by someone else, which is what we wanted
+            }
+        }
+        registered.clear();
+        server = null;
+    }
+    
+    /**
+     * @return whether the MXBeans of this group are registered
+     */
+    public synchronized boolean isRegistered() {
+        return server != null;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (OperationMetrics metrics : operations.values()) {
+            result.append(result.length() == 0 ? "" : "\n").append(metrics);
+        }
+        return result.toString();
+    }
+    
+}
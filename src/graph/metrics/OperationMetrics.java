@@ -0,0 +1,288 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Metrics of one operation: how many calls there were, how many threw, a
+ * latency histogram, the total size of the results, and an estimate of the
+ * bytes allocated.
+ * 
+ * <p>Each call costs two System.nanoTime() reads and a few uncontended
+ * increments. record() takes the call as a lambda, which is allocated unless
+ * the JIT compiler can prove it does not escape; start() and finish() record
+ * a call without allocating. Allocation is measured with the per-thread allocation counter
+ * of the JVM, which costs more, so only one call in
+ * ALLOCATION_SAMPLE_INTERVAL, chosen at random, is measured and the total is
+ * extrapolated from them. JVMs without that counter report no allocation.
+ * 
+ * <p>Safe for concurrent use.
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+    
+    /** One call in this many has its allocation measured. */
+    public static final int ALLOCATION_SAMPLE_INTERVAL = 64;
+    
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationCounter();
+    
+    private final String operation;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder resultSize = new LongAdder();
+    private final LongAdder sampledCalls = new LongAdder();
+    private final LongAdder sampledBytes = new LongAdder();
+    private final ThreadLocal<long[]> sampleStart = ThreadLocal.withInitial(() -> new long[1]);
+    
+    // Abstraction function:
+    //   Represents the metrics of the calls to operation recorded since the
+    //   last reset: count of them, errors of which threw, whose latencies are
+    //   in latencies and sum to totalNanos, whose results have sizes summing
+    //   to resultSize, and of which sampledCalls allocated sampledBytes;
+    //   sampleStart holds, for the sampled call in progress on each thread, the
+    //   bytes the thread had allocated when it started
+    // Representation invariant:
+    //   operation is not empty; every adder is nonnegative
+    //   errors <= count and sampledCalls <= count, except briefly during a reset
+    // Safety from rep exposure:
+    //   Fields are private and never returned; operation is immutable.
+    // Thread safety argument:
+    //   Every field is final and either immutable or safe for concurrent use,
+    //   and each is updated independently, so concurrent calls are all counted;
+    //   observers may see a call in some counters and not yet in others.
+    //   sampleStart is per thread; a sampled call nested in another call of the
+    //   same operation on the same thread only makes the outer one's allocation
+    //   estimate smaller.
+    
+    /**
+     * Make metrics for an operation, with nothing recorded.
+     * 
+     * @param operation name of the operation, not empty
+     * @throws IllegalArgumentException if operation is empty
+     */
+    public OperationMetrics(String operation) {
+        if (operation.isEmpty()) {
+            throw new IllegalArgumentException("operation name must not be empty");
+        }
+        this.operation = operation;
+    }
+    
+    /**
+     * @return the allocation counter of the JVM, or null if it has none or it is disabled
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean) threads;
+                if (counter.isThreadAllocatedMemorySupported() && counter.isThreadAllocatedMemoryEnabled()) {
+                    return counter;
+                }
+            }
+        } catch (LinkageError | SecurityException e) {
+            // the jdk.management module is missing or inaccessible; allocation is not measured
+        }
+        return null;
+    }
+    
+    /**
+     * Run the operation once and record it.
+     * 
+     * @param <T> type of the result
+     * @param call performs the operation
+     * @param size gives the size of its result
+     * @return the result of call
+     * @throws RuntimeException if call throws one, after recording it as an error
+     */
+    public <T> T record(Supplier<T> call, ToIntFunction<? super T> size) {
+        long started = start();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            failed(started);
+            throw e;
+        }
+        finish(started, size.applyAsInt(result));
+        return result;
+    }
+    
+    /**
+     * Run the operation once and record it, without boxing its result.
+     * 
+     * @param call performs the operation
+     * @param size gives the size of its result
+     * @return the result of call
+     * @throws RuntimeException if call throws one, after recording it as an error
+     */
+    public int recordInt(IntSupplier call, IntUnaryOperator size) {
+        long started = start();
+        int result;
+        try {
+            result = call.getAsInt();
+        } catch (RuntimeException | Error e) {
+            failed(started);
+            throw e;
+        }
+        finish(started, size.applyAsInt(result));
+        return result;
+    }
+    
+    /**
+     * Start recording a call of the operation, for callers on a hot path:
+     * unlike record(), which takes the call as a lambda that usually captures
+     * its arguments and so is allocated on every call, start() and finish()
+     * allocate nothing. Each start() must be followed on the same thread by
+     * one finish() or failed() given its result.
+     * 
+     * @return identifies the call to finish() or failed()
+     */
+    public long start() {
+        boolean sampled = isSampled();
+        if (sampled) {
+            sampleStart.get()[0] = ALLOCATION.getCurrentThreadAllocatedBytes();
+        }
+        // the lowest bit says whether the call is sampled; the rest is its start time
+        return System.nanoTime() & ~1L | (sampled ? 1 : 0);
+    }
+    
+    /**
+     * Record a call that has returned.
+     * 
+     * @param started what start() returned when the call started
+     * @param size size of its result, nonnegative
+     */
+    public void finish(long started, int size) {
+        record(started, size);
+    }
+    
+    /**
+     * Record a call that has thrown, as an error.
+     * 
+     * @param started what start() returned when the call started
+     */
+    public void failed(long started) {
+        record(started, -1);
+    }
+    
+    private static boolean isSampled() {
+        return ALLOCATION != null && ThreadLocalRandom.current().nextInt(ALLOCATION_SAMPLE_INTERVAL) == 0;
+    }
+    
+    /**
+     * Record a call that has just finished.
+     * 
+     * @param started what start() returned when it started
+     * @param size size of its result, or -1 if it threw
+     */
+    private void record(long started, int size) {
+        long nanos = System.nanoTime() - (started & ~1L);
+        if ((started & 1) != 0) {
+            sampledBytes.add(Math.max(0, ALLOCATION.getCurrentThreadAllocatedBytes() - sampleStart.get()[0]));
+            sampledCalls.increment();
+        }
+        latencies.record(nanos);
+        totalNanos.add(Math.max(0, nanos));
+        if (size < 0) {
+            errors.increment();
+        } else {
+            resultSize.add(size);
+        }
+        count.increment();
+    }
+    
+    @Override
+    public String getOperation() {
+        return operation;
+    }
+    
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+    
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+    
+    @Override
+    public double getMeanLatencyNanos() {
+        long calls = count.sum();
+        return calls == 0 ? 0 : (double) totalNanos.sum() / calls;
+    }
+    
+    @Override
+    public long getP50LatencyNanos() {
+        return latencies.valueAtPercentile(50);
+    }
+    
+    @Override
+    public long getP90LatencyNanos() {
+        return latencies.valueAtPercentile(90);
+    }
+    
+    @Override
+    public long getP99LatencyNanos() {
+        return latencies.valueAtPercentile(99);
+    }
+    
+    @Override
+    public long getP999LatencyNanos() {
+        return latencies.valueAtPercentile(99.9);
+    }
+    
+    @Override
+    public long getMaxLatencyNanos() {
+        return latencies.max();
+    }
+    
+    @Override
+    public long getTotalResultSize() {
+        return resultSize.sum();
+    }
+    
+    @Override
+    public double getMeanResultSize() {
+        long returned = count.sum() - errors.sum();
+        return returned <= 0 ? 0 : (double) resultSize.sum() / returned;
+    }
+    
+    @Override
+    public double getAllocatedBytesPerCall() {
+        long calls = sampledCalls.sum();
+        return calls == 0 ? 0 : (double) sampledBytes.sum() / calls;
+    }
+    
+    @Override
+    public long getEstimatedAllocatedBytes() {
+        return Math.round(getAllocatedBytesPerCall() * count.sum());
+    }
+    
+    @Override
+    public void reset() {
+        count.reset();
+        errors.reset();
+        totalNanos.reset();
+        resultSize.reset();
+        sampledCalls.reset();
+        sampledBytes.reset();
+        latencies.reset();
+    }
+    
+    @Override
+    public String toString() {
+        return operation + ": " + getCount() + " calls, " + latencies;
+    }
+    
+}
@@ -0,0 +1,85 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.metrics;
+
+/**
+ * Management interface of the metrics of one operation, as seen over JMX.
+ * Latencies are in nanoseconds; percentiles are within
+ * 1/{@link LatencyHistogram#SUB_BUCKETS} of the true values.
+ */
+public interface OperationMetricsMXBean {
+    
+    /**
+     * @return name of the operation
+     */
+    public String getOperation();
+    
+    /**
+     * @return number of calls completed, normally or by throwing
+     */
+    public long getCount();
+    
+    /**
+     * @return number of calls that threw an exception
+     */
+    public long getErrorCount();
+    
+    /**
+     * @return mean latency of the calls, or 0 if there were none
+     */
+    public double getMeanLatencyNanos();
+    
+    /**
+     * @return median latency of the calls
+     */
+    public long getP50LatencyNanos();
+    
+    /**
+     * @return 90th percentile latency of the calls
+     */
+    public long getP90LatencyNanos();
+    
+    /**
+     * @return 99th percentile latency of the calls
+     */
+    public long getP99LatencyNanos();
+    
+    /**
+     * @return 99.9th percentile latency of the calls
+     */
+    public long getP999LatencyNanos();
+    
+    /**
+     * @return largest latency of a call
+     */
+    public long getMaxLatencyNanos();
+    
+    /**
+     * @return sum of the result sizes of the calls that returned
+     */
+    public long getTotalResultSize();
+    
+    /**
+     * @return mean result size of the calls that returned, or 0 if none did
+     */
+    public double getMeanResultSize();
+    
+    /**
+     * @return mean bytes allocated by the calls whose allocation was sampled,
+     *         or 0 if none was
+     */
+    public double getAllocatedBytesPerCall();
+    
+    /**
+     * @return estimate of the bytes allocated by all calls: the sampled mean
+     *         times the number of calls
+     */
+    public long getEstimatedAllocatedBytes();
+    
+    /**
+     * Forget everything recorded so far.
+     */
+    public void reset();
+    
+}
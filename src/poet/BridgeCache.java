@@ -0,0 +1,280 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * A bounded cache of bridge words, keyed by the ids of the two words they
+ * bridge. Holds two kinds of entries: recently used ones, evicted least
+ * recently used first once there are more than capacity of them, and
+ * precomputed ones, which are never evicted.
+ * 
+ * <p>Recently used entries are split by key into up to MAX_SEGMENTS segments,
+ * each with its own lock and its own share of the capacity, so threads that
+ * look up different pairs rarely wait for each other. Eviction is least
+ * recently used within a segment, which approximates it over the whole cache.
+ * A cache with capacity below 2 * MIN_SEGMENT_CAPACITY has a single segment
+ * and is exactly least recently used. Precomputed entries are read without
+ * locking.
+ * 
+ * <p>Every entry is computed from some version of the graph. invalidate()
+ * starts a new version, and put() ignores an entry computed from an older
+ * version, so a lookup that races with a graph change never caches a stale
+ * bridge. When only some edges change, invalidate(sources, targets) drops just
+ * the entries those edges can affect.
+ * 
+ * <p>Safe for concurrent use.
+ */
+final class BridgeCache {
+    
+    /** Cached value meaning that the two words have no bridge. */
+    static final int NONE = -1;
+    
+    /** Result of get() meaning that the pair is not cached. */
+    static final int MISS = -2;
+    
+    /** Largest number of segments of recently used entries. */
+    static final int MAX_SEGMENTS = 64;
+    
+    /** Smallest share of the capacity given to a segment, unless the capacity is smaller. */
+    static final int MIN_SEGMENT_CAPACITY = 256;
+    
+    private static final int SEGMENT_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(MAX_SEGMENTS);
+    
+    private final int capacity;
+    private final Segment[] segments;
+    private final Map<Long, Integer> precomputed = new ConcurrentHashMap<>();
+    private volatile long version;
+    
+    // Abstraction function:
+    //   Represents the cache in which the bridge of words (first, second) is
+    //   precomputed.get(pack(first, second)), else the value of
+    //   pack(first, second) in segments[segmentOf(pack(first, second))],
+    //   either a word id or NONE, computed from graph version version
+    // Representation invariant:
+    //   capacity > 0; version >= 0
+    //   segments.length is a power of two <= MAX_SEGMENTS, and the capacities
+    //     of the segments are positive and sum to capacity
+    //   each segment holds at most its capacity of entries, all of whose keys
+    //     belong to that segment
+    //   every value is a word id >= 0 or NONE
+    // Safety from rep exposure:
+    //   Fields are private and never returned.
+    // Thread safety argument:
+    //   capacity and segments are final and segments is never modified after
+    //   construction. Each segment's map is only accessed holding the
+    //   segment's lock, and precomputed is only modified holding its own lock,
+    //   though get() reads it without locking since it is a ConcurrentHashMap.
+    //   version is volatile and only incremented under the lock of precomputed,
+    //   before an invalidation takes any other lock; put() and pin() check
+    //   version holding the lock they insert under, so an insert either
+    //   precedes the invalidation of its map, which then drops it, or follows
+    //   the new version, and is ignored.
+    
+    /**
+     * Make an empty cache.
+     * 
+     * @param capacity maximum number of recently used entries, positive
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    BridgeCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity " + capacity + " <= 0");
+        }
+        this.capacity = capacity;
+        int count = 1;
+        while (count < MAX_SEGMENTS && capacity / (count * 2) >= MIN_SEGMENT_CAPACITY) {
+            count *= 2;
+        }
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert capacity > 0 : "Capacity not positive";
+        assert Integer.bitCount(segments.length) == 1 && segments.length <= MAX_SEGMENTS : "Bad segment count";
+        assert version >= 0 : "Negative version";
+    }
+    
+    /**
+     * A least recently used map of some of the recently used entries, guarded
+     * by its own lock.
+     */
+    private static final class Segment {
+        
+        private final int capacity;
+        private final Map<Long, Integer> entries;
+        
+        Segment(int capacity) {
+            this.capacity = capacity;
+            this.entries = new LinkedHashMap<Long, Integer>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+                    return size() > Segment.this.capacity;
+                }
+            };
+        }
+    }
+    
+    /**
+     * @param key packed pair of word ids
+     * @return the segment that holds key
+     */
+    private Segment segmentOf(long key) {
+        // the top bits of the product depend on every bit of key, and not just on
+        // the low bits the segment's own map indexes by, which would crowd its buckets
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return segments[(int) (hash >>> SEGMENT_SHIFT) & (segments.length - 1)];
+    }
+    
+    /**
+     * @param first id of the first word
+     * @param second id of the second word
+     * @return a key unique to the ordered pair (first, second)
+     */
+    static long pack(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * @return maximum number of recently used entries
+     */
+    int capacity() {
+        return capacity;
+    }
+    
+    /**
+     * @return the current graph version; pass it to put() with a bridge
+     *         computed after this call
+     */
+    long version() {
+        return version;
+    }
+    
+    /**
+     * Look up the bridge of two words, marking it recently used.
+     * 
+     * @param first id of the first word
+     * @param second id of the second word
+     * @return id of the bridge word, NONE if the words have no bridge, or MISS
+     *         if the pair is not cached
+     */
+    int get(int first, int second) {
+        long key = pack(first, second);
+        Integer bridge = precomputed.get(key);
+        if (bridge == null) {
+            Segment segment = segmentOf(key);
+            synchronized (segment) {
+                bridge = segment.entries.get(key);
+            }
+        }
+        return bridge == null ? MISS : bridge;
+    }
+    
+    /**
+     * Cache the bridge of two words as recently used, unless the graph has
+     * changed since it was computed.
+     * 
+     * @param first id of the first word
+     * @param second id of the second word
+     * @param bridge id of the bridge word, or NONE
+     * @param version value of version() before the bridge was computed
+     */
+    void put(int first, int second, int bridge, long version) {
+        long key = pack(first, second);
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            if (version == this.version) {
+                segment.entries.put(key, bridge);
+            }
+        }
+    }
+    
+    /**
+     * Cache the bridge of two words permanently, until the next invalidate(),
+     * unless the graph has changed since it was computed.
+     * 
+     * @param first id of the first word
+     * @param second id of the second word
+     * @param bridge id of the bridge word, or NONE
+     * @param version value of version() before the bridge was computed
+     */
+    void pin(int first, int second, int bridge, long version) {
+        long key = pack(first, second);
+        synchronized (precomputed) {
+            if (version != this.version) {
+                return;
+            }
+            precomputed.put(key, bridge);
+        }
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.entries.remove(key);
+        }
+    }
+    
+    /**
+     * Drop every entry and start a new graph version.
+     */
+    void invalidate() {
+        synchronized (precomputed) {
+            version++;
+            precomputed.clear();
+        }
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+            }
+        }
+        checkRep();
+    }
+    
+    /**
+     * Drop the entries that depend on a set of changed edges, and start a new
+     * graph version. The bridge of (w1, w2) depends only on the edges out of
+     * w1 and the edges into w2, so it is dropped iff w1 is the source of a
+     * changed edge or w2 is the target of one.
+     * 
+     * @param sources ids of the sources of the changed edges
+     * @param targets ids of the targets of the changed edges
+     */
+    void invalidate(BitSet sources, BitSet targets) {
+        Predicate<Long> affected = key -> sources.get((int) (key >>> 32)) || targets.get(key.intValue());
+        synchronized (precomputed) {
+            version++;
+            precomputed.keySet().removeIf(affected);
+        }
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.keySet().removeIf(affected);
+            }
+        }
+        checkRep();
+    }
+    
+    /**
+     * @return number of cached entries, recently used and precomputed; while
+     *         other threads change the cache, a count it had at some point
+     *         for each segment
+     */
+    int size() {
+        int size = precomputed.size();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+    
+}
@@ -0,0 +1,248 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+import graph.MappedGraph;
+
+/**
+ * An on-disk cache of poets, so that a poet for a corpus that was seen before
+ * is loaded from its saved affinity graph instead of being built again.
+ * 
+ * <p>Entries are content addressed: an entry is named by the SHA-256 digest of
+ * the tokenizer version and the bytes of the corpus, so a corpus that changes,
+ * moves or is copied maps to the right entry, and entries built by another
+ * version of the tokenizer are never used. An entry is checked against the
+ * checksum of its file before it is loaded; one that fails the check or
+ * cannot be loaded, for example one that is truncated, corrupt or was
+ * written in an older file format, is stale: it is deleted and rebuilt.
+ * 
+ * <p>A poet loaded from the cache knows the last word of its corpus, so text
+ * appended to it is counted exactly as if it had been part of the corpus.
+ * 
+ * <p>The entries of the directory are kept below a size limit by evicting the
+ * least recently used ones, going by the last-modified time of each entry,
+ * which a cache hit updates. The entry in use is never evicted, even if it
+ * alone exceeds the limit.
+ * 
+ * <p>Safe for concurrent use, also by several processes sharing the directory:
+ * entries are written to a temporary file and atomically renamed, and
+ * eviction skips entries that have already been deleted.
+ */
+public class CorpusCache {
+    
+    /**
+     * Version of the definition of words and of how they are counted. Bump it
+     * whenever a change to GraphPoet would build a different graph from the
+     * same corpus, so that entries built before the change are not used.
+     */
+    public static final int TOKENIZER_VERSION = 1;
+    
+    private static final String SUFFIX = ".poet";
+    
+    private final Path directory;
+    private final long maxBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    // Abstraction function:
+    //   Represents the cache whose entries are the files named key(corpus) + SUFFIX
+    //   in directory, each the saved poet of corpus, and that evicts entries once
+    //   their total size exceeds maxBytes; hits and misses count the lookups so far
+    // Representation invariant:
+    //   directory exists; maxBytes >= 0; hits, misses >= 0
+    // Safety from rep exposure:
+    //   Fields are private final and never returned; poet() returns poets that
+    //   share nothing with the cache except the read-only entry file.
+    
+    /**
+     * Make a cache in a directory, creating it if needed.
+     * 
+     * @param directory directory of the entries; other files in it are ignored
+     * @param maxBytes limit on the total size of the entries in bytes, nonnegative
+     * @throws IOException if the directory cannot be created
+     * @throws IllegalArgumentException if maxBytes is negative
+     */
+    public CorpusCache(Path directory, long maxBytes) throws IOException {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("size limit " + maxBytes + " < 0");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxBytes = maxBytes;
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert maxBytes >= 0 : "Negative size limit";
+        assert hits.get() >= 0 && misses.get() >= 0 : "Negative counts";
+    }
+    
+    /**
+     * Get a poet for a corpus: load it from the cache, or build it with
+     * {@link GraphPoet#GraphPoet(File)} and add it to the cache.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @return a poet that writes the same poems as new GraphPoet(corpus)
+     * @throws IOException if the corpus cannot be read or the cache cannot be written
+     */
+    public GraphPoet poet(File corpus) throws IOException {
+        return poet(corpus, null);
+    }
+    
+    /**
+     * Get a poet for a corpus: load it from the cache, or build it in parallel
+     * with {@link GraphPoet#GraphPoet(File, ForkJoinPool)} and add it to the cache.
+     * 
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param pool pool to build the poet on, or null to build it sequentially
+     * @return a poet that writes the same poems as new GraphPoet(corpus)
+     * @throws IOException if the corpus cannot be read or the cache cannot be written
+     */
+    public GraphPoet poet(File corpus, ForkJoinPool pool) throws IOException {
+        Path entry = directory.resolve(key(corpus) + SUFFIX);
+        if (Files.exists(entry)) {
+            String lastWord = lastWord(corpus);
+            try {
+                Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+                MappedGraph.verify(entry);
+                GraphPoet poet = GraphPoet.load(entry.toFile(), lastWord);
+                hits.incrementAndGet();
+                return poet;
+            } catch (IOException stale) {
+                // truncated, corrupt, older format, or evicted meanwhile: rebuild
+                Files.deleteIfExists(entry);
+            }
+        }
+        misses.incrementAndGet();
+        GraphPoet poet = pool == null ? new GraphPoet(corpus) : new GraphPoet(corpus, pool);
+        Path temporary = Files.createTempFile(directory, "building-", ".tmp");
+        try {
+            poet.save(temporary.toFile());
+            Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        evict(entry);
+        return poet;
+    }
+    
+    /**
+     * @param corpus corpus file
+     * @return last word of corpus, lower case, or null if it has no words
+     * @throws IOException if the corpus cannot be read
+     */
+    private static String lastWord(File corpus) throws IOException {
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            return CorpusReader.lastWord(channel);
+        }
+    }
+    
+    /**
+     * Compute the cache key of a corpus.
+     * @param corpus corpus file
+     * @return lower case hex SHA-256 of the tokenizer version and the bytes of corpus
+     * @throws IOException if the corpus cannot be read
+     */
+    static String key(File corpus) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("every Java platform supports SHA-256", e);
+        }
+        digest.update(("GraphPoet tokenizer " + TOKENIZER_VERSION + "\n").getBytes(StandardCharsets.UTF_8));
+        ByteBuffer buffer = ByteBuffer.allocate(GraphPoet.DEFAULT_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+    
+    /**
+     * Delete least recently used entries until the entries fit in maxBytes.
+     * @param inUse entry that must not be deleted
+     * @throws IOException if the directory cannot be listed
+     */
+    private void evict(Path inUse) throws IOException {
+        List<Path> entries = new ArrayList<>();
+        Map<Path, FileTime> used = new HashMap<>();
+        Map<Path, Long> sizes = new HashMap<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path entry : stream) {
+                try {
+                    used.put(entry, Files.getLastModifiedTime(entry));
+                    sizes.put(entry, Files.size(entry));
+                } catch (NoSuchFileException deleted) {
+                    continue;
+                }
+                entries.add(entry);
+                total += sizes.get(entry);
+            }
+        }
+        entries.sort(Comparator.comparing((Path entry) -> used.get(entry)).thenComparing(Comparator.naturalOrder()));
+        for (Path entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            if (entry.equals(inUse)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException inUseElsewhere) {
+                // for example mapped by a poet on a platform that forbids deleting it; try later
+                continue;
+            }
+            total -= sizes.get(entry);
+        }
+    }
+    
+    /**
+     * @return number of poet() calls so far that loaded the poet from the cache
+     */
+    public long hits() {
+        return hits.get();
+    }
+    
+    /**
+     * @return number of poet() calls so far that built the poet
+     */
+    public long misses() {
+        return misses.get();
+    }
+    
+    @Override
+    public String toString() {
+        return "CorpusCache in " + directory + " with limit " + maxBytes + " bytes, "
+                + hits + " hits and " + misses + " misses";
+    }
+    
+}
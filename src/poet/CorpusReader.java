@@ -0,0 +1,177 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Reads the words of a UTF-8 corpus, or of a range of its bytes, through a
+ * fixed-size buffer. Words are as defined by GraphPoet: maximal non-empty runs
+ * of non-whitespace characters, lower cased.
+ * 
+ * <p>Every delimiter is a single ASCII byte, and ASCII bytes never occur inside
+ * a multi-byte UTF-8 sequence, so a range that starts and ends at a delimiter
+ * (or at the ends of the file) can be decoded independently of the rest.
+ */
+final class CorpusReader {
+    
+    private CorpusReader() {
+        throw new AssertionError("not instantiable");
+    }
+    
+    /**
+     * @param c a character of the corpus
+     * @return true iff c separates words, i.e. c matches the regex \\s
+     */
+    static boolean isDelimiter(int c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+    
+    /**
+     * Read the words of bytes [start, end) of a corpus, in order.
+     * Malformed input is read as replacement characters.
+     * 
+     * @param channel corpus file; only positional reads are used, so other
+     *                threads may read the same channel concurrently
+     * @param start first byte to read, at a word boundary: 0 or next to a delimiter
+     * @param end byte after the last one to read, at a word boundary: the size
+     *            of the file or next to a delimiter
+     * @param bufferSize size of the read buffer in bytes, at least 4
+     * @param sink receives each word, lower case
+     * @throws IOException if the corpus cannot be read
+     */
+    static void readWords(FileChannel channel, long start, long end, int bufferSize,
+            Consumer<String> sink) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(bufferSize);
+        // UTF-8 decodes to at most one char per byte, so chars never overflows
+        CharBuffer chars = CharBuffer.allocate(bufferSize);
+        StringBuilder word = new StringBuilder();
+        long position = start;
+        boolean eof = false;
+        while (!eof) {
+            bytes.limit((int) Math.min(bytes.capacity(), bytes.position() + (end - position)));
+            int read = channel.read(bytes, position);
+            if (read > 0) {
+                position += read;
+            }
+            eof = read < 0 || position >= end;
+            bytes.flip();
+            // an incomplete sequence at the end of bytes stays there for the next read
+            decoder.decode(bytes, chars, eof);
+            if (eof) {
+                decoder.flush(chars);
+            }
+            bytes.compact();
+            chars.flip();
+            while (chars.hasRemaining()) {
+                char c = chars.get();
+                if (isDelimiter(c)) {
+                    endWord(word, sink);
+                } else {
+                    word.append(c);
+                }
+            }
+            chars.clear();
+        }
+        endWord(word, sink);
+    }
+    
+    /**
+     * Read the words of a text, in order.
+     * 
+     * @param text text to read
+     * @param sink receives each word, lower case
+     */
+    static void readWords(CharSequence text, Consumer<String> sink) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isDelimiter(c)) {
+                endWord(word, sink);
+            } else {
+                word.append(c);
+            }
+        }
+        endWord(word, sink);
+    }
+    
+    /**
+     * Find the last word of a corpus by reading it backwards from its end.
+     * 
+     * @param channel corpus file
+     * @return last word of the corpus, lower case, or null if it has no words
+     * @throws IOException if the corpus cannot be read
+     */
+    static String lastWord(FileChannel channel) throws IOException {
+        ByteBuffer one = ByteBuffer.allocate(1);
+        long end = channel.size();
+        while (end > 0 && isDelimiter(byteAt(channel, end - 1, one))) {
+            end--;
+        }
+        long start = end;
+        while (start > 0 && !isDelimiter(byteAt(channel, start - 1, one))) {
+            start--;
+        }
+        String[] last = { null };
+        readWords(channel, start, end, 256, word -> last[0] = word);
+        return last[0];
+    }
+    
+    private static byte byteAt(FileChannel channel, long position, ByteBuffer one) throws IOException {
+        one.clear();
+        if (channel.read(one, position) != 1) {
+            throw new IOException("corpus changed while reading it");
+        }
+        return one.get(0);
+    }
+    
+    /**
+     * Pass the word accumulated so far, if any, to sink and clear it.
+     */
+    private static void endWord(StringBuilder word, Consumer<String> sink) {
+        if (word.length() > 0) {
+            sink.accept(word.toString().toLowerCase(Locale.ROOT));
+            word.setLength(0);
+        }
+    }
+    
+    /**
+     * Find the first delimiter at or after a position of a corpus.
+     * 
+     * @param channel corpus file
+     * @param position a byte position, at most size
+     * @param size size of the file
+     * @return position of the first delimiter at or after position, or size if none
+     * @throws IOException if the corpus cannot be read
+     */
+    static long nextDelimiter(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(256);
+        while (position < size) {
+            bytes.clear();
+            int read = channel.read(bytes, position);
+            if (read < 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                if (isDelimiter(bytes.get(i))) {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+    
+}
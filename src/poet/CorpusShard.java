@@ -0,0 +1,297 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import graph.LabelDictionary;
+
+/**
+ * The bigram counts of one shard of a corpus: a range of its bytes that starts
+ * and ends at a delimiter. Counted with words numbered locally, in order of
+ * first occurrence in the shard, so shards can be counted independently and
+ * merged in corpus order.
+ * 
+ * <p>Not safe for concurrent use; each shard is counted, and then translated
+ * to global word ids, by a single worker at a time.
+ */
+final class CorpusShard {
+    
+    private final LabelDictionary<String> words = new LabelDictionary<>();
+    private final LongIntMap counts = new LongIntMap();
+    private int first = -1;
+    private int last = -1;
+    
+    // Abstraction function:
+    //   Represents the shard whose words in order of first occurrence are
+    //   words.labelOf(0), words.labelOf(1), ..., whose first and last words are
+    //   first and last (-1 if the shard has no words), and in which word b
+    //   follows word a counts.get(pack(a, b)) times
+    // Representation invariant:
+    //   first == -1 iff last == -1 iff words.size() == 0
+    //   every key of counts packs two ids < words.size()
+    // Safety from rep exposure:
+    //   Fields are private and never returned; partition() only reads them.
+    
+    /**
+     * Count the bigrams of bytes [start, end) of a corpus.
+     * 
+     * @param channel corpus file
+     * @param start 0 or the position of a delimiter
+     * @param end size of the file or the position of a delimiter
+     * @param bufferSize size of the read buffer in bytes
+     * @throws IOException if the corpus cannot be read
+     * @throws ArithmeticException if a count overflows an int
+     */
+    CorpusShard(FileChannel channel, long start, long end, int bufferSize) throws IOException {
+        CorpusReader.readWords(channel, start, end, bufferSize, this::add);
+    }
+    
+    /**
+     * Count the bigrams of a corpus split into shards, in parallel, and intern
+     * its words into a dictionary in order of first occurrence.
+     * 
+     * <p>Counting takes four parallel phases and one serial one:
+     * <ol><li> each shard is counted by its own task, with local word ids;
+     *     <li> the words of the shards are interned into dictionary in corpus
+     *          order, which maps each shard's local ids to global ones; this
+     *          is the serial phase, and takes time proportional to the sum of
+     *          the shards' vocabularies, not to their bigrams;
+     *     <li> each shard translates its bigrams to global ids and splits them
+     *          into partitions by source id;
+     *     <li> each partition merges its part of every shard, and of the
+     *          bigrams that span two shards, into one primitive map;
+     *     <li> each partition copies its map into its range of the result. </ol>
+     * 
+     * @param pool pool to count on
+     * @param channel corpus file
+     * @param bounds shard boundaries: 0, then increasing positions of
+     *               delimiters, then the size of the file
+     * @param bufferSize size of the read buffer of each task in bytes
+     * @param dictionary empty dictionary to intern the words of the corpus into
+     * @return the bigram counts of the whole corpus, with ids from dictionary
+     * @throws IOException if the corpus cannot be read
+     * @throws ArithmeticException if a count overflows an int
+     */
+    static Bigrams count(ForkJoinPool pool, FileChannel channel, long[] bounds, int bufferSize,
+            LabelDictionary<String> dictionary) throws IOException {
+        int shardCount = bounds.length - 1;
+        CorpusShard[] shards = new CorpusShard[shardCount];
+        try {
+            pool.invoke(new EachTask(0, shardCount, s -> {
+                try {
+                    shards[s] = new CorpusShard(channel, bounds[s], bounds[s + 1], bufferSize);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        int[][] ids = new int[shardCount][];
+        LongIntMap spans = new LongIntMap();
+        int first = -1;
+        int last = -1;
+        for (int s = 0; s < shardCount; s++) {
+            CorpusShard shard = shards[s];
+            ids[s] = new int[shard.words.size()];
+            for (int local = 0; local < ids[s].length; local++) {
+                ids[s][local] = dictionary.intern(shard.words.labelOf(local));
+            }
+            if (shard.isEmpty()) {
+                continue;
+            }
+            if (last < 0) {
+                first = ids[s][shard.first];
+            } else {
+                spans.add(pack(last, ids[s][shard.first]), 1);
+            }
+            last = ids[s][shard.last];
+        }
+        
+        int partitionCount = Math.max(1, pool.getParallelism() * 4);
+        Partitions[] parts = new Partitions[shardCount];
+        pool.invoke(new EachTask(0, shardCount, s -> {
+            parts[s] = shards[s].partition(ids[s], partitionCount);
+            shards[s] = null;
+        }));
+        
+        LongIntMap[] merged = new LongIntMap[partitionCount];
+        pool.invoke(new EachTask(0, partitionCount, p -> {
+            int expected = 0;
+            for (Partitions part : parts) {
+                expected = Math.max(expected, part.keys[p].length);
+            }
+            LongIntMap partition = new LongIntMap(expected);
+            for (Partitions part : parts) {
+                long[] keys = part.keys[p];
+                int[] counts = part.counts[p];
+                for (int i = 0; i < keys.length; i++) {
+                    partition.add(keys[i], counts[i]);
+                }
+            }
+            spans.forEach((key, count) -> {
+                if (sourceOf(key) % partitionCount == p) {
+                    partition.add(key, count);
+                }
+            });
+            merged[p] = partition;
+        }));
+        
+        int[] offsets = new int[partitionCount + 1];
+        for (int p = 0; p < partitionCount; p++) {
+            offsets[p + 1] = Math.addExact(offsets[p], merged[p].size());
+        }
+        Bigrams result = new Bigrams(offsets[partitionCount], first, last);
+        pool.invoke(new EachTask(0, partitionCount, p -> {
+            int[] next = { offsets[p] };
+            merged[p].forEach((key, count) -> {
+                result.sources[next[0]] = sourceOf(key);
+                result.targets[next[0]] = targetOf(key);
+                result.counts[next[0]] = count;
+                next[0]++;
+            });
+            merged[p] = null;
+        }));
+        return result;
+    }
+    
+    /**
+     * Runs a body once for each index in a range, split in halves down to
+     * single indexes and run in parallel.
+     */
+    private static final class EachTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final int from;
+        private final int to;
+        private final transient IntConsumer body;
+        
+        EachTask(int from, int to, IntConsumer body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (from < to) {
+                    body.accept(from);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new EachTask(from, middle, body), new EachTask(middle, to, body));
+        }
+    }
+    
+    /**
+     * Append the next word of the shard.
+     */
+    private void add(String word) {
+        int id = words.intern(word);
+        if (last < 0) {
+            first = id;
+        } else {
+            counts.add(pack(last, id), 1);
+        }
+        last = id;
+    }
+    
+    /**
+     * Translate the bigrams of this shard to global word ids and split them
+     * by source id.
+     * 
+     * @param ids global id of each local word id of this shard
+     * @param partitionCount number of partitions, positive
+     * @return the bigrams of this shard with global ids, in partitionCount
+     *         partitions: partition p holds those whose source id is p modulo
+     *         partitionCount
+     */
+    private Partitions partition(int[] ids, int partitionCount) {
+        int[] sizes = new int[partitionCount];
+        counts.forEach((key, count) -> sizes[ids[sourceOf(key)] % partitionCount]++);
+        Partitions result = new Partitions(sizes);
+        int[] next = new int[partitionCount];
+        counts.forEach((key, count) -> {
+            int source = ids[sourceOf(key)];
+            int p = source % partitionCount;
+            result.keys[p][next[p]] = pack(source, ids[targetOf(key)]);
+            result.counts[p][next[p]] = count;
+            next[p]++;
+        });
+        return result;
+    }
+    
+    /**
+     * The bigrams of one shard, with global word ids, split into partitions:
+     * keys[p][i] is a packed bigram and counts[p][i] its count.
+     */
+    private static final class Partitions {
+        
+        final long[][] keys;
+        final int[][] counts;
+        
+        Partitions(int[] sizes) {
+            keys = new long[sizes.length][];
+            counts = new int[sizes.length][];
+            for (int p = 0; p < sizes.length; p++) {
+                keys[p] = new long[sizes[p]];
+                counts[p] = new int[sizes[p]];
+            }
+        }
+    }
+    
+    private static long pack(int source, int target) {
+        return ((long) source << 32) | (target & 0xFFFFFFFFL);
+    }
+    
+    private static int sourceOf(long key) {
+        return (int) (key >>> 32);
+    }
+    
+    private static int targetOf(long key) {
+        return (int) key;
+    }
+    
+    /**
+     * @return true iff the shard contains no words
+     */
+    boolean isEmpty() {
+        return first < 0;
+    }
+    
+    /**
+     * The bigram counts of a corpus, with word ids from a dictionary.
+     * Bigram i is sources[i] followed by targets[i], counts[i] times; the
+     * bigrams are distinct and in no particular order.
+     */
+    static final class Bigrams {
+        
+        final int[] sources;
+        final int[] targets;
+        final int[] counts;
+        /** Id of the first word of the corpus, or -1 if it has no words. */
+        final int first;
+        /** Id of the last word of the corpus, or -1 if it has no words. */
+        final int last;
+        
+        private Bigrams(int size, int first, int last) {
+            this.sources = new int[size];
+            this.targets = new int[size];
+            this.counts = new int[size];
+            this.first = first;
+            this.last = last;
+        }
+    }
+    
+}
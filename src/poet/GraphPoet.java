@@ -5,8 +5,26 @@ package poet;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntBinaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import graph.ConcreteEdgesGraph;
+import graph.EdgeVisitor;
 import graph.Graph;
+import graph.LabelDictionary;
+import graph.MappedGraph;
+import graph.metrics.MetricsGroup;
+import graph.metrics.OperationMetrics;
 
 /**
  * A graph-based poetry generator.
@@ -52,14 +70,58 @@ import graph.Graph;
  */
 public class GraphPoet {
     
-    private final Graph<String> graph = Graph.empty();
+    /** Buffer size used by {@link #GraphPoet(File)}, in bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    
+    /** Smallest buffer size accepted by {@link #GraphPoet(File, int)}, in bytes. */
+    public static final int MIN_BUFFER_SIZE = 16;
+    
+    /** Shard size used by {@link #GraphPoet(File, ForkJoinPool)}, in bytes. */
+    public static final long DEFAULT_SHARD_SIZE = 8L * 1024 * 1024;
+    
+    /** Number of recently used word pairs whose bridge is cached, unless a constructor is given another. */
+    public static final int DEFAULT_BRIDGE_CACHE_SIZE = 1 << 16;
+    
+    private final LabelDictionary<String> words;
+    private Graph<String> graph;
+    private int[] mappedIds;
+    private int last;
+    private final BridgeCache bridges;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final OperationMetrics poemMetrics = new OperationMetrics("poem");
+    private final OperationMetrics poemsMetrics = new OperationMetrics("poems");
+    private final OperationMetrics appendMetrics = new OperationMetrics("append");
+    private final OperationMetrics findBridgeMetrics = new OperationMetrics("findBridge");
+    private final MetricsGroup metrics = new MetricsGroup(poemMetrics, poemsMetrics, appendMetrics,
+            findBridgeMetrics);
     
     // Abstraction function:
-    //   TODO
+    //   Represents the word affinity graph of a corpus: graph has an edge
+    //   w1 -> w2 with weight n iff w2 follows w1 n times in the corpus, and
+    //   the corpus ends with word last (or, if last == -1, its end is unknown
+    //   or it has no words)
     // Representation invariant:
-    //   TODO
+    //   Every vertex of graph is a non-empty lower case word without whitespace
+    //   words interns exactly the vertices of graph, in order of first occurrence
+    //     in the corpus; graph is either a ConcreteEdgesGraph numbering its
+    //     vertices with words, or a MappedGraph whose ordinals are word ids
+    //   mappedIds is null if graph is a ConcreteEdgesGraph, and otherwise maps
+    //     each word id to the id of that word in the MappedGraph
+    //   -1 <= last < words.size()
+    //   every entry of bridges that was computed from the current version of
+    //     bridges is the bridge of its word pair in graph; bridges is
+    //     invalidated whenever graph changes after construction
     // Safety from rep exposure:
-    //   TODO
+    //   Fields are private and never returned, except metrics, whose contents only
+    //   record calls and can be reset; poem() returns an immutable String.
+    // Thread safety argument:
+    //   words, graph, mappedIds and last are only mutated by the constructor, before this is
+    //   published, and by append(), which holds the write lock. Every other method
+    //   reads them holding the read lock, and graph's observers only read its rep,
+    //   so concurrent readers share them read-only. bridges is safe for concurrent
+    //   use, and only invalidated while holding the write lock, so an entry computed
+    //   under the read lock is never stale when it is put. The metrics are safe for
+    //   concurrent use.
     
     /**
      * Create a new poet with the graph from corpus (as described above).
@@ -68,10 +130,535 @@ public class GraphPoet {
      * @throws IOException if the corpus file cannot be found or read
      */
     public GraphPoet(File corpus) throws IOException {
-        throw new RuntimeException("not implemented");
+        this(corpus, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * Create a new poet with the graph from corpus (as described above),
+     * streaming the corpus through buffers of bufferSize bytes. The corpus is
+     * never held in memory as a whole: memory use is bounded by the size of its
+     * vocabulary and its longest word.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph;
+     *               malformed input is read as replacement characters
+     * @param bufferSize size of the read buffer in bytes, at least MIN_BUFFER_SIZE
+     * @throws IOException if the corpus file cannot be found or read
+     * @throws IllegalArgumentException if bufferSize is less than MIN_BUFFER_SIZE
+     */
+    public GraphPoet(File corpus, int bufferSize) throws IOException {
+        this(corpus, bufferSize, DEFAULT_BRIDGE_CACHE_SIZE);
+    }
+    
+    /**
+     * Create a new poet with the graph from corpus (as described above),
+     * streaming the corpus through buffers of bufferSize bytes, that caches
+     * the bridges of up to bridgeCacheSize recently used word pairs.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph;
+     *               malformed input is read as replacement characters
+     * @param bufferSize size of the read buffer in bytes, at least MIN_BUFFER_SIZE
+     * @param bridgeCacheSize number of recently used word pairs whose bridge is cached, positive
+     * @throws IOException if the corpus file cannot be found or read
+     * @throws IllegalArgumentException if bufferSize is less than MIN_BUFFER_SIZE
+     *         or bridgeCacheSize is not positive
+     */
+    public GraphPoet(File corpus, int bufferSize, int bridgeCacheSize) throws IOException {
+        if (bufferSize < MIN_BUFFER_SIZE) {
+            throw new IllegalArgumentException("buffer size " + bufferSize + " < " + MIN_BUFFER_SIZE);
+        }
+        this.bridges = new BridgeCache(bridgeCacheSize);
+        this.words = new LabelDictionary<>();
+        ConcreteEdgesGraph counts = new ConcreteEdgesGraph(words);
+        this.graph = counts;
+        int[] previous = { -1 };
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            CorpusReader.readWords(channel, 0, channel.size(), bufferSize,
+                    word -> previous[0] = addWord(counts, word, previous[0]));
+        }
+        this.last = previous[0];
+        checkRep();
+    }
+    
+    /**
+     * Create a new poet with the graph from corpus (as described above),
+     * counting shards of DEFAULT_SHARD_SIZE bytes in parallel on pool.
+     * The poet is the same as the one created by {@link #GraphPoet(File)}.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph
+     * @param pool pool to count the shards of corpus on
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, ForkJoinPool pool) throws IOException {
+        this(corpus, pool, DEFAULT_SHARD_SIZE);
+    }
+    
+    /**
+     * Create a new poet with the graph from corpus (as described above),
+     * counting shards of about shardSize bytes in parallel on pool.
+     * The poet is the same as the one created by {@link #GraphPoet(File)}.
+     * 
+     * <p>Shard boundaries are moved forward to the next whitespace, so no word
+     * is split between shards. Each worker counts the bigrams of its shard
+     * into a local map with local word ids. The words are then numbered in
+     * corpus order, which is the only serial step besides building the graph,
+     * and the shards' counts are translated and merged in parallel, split by
+     * source word. The final counts are added to the graph by id, once per
+     * distinct bigram.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph
+     * @param pool pool to count the shards of corpus on
+     * @param shardSize target size of a shard in bytes, positive
+     * @throws IOException if the corpus file cannot be found or read
+     * @throws IllegalArgumentException if shardSize is not positive
+     */
+    public GraphPoet(File corpus, ForkJoinPool pool, long shardSize) throws IOException {
+        this(corpus, pool, shardSize, DEFAULT_BRIDGE_CACHE_SIZE);
     }
     
-    // TODO checkRep
+    /**
+     * Create a new poet with the graph from corpus (as described above),
+     * counting shards of about shardSize bytes in parallel on pool as
+     * {@link #GraphPoet(File, ForkJoinPool, long)} does, that caches the
+     * bridges of up to bridgeCacheSize recently used word pairs.
+     * 
+     * @param corpus UTF-8 text file from which to derive the poet's affinity graph
+     * @param pool pool to count the shards of corpus on
+     * @param shardSize target size of a shard in bytes, positive
+     * @param bridgeCacheSize number of recently used word pairs whose bridge is cached, positive
+     * @throws IOException if the corpus file cannot be found or read
+     * @throws IllegalArgumentException if shardSize or bridgeCacheSize is not positive
+     */
+    public GraphPoet(File corpus, ForkJoinPool pool, long shardSize, int bridgeCacheSize) throws IOException {
+        if (shardSize <= 0) {
+            throw new IllegalArgumentException("shard size " + shardSize + " <= 0");
+        }
+        this.bridges = new BridgeCache(bridgeCacheSize);
+        this.words = new LabelDictionary<>();
+        ConcreteEdgesGraph counts = new ConcreteEdgesGraph(words);
+        this.graph = counts;
+        try (FileChannel channel = FileChannel.open(corpus.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            int bufferSize = (int) Math.max(MIN_BUFFER_SIZE, Math.min(DEFAULT_BUFFER_SIZE, shardSize));
+            List<Long> bounds = new ArrayList<>(Collections.singletonList(0L));
+            while (bounds.get(bounds.size() - 1) < size) {
+                long start = bounds.get(bounds.size() - 1);
+                bounds.add(CorpusReader.nextDelimiter(channel, Math.min(size, start + shardSize), size));
+            }
+            if (bounds.size() == 1) {
+                bounds.add(size);
+            }
+            
+            CorpusShard.Bigrams bigrams = CorpusShard.count(pool, channel,
+                    bounds.stream().mapToLong(Long::longValue).toArray(), bufferSize, words);
+            if (bigrams.first >= 0) {
+                counts.add(words.labelOf(bigrams.first));
+            }
+            counts.setAll(bigrams.sources, bigrams.targets, bigrams.counts);
+            this.last = bigrams.last;
+        }
+        checkRep();
+    }
+    
+    /**
+     * Make a poet from its words and mapped graph.
+     * @param words words of the corpus in order of first occurrence
+     * @param graph affinity graph of the corpus, with exactly the vertices in
+     *              words and word ids as ordinals
+     * @param mappedIds id in graph of each word id
+     * @param last id of the last word of the corpus, or -1 if unknown
+     * @param bridgeCacheSize number of recently used word pairs whose bridge is cached, positive
+     */
+    private GraphPoet(LabelDictionary<String> words, MappedGraph graph, int[] mappedIds, int last,
+            int bridgeCacheSize) {
+        this.bridges = new BridgeCache(bridgeCacheSize);
+        this.words = words;
+        this.graph = graph;
+        this.mappedIds = mappedIds;
+        this.last = last;
+        checkRep();
+    }
+    
+    /**
+     * Load a poet saved by save(). Only the vocabulary is read up front; the
+     * edges of the affinity graph are read from the memory-mapped file as
+     * poems need them, so loading takes time proportional to the number of
+     * distinct words, not to the size of the corpus.
+     * 
+     * <p>The saved file does not record the last word of the corpus, so text
+     * appended to the loaded poet is counted as if it started a new corpus: no
+     * adjacency is counted between the saved corpus and the appended text.
+     * 
+     * @param file file written by save(); must not change while the poet is in use
+     * @return a poet that writes the same poems as the poet that was saved
+     * @throws IOException if the file cannot be read or is not a saved poet
+     */
+    public static GraphPoet load(File file) throws IOException {
+        return load(file, null, DEFAULT_BRIDGE_CACHE_SIZE);
+    }
+    
+    /**
+     * Load a poet saved by save(), as {@link #load(File)} does, that caches
+     * the bridges of up to bridgeCacheSize recently used word pairs.
+     * 
+     * @param file file written by save(); must not change while the poet is in use
+     * @param bridgeCacheSize number of recently used word pairs whose bridge is cached, positive
+     * @return a poet that writes the same poems as the poet that was saved
+     * @throws IOException if the file cannot be read or is not a saved poet
+     * @throws IllegalArgumentException if bridgeCacheSize is not positive
+     */
+    public static GraphPoet load(File file, int bridgeCacheSize) throws IOException {
+        return load(file, null, bridgeCacheSize);
+    }
+    
+    /**
+     * Load a poet saved by save(), given the last word of its corpus.
+     * 
+     * @param file file written by save(); must not change while the poet is in use
+     * @param lastWord last word of the saved corpus, lower case, or null if unknown
+     * @return a poet that writes the same poems as the poet that was saved, and
+     *         whose appended text follows lastWord
+     * @throws IOException if the file cannot be read or is not a saved poet
+     */
+    static GraphPoet load(File file, String lastWord) throws IOException {
+        return load(file, lastWord, DEFAULT_BRIDGE_CACHE_SIZE);
+    }
+    
+    /**
+     * Load a poet saved by save(), given the last word of its corpus and the
+     * size of its bridge cache.
+     * 
+     * @param file file written by save(); must not change while the poet is in use
+     * @param lastWord last word of the saved corpus, lower case, or null if unknown
+     * @param bridgeCacheSize number of recently used word pairs whose bridge is cached, positive
+     * @return a poet that writes the same poems as the poet that was saved, and
+     *         whose appended text follows lastWord
+     * @throws IOException if the file cannot be read or is not a saved poet
+     * @throws IllegalArgumentException if bridgeCacheSize is not positive
+     */
+    private static GraphPoet load(File file, String lastWord, int bridgeCacheSize) throws IOException {
+        MappedGraph graph = MappedGraph.load(file.toPath());
+        String[] byOrdinal = new String[graph.vertexCount()];
+        int[] mappedIds = new int[graph.vertexCount()];
+        for (int id = 0; id < byOrdinal.length; id++) {
+            byOrdinal[graph.ordinalOf(id)] = graph.labelOf(id);
+            mappedIds[graph.ordinalOf(id)] = id;
+        }
+        LabelDictionary<String> words = new LabelDictionary<>();
+        for (String word : byOrdinal) {
+            words.intern(word);
+        }
+        return new GraphPoet(words, graph, mappedIds, lastWord == null ? -1 : words.idOf(lastWord),
+                bridgeCacheSize);
+    }
+    
+    /**
+     * Save the affinity graph of this poet in the binary format of MappedGraph,
+     * with the words of the corpus in order of first occurrence as ordinals.
+     * 
+     * @param file file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void save(File file) throws IOException {
+        lock.readLock().lock();
+        try {
+            List<String> order = new ArrayList<>(words.size());
+            for (int id = 0; id < words.size(); id++) {
+                order.add(words.labelOf(id));
+            }
+            MappedGraph.write(graph, order, file.toPath());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Add text to the end of the corpus, updating the affinity graph in place:
+     * only the weights of the word pairs in text, and of the pair that spans
+     * the end of the old corpus and the start of text, change. Cached bridges
+     * that those pairs cannot affect stay cached.
+     * 
+     * <p>If this poet was loaded with load(), its graph is first copied into
+     * memory, once.
+     * 
+     * @param text text to append; the end of the corpus and the start of text
+     *             are separated as if by whitespace
+     */
+    public void append(String text) {
+        append(sink -> CorpusReader.readWords(text, sink));
+    }
+    
+    /**
+     * Add the text of a file to the end of the corpus, as append(String) does,
+     * streaming it through buffers of DEFAULT_BUFFER_SIZE bytes.
+     * 
+     * @param more UTF-8 text file to append
+     * @throws IOException if the file cannot be found or read; the words read
+     *         before the error remain appended
+     */
+    public void append(File more) throws IOException {
+        try {
+            append(sink -> {
+                try (FileChannel channel = FileChannel.open(more.toPath(), StandardOpenOption.READ)) {
+                    CorpusReader.readWords(channel, 0, channel.size(), DEFAULT_BUFFER_SIZE, sink);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Append the words of some text to the corpus, recording it in the append metrics.
+     * @param text passes the words of the text, in order, to the sink it is given
+     */
+    private void append(Consumer<Consumer<String>> text) {
+        appendMetrics.recordInt(() -> appendWords(text), appended -> appended);
+    }
+    
+    /**
+     * Append the words of some text to the corpus.
+     * @param text passes the words of the text, in order, to the sink it is given
+     * @return number of words appended
+     */
+    private int appendWords(Consumer<Consumer<String>> text) {
+        lock.writeLock().lock();
+        try {
+            ConcreteEdgesGraph counts = mutableGraph();
+            BitSet sources = new BitSet();
+            BitSet targets = new BitSet();
+            int[] appended = { 0 };
+            try {
+                text.accept(word -> {
+                    int previous = last;
+                    last = addWord(counts, word, previous);
+                    appended[0]++;
+                    if (previous >= 0) {
+                        sources.set(previous);
+                        targets.set(last);
+                    }
+                });
+            } finally {
+                bridges.invalidate(sources, targets);
+                checkRep();
+            }
+            return appended[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Make sure graph can be modified, copying it into memory if it cannot.
+     * Requires the write lock.
+     * @return graph
+     */
+    private ConcreteEdgesGraph mutableGraph() {
+        if (mappedIds == null) {
+            return (ConcreteEdgesGraph) graph;
+        }
+        ConcreteEdgesGraph copy = new ConcreteEdgesGraph(words);
+        for (int id = 0; id < words.size(); id++) {
+            copy.add(words.labelOf(id));
+        }
+        for (int id = 0; id < words.size(); id++) {
+            String source = words.labelOf(id);
+            forEachTarget(id, (target, weight) -> copy.set(source, words.labelOf(target), weight));
+        }
+        graph = copy;
+        mappedIds = null;
+        return copy;
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        int vertexCount = mappedIds == null ? ((ConcreteEdgesGraph) graph).statistics().vertexCount()
+                : ((MappedGraph) graph).vertexCount();
+        assert vertexCount == words.size() : "Vertices are not the words";
+        assert -1 <= last && last < words.size() : "Last word is not a word";
+    }
+    
+    /**
+     * Add the next word of the corpus to the graph, counting its adjacency to
+     * the previous word.
+     * @param counts the graph being built
+     * @param word lower case word
+     * @param previous id of the previous word of the corpus, or -1 if none
+     * @return id of word
+     */
+    private int addWord(ConcreteEdgesGraph counts, String word, int previous) {
+        int id = words.intern(word);
+        if (previous < 0) {
+            counts.add(words.labelOf(id));
+        } else {
+            counts.increment(previous, id, 1);
+        }
+        return id;
+    }
+    
+    /**
+     * Find the bridge word between two words, from the cache if possible.
+     * Requires the read lock.
+     * @param first id of the first word
+     * @param second id of the second word
+     * @return id of the bridge word, or -1 if there is none
+     */
+    private int bridge(int first, int second) {
+        int cached = bridges.get(first, second);
+        if (cached != BridgeCache.MISS) {
+            return cached;
+        }
+        long version = bridges.version();
+        long started = findBridgeMetrics.start();
+        int bridge;
+        try {
+            bridge = findBridge(first, second);
+        } catch (RuntimeException | Error e) {
+            findBridgeMetrics.failed(started);
+            throw e;
+        }
+        findBridgeMetrics.finish(started, bridge >= 0 ? 1 : 0);
+        bridges.put(first, second, bridge, version);
+        return bridge;
+    }
+    
+    /**
+     * Find the bridge word between two words: the b maximizing the weight of
+     * w1 -> b -> w2, preferring the word seen first in the corpus on ties.
+     * Requires the read lock.
+     * @param first id of the first word
+     * @param second id of the second word
+     * @return id of the bridge word, or BridgeCache.NONE if there is none
+     */
+    private int findBridge(int first, int second) {
+        // {id, weight} of the best bridge so far
+        int[] best = { BridgeCache.NONE, 0 };
+        EdgeVisitor candidate = (id, weight) -> {
+            if (weight > best[1] || (weight == best[1] && id < best[0])) {
+                best[0] = id;
+                best[1] = weight;
+            }
+        };
+        // walk the smaller side and look up the other edge of each path by id
+        if (outDegree(first) <= inDegree(second)) {
+            forEachTarget(first, (id, weight) -> {
+                int other = weight(id, second);
+                if (other > 0) {
+                    candidate.visit(id, weight + other);
+                }
+            });
+        } else {
+            forEachSource(second, (id, weight) -> {
+                int other = weight(first, id);
+                if (other > 0) {
+                    candidate.visit(id, weight + other);
+                }
+            });
+        }
+        return best[0];
+    }
+    
+    /**
+     * Requires the read lock.
+     * @param word id of a word
+     * @return number of edges out of word
+     */
+    private int outDegree(int word) {
+        return mappedIds == null ? ((ConcreteEdgesGraph) graph).outDegree(word)
+                : ((MappedGraph) graph).outDegree(mappedIds[word]);
+    }
+    
+    /**
+     * Requires the read lock.
+     * @param word id of a word
+     * @return number of edges into word
+     */
+    private int inDegree(int word) {
+        return mappedIds == null ? ((ConcreteEdgesGraph) graph).inDegree(word)
+                : ((MappedGraph) graph).inDegree(mappedIds[word]);
+    }
+    
+    /**
+     * Visit the edges out of a word without copying them. Requires the read lock.
+     * @param word id of a word
+     * @param visitor called with the word id and weight of each edge out of word
+     */
+    private void forEachTarget(int word, EdgeVisitor visitor) {
+        if (mappedIds == null) {
+            ((ConcreteEdgesGraph) graph).forEachTarget(word, visitor);
+        } else {
+            MappedGraph mapped = (MappedGraph) graph;
+            mapped.forEachTarget(mappedIds[word], (id, weight) -> visitor.visit(mapped.ordinalOf(id), weight));
+        }
+    }
+    
+    /**
+     * Visit the edges into a word without copying them. Requires the read lock.
+     * @param word id of a word
+     * @param visitor called with the word id and weight of each edge into word
+     */
+    private void forEachSource(int word, EdgeVisitor visitor) {
+        if (mappedIds == null) {
+            ((ConcreteEdgesGraph) graph).forEachSource(word, visitor);
+        } else {
+            MappedGraph mapped = (MappedGraph) graph;
+            mapped.forEachSource(mappedIds[word], (id, weight) -> visitor.visit(mapped.ordinalOf(id), weight));
+        }
+    }
+    
+    /**
+     * Requires the read lock.
+     * @param source id of a word
+     * @param target id of a word
+     * @return weight of the edge from source to target, or zero if there is none
+     */
+    private int weight(int source, int target) {
+        return mappedIds == null ? ((ConcreteEdgesGraph) graph).weight(source, target)
+                : ((MappedGraph) graph).weight(mappedIds[source], mappedIds[target]);
+    }
+    
+    /**
+     * Precompute the bridges of the word pairs that are most frequent in the
+     * corpus, i.e. the n heaviest edges of the affinity graph, so that poems
+     * containing them never compute their bridge. Precomputed bridges stay
+     * cached, in addition to the recently used ones, until
+     * append() changes an edge they depend on.
+     * 
+     * @param n number of word pairs to precompute, nonnegative
+     * @return number of word pairs precomputed, min(n, number of edges)
+     * @throws IllegalArgumentException if n is negative
+     */
+    public int precomputeBridges(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n " + n + " < 0");
+        }
+        lock.readLock().lock();
+        try {
+            long version = bridges.version();
+            // min-heap of {weight, source, target}: lightest, then latest in the corpus, first
+            PriorityQueue<int[]> heaviest = new PriorityQueue<>(Math.max(1, n), (a, b) ->
+                    a[0] != b[0] ? Integer.compare(a[0], b[0])
+                    : a[1] != b[1] ? Integer.compare(b[1], a[1])
+                    : Integer.compare(b[2], a[2]));
+            for (int source = 0; source < words.size(); source++) {
+                int sourceId = source;
+                forEachTarget(source, (target, weight) -> {
+                    heaviest.add(new int[] { weight, sourceId, target });
+                    if (heaviest.size() > n) {
+                        heaviest.poll();
+                    }
+                });
+            }
+            int precomputed = heaviest.size();
+            for (int[] edge : heaviest) {
+                bridges.pin(edge[1], edge[2], findBridge(edge[1], edge[2]), version);
+            }
+            return precomputed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
     
     /**
      * Generate a poem.
@@ -80,9 +667,105 @@ public class GraphPoet {
      * @return poem (as described above)
      */
     public String poem(String input) {
-        throw new RuntimeException("not implemented");
+        return poemMetrics.record(() -> {
+            lock.readLock().lock();
+            try {
+                return poem(input, this::bridge);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }, String::length);
+    }
+    
+    /**
+     * Generate a poem for each of a batch of inputs, in parallel. Each distinct
+     * pair of adjacent words in the batch has its bridge looked up only once.
+     * 
+     * @param inputs strings from which to create the poems
+     * @return poems (as described above) of inputs, in the same order
+     */
+    public List<String> poems(List<String> inputs) {
+        return poems(inputs.stream());
     }
     
-    // TODO toString()
+    /**
+     * Generate a poem for each of a batch of inputs, in parallel. Each distinct
+     * pair of adjacent words in the batch has its bridge looked up only once.
+     * 
+     * @param inputs finite stream of strings from which to create the poems; consumed
+     * @return poems (as described above) of inputs, in encounter order
+     */
+    public List<String> poems(Stream<String> inputs) {
+        return poemsMetrics.record(() -> {
+            Map<Long, Integer> batch = new ConcurrentHashMap<>();
+            IntBinaryOperator bridgeOf = (first, second) -> batch.computeIfAbsent(
+                    BridgeCache.pack(first, second), key -> bridge(first, second));
+            // workers do not take the lock themselves: a reader that queues behind a
+            // waiting append while this thread holds the lock would deadlock
+            lock.readLock().lock();
+            try {
+                return inputs.parallel()
+                        .map(input -> poem(input, bridgeOf))
+                        .collect(Collectors.toList());
+            } finally {
+                lock.readLock().unlock();
+            }
+        }, List::size);
+    }
+    
+    /**
+     * Get the metrics of this poet, which can be exposed over JMX with
+     * {@code metrics().register(server, "GraphPoet", name)}. They record every
+     * call of poem(), poems() and append(), with the length in characters of
+     * each poem, the number of poems in each batch and the number of words
+     * appended as result sizes, and findBridge, every bridge lookup that missed
+     * the cache, with result size 1 if a bridge was found and 0 otherwise.
+     * Recording a call costs a few clock reads and counter increments, and
+     * findBridge, recorded once per cache miss, allocates nothing to record.
+     * 
+     * @return metrics of this poet, the same object on every call
+     */
+    public MetricsGroup metrics() {
+        return metrics;
+    }
+    
+    /**
+     * Generate a poem. Requires the read lock.
+     * 
+     * @param input string from which to create the poem
+     * @param bridgeOf finds the bridge word between two words: takes their ids,
+     *                 returns the id of the bridge or a negative number if there is none
+     * @return poem (as described above)
+     */
+    private String poem(String input, IntBinaryOperator bridgeOf) {
+        String trimmed = input.trim();
+        if (trimmed.isEmpty()) {
+            return "";
+        }
+        String[] inputWords = trimmed.split("\\s+");
+        StringBuilder poem = new StringBuilder(inputWords[0]);
+        for (int i = 1; i < inputWords.length; i++) {
+            int first = words.idOf(inputWords[i - 1].toLowerCase(Locale.ROOT));
+            int second = words.idOf(inputWords[i].toLowerCase(Locale.ROOT));
+            if (first >= 0 && second >= 0) {
+                int bridge = bridgeOf.applyAsInt(first, second);
+                if (bridge >= 0) {
+                    poem.append(' ').append(words.labelOf(bridge));
+                }
+            }
+            poem.append(' ').append(inputWords[i]);
+        }
+        return poem.toString();
+    }
+    
+    @Override
+    public String toString() {
+        lock.readLock().lock();
+        try {
+            return "GraphPoet with " + graph;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
     
 }
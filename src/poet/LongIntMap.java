@@ -0,0 +1,174 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+/**
+ * A mutable map from long keys to positive int counts, stored in two parallel
+ * arrays with open addressing and linear probing, so it holds no entry objects
+ * and no boxes. A count of zero stands for an absent key.
+ * 
+ * <p>Used to count bigrams keyed by a pair of word ids packed into a long.
+ * 
+ * <p>Not safe for concurrent use.
+ */
+final class LongIntMap {
+    
+    private static final int MIN_CAPACITY = 4;
+    
+    private long[] keys;
+    private int[] values;
+    private int size;
+    
+    // Abstraction function:
+    //   Represents the map with an entry keys[i] -> values[i] for every slot i
+    //   where values[i] != 0
+    // Representation invariant:
+    //   keys.length == values.length is a power of two >= MIN_CAPACITY
+    //   size is the number of slots with values[i] != 0, size <= keys.length * 3/4
+    //   values are nonnegative; keys of occupied slots are distinct
+    //   every occupied slot is reachable by probing from the home slot of its key
+    //     without crossing an empty slot
+    // Safety from rep exposure:
+    //   Fields are private and never returned; forEach() passes primitive copies.
+    
+    /**
+     * Make an empty map.
+     */
+    LongIntMap() {
+        this(MIN_CAPACITY);
+    }
+    
+    /**
+     * Make an empty map with room for some entries before it grows.
+     * 
+     * @param expected number of entries expected, nonnegative
+     */
+    LongIntMap(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expected) {
+            capacity *= 2;
+        }
+        keys = new long[capacity];
+        values = new int[capacity];
+        checkRep();
+    }
+    
+    // Check rep invariant
+    private void checkRep() {
+        assert keys.length == values.length && Integer.bitCount(keys.length) == 1 : "Bad capacity";
+        assert size >= 0 && size <= keys.length * 3 / 4 : "Bad size";
+    }
+    
+    /**
+     * @return home slot of key: a well-mixed hash of key, masked to the capacity
+     */
+    private int home(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+    
+    /**
+     * @return slot holding key, or the empty slot where it would be inserted
+     */
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = home(key);
+        while (values[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    /**
+     * @return number of entries
+     */
+    int size() {
+        return size;
+    }
+    
+    /**
+     * @param key a key
+     * @return count of key, or 0 if key is absent
+     */
+    int get(long key) {
+        return values[slotOf(key)];
+    }
+    
+    /**
+     * Add to the count of a key.
+     * 
+     * @param key a key
+     * @param delta amount to add, positive
+     * @return the new count of key
+     * @throws ArithmeticException if the count overflows an int; the map is
+     *         then unchanged
+     */
+    int add(long key, int delta) {
+        assert delta > 0 : "Delta not positive";
+        int slot = slotOf(key);
+        int previous = values[slot];
+        int count = Math.addExact(previous, delta);
+        if (previous == 0) {
+            if (size + 1 > keys.length * 3 / 4) {
+                resize(keys.length * 2);
+                slot = slotOf(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = count;
+        checkRep();
+        return count;
+    }
+    
+    /**
+     * Visit every entry, in no particular order. The map must not be modified
+     * by the visitor.
+     * 
+     * @param visitor called with the key and count of each entry
+     */
+    void forEach(EntryVisitor visitor) {
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != 0) {
+                visitor.visit(keys[slot], values[slot]);
+            }
+        }
+    }
+    
+    /**
+     * Callback for iterating over the entries of a LongIntMap without boxing.
+     */
+    @FunctionalInterface
+    interface EntryVisitor {
+        
+        /**
+         * @param key key of the entry
+         * @param count positive count of the entry
+         */
+        void visit(long key, int count);
+    }
+    
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        for (int slot = 0; slot < oldValues.length; slot++) {
+            if (oldValues[slot] != 0) {
+                int target = slotOf(oldKeys[slot]);
+                keys[target] = oldKeys[slot];
+                values[target] = oldValues[slot];
+            }
+        }
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("{");
+        forEach((key, count) -> result.append(result.length() > 1 ? ", " : "")
+                .append(key).append('=').append(count));
+        return result.append('}').toString();
+    }
+    
+}
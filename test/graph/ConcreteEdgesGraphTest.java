@@ -6,6 +6,8 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.*;
+
 import org.junit.Test;
 
 /**
@@ -48,6 +50,34 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
      * toString()
      *   vertices : 0, 1, n
      *   edges : 0, 1, n
+     *   after remove() of a vertex with a self loop, incoming and outgoing edges
+     *
+     * ConcreteEdgesGraph(labels, verification)
+     *   verification: OFF, INCREMENTAL, SAMPLED, FULL
+     *
+     * ConcreteEdgesGraph(labels, verification, views)
+     *   views: LIVE, SNAPSHOT
+     *   observers called before and after a modification; result modified by the caller
+     *
+     * setAll(), removeAll()
+     *   updates: empty, n; insert, update and delete of one edge in a batch; delete of missing edge
+     *   input: collection, stream
+     *   vertices: in graph, not in graph
+     *
+     * idOf(), labelOf(), idBound(), outDegree(), inDegree(), forEachTarget(), forEachSource(), weight() by id
+     *   vertex: with edges, without edges, not in graph; edge: present, absent
+     *
+     * setAll() by id
+     *   updates: insert, update and delete in a batch; several edges out of and into one vertex
+     *   input: valid, arrays of different lengths, id not in dictionary, negative weight
+     *
+     * increment()
+     *   edge: absent, present; delta: positive, zero, negative to zero, negative below zero
+     *   labels: unknown to a shared dictionary, left out of it unless an edge is added
+     *
+     * increment() by id
+     *   edge: absent, present; delta: positive, negative to zero, negative below zero
+     *   ids: in dictionary but not in graph, not in dictionary
      */
 
 
@@ -168,5 +198,247 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
         assertEquals(modelString, graph.toString());
     }
 
+    // Covers remove vertex with a self loop, one incoming and one outgoing edge.
+    @Test
+    public void testToStringAfterRemoveSelfLoop() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        graph.set(vertex1, vertex1, weight1);
+        graph.set(vertex2, vertex1, weight2);
+        graph.set(vertex1, vertex3, weight2);
+        graph.set(vertex2, vertex3, weight1);
+        graph.remove(vertex1);
+        String modelString = "Graph contains 2 vertices and 1 edges";
+        assertEquals(modelString, graph.toString());
+    }
+
+    // Covers every verification level with add, set, remove and observers.
+    @Test
+    public void testVerificationLevels() {
+        for (Verification verification : Verification.values()) {
+            ConcreteEdgesGraph graph = new ConcreteEdgesGraph(new LabelDictionary<>(), verification);
+            graph.add(vertex1);
+            graph.set(vertex1, vertex2, weight1);
+            graph.set(vertex2, vertex1, weight2);
+            graph.set(vertex2, vertex2, weight2);
+            graph.set(vertex1, vertex2, 0);
+            graph.remove(vertex2);
+            assertEquals(verification.name(), Collections.emptyMap(), graph.targets(vertex1));
+            assertEquals(verification.name(), "Graph contains 1 vertices and 0 edges", graph.toString());
+        }
+    }
+
+    // Covers LIVE views before and after a modification.
+    @Test
+    public void testLiveViews() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(new LabelDictionary<>(), Verification.FULL, ViewMode.LIVE);
+        Set<String> vertices = graph.vertices();
+        Map<String, Integer> targets = graph.targets(vertex1);
+        Map<String, Integer> sources = graph.sources(vertex2);
+        assertTrue(vertices.isEmpty());
+        graph.set(vertex1, vertex2, weight1);
+        assertEquals(new HashSet<>(Arrays.asList(vertex1, vertex2)), vertices);
+        assertEquals(Collections.singletonMap(vertex2, weight1), targets);
+        assertEquals(Collections.singletonMap(vertex1, weight1), sources);
+        graph.remove(vertex2);
+        assertEquals(Collections.singleton(vertex1), vertices);
+        assertTrue(targets.isEmpty());
+    }
+
+    // Covers LIVE view modified by the caller.
+    @Test(expected=UnsupportedOperationException.class)
+    public void testLiveViewUnmodifiable() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(new LabelDictionary<>(), Verification.FULL, ViewMode.LIVE);
+        graph.set(vertex1, vertex2, weight1);
+        graph.targets(vertex1).put(vertex1, weight2);
+    }
+
+    // Covers SNAPSHOT observers before and after a modification.
+    @Test
+    public void testSnapshotViews() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(new LabelDictionary<>(), Verification.FULL, ViewMode.SNAPSHOT);
+        graph.set(vertex1, vertex2, weight1);
+        Set<String> vertices = graph.vertices();
+        Map<String, Integer> targets = graph.targets(vertex1);
+        assertSame(vertices, graph.vertices());
+        assertSame(targets, graph.targets(vertex1));
+        graph.set(vertex1, vertex2, weight2);
+        assertEquals(Collections.singletonMap(vertex2, weight1), targets);
+        assertEquals(Collections.singletonMap(vertex2, weight2), graph.targets(vertex1));
+        assertNotSame(targets, graph.targets(vertex1));
+        assertEquals(vertices, graph.vertices());
+    }
 
+    // Covers setAll with insert, update and delete of one edge, and delete of a missing edge.
+    @Test
+    public void testSetAll() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(new LabelDictionary<>(), Verification.FULL);
+        graph.set(vertex1, vertex2, weight1);
+        int[] previous = graph.setAll(Arrays.asList(
+                new EdgeUpdate<>(vertex1, vertex3, weight1),
+                new EdgeUpdate<>(vertex1, vertex3, weight2),
+                new EdgeUpdate<>(vertex1, vertex2, 0),
+                new EdgeUpdate<>(vertex3, "missing", 0),
+                new EdgeUpdate<>(vertex3, vertex3, weight2)));
+        assertArrayEquals(new int[] {0, weight1, weight1, 0, 0}, previous);
+        assertEquals(Collections.singletonMap(vertex3, weight2), graph.targets(vertex1));
+        assertEquals(2, graph.sources(vertex3).size());
+        assertFalse(graph.vertices().contains("missing"));
+        assertArrayEquals(new int[0], graph.setAll(Collections.emptyList()));
+    }
+
+    // Covers setAll from a stream and removeAll of vertices in and not in the graph.
+    @Test
+    public void testSetAllStreamAndRemoveAll() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(new LabelDictionary<>(), Verification.FULL);
+        int[] previous = graph.setAll(Arrays.asList(vertex1, vertex2, vertex3).stream()
+                .map(vertex -> new EdgeUpdate<>(vertex, vertex1, weight1)));
+        assertArrayEquals(new int[] {0, 0, 0}, previous);
+        assertEquals(3, graph.sources(vertex1).size());
+        assertEquals(2, graph.removeAll(Arrays.asList(vertex1, vertex2, "missing")));
+        assertEquals(Collections.singleton(vertex3), graph.vertices());
+        assertEquals(Collections.emptyMap(), graph.targets(vertex3));
+    }
+
+    // Covers the id observers on vertices with and without edges, not in the graph, present and absent edges,
+    // and a label in the dictionary that is not a vertex.
+    @Test
+    public void testIdObservers() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(labels, Verification.FULL);
+        graph.set(vertex1, vertex2, weight1);
+        graph.set(vertex1, vertex1, weight2);
+        graph.add(vertex3);
+        int id1 = labels.idOf(vertex1);
+        int id2 = labels.idOf(vertex2);
+        int id3 = labels.idOf(vertex3);
+        int unknown = labels.intern("unknown");
+        assertEquals(2, graph.outDegree(id1));
+        assertEquals(1, graph.inDegree(id1));
+        assertEquals(0, graph.outDegree(id2));
+        assertEquals(0, graph.inDegree(id3));
+        assertEquals(0, graph.outDegree(unknown));
+        Map<Integer, Integer> targets = new HashMap<>();
+        graph.forEachTarget(id1, targets::put);
+        assertEquals(Map.of(id2, weight1, id1, weight2), targets);
+        Map<Integer, Integer> sources = new HashMap<>();
+        graph.forEachSource(id2, sources::put);
+        assertEquals(Map.of(id1, weight1), sources);
+        graph.forEachSource(unknown, (vertex, weight) -> fail("no edges expected"));
+        assertEquals(weight1, graph.weight(id1, id2));
+        assertEquals(0, graph.weight(id2, id1));
+        assertEquals(0, graph.weight(unknown, id1));
+        assertEquals(id3, graph.idOf(vertex3));
+        assertEquals(-1, graph.idOf("unknown"));
+        assertEquals(-1, graph.idOf("missing"));
+        assertEquals(vertex2, graph.labelOf(id2));
+        assertEquals(labels.size(), graph.idBound());
+    }
+
+    // Covers setAll by id with insert, update and delete, several edges out of and into one vertex.
+    @Test
+    public void testSetAllIds() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        int id1 = labels.intern(vertex1);
+        int id2 = labels.intern(vertex2);
+        int id3 = labels.intern(vertex3);
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(labels, Verification.FULL);
+        int[] previous = graph.setAll(new int[] {id1, id1, id1, id2, id1},
+                new int[] {id2, id3, id2, id2, id3}, new int[] {weight1, weight1, weight2, weight1, 0});
+        assertArrayEquals(new int[] {0, 0, weight1, 0, weight1}, previous);
+        assertEquals(Collections.singletonMap(vertex2, weight2), graph.targets(vertex1));
+        assertEquals(Map.of(vertex1, weight2, vertex2, weight1), graph.sources(vertex2));
+        assertEquals(new HashSet<>(Arrays.asList(vertex1, vertex2, vertex3)), graph.vertices());
+        assertArrayEquals(new int[0], graph.setAll(new int[0], new int[0], new int[0]));
+    }
+
+    // Covers setAll by id with arrays of different lengths, an unknown id and a negative weight.
+    @Test
+    public void testSetAllIdsInvalid() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        int id1 = labels.intern(vertex1);
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(labels, Verification.FULL);
+        int[][][] invalid = {
+            { {id1}, {id1, id1}, {weight1} },
+            { {id1, id1}, {id1, id1 + 1}, {weight1, weight1} },
+            { {id1, -1}, {id1, id1}, {weight1, weight1} },
+            { {id1, id1}, {id1, id1}, {weight1, -weight1} },
+        };
+        for (int[][] updates : invalid) {
+            try {
+                graph.setAll(updates[0], updates[1], updates[2]);
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                assertEquals(Collections.emptySet(), graph.vertices());
+            }
+        }
+    }
+
+    // Covers increment of absent and present edges, to zero, and below zero.
+    @Test
+    public void testIncrement() {
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(new LabelDictionary<>(), Verification.FULL);
+        assertEquals(0, graph.increment(vertex1, vertex2, weight1));
+        assertEquals(weight1, graph.increment(vertex1, vertex2, weight2));
+        assertEquals(weight1 + weight2, graph.increment(vertex1, vertex2, 0));
+        assertEquals(Collections.singletonMap(vertex1, weight1 + weight2), graph.sources(vertex2));
+        try {
+            graph.increment(vertex1, vertex2, -weight2 - weight2);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(weight1 + weight2, (int) graph.targets(vertex1).get(vertex2));
+        }
+        assertEquals(weight1 + weight2, graph.increment(vertex1, vertex2, -weight1 - weight2));
+        assertEquals(Collections.emptyMap(), graph.targets(vertex1));
+        assertEquals(2, graph.vertices().size());
+    }
+    
+    // Covers increment by id of an absent edge between vertices not yet in the graph, of a
+    // present edge, below zero, to zero, and with ids not in the dictionary.
+    @Test
+    public void testIncrementIds() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        int id1 = labels.intern(vertex1);
+        int id2 = labels.intern(vertex2);
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(labels, Verification.FULL);
+        assertEquals(0, graph.increment(id1, id2, weight1));
+        assertEquals(new HashSet<>(Arrays.asList(vertex1, vertex2)), graph.vertices());
+        assertEquals(weight1, graph.increment(id1, id2, weight2));
+        assertEquals(Collections.singletonMap(vertex1, weight1 + weight2), graph.sources(vertex2));
+        try {
+            graph.increment(id1, id2, -weight2 - weight2);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(weight1 + weight2, graph.weight(id1, id2));
+        }
+        for (int[] ids : new int[][] { {id1, id2 + 1}, {-1, id2} }) {
+            try {
+                graph.increment(ids[0], ids[1], weight1);
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                assertEquals(2, graph.vertices().size());
+            }
+        }
+        assertEquals(weight1 + weight2, graph.increment(id1, id2, -weight1 - weight2));
+        assertEquals(Collections.emptyMap(), graph.targets(vertex1));
+        assertEquals(2, graph.vertices().size());
+    }
+    
+    // Covers unknown labels with zero and negative deltas: the shared dictionary is not changed.
+    @Test
+    public void testIncrementUnknownLabels() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        ConcreteEdgesGraph graph = new ConcreteEdgesGraph(labels, Verification.FULL);
+        assertEquals(0, graph.increment(vertex1, vertex2, 0));
+        try {
+            graph.increment(vertex1, vertex2, -1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(0, labels.size());
+        }
+        assertEquals(0, labels.size());
+        assertEquals(Collections.emptySet(), graph.vertices());
+        assertEquals(0, graph.increment(vertex1, vertex2, weight1));
+        assertEquals(2, labels.size());
+    }
+    
 }
@@ -5,6 +5,8 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.*;
+
 import org.junit.Test;
 
 /**
@@ -54,6 +56,11 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
      *   1. Target is in Vertex targets? Yes, no.
      *   2. Try different String sizes for targets.
      *
+     * setSource(), getSourcesMap()
+     *   Add, change and remove incoming edges. Cases:
+     *   1. weight = 0, w > 0.
+     *   2. source added once, changed, removed.
+     *
      * toString()
      *   Test Vertex with no targets, 1 target, n targets.
      *
@@ -65,6 +72,25 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
      * toString()
      *   Test with empty graph, 1 Vertex in Graph, N Vertices in Graph
      *   Test with no edges, 1 edge, N, edges
+     *
+     * set(), sources()
+     *   Labels equal but not identical (not interned strings)
+     *
+     * ConcreteVerticesGraph(labels, verification)
+     *   verification: OFF, INCREMENTAL, SAMPLED, FULL
+     *
+     * ConcreteVerticesGraph(labels, verification, views)
+     *   views: LIVE, SNAPSHOT
+     *   observers called before and after a modification; result modified by the caller
+     *
+     * setAll(), removeAll()
+     *   updates: empty, n; insert, update and delete of one edge in a batch; delete of missing edge
+     *   input: collection, stream
+     *   vertices: in graph, not in graph
+     *
+     * increment()
+     *   edge: absent, present; delta: positive, zero, negative to zero, negative below zero
+     *   labels: unknown to a shared dictionary, left out of it unless an edge is added
      */
 
 
@@ -125,6 +151,17 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         assertTrue(testVertex1.isVertexInTargets(target2));
     }
 
+    // Covers add, change and remove of incoming edges.
+    @Test
+    public void testSetSource() {
+        Vertex testVertex1 = new Vertex(vertex1);
+        testVertex1.setSource(target1, weight1);
+        testVertex1.setSource(target2, weight2);
+        testVertex1.setSource(target1, weight3);
+        testVertex1.setSource(target2, weight0);
+        assertEquals(Collections.singletonMap(target1, weight3), testVertex1.getSourcesMap());
+    }
+
     // Covers toString with several targets and a self loop.
     @Test
     public void testToString() {
@@ -174,5 +211,141 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         String testString = "Graph contains 3 vertices and 2 edges";
         assertEquals(testString, graph.toString());
     }
+
+    // Covers labels that are equal but are different String objects.
+    @Test
+    public void testSetNonInternedLabels() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        graph.set(new String(vertex1), new String(vertex2), weight1);
+        assertEquals(weight1, graph.set(new String(vertex1), new String(vertex2), weight2));
+        assertEquals(Collections.singletonMap(vertex1, weight2), graph.sources(new String(vertex2)));
+        String testString = "Graph contains 2 vertices and 1 edges";
+        assertEquals(testString, graph.toString());
+    }
+
+    // Covers every verification level with add, set, remove and observers.
+    @Test
+    public void testVerificationLevels() {
+        for (Verification verification : Verification.values()) {
+            ConcreteVerticesGraph graph = new ConcreteVerticesGraph(new LabelDictionary<>(), verification);
+            graph.add(vertex1);
+            graph.set(vertex1, vertex2, weight1);
+            graph.set(vertex2, vertex1, weight2);
+            graph.set(vertex2, vertex2, weight2);
+            graph.set(vertex1, vertex2, 0);
+            graph.remove(vertex2);
+            assertEquals(verification.name(), Collections.emptyMap(), graph.targets(vertex1));
+            assertEquals(verification.name(), "Graph contains 1 vertices and 0 edges", graph.toString());
+        }
+    }
+
+    // Covers LIVE views before and after a modification.
+    @Test
+    public void testLiveViews() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph(new LabelDictionary<>(), Verification.FULL, ViewMode.LIVE);
+        Set<String> vertices = graph.vertices();
+        Map<String, Integer> targets = graph.targets(vertex1);
+        Map<String, Integer> sources = graph.sources(vertex2);
+        assertTrue(vertices.isEmpty());
+        graph.set(vertex1, vertex2, weight1);
+        assertEquals(new HashSet<>(Arrays.asList(vertex1, vertex2)), vertices);
+        assertEquals(Collections.singletonMap(vertex2, weight1), targets);
+        assertEquals(Collections.singletonMap(vertex1, weight1), sources);
+        graph.remove(vertex2);
+        assertEquals(Collections.singleton(vertex1), vertices);
+        assertTrue(targets.isEmpty());
+    }
+
+    // Covers LIVE view modified by the caller.
+    @Test(expected=UnsupportedOperationException.class)
+    public void testLiveViewUnmodifiable() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph(new LabelDictionary<>(), Verification.FULL, ViewMode.LIVE);
+        graph.set(vertex1, vertex2, weight1);
+        graph.targets(vertex1).put(vertex1, weight2);
+    }
+
+    // Covers SNAPSHOT observers before and after a modification.
+    @Test
+    public void testSnapshotViews() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph(new LabelDictionary<>(), Verification.FULL, ViewMode.SNAPSHOT);
+        graph.set(vertex1, vertex2, weight1);
+        Set<String> vertices = graph.vertices();
+        Map<String, Integer> targets = graph.targets(vertex1);
+        assertSame(vertices, graph.vertices());
+        assertSame(targets, graph.targets(vertex1));
+        graph.set(vertex1, vertex2, weight2);
+        assertEquals(Collections.singletonMap(vertex2, weight1), targets);
+        assertEquals(Collections.singletonMap(vertex2, weight2), graph.targets(vertex1));
+        assertNotSame(targets, graph.targets(vertex1));
+        assertEquals(vertices, graph.vertices());
+    }
+
+    // Covers setAll with insert, update and delete of one edge, and delete of a missing edge.
+    @Test
+    public void testSetAll() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph(new LabelDictionary<>(), Verification.FULL);
+        graph.set(vertex1, vertex2, weight1);
+        int[] previous = graph.setAll(Arrays.asList(
+                new EdgeUpdate<>(vertex1, vertex3, weight1),
+                new EdgeUpdate<>(vertex1, vertex3, weight2),
+                new EdgeUpdate<>(vertex1, vertex2, 0),
+                new EdgeUpdate<>(vertex3, "missing", 0),
+                new EdgeUpdate<>(vertex3, vertex3, weight2)));
+        assertArrayEquals(new int[] {0, weight1, weight1, 0, 0}, previous);
+        assertEquals(Collections.singletonMap(vertex3, weight2), graph.targets(vertex1));
+        assertEquals(2, graph.sources(vertex3).size());
+        assertFalse(graph.vertices().contains("missing"));
+        assertArrayEquals(new int[0], graph.setAll(Collections.emptyList()));
+    }
+
+    // Covers setAll from a stream and removeAll of vertices in and not in the graph.
+    @Test
+    public void testSetAllStreamAndRemoveAll() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph(new LabelDictionary<>(), Verification.FULL);
+        int[] previous = graph.setAll(Arrays.asList(vertex1, vertex2, vertex3).stream()
+                .map(vertex -> new EdgeUpdate<>(vertex, vertex1, weight1)));
+        assertArrayEquals(new int[] {0, 0, 0}, previous);
+        assertEquals(3, graph.sources(vertex1).size());
+        assertEquals(2, graph.removeAll(Arrays.asList(vertex1, vertex2, "missing")));
+        assertEquals(Collections.singleton(vertex3), graph.vertices());
+        assertEquals(Collections.emptyMap(), graph.targets(vertex3));
+    }
+
+    // Covers increment of absent and present edges, to zero, and below zero.
+    @Test
+    public void testIncrement() {
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph(new LabelDictionary<>(), Verification.FULL);
+        assertEquals(0, graph.increment(vertex1, vertex2, weight1));
+        assertEquals(weight1, graph.increment(vertex1, vertex2, weight2));
+        assertEquals(weight1 + weight2, graph.increment(vertex1, vertex2, 0));
+        assertEquals(Collections.singletonMap(vertex1, weight1 + weight2), graph.sources(vertex2));
+        try {
+            graph.increment(vertex1, vertex2, -weight2 - weight2);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(weight1 + weight2, (int) graph.targets(vertex1).get(vertex2));
+        }
+        assertEquals(weight1 + weight2, graph.increment(vertex1, vertex2, -weight1 - weight2));
+        assertEquals(Collections.emptyMap(), graph.targets(vertex1));
+        assertEquals(2, graph.vertices().size());
+    }
+    
+    // Covers unknown labels with zero and negative deltas: the shared dictionary is not changed.
+    @Test
+    public void testIncrementUnknownLabels() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        ConcreteVerticesGraph graph = new ConcreteVerticesGraph(labels, Verification.FULL);
+        assertEquals(0, graph.increment(vertex1, vertex2, 0));
+        try {
+            graph.increment(vertex1, vertex2, -1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals(0, labels.size());
+        }
+        assertEquals(0, labels.size());
+        assertEquals(Collections.emptySet(), graph.vertices());
+        assertEquals(0, graph.increment(vertex1, vertex2, weight1));
+        assertEquals(2, labels.size());
+    }
     
 }
@@ -0,0 +1,173 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for ConcurrentGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against ConcurrentGraph, as
+ * well as tests for that particular implementation.
+ * 
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Testing strategy for ConcurrentGraph
+     *
+     * ConcurrentGraph(concurrency)
+     *   concurrency: 1, n, 0
+     * set(), remove() from several threads at once
+     *   threads setting disjoint edges
+     *   threads setting the same edge: previous weights returned form one chain
+     *   threads removing vertices while others add edges to them
+     *   threads incrementing the same edges: no increment lost
+     * toString()
+     *   vertices : 0, n
+     */
+    
+    private static final int THREADS = 8;
+    
+    /*
+     * Provide a ConcurrentGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new ConcurrentGraph<>();
+    }
+    
+    /**
+     * Run a task on several threads at once and wait for all of them.
+     */
+    private static void runConcurrently(int threads, Callable<Void> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(task));
+            }
+            for (Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    // Covers concurrency = 0.
+    @Test(expected=IllegalArgumentException.class)
+    public void testConcurrencyNotPositive() {
+        new ConcurrentGraph<String>(0);
+    }
+    
+    // Covers concurrency = 1, toString with 0 and n vertices.
+    @Test
+    public void testToString() {
+        Graph<Integer> graph = new ConcurrentGraph<>(1);
+        assertEquals("Graph contains 0 vertices and 0 edges", graph.toString());
+        graph.set(1, 2, 3);
+        graph.set(2, 2, 3);
+        assertEquals("Graph contains 2 vertices and 2 edges", graph.toString());
+    }
+    
+    // Covers threads setting disjoint edges.
+    @Test
+    public void testConcurrentDisjointSets() throws Exception {
+        Graph<Integer> graph = new ConcurrentGraph<>(THREADS);
+        final int perThread = 2000;
+        final int[] next = {0};
+        runConcurrently(THREADS, () -> {
+            int thread;
+            synchronized (next) {
+                thread = next[0]++;
+            }
+            for (int i = 0; i < perThread; i++) {
+                graph.set(thread, THREADS + i, i + 1);
+            }
+            return null;
+        });
+        for (int thread = 0; thread < THREADS; thread++) {
+            assertEquals(perThread, graph.targets(thread).size());
+        }
+        assertEquals(THREADS, graph.sources(THREADS).size());
+    }
+    
+    // Covers threads setting the same edge: each write sees exactly one previous weight.
+    @Test
+    public void testConcurrentSetPreviousWeights() throws Exception {
+        Graph<String> graph = new ConcurrentGraph<>(THREADS);
+        final int perThread = 5000;
+        Set<Integer> previous = ConcurrentHashMap.newKeySet();
+        final int[] next = {0};
+        runConcurrently(THREADS, () -> {
+            int thread;
+            synchronized (next) {
+                thread = next[0]++;
+            }
+            for (int i = 0; i < perThread; i++) {
+                int weight = 1 + thread * perThread + i;
+                assertTrue("previous weight seen twice", previous.add(graph.set("a", "b", weight)));
+            }
+            return null;
+        });
+        // every weight but the last one written was returned once, plus the initial 0
+        assertEquals(THREADS * perThread, previous.size());
+        assertFalse(previous.contains(graph.targets("a").get("b")));
+    }
+    
+    // Covers threads removing vertices while others add edges to them.
+    @Test
+    public void testConcurrentRemoveLeavesNoDanglingEdges() throws Exception {
+        Graph<Integer> graph = new ConcurrentGraph<>(THREADS);
+        final int vertices = 50;
+        final int rounds = 4000;
+        runConcurrently(THREADS, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < rounds; i++) {
+                int source = random.nextInt(vertices);
+                int target = random.nextInt(vertices);
+                if (random.nextInt(4) == 0) {
+                    graph.remove(source);
+                } else {
+                    graph.set(source, target, 1 + random.nextInt(10));
+                }
+            }
+            return null;
+        });
+        Set<Integer> present = graph.vertices();
+        for (int vertex : present) {
+            for (Map.Entry<Integer, Integer> edge : graph.targets(vertex).entrySet()) {
+                assertTrue(present.contains(edge.getKey()));
+                assertEquals(edge.getValue(), graph.sources(edge.getKey()).get(vertex));
+            }
+            for (int source : graph.sources(vertex).keySet()) {
+                assertTrue(present.contains(source));
+            }
+        }
+    }
+    
+    // Covers threads incrementing the same edges: no increment is lost.
+    @Test
+    public void testConcurrentIncrement() throws Exception {
+        CountingGraph<String> graph = new ConcurrentGraph<>(THREADS);
+        final int perThread = 5000;
+        runConcurrently(THREADS, () -> {
+            for (int i = 0; i < perThread; i++) {
+                graph.increment("a", "b", 1);
+                graph.increment("b", i % 2 == 0 ? "a" : "c", 2);
+            }
+            return null;
+        });
+        assertEquals(THREADS * perThread, (int) graph.targets("a").get("b"));
+        assertEquals(THREADS * perThread, (int) graph.targets("b").get("a"));
+        assertEquals(THREADS * perThread, (int) graph.sources("c").get("b"));
+    }
+    
+}
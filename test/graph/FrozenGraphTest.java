@@ -0,0 +1,141 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for FrozenGraph.
+ * 
+ * FrozenGraph cannot be built empty and then modified, so it does not run the
+ * GraphInstanceTest tests; instead each test freezes a ConcreteEdgesGraph and
+ * compares the snapshot with it.
+ */
+public class FrozenGraphTest {
+    
+    /*
+     * Testing strategy for FrozenGraph
+     *
+     * freeze()
+     *   graph: empty, vertices without edges, n edges including a self loop
+     *   graph modified after freezing
+     * vertices(), sources(), targets()
+     *   vertex: in graph, not in graph; degree: 0, 1, n
+     * idOf(), labelOf()
+     *   label in graph, not in graph
+     * forEachTarget(), forEachSource(), weight()
+     *   degree 0, n; edge present, absent
+     * add(), set(), remove()
+     *   always rejected
+     * IndexedGraph.of()
+     *   graph: already indexed, mutable
+     */
+    
+    private static final String vertex1 = "V1";
+    private static final String vertex2 = "V2";
+    private static final String vertex3 = "V3";
+    private static final String vertex4 = "V4";
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Graph<String> sampleGraph() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set(vertex1, vertex2, 1);
+        graph.set(vertex1, vertex3, 2);
+        graph.set(vertex3, vertex3, 3);
+        graph.set(vertex2, vertex3, 4);
+        graph.add(vertex4);
+        return graph;
+    }
+    
+    // Covers freeze of empty graph.
+    @Test
+    public void testFreezeEmpty() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(new ConcreteEdgesGraph());
+        assertEquals(Collections.emptySet(), frozen.vertices());
+        assertEquals(Collections.emptyMap(), frozen.targets(vertex1));
+        assertEquals(0, frozen.vertexCount());
+        assertEquals(0, frozen.edgeCount());
+    }
+    
+    // Covers freeze of n edges with a self loop and an isolated vertex;
+    // sources and targets of degree 0, 1, n; vertex not in graph.
+    @Test
+    public void testFreezeMatchesGraph() {
+        Graph<String> graph = sampleGraph();
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        assertEquals(graph.vertices(), frozen.vertices());
+        for (String vertex : graph.vertices()) {
+            assertEquals(graph.targets(vertex), frozen.targets(vertex));
+            assertEquals(graph.sources(vertex), frozen.sources(vertex));
+        }
+        assertEquals(Collections.emptyMap(), frozen.sources("missing"));
+        assertEquals(4, frozen.edgeCount());
+        assertEquals("Graph contains 4 vertices and 4 edges", frozen.toString());
+    }
+    
+    // Covers graph modified after freezing.
+    @Test
+    public void testFreezeIsSnapshot() {
+        Graph<String> graph = sampleGraph();
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        graph.set(vertex4, vertex1, 5);
+        graph.remove(vertex3);
+        assertEquals(Collections.emptyMap(), frozen.targets(vertex4));
+        assertEquals(3, frozen.sources(vertex3).size());
+    }
+    
+    // Covers id round trip, label not in graph, primitive visitors and weight lookup.
+    @Test
+    public void testPrimitiveAccess() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(sampleGraph());
+        int id1 = frozen.idOf(vertex1);
+        int id3 = frozen.idOf(vertex3);
+        assertEquals(vertex1, frozen.labelOf(id1));
+        assertEquals(-1, frozen.idOf("missing"));
+        assertEquals(2, frozen.outDegree(id1));
+        assertEquals(3, frozen.inDegree(id3));
+        assertEquals(2, frozen.weight(id1, id3));
+        assertEquals(0, frozen.weight(id3, id1));
+        
+        Map<String, Integer> visited = new HashMap<>();
+        frozen.forEachSource(id3, (source, weight) -> visited.put(frozen.labelOf(source), weight));
+        assertEquals(sampleGraph().sources(vertex3), visited);
+        
+        List<Integer> targetIds = new ArrayList<>();
+        frozen.forEachTarget(id1, (target, weight) -> targetIds.add(target));
+        assertEquals(2, targetIds.size());
+        assertTrue(targetIds.get(0) < targetIds.get(1));
+    }
+    
+    // Covers mutators rejected.
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSetRejected() {
+        FrozenGraph.freeze(sampleGraph()).set(vertex1, vertex4, 1);
+    }
+    
+    // Covers mutators rejected.
+    @Test(expected=UnsupportedOperationException.class)
+    public void testRemoveRejected() {
+        FrozenGraph.freeze(sampleGraph()).remove(vertex1);
+    }
+    
+    // Covers IndexedGraph.of on a frozen graph and on a mutable graph.
+    @Test
+    public void testIndexedGraphOf() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(sampleGraph());
+        assertSame(frozen, IndexedGraph.of(frozen));
+        IndexedGraph<String> indexed = IndexedGraph.of(sampleGraph());
+        assertEquals(frozen.vertexCount(), indexed.vertexCount());
+        assertEquals(frozen.edgeCount(), indexed.edgeCount());
+    }
+    
+}
@@ -0,0 +1,187 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+/**
+ * Tests for GraphStatistics, as kept by ConcreteEdgesGraph and
+ * ConcreteVerticesGraph.
+ */
+public class GraphStatisticsTest {
+    
+    /*
+     * Testing strategy for GraphStatistics
+     *
+     * graph: ConcreteEdgesGraph, ConcreteVerticesGraph
+     * vertexCount(), edgeCount(), degree distributions
+     *   graph: empty, after add, set, increment, setAll, remove, removeAll;
+     *   edges: none, self loop, several out of or into one vertex
+     * maxOutDegree(), maxInDegree()
+     *   maximum: rises, falls when the only vertex with it loses an edge or is removed
+     * heaviestEdges()
+     *   k: 0, less than, more than edgeCount(), negative;
+     *   index: built on first call, then updated by add, reweight and remove;
+     *   weights: distinct, tied
+     * toString()
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static final List<Function<LabelDictionary<String>, Graph<String>>> GRAPHS = List.of(
+            labels -> new ConcreteEdgesGraph(labels, Verification.FULL),
+            labels -> new ConcreteVerticesGraph(labels, Verification.FULL));
+    
+    private static GraphStatistics<String> statisticsOf(Graph<String> graph) {
+        return graph instanceof ConcreteEdgesGraph ? ((ConcreteEdgesGraph) graph).statistics()
+                : ((ConcreteVerticesGraph) graph).statistics();
+    }
+    
+    // Covers empty graph, k = 0, toString.
+    @Test
+    public void testEmpty() {
+        for (Function<LabelDictionary<String>, Graph<String>> factory : GRAPHS) {
+            Graph<String> graph = factory.apply(new LabelDictionary<>());
+            GraphStatistics<String> statistics = statisticsOf(graph);
+            assertEquals(0, statistics.vertexCount());
+            assertEquals(0, statistics.edgeCount());
+            assertEquals(0, statistics.maxOutDegree());
+            assertArrayEquals(new int[] { 0 }, statistics.outDegreeDistribution());
+            assertArrayEquals(new int[] { 0 }, statistics.inDegreeDistribution());
+            assertEquals(Collections.emptyList(), statistics.heaviestEdges(0));
+            assertEquals(Collections.emptyList(), statistics.heaviestEdges(3));
+            assertEquals("Graph contains 0 vertices and 0 edges", graph.toString());
+        }
+    }
+    
+    // Covers self loop, several edges out of one vertex, maximum rising and falling, remove.
+    @Test
+    public void testDegrees() {
+        for (Function<LabelDictionary<String>, Graph<String>> factory : GRAPHS) {
+            Graph<String> graph = factory.apply(new LabelDictionary<>());
+            GraphStatistics<String> statistics = statisticsOf(graph);
+            graph.add("d");
+            graph.set("a", "b", 1);
+            graph.set("a", "c", 2);
+            graph.set("a", "a", 3);
+            graph.set("b", "c", 4);
+            assertEquals(4, statistics.vertexCount());
+            assertEquals(4, statistics.edgeCount());
+            assertEquals(3, statistics.maxOutDegree());
+            assertEquals(2, statistics.maxInDegree());
+            assertArrayEquals(new int[] { 2, 1, 0, 1 }, statistics.outDegreeDistribution());
+            assertArrayEquals(new int[] { 1, 2, 1 }, statistics.inDegreeDistribution());
+            assertEquals(2, statistics.verticesWithInDegree(1));
+            assertEquals(0, statistics.verticesWithOutDegree(7));
+            assertEquals(0, statistics.verticesWithOutDegree(-1));
+            
+            graph.set("a", "c", 0);
+            assertEquals(2, statistics.maxOutDegree());
+            assertEquals(1, statistics.maxInDegree());
+            graph.remove("a");
+            assertEquals(3, statistics.vertexCount());
+            assertEquals(1, statistics.edgeCount());
+            assertArrayEquals(new int[] { 2, 1 }, statistics.outDegreeDistribution());
+            assertArrayEquals(new int[] { 2, 1 }, statistics.inDegreeDistribution());
+            assertEquals("Graph contains 3 vertices and 1 edges", graph.toString());
+        }
+    }
+    
+    // Covers index built on first call, then add, reweight and remove; tied weights; k < and > edgeCount.
+    @Test
+    public void testHeaviestEdges() {
+        for (Function<LabelDictionary<String>, Graph<String>> factory : GRAPHS) {
+            Graph<String> graph = factory.apply(new LabelDictionary<>());
+            GraphStatistics<String> statistics = statisticsOf(graph);
+            graph.set("a", "b", 5);
+            graph.set("b", "c", 9);
+            graph.set("c", "a", 5);
+            assertEquals(List.of(new EdgeUpdate<>("b", "c", 9), new EdgeUpdate<>("a", "b", 5)),
+                    statistics.heaviestEdges(2));
+            
+            graph.set("a", "b", 10);
+            graph.set("c", "d", 7);
+            graph.remove("b");
+            assertEquals(List.of(new EdgeUpdate<>("c", "d", 7), new EdgeUpdate<>("c", "a", 5)),
+                    statistics.heaviestEdges(5));
+        }
+    }
+    
+    // Covers negative k.
+    @Test(expected=IllegalArgumentException.class)
+    public void testHeaviestEdgesNegative() {
+        new ConcreteEdgesGraph().statistics().heaviestEdges(-1);
+    }
+    
+    // Covers set, increment, setAll, removeAll, compared against a scan of the graph.
+    @Test
+    public void testRandomOperations() {
+        for (Function<LabelDictionary<String>, Graph<String>> factory : GRAPHS) {
+            Graph<String> graph = factory.apply(new LabelDictionary<>());
+            GraphStatistics<String> statistics = statisticsOf(graph);
+            statistics.heaviestEdges(1);
+            Random random = new Random(6005);
+            for (int i = 0; i < 2000; i++) {
+                String source = "v" + random.nextInt(20);
+                String target = "v" + random.nextInt(20);
+                int choice = random.nextInt(10);
+                if (choice < 5) {
+                    graph.set(source, target, random.nextInt(4));
+                } else if (choice < 7) {
+                    ((CountingGraph<String>) graph).increment(source, target, random.nextInt(3));
+                } else if (choice < 9) {
+                    ((BulkGraph<String>) graph).setAll(List.of(new EdgeUpdate<>(source, target, 0),
+                            new EdgeUpdate<>(target, source, random.nextInt(5) + 1)));
+                } else if (random.nextBoolean()) {
+                    graph.remove(source);
+                } else {
+                    ((BulkGraph<String>) graph).removeAll(List.of(source, target));
+                }
+                if (i % 100 == 0) {
+                    assertMatchesScan(graph, statistics);
+                }
+            }
+            assertMatchesScan(graph, statistics);
+        }
+    }
+    
+    private static void assertMatchesScan(Graph<String> graph, GraphStatistics<String> statistics) {
+        Map<Integer, Integer> outFrequencies = new HashMap<>();
+        Map<Integer, Integer> inFrequencies = new HashMap<>();
+        List<EdgeUpdate<String>> edges = new ArrayList<>();
+        for (String vertex : graph.vertices()) {
+            outFrequencies.merge(graph.targets(vertex).size(), 1, Integer::sum);
+            inFrequencies.merge(graph.sources(vertex).size(), 1, Integer::sum);
+            for (Map.Entry<String, Integer> target : graph.targets(vertex).entrySet()) {
+                edges.add(new EdgeUpdate<>(vertex, target.getKey(), target.getValue()));
+            }
+        }
+        assertEquals(graph.vertices().size(), statistics.vertexCount());
+        assertEquals(edges.size(), statistics.edgeCount());
+        int[] outDistribution = statistics.outDegreeDistribution();
+        for (int degree = 0; degree < outDistribution.length; degree++) {
+            assertEquals((int) outFrequencies.getOrDefault(degree, 0), outDistribution[degree]);
+        }
+        assertEquals(outFrequencies.keySet().stream().max(Integer::compare).orElse(0) + 1, outDistribution.length);
+        int[] inDistribution = statistics.inDegreeDistribution();
+        for (int degree = 0; degree < inDistribution.length; degree++) {
+            assertEquals((int) inFrequencies.getOrDefault(degree, 0), inDistribution[degree]);
+        }
+        assertEquals(inFrequencies.keySet().stream().max(Integer::compare).orElse(0) + 1, inDistribution.length);
+        List<EdgeUpdate<String>> heaviest = statistics.heaviestEdges(edges.size() + 1);
+        assertEquals(new HashSet<>(edges), new HashSet<>(heaviest));
+        for (int i = 1; i < heaviest.size(); i++) {
+            assertTrue(heaviest.get(i - 1).getWeight() >= heaviest.get(i).getWeight());
+        }
+    }
+    
+}
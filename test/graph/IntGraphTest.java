@@ -0,0 +1,159 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for IntGraph and its implementation ConcreteIntGraph.
+ */
+public class IntGraphTest {
+    
+    /*
+     * Testing strategy for IntGraph
+     *
+     * empty()
+     *   observe with vertices(), vertexCount(), edgeCount(), toString()
+     * add()
+     *   vertex: new, already present, negative
+     * set()
+     *   weight: zero, positive, negative; edge: new, present; vertices: new, present, same (self loop)
+     * remove()
+     *   vertex: absent, without edges, with in, out and self-loop edges
+     * weight(), outDegree(), inDegree(), forEachTarget(), forEachSource()
+     *   vertex: absent, with 0 or n edges
+     * asGraph(), copyOf()
+     *   changes through the view, changes to the graph seen by the view, round trip
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // Covers empty graph.
+    @Test
+    public void testEmpty() {
+        IntGraph graph = IntGraph.empty();
+        assertArrayEquals(new int[0], graph.vertices());
+        assertEquals(0, graph.vertexCount());
+        assertEquals(0, graph.edgeCount());
+        assertEquals("Graph contains 0 vertices and 0 edges", graph.toString());
+    }
+    
+    // Covers add new, present and negative vertices; vertices() in ascending order.
+    @Test
+    public void testAdd() {
+        IntGraph graph = IntGraph.empty();
+        assertTrue(graph.add(5));
+        assertTrue(graph.add(-2));
+        assertFalse(graph.add(5));
+        assertTrue(graph.contains(-2));
+        assertFalse(graph.contains(0));
+        assertArrayEquals(new int[] { -2, 5 }, graph.vertices());
+        assertEquals(0, graph.outDegree(5));
+    }
+    
+    // Covers set new and present edge, new vertices, weight zero, absent vertices.
+    @Test
+    public void testSet() {
+        IntGraph graph = IntGraph.empty();
+        assertEquals(0, graph.set(1, 2, 3));
+        assertEquals(3, graph.set(1, 2, 4));
+        assertEquals(0, graph.set(2, 1, 1));
+        assertArrayEquals(new int[] { 1, 2 }, graph.vertices());
+        assertEquals(2, graph.edgeCount());
+        assertEquals(4, graph.weight(1, 2));
+        assertEquals(4, graph.set(1, 2, 0));
+        assertEquals(0, graph.set(1, 2, 0));
+        assertEquals(0, graph.set(7, 8, 0));
+        assertEquals(0, graph.weight(1, 2));
+        assertEquals(1, graph.edgeCount());
+        assertArrayEquals(new int[] { 1, 2 }, graph.vertices());
+    }
+    
+    // Covers negative weight.
+    @Test(expected=IllegalArgumentException.class)
+    public void testSetNegative() {
+        IntGraph.empty().set(1, 2, -1);
+    }
+    
+    // Covers remove absent vertex, vertex with in, out and self-loop edges, slot reuse.
+    @Test
+    public void testRemove() {
+        IntGraph graph = IntGraph.empty();
+        assertFalse(graph.remove(1));
+        graph.set(1, 2, 1);
+        graph.set(3, 1, 2);
+        graph.set(1, 1, 3);
+        graph.set(2, 3, 4);
+        assertEquals(4, graph.edgeCount());
+        assertTrue(graph.remove(1));
+        assertFalse(graph.contains(1));
+        assertEquals(1, graph.edgeCount());
+        assertEquals(0, graph.inDegree(2));
+        assertEquals(0, graph.outDegree(3));
+        assertEquals(0, graph.weight(1, 1));
+        graph.set(4, 2, 5);
+        assertArrayEquals(new int[] { 2, 3, 4 }, graph.vertices());
+        assertEquals(1, graph.inDegree(2));
+        assertEquals(2, graph.edgeCount());
+    }
+    
+    // Covers forEachTarget and forEachSource with n edges and absent vertex.
+    @Test
+    public void testForEach() {
+        IntGraph graph = IntGraph.empty();
+        graph.set(1, 2, 5);
+        graph.set(1, 3, 6);
+        graph.set(4, 3, 7);
+        Map<Integer, Integer> targets = new HashMap<>();
+        graph.forEachTarget(1, targets::put);
+        assertEquals(Map.of(2, 5, 3, 6), targets);
+        Map<Integer, Integer> sources = new HashMap<>();
+        graph.forEachSource(3, sources::put);
+        assertEquals(Map.of(1, 6, 4, 7), sources);
+        graph.forEachTarget(9, (vertex, weight) -> fail("visited " + vertex));
+        assertEquals(2, graph.outDegree(1));
+        assertEquals(2, graph.inDegree(3));
+        assertEquals(0, graph.inDegree(9));
+    }
+    
+    // Covers changes through the view and changes to the graph seen by the view.
+    @Test
+    public void testAsGraph() {
+        IntGraph graph = IntGraph.empty();
+        Graph<Integer> view = graph.asGraph();
+        assertEquals(0, view.set(1, 2, 3));
+        assertEquals(3, graph.weight(1, 2));
+        graph.set(2, 3, 4);
+        assertEquals(Set.of(1, 2, 3), view.vertices());
+        assertEquals(Map.of(3, 4), view.targets(2));
+        assertEquals(Map.of(2, 4), view.sources(3));
+        assertTrue(view.remove(2));
+        assertEquals(0, graph.edgeCount());
+        assertEquals(graph.toString(), view.toString());
+    }
+    
+    // Covers round trip through Graph<Integer> and independence of the copy.
+    @Test
+    public void testCopyOf() {
+        Graph<Integer> boxed = new ConcurrentGraph<>();
+        boxed.set(1, 2, 3);
+        boxed.set(2, 2, 1);
+        boxed.add(9);
+        IntGraph copy = IntGraph.copyOf(boxed);
+        assertArrayEquals(new int[] { 1, 2, 9 }, copy.vertices());
+        assertEquals(2, copy.edgeCount());
+        assertEquals(1, copy.weight(2, 2));
+        boxed.set(1, 9, 1);
+        assertEquals(0, copy.weight(1, 9));
+        assertEquals(boxed.vertices(), IntGraph.copyOf(copy.asGraph()).asGraph().vertices());
+    }
+    
+}
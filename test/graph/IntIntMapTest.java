@@ -0,0 +1,118 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for IntIntMap.
+ */
+public class IntIntMapTest {
+    
+    /*
+     * Testing strategy for IntIntMap
+     *
+     * put()
+     *   key: new, present; map: below and at the resize threshold
+     * get()
+     *   key: present, absent, negative, zero
+     * remove()
+     *   key: present, absent; other keys in the same probe run: none, some
+     * forEach(), size()
+     *   map: empty, n entries
+     * asMap()
+     *   key: present, absent, not an Integer; changes after the view is made
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // Covers empty map, absent key.
+    @Test
+    public void testEmpty() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(0));
+        assertEquals(0, map.remove(7));
+        assertEquals("{}", map.toString());
+    }
+    
+    // Covers new and present keys, negative and zero keys.
+    @Test
+    public void testPutGet() {
+        IntIntMap map = new IntIntMap();
+        assertEquals(0, map.put(-3, 1));
+        assertEquals(0, map.put(0, 2));
+        assertEquals(1, map.put(-3, 5));
+        assertEquals(2, map.size());
+        assertEquals(5, map.get(-3));
+        assertEquals(2, map.get(0));
+        assertEquals(0, map.get(3));
+    }
+    
+    // Covers resizing past the threshold, forEach over n entries.
+    @Test
+    public void testGrowForEach() {
+        IntIntMap map = new IntIntMap();
+        for (int key = 0; key < 1000; key++) {
+            map.put(key * 31, key + 1);
+        }
+        assertEquals(1000, map.size());
+        Map<Integer, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(1000, seen.size());
+        for (int key = 0; key < 1000; key++) {
+            assertEquals(key + 1, (int) seen.get(key * 31));
+        }
+    }
+    
+    // Covers remove with other keys in the same probe run, against a HashMap.
+    @Test
+    public void testRandomOperations() {
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(6005);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(64) - 8;
+            if (random.nextBoolean()) {
+                int value = random.nextInt(100) + 1;
+                Integer previous = expected.put(key, value);
+                assertEquals(previous == null ? 0 : previous, map.put(key, value));
+            } else {
+                Integer previous = expected.remove(key);
+                assertEquals(previous == null ? 0 : previous, map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -8; key < 56; key++) {
+            assertEquals((int) expected.getOrDefault(key, 0), map.get(key));
+        }
+    }
+    
+    // Covers asMap with present, absent and non-Integer keys, changes seen by the view.
+    @Test
+    public void testAsMap() {
+        IntIntMap map = new IntIntMap();
+        Map<Integer, Integer> view = map.asMap();
+        assertEquals(Collections.emptyMap(), view);
+        map.put(1, 10);
+        map.put(-4, 20);
+        assertEquals(Map.of(1, 10, -4, 20), view);
+        assertEquals(10, (int) view.get(1));
+        assertNull(view.get(2));
+        assertFalse(view.containsKey("1"));
+        map.remove(1);
+        assertEquals(Map.of(-4, 20), new HashMap<>(view));
+    }
+    
+}
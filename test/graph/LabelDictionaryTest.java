@@ -0,0 +1,69 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for LabelDictionary.
+ */
+public class LabelDictionaryTest {
+    
+    /*
+     * Testing strategy for LabelDictionary
+     *
+     * intern()
+     *   label: new, already interned, equal but not identical
+     * idOf()
+     *   label: interned, never interned
+     * labelOf(), size()
+     *   dictionary: empty, n labels
+     * sharing
+     *   two graphs built on one dictionary
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // Covers new and already interned labels, non-identical equal labels, dense ids.
+    @Test
+    public void testInternDenseIds() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        assertEquals(0, labels.size());
+        assertEquals(0, labels.intern("a"));
+        assertEquals(1, labels.intern("b"));
+        assertEquals(0, labels.intern(new String("a")));
+        assertEquals(2, labels.size());
+        assertEquals("b", labels.labelOf(1));
+    }
+    
+    // Covers idOf interned and never interned label.
+    @Test
+    public void testIdOf() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        labels.intern("a");
+        assertEquals(0, labels.idOf("a"));
+        assertEquals(-1, labels.idOf("b"));
+        assertEquals(1, labels.size());
+    }
+    
+    // Covers two graphs sharing one dictionary.
+    @Test
+    public void testSharedByGraphs() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        Graph<String> edges = new ConcreteEdgesGraph(labels);
+        Graph<String> vertices = new ConcreteVerticesGraph(labels);
+        edges.set("a", "b", 1);
+        vertices.set("b", "c", 2);
+        assertEquals(3, labels.size());
+        assertEquals(1, (int) edges.targets("a").get("b"));
+        assertEquals(2, (int) vertices.sources("c").get("b"));
+        assertFalse(edges.vertices().contains("c"));
+    }
+    
+}
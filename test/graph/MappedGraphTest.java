@@ -0,0 +1,262 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for MappedGraph.
+ * 
+ * MappedGraph cannot be built empty and then modified, so it does not run the
+ * GraphInstanceTest tests; instead each test writes a ConcreteEdgesGraph to a
+ * file, maps it and compares the two.
+ */
+public class MappedGraphTest {
+    
+    /*
+     * Testing strategy for MappedGraph
+     *
+     * write(), load()
+     *   graph: empty, vertices without edges, n edges including a self loop
+     *   labels: ASCII, multi-byte and supplementary characters, empty string,
+     *           prefixes of each other, invalid UTF-16 (rejected)
+     *   order: null, every vertex once in an order other than the ids, missing or repeated vertex (rejected)
+     *   file: written by write(), truncated, not a graph file
+     * verify()
+     *   file: written by write(), one byte changed (loads, fails the check), not a graph file
+     * vertices(), sources(), targets()
+     *   vertex: in graph, not in graph; degree: 0, 1, n
+     * idOf(), labelOf(), ordinalOf()
+     *   label in graph, not in graph, invalid UTF-16
+     * forEachTarget(), forEachSource(), weight()
+     *   degree 0, n; edge present, absent
+     * add(), set(), remove()
+     *   always rejected
+     */
+    
+    // listed in the order they are added to sampleGraph(); in UTF-8 order they
+    // are vertex4, vertex2, vertex1 (two-byte characters), vertex3 (four bytes)
+    private static final String vertex1 = "\u00e9t\u00e9";
+    private static final String vertex2 = "b";
+    private static final String vertex3 = "\uD83D\uDE00";
+    private static final String vertex4 = "a";
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    /**
+     * @return vertex1 -> vertex2, vertex1 -> vertex3, vertex3 -> vertex3,
+     *         vertex2 -> vertex3, and vertex4 without edges
+     */
+    private static Graph<String> sampleGraph() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set(vertex1, vertex2, 1);
+        graph.set(vertex1, vertex3, 2);
+        graph.set(vertex3, vertex3, 3);
+        graph.set(vertex2, vertex3, 4);
+        graph.add(vertex4);
+        return graph;
+    }
+    
+    /**
+     * @return a new temporary file, deleted when the VM exits
+     */
+    private static Path tempFile() throws IOException {
+        File file = File.createTempFile("graph", ".bin");
+        file.deleteOnExit();
+        return file.toPath();
+    }
+    
+    private static MappedGraph roundTrip(Graph<String> graph, List<String> order) throws IOException {
+        Path file = tempFile();
+        MappedGraph.write(graph, order, file);
+        return MappedGraph.load(file);
+    }
+    
+    /**
+     * Assert that a mapped graph has the same vertices and edges as a graph.
+     */
+    private static void assertSameGraph(Graph<String> expected, MappedGraph actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        assertEquals(expected.vertices().size(), actual.vertexCount());
+        for (String vertex : expected.vertices()) {
+            assertEquals(expected.targets(vertex), actual.targets(vertex));
+            assertEquals(expected.sources(vertex), actual.sources(vertex));
+            assertEquals(vertex, actual.labelOf(actual.idOf(vertex)));
+        }
+    }
+    
+    // Covers empty graph.
+    @Test
+    public void testEmpty() throws IOException {
+        MappedGraph mapped = roundTrip(new ConcreteEdgesGraph(), null);
+        assertEquals(Collections.emptySet(), mapped.vertices());
+        assertEquals(Collections.emptyMap(), mapped.targets(vertex1));
+        assertEquals(-1, mapped.idOf(vertex1));
+        assertEquals(0, mapped.edgeCount());
+    }
+    
+    // Covers n edges with a self loop and an isolated vertex, null order;
+    // sources and targets of degree 0, 1, n; vertex not in graph.
+    @Test
+    public void testMatchesGraph() throws IOException {
+        Graph<String> graph = sampleGraph();
+        MappedGraph mapped = roundTrip(graph, null);
+        assertSameGraph(graph, mapped);
+        assertEquals(Collections.emptyMap(), mapped.sources("missing"));
+        assertFalse(mapped.vertices().contains("missing"));
+        assertEquals(4, mapped.edgeCount());
+        assertEquals("Graph contains 4 vertices and 4 edges", mapped.toString());
+        for (int id = 0; id < mapped.vertexCount(); id++) {
+            assertEquals(id, mapped.ordinalOf(id));
+        }
+    }
+    
+    // Covers multi-byte, supplementary and empty labels, prefixes, ids in UTF-8 order;
+    // label with invalid UTF-16 not in graph.
+    @Test
+    public void testUnicodeLabels() throws IOException {
+        List<String> labels = Arrays.asList("z", "", "\u00e9", "\uD83D\uDE00", "\uE000", "a", "ab", "abc");
+        Graph<String> graph = new ConcreteEdgesGraph();
+        for (int i = 0; i < labels.size(); i++) {
+            graph.set(labels.get(i), labels.get((i + 1) % labels.size()), i + 1);
+        }
+        MappedGraph mapped = roundTrip(graph, null);
+        assertSameGraph(graph, mapped);
+        List<String> byId = new ArrayList<>(mapped.vertices());
+        assertEquals(Arrays.asList("", "a", "ab", "abc", "z", "\u00e9", "\uE000", "\uD83D\uDE00"), byId);
+        assertEquals(-1, mapped.idOf("\uD83D"));
+        assertEquals(-1, mapped.idOf("abcd"));
+    }
+    
+    // Covers order listing every vertex once, in an order other than that of the ids.
+    @Test
+    public void testOrdinals() throws IOException {
+        List<String> order = Arrays.asList(vertex1, vertex2, vertex3, vertex4);
+        MappedGraph mapped = roundTrip(sampleGraph(), order);
+        assertEquals(Arrays.asList(vertex4, vertex2, vertex1, vertex3), new ArrayList<>(mapped.vertices()));
+        for (int ordinal = 0; ordinal < order.size(); ordinal++) {
+            assertEquals(ordinal, mapped.ordinalOf(mapped.idOf(order.get(ordinal))));
+        }
+        assertEquals(2, mapped.idOf(vertex1));
+        assertEquals(0, mapped.ordinalOf(2));
+    }
+    
+    // Covers order with a missing vertex.
+    @Test(expected=IllegalArgumentException.class)
+    public void testOrderMissingVertex() throws IOException {
+        roundTrip(sampleGraph(), Arrays.asList(vertex1, vertex2, vertex3));
+    }
+    
+    // Covers order with a repeated vertex.
+    @Test(expected=IllegalArgumentException.class)
+    public void testOrderRepeatedVertex() throws IOException {
+        roundTrip(sampleGraph(), Arrays.asList(vertex1, vertex2, vertex3, vertex3));
+    }
+    
+    // Covers label with invalid UTF-16.
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidLabel() throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.add("\uDE00x");
+        roundTrip(graph, null);
+    }
+    
+    // Covers truncated file.
+    @Test(expected=IOException.class)
+    public void testTruncatedFile() throws IOException {
+        Path file = tempFile();
+        MappedGraph.write(sampleGraph(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        MappedGraph.load(file);
+    }
+    
+    // Covers not a graph file.
+    @Test(expected=IOException.class)
+    public void testNotGraphFile() throws IOException {
+        Path file = tempFile();
+        Files.write(file, "V1 V2 V3 V4 V5 V6 V7 V8".getBytes("UTF-8"));
+        MappedGraph.load(file);
+    }
+    
+    // Covers verify() of a file as written and with a changed byte, which load() still maps.
+    @Test
+    public void testVerify() throws IOException {
+        Path file = tempFile();
+        MappedGraph.write(sampleGraph(), file);
+        MappedGraph.verify(file);
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+        MappedGraph.load(file);
+        try {
+            MappedGraph.verify(file);
+            fail("expected IOException");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+    
+    // Covers verify() of a file that is not a graph file.
+    @Test(expected=IOException.class)
+    public void testVerifyNotGraphFile() throws IOException {
+        Path file = tempFile();
+        Files.write(file, "V1 V2 V3 V4 V5 V6 V7 V8".getBytes("UTF-8"));
+        MappedGraph.verify(file);
+    }
+    
+    // Covers id round trip, primitive visitors and weight lookup.
+    @Test
+    public void testPrimitiveAccess() throws IOException {
+        MappedGraph mapped = roundTrip(sampleGraph(), null);
+        int id1 = mapped.idOf(vertex1);
+        int id3 = mapped.idOf(vertex3);
+        int id4 = mapped.idOf(vertex4);
+        assertEquals(2, mapped.outDegree(id1));
+        assertEquals(3, mapped.inDegree(id3));
+        assertEquals(0, mapped.outDegree(id4));
+        assertEquals(2, mapped.weight(id1, id3));
+        assertEquals(3, mapped.weight(id3, id3));
+        assertEquals(0, mapped.weight(id3, id1));
+        assertEquals(0, mapped.weight(id4, id1));
+        
+        Map<String, Integer> visited = new HashMap<>();
+        mapped.forEachSource(id3, (source, weight) -> visited.put(mapped.labelOf(source), weight));
+        assertEquals(sampleGraph().sources(vertex3), visited);
+        
+        List<Integer> targetIds = new ArrayList<>();
+        mapped.forEachTarget(id1, (target, weight) -> targetIds.add(target));
+        assertEquals(Arrays.asList(mapped.idOf(vertex2), id3), targetIds);
+    }
+    
+    // Covers mutators rejected.
+    @Test(expected=UnsupportedOperationException.class)
+    public void testAddRejected() throws IOException {
+        roundTrip(sampleGraph(), null).add("V5");
+    }
+    
+    // Covers mutators rejected.
+    @Test(expected=UnsupportedOperationException.class)
+    public void testSetRejected() throws IOException {
+        roundTrip(sampleGraph(), null).set(vertex1, vertex4, 1);
+    }
+    
+    // Covers mutators rejected.
+    @Test(expected=UnsupportedOperationException.class)
+    public void testRemoveRejected() throws IOException {
+        roundTrip(sampleGraph(), null).remove(vertex1);
+    }
+    
+}
@@ -0,0 +1,138 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for OffHeapGraph.
+ * 
+ * This class runs the GraphInstanceTest tests against OffHeapGraph, as well as
+ * tests for that particular implementation.
+ */
+public class OffHeapGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Testing strategy for OffHeapGraph
+     *
+     * set(), remove()
+     *   degree: below and above the size of the first block, so blocks grow and are reused
+     *   many random operations, compared with ConcreteEdgesGraph
+     *   weight: negative (rejected)
+     * OffHeapGraph(labels)
+     *   dictionary shared with another graph, with ids beyond this graph's vertices
+     * vertexCount(), edgeCount(), offHeapBytes(), toString()
+     *   graph: empty, n vertices and edges, closed
+     * close()
+     *   once, twice; every operation after close
+     */
+    
+    @Override public Graph<String> emptyInstance() {
+        return new OffHeapGraph();
+    }
+    
+    // Covers negative weight.
+    @Test(expected=IllegalArgumentException.class)
+    public void testSetNegative() {
+        new OffHeapGraph().set("a", "b", -1);
+    }
+    
+    // Covers a vertex whose degree outgrows several blocks, counts, self loop removal.
+    @Test
+    public void testHighDegree() {
+        try (OffHeapGraph graph = new OffHeapGraph()) {
+            for (int i = 0; i < 1000; i++) {
+                graph.set("hub", "v" + i, i + 1);
+                graph.set("v" + i, "hub", 2 * i + 1);
+            }
+            graph.set("hub", "hub", 7);
+            assertEquals(1001, graph.vertexCount());
+            assertEquals(2001, graph.edgeCount());
+            assertEquals(1001, graph.targets("hub").size());
+            assertEquals(500, (int) graph.targets("hub").get("v499"));
+            assertEquals(999, (int) graph.sources("hub").get("v499"));
+            assertTrue(graph.offHeapBytes() > 0);
+            assertEquals("Graph contains 1001 vertices and 2001 edges", graph.toString());
+            assertTrue(graph.remove("hub"));
+            assertEquals(1000, graph.vertexCount());
+            assertEquals(0, graph.edgeCount());
+            assertEquals(Collections.emptyMap(), graph.targets("v3"));
+            assertEquals(Collections.emptyMap(), graph.sources("v3"));
+        }
+    }
+    
+    // Covers many random operations against ConcreteEdgesGraph, so freed blocks are reused.
+    @Test
+    public void testRandomOperations() {
+        Graph<String> expected = new ConcreteEdgesGraph();
+        try (OffHeapGraph graph = new OffHeapGraph()) {
+            Random random = new Random(6005);
+            for (int i = 0; i < 20000; i++) {
+                String source = "v" + random.nextInt(40);
+                String target = "v" + random.nextInt(40);
+                if (random.nextInt(50) == 0) {
+                    assertEquals(expected.remove(source), graph.remove(source));
+                } else {
+                    int weight = random.nextInt(4);
+                    assertEquals(expected.set(source, target, weight), graph.set(source, target, weight));
+                }
+            }
+            assertEquals(expected.vertices(), graph.vertices());
+            for (String vertex : expected.vertices()) {
+                assertEquals(expected.targets(vertex), graph.targets(vertex));
+                assertEquals(expected.sources(vertex), graph.sources(vertex));
+            }
+            assertEquals(expected.toString(), graph.toString());
+        }
+    }
+    
+    // Covers a dictionary shared with another graph.
+    @Test
+    public void testSharedDictionary() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        Graph<String> other = new ConcreteEdgesGraph(labels);
+        for (int i = 0; i < 100; i++) {
+            other.add("other" + i);
+        }
+        try (OffHeapGraph graph = new OffHeapGraph(labels)) {
+            graph.set("a", "b", 1);
+            assertEquals(Set.of("a", "b"), graph.vertices());
+            assertFalse(graph.remove("other5"));
+            assertEquals(Collections.emptyMap(), graph.targets("other99"));
+        }
+    }
+    
+    // Covers close once and twice, every operation after close.
+    @Test
+    public void testClose() {
+        OffHeapGraph graph = new OffHeapGraph();
+        graph.set("a", "b", 1);
+        graph.close();
+        graph.close();
+        assertEquals(0, graph.offHeapBytes());
+        assertEquals("Closed graph", graph.toString());
+        List<Runnable> operations = List.of(
+                () -> graph.add("c"),
+                () -> graph.set("a", "b", 2),
+                () -> graph.remove("a"),
+                () -> graph.vertices(),
+                () -> graph.sources("b"),
+                () -> graph.targets("a"),
+                () -> graph.vertexCount(),
+                () -> graph.edgeCount());
+        for (Runnable operation : operations) {
+            try {
+                operation.run();
+                fail("expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                // expected
+            }
+        }
+    }
+    
+}
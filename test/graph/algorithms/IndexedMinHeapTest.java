@@ -0,0 +1,88 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+/**
+ * Tests for IndexedMinHeap.
+ */
+public class IndexedMinHeapTest {
+    
+    /*
+     * Testing strategy for IndexedMinHeap
+     *
+     * offer()
+     *   element: new, present with larger key, present with smaller or equal key
+     * poll()
+     *   heap: one element, n elements with equal and distinct keys
+     * contains(), isEmpty(), keyOf()
+     *   before and after poll()
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // Covers one element, contains and keyOf before and after poll.
+    @Test
+    public void testOneElement() {
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        assertTrue(heap.isEmpty());
+        assertTrue(heap.offer(2, 7));
+        assertTrue(heap.contains(2));
+        assertFalse(heap.contains(0));
+        assertEquals(2, heap.poll());
+        assertEquals(7, heap.keyOf(2));
+        assertFalse(heap.contains(2));
+        assertTrue(heap.isEmpty());
+    }
+    
+    // Covers offer of present element with larger, smaller and equal keys.
+    @Test
+    public void testDecreaseKey() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.offer(0, 10);
+        heap.offer(1, 20);
+        heap.offer(2, 30);
+        assertTrue(heap.offer(2, 5));
+        assertFalse(heap.offer(1, 25));
+        assertFalse(heap.offer(1, 20));
+        assertEquals(2, heap.poll());
+        assertEquals(0, heap.poll());
+        assertEquals(1, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+    
+    // Covers n elements with equal and distinct keys, against sorting.
+    @Test
+    public void testRandomKeys() {
+        Random random = new Random(6005);
+        IndexedMinHeap heap = new IndexedMinHeap(500);
+        long[] best = new long[500];
+        Arrays.fill(best, Long.MAX_VALUE);
+        for (int i = 0; i < 2000; i++) {
+            int element = random.nextInt(500);
+            long key = random.nextInt(100);
+            heap.offer(element, key);
+            best[element] = Math.min(best[element], key);
+        }
+        long last = Long.MIN_VALUE;
+        int count = 0;
+        while (!heap.isEmpty()) {
+            int element = heap.poll();
+            assertEquals(best[element], heap.keyOf(element));
+            assertTrue(heap.keyOf(element) >= last);
+            last = heap.keyOf(element);
+            count++;
+        }
+        assertEquals(Arrays.stream(best).filter(key -> key != Long.MAX_VALUE).count(), count);
+    }
+    
+}
@@ -0,0 +1,153 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.FrozenGraph;
+import graph.Graph;
+
+/**
+ * Tests for PageRank.
+ */
+public class PageRankTest {
+    
+    /*
+     * Testing strategy for PageRank
+     *
+     * rank()
+     *   graph: empty, symmetric cycle, weighted edges, dangling vertex, self loop,
+     *          large enough to be split among workers
+     *   pool parallelism: 1, n
+     *   damping: 0, default, 1; tolerance: 0, default; maxIterations: 0, 1, default
+     *   damping, tolerance, maxIterations out of range (rejected)
+     */
+    
+    private static final double EPSILON = 1e-9;
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // Covers empty graph.
+    @Test
+    public void testEmpty() {
+        FrozenGraph<String> frozen = FrozenGraph.freeze(new ConcreteEdgesGraph());
+        assertEquals(0, PageRank.rank(frozen, ForkJoinPool.commonPool()).length);
+    }
+    
+    // Covers symmetric cycle: every vertex has the same rank.
+    @Test
+    public void testCycle() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 2);
+        graph.set("b", "c", 2);
+        graph.set("c", "a", 2);
+        double[] rank = PageRank.rank(FrozenGraph.freeze(graph), ForkJoinPool.commonPool());
+        assertArrayEquals(new double[] { 1.0 / 3, 1.0 / 3, 1.0 / 3 }, rank, EPSILON);
+    }
+    
+    // Covers weighted edges, dangling vertex, self loop, against the closed form for damping 1.
+    @Test
+    public void testWeightedWithDangling() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 3);
+        graph.set("a", "c", 1);
+        graph.set("c", "c", 1);
+        graph.set("b", "a", 1);
+        graph.add("d");
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        double[] rank = PageRank.rank(frozen, new ForkJoinPool(1));
+        assertEquals(1.0, Arrays.stream(rank).sum(), EPSILON);
+        double[] reference = referenceRank(frozen, PageRank.DEFAULT_DAMPING, 1000);
+        assertArrayEquals(reference, rank, 1e-8);
+        assertTrue(rank[frozen.idOf("b")] > rank[frozen.idOf("d")]);
+        // with damping 0 the surfer always jumps
+        double[] uniform = PageRank.rank(frozen, ForkJoinPool.commonPool(), 0, 0, 5);
+        assertArrayEquals(new double[] { 0.25, 0.25, 0.25, 0.25 }, uniform, EPSILON);
+    }
+    
+    // Covers maxIterations 0 and 1, damping 1, tolerance 0.
+    @Test
+    public void testIterationCap() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 1);
+        graph.set("b", "b", 1);
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        int a = frozen.idOf("a");
+        int b = frozen.idOf("b");
+        double[] start = PageRank.rank(frozen, ForkJoinPool.commonPool(), 1, 0, 0);
+        assertArrayEquals(new double[] { 0.5, 0.5 }, start, EPSILON);
+        double[] once = PageRank.rank(frozen, ForkJoinPool.commonPool(), 1, 0, 1);
+        assertEquals(0.0, once[a], EPSILON);
+        assertEquals(1.0, once[b], EPSILON);
+    }
+    
+    // Covers a graph split among workers: parallel and sequential runs agree.
+    @Test
+    public void testParallelMatchesSequential() {
+        Random random = new Random(6005);
+        Graph<String> graph = new ConcreteEdgesGraph();
+        for (int i = 0; i < 20000; i++) {
+            graph.set("v" + random.nextInt(5000), "v" + random.nextInt(5000), 1 + random.nextInt(5));
+        }
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        double[] sequential = PageRank.rank(frozen, new ForkJoinPool(1));
+        double[] parallel = PageRank.rank(frozen, new ForkJoinPool(4));
+        // sums are added in a different order, so the last iteration may differ
+        assertArrayEquals(sequential, parallel, 1e-9);
+        assertEquals(1.0, Arrays.stream(parallel).sum(), 1e-6);
+    }
+    
+    // Covers damping out of range.
+    @Test(expected=IllegalArgumentException.class)
+    public void testDampingOutOfRange() {
+        PageRank.rank(FrozenGraph.freeze(new ConcreteEdgesGraph()), ForkJoinPool.commonPool(), 1.5, 0, 1);
+    }
+    
+    // Covers tolerance out of range.
+    @Test(expected=IllegalArgumentException.class)
+    public void testToleranceOutOfRange() {
+        PageRank.rank(FrozenGraph.freeze(new ConcreteEdgesGraph()), ForkJoinPool.commonPool(), 0.5, Double.NaN, 1);
+    }
+    
+    // Covers maxIterations out of range.
+    @Test(expected=IllegalArgumentException.class)
+    public void testIterationsOutOfRange() {
+        PageRank.rank(FrozenGraph.freeze(new ConcreteEdgesGraph()), ForkJoinPool.commonPool(), 0.5, 0, -1);
+    }
+    
+    /**
+     * Sequential power iteration straight from the definition, with weight()
+     * over all pairs of vertices.
+     */
+    private static double[] referenceRank(FrozenGraph<String> graph, double damping, int iterations) {
+        int n = graph.vertexCount();
+        double[] rank = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            double[] next = new double[n];
+            for (int u = 0; u < n; u++) {
+                long out = 0;
+                for (int v = 0; v < n; v++) {
+                    out += graph.weight(u, v);
+                }
+                for (int v = 0; v < n; v++) {
+                    double follow = out == 0 ? 1.0 / n : (double) graph.weight(u, v) / out;
+                    next[v] += rank[u] * (out == 0 ? follow : damping * follow + (1 - damping) / n);
+                }
+            }
+            rank = next;
+        }
+        return rank;
+    }
+    
+}
@@ -0,0 +1,143 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.ConcreteVerticesGraph;
+import graph.FrozenGraph;
+import graph.Graph;
+import graph.LabelDictionary;
+
+/**
+ * Tests for ShortestPaths.
+ */
+public class ShortestPathsTest {
+    
+    /*
+     * Testing strategy for ShortestPaths
+     *
+     * distances(), path()
+     *   graph: IndexedGraph, ConcreteEdgesGraph (read by dictionary id), other Graph
+     *   label dictionary: own, shared with labels that are not vertices of the graph
+     *   source, target: not in graph, equal, target unreachable
+     *   shortest path: direct edge, longer path with fewer weight, weights summing past int range
+     *   random graphs, compared with a simple quadratic Dijkstra
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // Covers a longer path with smaller weight than a direct edge, unreachable vertex.
+    @Test
+    public void testDistances() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 10);
+        graph.set("a", "c", 1);
+        graph.set("c", "b", 2);
+        graph.set("b", "d", 1);
+        graph.set("e", "a", 1);
+        assertEquals(Map.of("a", 0L, "b", 3L, "c", 1L, "d", 4L), ShortestPaths.distances(graph, "a"));
+        assertEquals(List.of("a", "c", "b", "d"), ShortestPaths.path(graph, "a", "d"));
+        assertEquals(List.of(), ShortestPaths.path(graph, "a", "e"));
+        assertEquals(List.of("a"), ShortestPaths.path(graph, "a", "a"));
+        assertEquals(List.of(), ShortestPaths.path(graph, "a", "missing"));
+        assertEquals(Map.of(), ShortestPaths.distances(graph, "missing"));
+    }
+    
+    // Covers a ConcreteEdgesGraph whose shared dictionary has labels that are not its vertices,
+    // and a Graph that is copied.
+    @Test
+    public void testSparseIdsAndOtherGraph() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        labels.intern("elsewhere");
+        Graph<String> sparse = new ConcreteEdgesGraph(labels);
+        Graph<String> other = new ConcreteVerticesGraph();
+        labels.intern("between");
+        for (Graph<String> graph : List.of(sparse, other)) {
+            graph.set("a", "b", 5);
+            graph.set("a", "c", 1);
+            graph.set("c", "b", 1);
+        }
+        for (Graph<String> graph : List.of(sparse, other)) {
+            assertEquals(Map.of("a", 0L, "b", 2L, "c", 1L), ShortestPaths.distances(graph, "a"));
+            assertEquals(List.of("a", "c", "b"), ShortestPaths.path(graph, "a", "b"));
+            assertEquals(List.of(), ShortestPaths.path(graph, "a", "between"));
+            assertEquals(Map.of(), ShortestPaths.distances(graph, "elsewhere"));
+        }
+    }
+    
+    // Covers weights summing past the int range, on an IndexedGraph with predecessors.
+    @Test
+    public void testLongDistances() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", Integer.MAX_VALUE);
+        graph.set("b", "c", Integer.MAX_VALUE);
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        int[] previous = new int[frozen.vertexCount()];
+        long[] distances = ShortestPaths.distances(frozen, frozen.idOf("a"), previous);
+        assertEquals(2L * Integer.MAX_VALUE, distances[frozen.idOf("c")]);
+        assertEquals(frozen.idOf("b"), previous[frozen.idOf("c")]);
+        assertEquals(-1, previous[frozen.idOf("a")]);
+    }
+    
+    // Covers random graphs against a quadratic Dijkstra without a heap.
+    @Test
+    public void testRandomGraphs() {
+        Random random = new Random(6005);
+        for (int round = 0; round < 20; round++) {
+            int n = 30;
+            Graph<String> graph = new ConcreteEdgesGraph();
+            for (int i = 0; i < n; i++) {
+                graph.add("v" + i);
+            }
+            for (int i = 0; i < 100; i++) {
+                graph.set("v" + random.nextInt(n), "v" + random.nextInt(n), 1 + random.nextInt(20));
+            }
+            FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+            long[] expected = quadraticDijkstra(frozen, 0);
+            assertTrue(Arrays.equals(expected, ShortestPaths.distances(frozen, 0, null)));
+        }
+    }
+    
+    private static long[] quadraticDijkstra(FrozenGraph<String> graph, int source) {
+        int n = graph.vertexCount();
+        long[] distance = new long[n];
+        boolean[] done = new boolean[n];
+        Arrays.fill(distance, Long.MAX_VALUE);
+        distance[source] = 0;
+        for (int round = 0; round < n; round++) {
+            int best = -1;
+            for (int v = 0; v < n; v++) {
+                if (!done[v] && distance[v] != Long.MAX_VALUE && (best < 0 || distance[v] < distance[best])) {
+                    best = v;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            done[best] = true;
+            for (int w = 0; w < n; w++) {
+                int weight = graph.weight(best, w);
+                if (weight > 0 && distance[best] + weight < distance[w]) {
+                    distance[w] = distance[best] + weight;
+                }
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            if (distance[v] == Long.MAX_VALUE) {
+                distance[v] = -1;
+            }
+        }
+        return distance;
+    }
+    
+}
@@ -0,0 +1,160 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.algorithms;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import graph.ConcreteEdgesGraph;
+import graph.ConcreteVerticesGraph;
+import graph.FrozenGraph;
+import graph.Graph;
+import graph.LabelDictionary;
+
+/**
+ * Tests for Traversal.
+ */
+public class TraversalTest {
+    
+    /*
+     * Testing strategy for Traversal
+     *
+     * breadthFirst(), depthFirst()
+     *   graph: IndexedGraph, ConcreteEdgesGraph (read by dictionary id), other Graph (copied once)
+     *   label dictionary: own, shared with labels that are not vertices of the graph
+     *   start: not in graph, without edges, with cycles and a self loop
+     *   some vertices unreachable from start
+     * hops(), neighborhood()
+     *   maxHops: negative (rejected), 0, 1, more than the diameter
+     *   sequential, on a pool with parallelism 1 and n, levels larger than one worker's share
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    /**
+     * @return a -> b, a -> c, b -> d, c -> d, d -> a, d -> d, e -> a
+     */
+    private static Graph<String> sampleGraph() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 1);
+        graph.set("b", "d", 1);
+        graph.set("c", "d", 1);
+        graph.set("d", "a", 1);
+        graph.set("d", "d", 1);
+        graph.set("e", "a", 1);
+        return graph;
+    }
+    
+    // Covers breadth-first from a vertex with cycles on a non-indexed graph, unreachable vertex.
+    @Test
+    public void testBreadthFirst() {
+        assertEquals(List.of("a", "b", "c", "d"), Traversal.breadthFirst(sampleGraph(), "a"));
+    }
+    
+    // Covers depth-first on an IndexedGraph, self loop.
+    @Test
+    public void testDepthFirst() {
+        Graph<String> graph = new ConcreteEdgesGraph();
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 1);
+        graph.set("b", "x", 1);
+        graph.set("c", "y", 1);
+        graph.set("y", "y", 1);
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        List<String> order = Traversal.depthFirst(frozen, "a");
+        // each subtree is finished before the next target of a is visited
+        assertTrue(order.toString(), order.equals(List.of("a", "b", "x", "c", "y"))
+                || order.equals(List.of("a", "c", "y", "b", "x")));
+        int[] ids = Traversal.depthFirst(frozen, frozen.idOf("c"));
+        assertArrayEquals(new int[] { frozen.idOf("c"), frozen.idOf("y") }, ids);
+    }
+    
+    // Covers start not in graph and start without edges.
+    @Test
+    public void testStartNotInGraph() {
+        Graph<String> graph = sampleGraph();
+        graph.add("lonely");
+        assertEquals(List.of(), Traversal.breadthFirst(graph, "missing"));
+        assertEquals(List.of(), Traversal.depthFirst(graph, "missing"));
+        assertEquals(Map.of(), Traversal.neighborhood(graph, "missing", 3));
+        assertEquals(List.of("lonely"), Traversal.depthFirst(graph, "lonely"));
+    }
+    
+    // Covers maxHops 0, 1 and more than the diameter.
+    @Test
+    public void testNeighborhood() {
+        Graph<String> graph = sampleGraph();
+        assertEquals(Map.of("e", 0), Traversal.neighborhood(graph, "e", 0));
+        assertEquals(Map.of("e", 0, "a", 1), Traversal.neighborhood(graph, "e", 1));
+        assertEquals(Map.of("e", 0, "a", 1, "b", 2, "c", 2, "d", 3), Traversal.neighborhood(graph, "e", 10));
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        int[] hops = Traversal.hops(frozen, frozen.idOf("b"), 2);
+        assertEquals(1, hops[frozen.idOf("d")]);
+        assertEquals(2, hops[frozen.idOf("a")]);
+        assertEquals(-1, hops[frozen.idOf("c")]);
+        assertEquals(-1, hops[frozen.idOf("e")]);
+    }
+    
+    // Covers a ConcreteEdgesGraph whose shared dictionary has labels that are not its vertices,
+    // and a Graph that is copied.
+    @Test
+    public void testSparseIdsAndOtherGraph() {
+        LabelDictionary<String> labels = new LabelDictionary<>();
+        labels.intern("elsewhere");
+        Graph<String> sparse = new ConcreteEdgesGraph(labels);
+        Graph<String> other = new ConcreteVerticesGraph();
+        labels.intern("between");
+        for (Graph<String> graph : List.of(sparse, other)) {
+            graph.set("a", "b", 1);
+            graph.set("b", "c", 1);
+            graph.set("c", "a", 1);
+        }
+        labels.intern("after");
+        for (Graph<String> graph : List.of(sparse, other)) {
+            assertEquals(List.of("b", "c", "a"), Traversal.breadthFirst(graph, "b"));
+            assertEquals(List.of("b", "c", "a"), Traversal.depthFirst(graph, "b"));
+            assertEquals(Map.of("b", 0, "c", 1), Traversal.neighborhood(graph, "b", 1));
+            assertEquals(List.of(), Traversal.breadthFirst(graph, "elsewhere"));
+            assertEquals(Map.of(), Traversal.neighborhood(graph, "between", 2));
+        }
+    }
+    
+    // Covers negative maxHops.
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeHops() {
+        Traversal.neighborhood(sampleGraph(), "a", -1);
+    }
+    
+    // Covers parallel hops against sequential hops, levels larger than one worker's share.
+    @Test
+    public void testParallelHops() {
+        Random random = new Random(6005);
+        Graph<String> graph = new ConcreteEdgesGraph();
+        for (int i = 0; i < 30000; i++) {
+            graph.set("v" + random.nextInt(10000), "v" + random.nextInt(10000), 1);
+        }
+        FrozenGraph<String> frozen = FrozenGraph.freeze(graph);
+        int start = frozen.idOf("v0");
+        for (int maxHops : new int[] { 0, 1, 3, Integer.MAX_VALUE }) {
+            int[] expected = Traversal.hops(frozen, start, maxHops);
+            assertArrayEquals(expected, Traversal.hops(frozen, start, maxHops, new ForkJoinPool(1)));
+            assertArrayEquals(expected, Traversal.hops(frozen, start, maxHops, new ForkJoinPool(4)));
+        }
+    }
+    
+    // Covers negative maxHops in parallel.
+    @Test(expected=IllegalArgumentException.class)
+    public void testParallelNegativeHops() {
+        Traversal.hops(FrozenGraph.freeze(sampleGraph()), 0, -1, ForkJoinPool.commonPool());
+    }
+    
+}
@@ -0,0 +1,155 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.metrics;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import graph.ConcurrentGraph;
+import graph.Graph;
+import graph.GraphInstanceTest;
+
+/**
+ * Tests for InstrumentedGraph and the metrics it keeps.
+ *
+ * This class runs the GraphInstanceTest tests against an InstrumentedGraph
+ * wrapping Graph.empty(), as well as tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class InstrumentedGraphTest extends GraphInstanceTest {
+    
+    /*
+     * Testing strategy for InstrumentedGraph
+     *
+     * each operation: counted with its result size; add, remove: changed or not;
+     *   set: edge existed or not
+     * operation that throws: counted as an error, exception passed on
+     * calls from several threads at once: none lost
+     * metrics().reset()
+     * metrics().register(), unregister()
+     *   attributes readable over JMX; name already registered; registered twice
+     */
+    
+    /*
+     * Provide an InstrumentedGraph for tests in GraphInstanceTest.
+     */
+    @Override public Graph<String> emptyInstance() {
+        return new InstrumentedGraph<>(Graph.empty());
+    }
+    
+    // Covers every operation and its result size, reset.
+    @Test
+    public void testOperationMetrics() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty());
+        assertTrue(graph.add("a"));
+        assertFalse(graph.add("a"));
+        assertEquals(0, graph.set("a", "b", 2));
+        assertEquals(2, graph.set("a", "b", 3));
+        assertEquals(Map.of("b", 3), graph.targets("a"));
+        assertEquals(Collections.emptyMap(), graph.sources("a"));
+        assertEquals(Set.of("a", "b"), graph.vertices());
+        assertTrue(graph.remove("b"));
+        
+        MetricsGroup metrics = graph.metrics();
+        assertEquals(Arrays.asList("add", "set", "remove", "vertices", "sources", "targets"),
+                new ArrayList<>(metrics.operations().keySet()));
+        assertEquals(2, metrics.get("add").getCount());
+        assertEquals(1, metrics.get("add").getTotalResultSize());
+        assertEquals(0.5, metrics.get("add").getMeanResultSize(), 0);
+        assertEquals(1, metrics.get("set").getTotalResultSize());
+        assertEquals(1, metrics.get("targets").getTotalResultSize());
+        assertEquals(0, metrics.get("sources").getTotalResultSize());
+        assertEquals(2, metrics.get("vertices").getTotalResultSize());
+        assertEquals(1, metrics.get("remove").getCount());
+        assertTrue(metrics.get("set").getMeanLatencyNanos() >= 0);
+        assertTrue(metrics.get("set").getP999LatencyNanos() <= metrics.get("set").getMaxLatencyNanos());
+        assertTrue(metrics.get("vertices").getEstimatedAllocatedBytes() >= 0);
+        assertNull(metrics.get("increment"));
+        
+        metrics.reset();
+        assertEquals(0, metrics.get("add").getCount());
+        assertEquals(0, metrics.get("add").getMeanLatencyNanos(), 0);
+        assertEquals(0, metrics.get("add").getMaxLatencyNanos());
+    }
+    
+    // Covers an operation that throws.
+    @Test
+    public void testError() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(new ConcurrentGraph<>());
+        try {
+            graph.set("a", "b", -1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(1, graph.metrics().get("set").getCount());
+        assertEquals(1, graph.metrics().get("set").getErrorCount());
+        assertEquals(0, graph.metrics().get("set").getMeanResultSize(), 0);
+    }
+    
+    // Covers calls from several threads at once.
+    @Test
+    public void testConcurrent() throws Exception {
+        InstrumentedGraph<Integer> graph = new InstrumentedGraph<>(new ConcurrentGraph<>());
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                done.add(threads.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        graph.set(thread, i, 1);
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+        assertEquals(4000, graph.metrics().get("set").getCount());
+    }
+    
+    // Covers registration: attributes over JMX, name taken, registered twice.
+    @Test
+    public void testRegister() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty());
+        InstrumentedGraph<String> other = new InstrumentedGraph<>(Graph.empty());
+        graph.add("a");
+        ObjectName name = new ObjectName(MetricsGroup.DOMAIN
+                + ":type=\"InstrumentedGraph\",name=\"test\",operation=\"add\"");
+        graph.metrics().register(server, "InstrumentedGraph", "test");
+        try {
+            graph.metrics().register(server, "InstrumentedGraph", "test");
+            assertTrue(graph.metrics().isRegistered());
+            assertEquals(1L, server.getAttribute(name, "Count"));
+            assertEquals("add", server.getAttribute(name, "Operation"));
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0L, server.getAttribute(name, "Count"));
+            try {
+                other.metrics().register(server, "InstrumentedGraph", "test");
+                fail("expected JMException");
+            } catch (JMException e) {
+                assertFalse(other.metrics().isRegistered());
+            }
+        } finally {
+            graph.metrics().unregister();
+        }
+        assertFalse(graph.metrics().isRegistered());
+        assertFalse(server.isRegistered(name));
+    }
+    
+}
@@ -0,0 +1,97 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package graph.metrics;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for LatencyHistogram.
+ */
+public class LatencyHistogramTest {
+    
+    /*
+     * Testing strategy for LatencyHistogram
+     *
+     * indexOf(), highestOf()
+     *   value: 0, below SUB_BUCKETS, powers of two and their neighbours, Long.MAX_VALUE
+     * record()
+     *   value: negative, 0, n; histogram: empty, n values
+     * valueAtPercentile()
+     *   percentile: 0, 50, 100, out of range; histogram: empty, one value, random values
+     * max(), count(), reset()
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // Covers every bucket boundary: each value lies in the bucket whose bounds contain it.
+    @Test
+    public void testBuckets() {
+        assertEquals(0, LatencyHistogram.indexOf(0));
+        assertEquals(15, LatencyHistogram.indexOf(15));
+        assertEquals(16, LatencyHistogram.indexOf(16));
+        int last = LatencyHistogram.indexOf(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestOf(last));
+        for (int index = 1; index <= last; index++) {
+            long lowest = LatencyHistogram.highestOf(index - 1) + 1;
+            long highest = LatencyHistogram.highestOf(index);
+            assertEquals(index, LatencyHistogram.indexOf(lowest));
+            assertEquals(index, LatencyHistogram.indexOf(highest));
+            assertTrue("bucket too wide: " + index,
+                    highest - lowest <= Math.max(0, lowest / LatencyHistogram.SUB_BUCKETS));
+        }
+    }
+    
+    // Covers empty histogram, negative and zero values, one value, reset.
+    @Test
+    public void testRecordReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.valueAtPercentile(50));
+        histogram.record(-5);
+        histogram.record(1000);
+        assertEquals(2, histogram.count());
+        assertEquals(1000, histogram.max());
+        assertEquals(0, histogram.valueAtPercentile(0));
+        assertEquals(0, histogram.valueAtPercentile(50));
+        assertEquals(1000, histogram.valueAtPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.max());
+    }
+    
+    // Covers random values: percentiles within the precision of the exact ones.
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(6005);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 20);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[] { 1, 50, 90, 99, 99.9, 100 }) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long estimate = histogram.valueAtPercentile(percentile);
+            assertTrue(percentile + ": " + estimate + " vs " + exact,
+                    estimate >= exact && estimate <= exact + exact / LatencyHistogram.SUB_BUCKETS);
+        }
+        assertEquals(values[values.length - 1], histogram.max());
+    }
+    
+    // Covers percentile out of range.
+    @Test(expected=IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        new LatencyHistogram().valueAtPercentile(100.5);
+    }
+    
+}
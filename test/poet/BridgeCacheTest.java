@@ -0,0 +1,176 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for BridgeCache.
+ */
+public class BridgeCacheTest {
+    
+    // Testing strategy
+    //   BridgeCache(capacity)
+    //     capacity: 0, 1, > 1 with one segment, large enough for several segments
+    //   get(first, second)
+    //     pair: not cached, cached with a bridge, cached as NONE, pinned
+    //   put(first, second, bridge, version)
+    //     version: current, stale; recent entries: below capacity, at capacity (evicts LRU)
+    //   pin(first, second, bridge, version)
+    //     version: current, stale; pinned entries survive eviction
+    //   invalidate()
+    //     drops recent and pinned entries, makes older versions stale
+    //   invalidate(sources, targets)
+    //     entry: first in sources, second in targets, neither; recent, pinned
+    //   concurrent get, put and invalidate from several threads
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // Covers capacity 0.
+    @Test(expected=IllegalArgumentException.class)
+    public void testCapacityZero() {
+        new BridgeCache(0);
+    }
+    
+    // Covers not cached, cached with a bridge and as NONE, pair order matters.
+    @Test
+    public void testPutGet() {
+        BridgeCache cache = new BridgeCache(4);
+        assertEquals(BridgeCache.MISS, cache.get(1, 2));
+        cache.put(1, 2, 7, cache.version());
+        cache.put(2, 1, BridgeCache.NONE, cache.version());
+        assertEquals(7, cache.get(1, 2));
+        assertEquals(BridgeCache.NONE, cache.get(2, 1));
+        assertEquals(BridgeCache.MISS, cache.get(1, 1));
+        assertEquals(2, cache.size());
+    }
+    
+    // Covers capacity > 1 at capacity: the least recently used entry is evicted.
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        BridgeCache cache = new BridgeCache(2);
+        cache.put(0, 1, 10, cache.version());
+        cache.put(0, 2, 20, cache.version());
+        assertEquals(10, cache.get(0, 1));
+        cache.put(0, 3, 30, cache.version());
+        assertEquals(10, cache.get(0, 1));
+        assertEquals(BridgeCache.MISS, cache.get(0, 2));
+        assertEquals(30, cache.get(0, 3));
+    }
+    
+    // Covers capacity 1, pinned entries survive eviction.
+    @Test
+    public void testPinned() {
+        BridgeCache cache = new BridgeCache(1);
+        cache.pin(5, 6, 7, cache.version());
+        cache.put(0, 1, 10, cache.version());
+        cache.put(0, 2, 20, cache.version());
+        assertEquals(7, cache.get(5, 6));
+        assertEquals(BridgeCache.MISS, cache.get(0, 1));
+        assertEquals(2, cache.size());
+    }
+    
+    // Covers invalidate and stale versions for put and pin.
+    @Test
+    public void testInvalidate() {
+        BridgeCache cache = new BridgeCache(4);
+        long stale = cache.version();
+        cache.put(0, 1, 10, stale);
+        cache.pin(0, 2, 20, stale);
+        cache.invalidate();
+        assertEquals(0, cache.size());
+        cache.put(0, 1, 10, stale);
+        cache.pin(0, 2, 20, stale);
+        assertEquals(BridgeCache.MISS, cache.get(0, 1));
+        assertEquals(BridgeCache.MISS, cache.get(0, 2));
+        cache.put(0, 1, 11, cache.version());
+        assertEquals(11, cache.get(0, 1));
+    }
+    
+    // Covers selective invalidation of recent and pinned entries.
+    @Test
+    public void testInvalidateChangedEdges() {
+        BridgeCache cache = new BridgeCache(8);
+        cache.put(1, 2, 10, cache.version());
+        cache.put(3, 4, 11, cache.version());
+        cache.put(5, 6, 12, cache.version());
+        cache.pin(1, 6, 13, cache.version());
+        cache.pin(7, 8, 14, cache.version());
+        long stale = cache.version();
+        BitSet sources = new BitSet();
+        sources.set(1);
+        BitSet targets = new BitSet();
+        targets.set(4);
+        cache.invalidate(sources, targets);
+        assertEquals(BridgeCache.MISS, cache.get(1, 2));
+        assertEquals(BridgeCache.MISS, cache.get(3, 4));
+        assertEquals(BridgeCache.MISS, cache.get(1, 6));
+        assertEquals(12, cache.get(5, 6));
+        assertEquals(14, cache.get(7, 8));
+        cache.put(1, 2, 10, stale);
+        assertEquals(BridgeCache.MISS, cache.get(1, 2));
+    }
+    
+    // Covers a capacity split over several segments: the total never exceeds it.
+    @Test
+    public void testSegmented() {
+        int capacity = BridgeCache.MIN_SEGMENT_CAPACITY * 8 + 3;
+        BridgeCache cache = new BridgeCache(capacity);
+        assertEquals(capacity, cache.capacity());
+        for (int i = 0; i < capacity * 4; i++) {
+            cache.put(i, i + 1, i, cache.version());
+            assertEquals(i, cache.get(i, i + 1));
+        }
+        assertTrue(cache.size() <= capacity);
+        assertTrue(cache.size() > capacity / 2);
+        assertEquals(capacity * 4 - 1, cache.get(capacity * 4 - 1, capacity * 4));
+    }
+    
+    // Covers concurrent get, put and invalidate: a hit is always the value put for its pair.
+    @Test
+    public void testConcurrent() throws InterruptedException {
+        BridgeCache cache = new BridgeCache(BridgeCache.MIN_SEGMENT_CAPACITY * 4);
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int offset = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    int first = (i * 7 + offset) % 1500;
+                    int second = i % 3;
+                    int bridge = cache.get(first, second);
+                    if (bridge == BridgeCache.MISS) {
+                        cache.put(first, second, first + second, cache.version());
+                    } else if (bridge != first + second) {
+                        failure.compareAndSet(null, first + "," + second + " -> " + bridge);
+                    }
+                    if (offset == 0 && i % 1000 == 0) {
+                        cache.invalidate();
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertTrue(cache.size() <= cache.capacity());
+        cache.invalidate();
+        assertEquals(0, cache.size());
+    }
+    
+}
@@ -0,0 +1,180 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+/**
+ * Tests for CorpusCache.
+ */
+public class CorpusCacheTest {
+    
+    // Testing strategy
+    //   CorpusCache(directory, maxBytes)
+    //     directory: exists, does not exist; maxBytes: negative, 0, large
+    //   poet(corpus), poet(corpus, pool)
+    //     entry: absent (miss), present (hit), truncated, corrupt body or not a poet (stale, rebuilt)
+    //     corpus: same content in another file (hit), changed content (miss)
+    //     result: same poems as new GraphPoet(corpus)
+    //     eviction: none, least recently used entries, entry in use alone over the limit
+    //     append to a loaded poet: bigram across the end of the corpus counted
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    private static Path tempDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("cache");
+        directory.toFile().deleteOnExit();
+        return directory;
+    }
+    
+    private static File corpus(Path directory, String name, String text) throws IOException {
+        File file = directory.resolve(name).toFile();
+        file.deleteOnExit();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+    
+    private static List<Path> entries(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> entries = files.collect(Collectors.toList());
+            entries.forEach(entry -> entry.toFile().deleteOnExit());
+            return entries;
+        }
+    }
+    
+    // Covers negative maxBytes.
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeLimit() throws IOException {
+        new CorpusCache(tempDirectory(), -1);
+    }
+    
+    // Covers directory that does not exist, miss then hit, same content in another file,
+    // changed content, poems the same as the built poet.
+    @Test
+    public void testMissThenHit() throws IOException {
+        Path corpora = tempDirectory();
+        Path directory = corpora.resolve("cache");
+        CorpusCache cache = new CorpusCache(directory, Long.MAX_VALUE);
+        File corpus = corpus(corpora, "a.txt", "x two y x one y a b c");
+        
+        assertEquals("X two Y", cache.poet(corpus).poem("X Y"));
+        assertEquals(0, cache.hits());
+        assertEquals(1, cache.misses());
+        assertEquals(1, entries(directory).size());
+        
+        assertEquals("X two Y", cache.poet(corpus).poem("X Y"));
+        assertEquals("X two Y", cache.poet(corpus(corpora, "copy.txt", "x two y x one y a b c")).poem("X Y"));
+        assertEquals(2, cache.hits());
+        
+        Files.write(corpus.toPath(), "x one y x two y".getBytes(StandardCharsets.UTF_8));
+        assertEquals("X one Y", cache.poet(corpus, ForkJoinPool.commonPool()).poem("X Y"));
+        assertEquals(2, cache.misses());
+        assertEquals(2, entries(directory).size());
+    }
+    
+    // Covers truncated entry and entry that is not a poet: both rebuilt.
+    @Test
+    public void testStaleEntry() throws IOException {
+        Path directory = tempDirectory();
+        CorpusCache cache = new CorpusCache(directory, Long.MAX_VALUE);
+        File corpus = corpus(directory, "a.corpus", "a b c a d c a b c");
+        cache.poet(corpus);
+        Path entry = directory.resolve(CorpusCache.key(corpus) + ".poet");
+        
+        byte[] saved = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(saved, saved.length / 2));
+        assertEquals("A b C", cache.poet(corpus).poem("A C"));
+        assertEquals(2, cache.misses());
+        assertTrue(Arrays.equals(saved, Files.readAllBytes(entry)));
+        
+        Files.write(entry, "not a poet".getBytes(StandardCharsets.UTF_8));
+        assertEquals("A b C", cache.poet(corpus).poem("A C"));
+        assertEquals(3, cache.misses());
+        assertEquals(0, cache.hits());
+        assertEquals("A b C", cache.poet(corpus).poem("A C"));
+        assertEquals(1, cache.hits());
+    }
+    
+    // Covers entries of the right size with any one body byte flipped: each rebuilt.
+    @Test
+    public void testCorruptEntry() throws IOException {
+        Path directory = tempDirectory();
+        CorpusCache cache = new CorpusCache(directory, Long.MAX_VALUE);
+        File corpus = corpus(directory, "a.corpus", "a b c a d c a b c");
+        cache.poet(corpus);
+        Path entry = directory.resolve(CorpusCache.key(corpus) + ".poet");
+        byte[] saved = Files.readAllBytes(entry);
+        
+        // the header is 6 ints; flip each byte after it in turn
+        for (int i = 6 * Integer.BYTES; i < saved.length; i++) {
+            byte[] corrupt = saved.clone();
+            corrupt[i] ^= 0xFF;
+            Files.write(entry, corrupt);
+            assertEquals("A b C", cache.poet(corpus).poem("A C"));
+            assertTrue(Arrays.equals(saved, Files.readAllBytes(entry)));
+        }
+        assertEquals(0, cache.hits());
+        assertEquals(1 + saved.length - 6 * Integer.BYTES, cache.misses());
+    }
+    
+    // Covers eviction of the least recently used entries, entry in use over the limit.
+    @Test
+    public void testEviction() throws IOException {
+        Path corpora = tempDirectory();
+        Path directory = corpora.resolve("cache");
+        File first = corpus(corpora, "1.txt", "one fish two fish");
+        File second = corpus(corpora, "2.txt", "red fish blue fish");
+        File third = corpus(corpora, "3.txt", "this one has a little star");
+        
+        CorpusCache unlimited = new CorpusCache(directory, Long.MAX_VALUE);
+        unlimited.poet(first);
+        unlimited.poet(second);
+        Path firstEntry = directory.resolve(CorpusCache.key(first) + ".poet");
+        Path secondEntry = directory.resolve(CorpusCache.key(second) + ".poet");
+        Files.setLastModifiedTime(firstEntry, FileTime.fromMillis(2000));
+        Files.setLastModifiedTime(secondEntry, FileTime.fromMillis(1000));
+        File saved = corpus(corpora, "3.poet", "");
+        new GraphPoet(third).save(saved);
+        long limit = Files.size(firstEntry) + saved.length();
+        
+        CorpusCache cache = new CorpusCache(directory, limit);
+        cache.poet(third);
+        Path thirdEntry = directory.resolve(CorpusCache.key(third) + ".poet");
+        assertEquals(new HashSet<>(Arrays.asList(firstEntry, thirdEntry)), new HashSet<>(entries(directory)));
+        
+        CorpusCache empty = new CorpusCache(directory, 0);
+        assertEquals("One fish Two", empty.poet(corpus(corpora, "4.txt", "one fish two fish red")).poem("One Two"));
+        assertEquals(1, entries(directory).size());
+    }
+    
+    // Covers append to a poet loaded from the cache: it knows the end of its corpus.
+    @Test
+    public void testAppendToHit() throws IOException {
+        Path directory = tempDirectory();
+        CorpusCache cache = new CorpusCache(directory, Long.MAX_VALUE);
+        File corpus = corpus(directory, "a.txt", "x Y x y \n\n");
+        cache.poet(corpus);
+        GraphPoet poet = cache.poet(corpus);
+        assertEquals(1, cache.hits());
+        poet.append("z x");
+        assertEquals("Y z X", poet.poem("Y X"));
+    }
+    
+}
@@ -5,21 +5,401 @@ package poet;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.junit.Test;
 
+import graph.metrics.OperationMetrics;
+
 /**
  * Tests for GraphPoet.
  */
 public class GraphPoetTest {
     
     // Testing strategy
-    //   TODO
+    //   GraphPoet(corpus)
+    //     corpus: empty, one word, n words; mixed case; several spaces and newlines between words
+    //   GraphPoet(corpus, bufferSize)
+    //     bufferSize: too small, minimum, default
+    //     words and multi-byte characters split across buffer boundaries
+    //   GraphPoet(corpus, pool, shardSize)
+    //     shardSize: not positive, smaller than a word, several words, larger than corpus
+    //     corpus: empty, whitespace only, n words; shards that contain no words
+    //     result: same poems and tie-breaking as GraphPoet(corpus)
+    //   GraphPoet(corpus, bufferSize, bridgeCacheSize), GraphPoet(corpus, pool, shardSize, bridgeCacheSize),
+    //   load(file, bridgeCacheSize)
+    //     bridgeCacheSize: 0, 1, default; result: same poems as the default
+    //   precomputeBridges(n)
+    //     n: negative, 0, fewer than the edges, more than the edges
+    //     poet: built, loaded
+    //     poems: same before and after, repeated pairs answered from the cache
+    //   save(file), load(file)
+    //     corpus: empty, n words with ties; file: saved poet, not a saved poet
+    //     result: same poems and tie-breaking as the saved poet
+    //   append(text), append(file)
+    //     poet: built, empty, loaded (end of corpus unknown), loaded from a CorpusCache
+    //     text: empty, whitespace only, n words; bigram across the boundary
+    //     cached bridges: changed by the append, unchanged
+    //     concurrent poem() calls
+    //   poems(inputs), list and stream
+    //     inputs: empty, one, many with repeated word pairs and repeated inputs
+    //     result: in input order, each equal to poem(input)
+    //   poem(input)
+    //     input: empty, one word, n words
+    //     bridge: none, one, several candidates with different weights, tie
+    //     words of input in corpus: yes, no
+    //     case of input words: preserved; bridge words: lower case
+    //   metrics()
+    //     calls recorded: poem, poems, append, findBridge on cache misses only
+    //     registered with an MBeanServer: attributes readable by name
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
         assert false; // make sure assertions are enabled with VM argument: -ea
     }
     
-    // TODO tests
+    /**
+     * Write a corpus to a temporary file.
+     * @param text contents of the corpus
+     * @return the file, deleted when the VM exits
+     * @throws IOException if the file cannot be written
+     */
+    private static File corpus(String text) throws IOException {
+        File file = File.createTempFile("corpus", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+    
+    // Covers example corpus file, n words, one bridge, case preserved.
+    @Test
+    public void testMugarOmniTheater() throws IOException {
+        GraphPoet nimoy = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+        assertEquals("Test of the system.", nimoy.poem("Test the system."));
+    }
+    
+    // Covers empty corpus, empty input and one word input.
+    @Test
+    public void testEmptyCorpus() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus(""));
+        assertEquals("", poet.poem(""));
+        assertEquals("Hello", poet.poem("Hello"));
+        assertEquals("Hello world", poet.poem("Hello   world"));
+    }
+    
+    // Covers several candidates with different weights, mixed case corpus, newlines.
+    @Test
+    public void testHeaviestBridge() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("a B c\na d c\nA b C\n"));
+        assertEquals("A b C", poet.poem("A C"));
+    }
+    
+    // Covers tie between bridges: the word seen first in the corpus wins.
+    @Test
+    public void testTieBridge() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("x one y x two y"));
+        assertEquals("x one y", poet.poem("x y"));
+    }
+    
+    // Covers input words not in corpus and adjacent words with no bridge.
+    @Test
+    public void testNoBridge() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("to be or not to be"));
+        assertEquals("Hello be world", poet.poem("Hello be world"));
+        assertEquals("to be", poet.poem("to be"));
+        assertEquals("or not to", poet.poem("or to"));
+    }
+    
+    // Covers one word corpus.
+    @Test
+    public void testOneWordCorpus() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("  Hello\n"));
+        assertEquals("hello hello hello", new GraphPoet(corpus("hello hello")).poem("hello hello"));
+        assertEquals("Hello Hello", poet.poem("Hello Hello"));
+    }
+    
+    // Covers minimum buffer size, words and multi-byte characters across buffer boundaries.
+    @Test
+    public void testSmallBuffer() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append("gr\u00fc\u00dfe  \uD83D\uDE00caf\u00e9\u20ac \r\n\tw\u00f6rld ");
+        }
+        text.append("gr\u00fc\u00dfe \u00fcber \u00fcber w\u00f6rld");
+        File file = corpus(text.toString());
+        for (int size = GraphPoet.MIN_BUFFER_SIZE; size < GraphPoet.MIN_BUFFER_SIZE + 8; size++) {
+            GraphPoet poet = new GraphPoet(file, size);
+            assertEquals("Gr\u00fc\u00dfe \uD83D\uDE00caf\u00e9\u20ac W\u00f6rld",
+                    poet.poem("Gr\u00fc\u00dfe W\u00f6rld"));
+            assertEquals(new GraphPoet(file).toString(), poet.toString());
+        }
+    }
+    
+    // Covers buffer size too small.
+    @Test(expected=IllegalArgumentException.class)
+    public void testBufferTooSmall() throws IOException {
+        new GraphPoet(corpus("a b"), GraphPoet.MIN_BUFFER_SIZE - 1);
+    }
+    
+    /**
+     * Assert that two poets write the same poem for every pair of words of a corpus.
+     */
+    private static void assertSamePoems(String corpus, GraphPoet expected, GraphPoet actual) {
+        assertEquals(expected.toString(), actual.toString());
+        Set<String> vocabulary = new TreeSet<>(Arrays.asList(corpus.trim().split("\\s+")));
+        for (String first : vocabulary) {
+            for (String second : vocabulary) {
+                String input = first + " " + second;
+                assertEquals(input, expected.poem(input), actual.poem(input));
+            }
+        }
+    }
+    
+    // Covers shards smaller than a word, of several words and larger than the corpus,
+    // shards without words, ties broken the same way as the sequential build.
+    @Test
+    public void testParallel() throws IOException {
+        String text = "  x one y x two y\n\n\n  a B c\ta d c A b C  two y one    x\u00e9 two";
+        File file = corpus(text);
+        GraphPoet sequential = new GraphPoet(file);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (long shardSize : new long[] { 1, 2, 3, 5, 8, 13, 1000 }) {
+                assertSamePoems(text, sequential, new GraphPoet(file, pool, shardSize));
+            }
+            assertSamePoems(text, sequential, new GraphPoet(file, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    // Covers empty and whitespace only corpus in parallel.
+    @Test
+    public void testParallelEmpty() throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertEquals("A B", new GraphPoet(corpus(""), pool, 1).poem("A B"));
+            assertEquals("A B", new GraphPoet(corpus(" \n \n "), pool, 1).poem("A B"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    // Covers shard size not positive.
+    @Test(expected=IllegalArgumentException.class)
+    public void testParallelShardSizeZero() throws IOException {
+        new GraphPoet(corpus("a b"), ForkJoinPool.commonPool(), 0);
+    }
+    
+    // Covers a bridge cache of size 1 from each constructor and load: same poems as the default.
+    @Test
+    public void testBridgeCacheSize() throws IOException {
+        String text = "a b c a d c a b c x y z x y z q";
+        GraphPoet reference = new GraphPoet(corpus(text));
+        File file = corpus("");
+        reference.save(file);
+        assertSamePoems(text, reference, new GraphPoet(corpus(text), GraphPoet.DEFAULT_BUFFER_SIZE, 1));
+        assertSamePoems(text, reference, new GraphPoet(corpus(text), ForkJoinPool.commonPool(), 4, 1));
+        assertSamePoems(text, reference, GraphPoet.load(file, 1));
+    }
+    
+    // Covers bridgeCacheSize 0.
+    @Test(expected=IllegalArgumentException.class)
+    public void testBridgeCacheSizeZero() throws IOException {
+        new GraphPoet(corpus("a b"), GraphPoet.DEFAULT_BUFFER_SIZE, 0);
+    }
+    
+    // Covers precomputing 0, fewer than all and more than all edges; repeated pairs.
+    @Test
+    public void testPrecomputeBridges() throws IOException {
+        String text = "a b c a d c a b c x y z x y z q";
+        GraphPoet poet = new GraphPoet(corpus(text));
+        GraphPoet reference = new GraphPoet(corpus(text));
+        assertEquals(0, poet.precomputeBridges(0));
+        assertEquals("A b C x Y", poet.poem("A C x Y"));
+        assertEquals(2, poet.precomputeBridges(2));
+        assertSamePoems(text, reference, poet);
+        assertEquals(10, poet.precomputeBridges(100));
+        assertSamePoems(text, reference, poet);
+        assertEquals("A b C A b C", poet.poem("A C A C"));
+    }
+    
+    // Covers precomputing on a loaded poet, whose graph ids differ from its word ids.
+    @Test
+    public void testPrecomputeBridgesLoaded() throws IOException {
+        String text = "x two y x one y  a B c\ta d c A b C  two y one x\u00e9 two";
+        GraphPoet reference = new GraphPoet(corpus(text));
+        File file = corpus("");
+        reference.save(file);
+        GraphPoet poet = GraphPoet.load(file);
+        assertEquals(3, poet.precomputeBridges(3));
+        assertSamePoems(text, reference, poet);
+        assertEquals(15, poet.precomputeBridges(100));
+        assertSamePoems(text, reference, poet);
+    }
+    
+    // Covers n negative.
+    @Test(expected=IllegalArgumentException.class)
+    public void testPrecomputeBridgesNegative() throws IOException {
+        new GraphPoet(corpus("a b")).precomputeBridges(-1);
+    }
+    
+    // Covers empty and one input batches, list and stream.
+    @Test
+    public void testPoemsSmall() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
+        assertEquals(Collections.emptyList(), poet.poems(Collections.emptyList()));
+        assertEquals(Arrays.asList("Test of the system."),
+                poet.poems(Stream.of("Test the system.")));
+    }
+    
+    // Covers many inputs with repeated word pairs and inputs, in order.
+    @Test
+    public void testPoemsBatch() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus("a b c a d c a b c x y z x y z q  Empty"));
+        String[] lines = { "A C", "x z", "c a c", "", "unknown words", "q", "a c x z a c" };
+        List<String> inputs = IntStream.range(0, 500)
+                .mapToObj(i -> lines[(i * 7) % lines.length] + (i % 3 == 0 ? " x z" : ""))
+                .collect(Collectors.toList());
+        List<String> expected = inputs.stream().map(poet::poem).collect(Collectors.toList());
+        assertEquals(expected, poet.poems(inputs));
+        assertEquals(expected, poet.poems(inputs.stream()));
+        assertEquals(expected, new GraphPoet(corpus("a b c a d c a b c x y z x y z q  Empty")).poems(inputs));
+    }
+    
+    // Covers save and load of a corpus with ties and of an empty corpus.
+    @Test
+    public void testSaveLoad() throws IOException {
+        String text = "x two y x one y  a B c\ta d c A b C  two y one x\u00e9 two";
+        GraphPoet poet = new GraphPoet(corpus(text));
+        File file = corpus("");
+        poet.save(file);
+        assertSamePoems(text, poet, GraphPoet.load(file));
+        
+        new GraphPoet(corpus("")).save(file);
+        assertEquals("A B", GraphPoet.load(file).poem("A B"));
+    }
+    
+    // Covers loading a file that is not a saved poet.
+    @Test(expected=IOException.class)
+    public void testLoadNotSaved() throws IOException {
+        GraphPoet.load(corpus("a b c d e f g h i j k l m n o p q"));
+    }
+    
+    // Covers append to a built poet of text and of a file, bigram across the boundary,
+    // cached bridge changed by the append.
+    @Test
+    public void testAppend() throws IOException {
+        String first = "a b c a d c a d c";
+        String second = "x\ta b c a b c";
+        String third = " a b c x y x\n";
+        GraphPoet poet = new GraphPoet(corpus(first));
+        assertEquals("A d C", poet.poem("A C"));
+        
+        poet.append(second);
+        assertEquals("C x A", poet.poem("C A"));
+        assertSamePoems(first + second, new GraphPoet(corpus(first + "\n" + second)), poet);
+        
+        poet.append(corpus(third));
+        assertEquals("A b C", poet.poem("A C"));
+        assertSamePoems(first + second + third, new GraphPoet(corpus(first + "\n" + second + third)), poet);
+    }
+    
+    // Covers append to an empty poet, of empty and whitespace only text.
+    @Test
+    public void testAppendEmpty() throws IOException {
+        GraphPoet poet = new GraphPoet(corpus(""));
+        poet.append("");
+        poet.append(" \n ");
+        assertEquals("A B", poet.poem("A B"));
+        poet.append("a");
+        poet.append(corpus("x b"));
+        assertEquals("A x B", poet.poem("A B"));
+    }
+    
+    // Covers append to a loaded poet: no bigram across the boundary.
+    @Test
+    public void testAppendLoaded() throws IOException {
+        File file = corpus("");
+        new GraphPoet(corpus("x y x y")).save(file);
+        GraphPoet poet = GraphPoet.load(file);
+        poet.append("z x");
+        assertEquals("Y X", poet.poem("Y X"));
+        assertEquals("Z x Y", poet.poem("Z Y"));
+        assertEquals("GraphPoet with Graph contains 3 vertices and 3 edges", poet.toString());
+    }
+    
+    // Covers concurrent poem() calls while appending.
+    @Test
+    public void testAppendConcurrent() throws Exception {
+        GraphPoet poet = new GraphPoet(corpus("a d c"));
+        ExecutorService readers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Set<String>>> poems = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                poems.add(readers.submit(() -> {
+                    Set<String> seen = new HashSet<>();
+                    for (int j = 0; j < 2000; j++) {
+                        seen.add(poet.poem("A C"));
+                    }
+                    return seen;
+                }));
+            }
+            for (int i = 0; i < 500; i++) {
+                poet.append("a b c");
+            }
+            for (Future<Set<String>> seen : poems) {
+                assertTrue(Arrays.asList("A d C", "A b C").containsAll(seen.get()));
+            }
+        } finally {
+            readers.shutdown();
+        }
+        assertEquals("A b C", poet.poem("A C"));
+    }
+    
+    // Covers metrics of poem, poems, append and findBridge, registered with an MBeanServer.
+    @Test
+    public void testMetrics() throws Exception {
+        GraphPoet poet = new GraphPoet(corpus("a b c"));
+        assertEquals("A b C", poet.poem("A C"));
+        assertEquals("A b C", poet.poem("A C"));
+        assertEquals(Arrays.asList("x", "A b C"), poet.poems(Arrays.asList("x", "A C")));
+        poet.append("d e");
+        OperationMetrics poem = poet.metrics().get("poem");
+        assertEquals(2, poem.getCount());
+        assertEquals(10, poem.getTotalResultSize());
+        assertTrue(poem.getMaxLatencyNanos() > 0);
+        assertTrue(poem.getP50LatencyNanos() <= poem.getP99LatencyNanos());
+        assertEquals(1, poet.metrics().get("poems").getCount());
+        assertEquals(2, poet.metrics().get("poems").getTotalResultSize());
+        assertEquals(2, poet.metrics().get("append").getTotalResultSize());
+        // the second lookup of the same pair is answered from the cache
+        assertEquals(1, poet.metrics().get("findBridge").getCount());
+        
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("graph.metrics:type=\"GraphPoet\",name=\"test\",operation=\"poem\"");
+        poet.metrics().register(server, "GraphPoet", "test");
+        try {
+            assertEquals(2L, server.getAttribute(name, "Count"));
+        } finally {
+            poet.metrics().unregister();
+        }
+        assertFalse(server.isRegistered(name));
+    }
     
 }
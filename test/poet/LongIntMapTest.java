@@ -0,0 +1,93 @@
+/* Copyright (c) 2015-2016 MIT 6.005 course staff, all rights reserved.
+ * Redistribution of original or derived work requires permission of course staff.
+ */
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for LongIntMap.
+ */
+public class LongIntMapTest {
+    
+    /*
+     * Testing strategy for LongIntMap
+     *
+     * add()
+     *   key: new, present; negative, zero, using the high 32 bits
+     *   map: below and at the resize threshold
+     *   count: below Integer.MAX_VALUE, overflowing
+     * get()
+     *   key: present, absent
+     * forEach(), size()
+     *   map: empty, n entries
+     */
+    
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+    
+    // Covers empty map, absent key.
+    @Test
+    public void testEmpty() {
+        LongIntMap map = new LongIntMap();
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(0L));
+        assertEquals("{}", map.toString());
+    }
+    
+    // Covers new and present keys, negative and zero keys, keys using the high bits.
+    @Test
+    public void testAddGet() {
+        LongIntMap map = new LongIntMap();
+        assertEquals(1, map.add(-3L, 1));
+        assertEquals(2, map.add(0L, 2));
+        assertEquals(6, map.add(-3L, 5));
+        assertEquals(1, map.add(7L << 32, 1));
+        assertEquals(3, map.size());
+        assertEquals(6, map.get(-3L));
+        assertEquals(2, map.get(0L));
+        assertEquals(1, map.get(7L << 32));
+        assertEquals(0, map.get(7L));
+    }
+    
+    // Covers a count that overflows: the map is unchanged.
+    @Test
+    public void testAddOverflow() {
+        LongIntMap map = new LongIntMap();
+        map.add(1L, Integer.MAX_VALUE - 1);
+        assertEquals(Integer.MAX_VALUE, map.add(1L, 1));
+        try {
+            map.add(1L, 1);
+            fail("expected ArithmeticException");
+        } catch (ArithmeticException e) {
+            assertEquals(Integer.MAX_VALUE, map.get(1L));
+            assertEquals(1, map.size());
+        }
+    }
+    
+    // Covers resizing past the threshold, forEach over n entries, against a HashMap.
+    @Test
+    public void testRandomAdds() {
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(6005);
+        for (int i = 0; i < 20000; i++) {
+            long key = ((long) random.nextInt(50) << 32) | random.nextInt(50);
+            int delta = random.nextInt(10) + 1;
+            assertEquals((int) expected.merge(key, delta, Integer::sum), map.add(key, delta));
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(expected, seen);
+    }
+    
+}